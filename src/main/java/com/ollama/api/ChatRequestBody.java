@@ -0,0 +1,178 @@
+package com.ollama.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.ollama.api.codec.JsonCodec;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.Message;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Chat request body that is serialized while it is read.
+ *
+ * <p>The HTTP client pulls bytes from this stream as it writes
+ * the request. Each pull generates the next piece of JSON (the
+ * request header, one message, or the closing brackets) with
+ * Jackson's streaming generator into a small reused buffer. The
+ * full body never exists as a single {@code String} or
+ * {@code byte[]}, so memory per request is bounded by the
+ * largest single message instead of the conversation size.
+ *
+ * <p>Field names mirror the {@link ChatRequest} JSON
+ * properties and must be kept in sync with them.
+ *
+ * @since 1.1.0
+ */
+final class ChatRequestBody extends InputStream {
+
+    private final ChunkBuffer buffer = new ChunkBuffer();
+    private final JsonCodec codec;
+    private final ChatRequest request;
+    private final Iterator<Message> messages;
+    private JsonGenerator generator;
+    private boolean finished;
+    private OllamaEvents.Serialization event;
+    private long bytes;
+
+    /**
+     * Creates a body for the given request.
+     *
+     * @param codec the codec writing options and messages
+     * @param request the request to serialize
+     */
+    ChatRequestBody(JsonCodec codec, ChatRequest request) {
+        this.codec = codec;
+        this.request = request;
+        List<Message> list = request.getMessages();
+        this.messages = list == null
+            ? Collections.emptyIterator()
+            : list.iterator();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer.data[buffer.readPos++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len)
+            throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, buffer.available());
+        System.arraycopy(buffer.data, buffer.readPos, b, off, n);
+        buffer.readPos += n;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        if (generator != null) {
+            generator.close();
+        }
+    }
+
+    /**
+     * Generates the next piece of the body if the buffer has
+     * been drained.
+     *
+     * @return false once the whole body has been read
+     */
+    private boolean fill() throws IOException {
+        while (buffer.available() == 0) {
+            if (finished) {
+                return false;
+            }
+            buffer.reset();
+            writeNext();
+            generator.flush();
+            bytes += buffer.count;
+            if (finished) {
+                OllamaEvents.serialized(event, "chat",
+                    request.getModel(), bytes);
+            }
+        }
+        return true;
+    }
+
+    private void writeNext() throws IOException {
+        if (generator == null) {
+            event = OllamaEvents.serialization();
+            generator = codec.getFactory().createGenerator(buffer);
+            generator.writeStartObject();
+            generator.writeStringField("model",
+                request.getModel());
+            if (request.getStream() != null) {
+                generator.writeBooleanField("stream",
+                    request.getStream());
+            }
+            if (request.getOptions() != null) {
+                generator.writeFieldName("options");
+                codec.writeOptions(generator, request.getOptions());
+            }
+            if (request.getKeepAlive() != null) {
+                generator.writeStringField("keep_alive",
+                    request.getKeepAlive());
+            }
+            generator.writeArrayFieldStart("messages");
+        } else if (messages.hasNext()) {
+            codec.writeMessage(generator, messages.next());
+        } else {
+            generator.writeEndArray();
+            generator.writeEndObject();
+            finished = true;
+        }
+    }
+
+    /**
+     * Growable byte buffer that is rewound once drained.
+     */
+    private static final class ChunkBuffer extends OutputStream {
+        private byte[] data = new byte[8192];
+        private int count;
+        private int readPos;
+
+        int available() {
+            return count - readPos;
+        }
+
+        void reset() {
+            count = 0;
+            readPos = 0;
+        }
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(1);
+            data[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureCapacity(len);
+            System.arraycopy(b, off, data, count, len);
+            count += len;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (count + extra > data.length) {
+                byte[] grown = new byte[Math.max(
+                    data.length * 2, count + extra)];
+                System.arraycopy(data, 0, grown, 0, count);
+                data = grown;
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.ollama.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.ollama.api.codec.JsonCodec;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.Message;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A chat request whose fixed part has been serialized once.
+ *
+ * <p>The model, options and leading messages are encoded to
+ * bytes when the template is compiled. Each send serializes
+ * only the appended messages and hands the pre-encoded prefix
+ * to the HTTP client without copying it.
+ *
+ * <p>Instances are immutable and safe to share between
+ * threads. Create them with
+ * {@link OllamaClient#compileTemplate(ChatRequest)}.
+ *
+ * @since 1.1.0
+ */
+public final class ChatTemplate {
+
+    private static final byte[] COMMA = {','};
+    private static final byte[] STREAM_SUFFIX =
+        "],\"stream\":true}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NO_STREAM_SUFFIX =
+        "],\"stream\":false}".getBytes(StandardCharsets.UTF_8);
+
+    private final String model;
+    private final String tenant;
+    private final byte[] prefix;
+    private final boolean hasFixedMessages;
+    private final JsonCodec codec;
+
+    private ChatTemplate(String model, String tenant, byte[] prefix,
+            boolean hasFixedMessages, JsonCodec codec) {
+        this.model = model;
+        this.tenant = tenant;
+        this.prefix = prefix;
+        this.hasFixedMessages = hasFixedMessages;
+        this.codec = codec;
+    }
+
+    /**
+     * Serializes the fixed part of a request.
+     *
+     * <p>The prefix ends inside the open {@code messages}
+     * array, so appended messages are written after it and the
+     * {@code stream} flag is supplied by the suffix.
+     *
+     * @param codec the codec used for serialization
+     * @param request the request holding the fixed part
+     * @return the compiled template
+     * @throws IOException if serialization fails
+     */
+    static ChatTemplate compile(JsonCodec codec,
+            ChatRequest request) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonGenerator generator = codec.getFactory()
+            .createGenerator(out);
+        generator.writeStartObject();
+        generator.writeStringField("model", request.getModel());
+        if (request.getOptions() != null) {
+            generator.writeFieldName("options");
+            codec.writeOptions(generator, request.getOptions());
+        }
+        if (request.getKeepAlive() != null) {
+            generator.writeStringField("keep_alive",
+                request.getKeepAlive());
+        }
+        generator.writeArrayFieldStart("messages");
+        List<Message> messages = request.getMessages();
+        if (messages != null) {
+            for (Message message : messages) {
+                codec.writeMessage(generator, message);
+            }
+        }
+        // Flush without closing: closing would end the array
+        generator.flush();
+
+        return new ChatTemplate(request.getModel(),
+            request.getTenant(), out.toByteArray(),
+            messages != null && !messages.isEmpty(),
+            codec);
+    }
+
+    /**
+     * Gets the model name of the template.
+     *
+     * @return the model name
+     */
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * Gets the tenant that requests built from the template are
+     * charged to.
+     *
+     * @return the tenant of the prefix request
+     */
+    public String getTenant() {
+        return tenant;
+    }
+
+    /**
+     * Gets the size of the pre-encoded prefix.
+     *
+     * @return the prefix length in bytes
+     */
+    public int getPrefixLength() {
+        return prefix.length;
+    }
+
+    /**
+     * Creates a request body with the given messages appended.
+     *
+     * @param messages the variable messages
+     * @param stream whether the response is streamed
+     * @return a body publisher over the encoded chunks
+     * @throws IOException if a message cannot be serialized
+     */
+    HttpRequest.BodyPublisher bodyPublisher(
+            List<Message> messages, boolean stream)
+            throws IOException {
+        OllamaEvents.Serialization event =
+            OllamaEvents.serialization();
+        List<byte[]> chunks =
+            new ArrayList<>(messages.size() * 2 + 2);
+        chunks.add(prefix);
+        boolean needsComma = hasFixedMessages;
+        for (Message message : messages) {
+            if (needsComma) {
+                chunks.add(COMMA);
+            }
+            chunks.add(encode(message));
+            needsComma = true;
+        }
+        chunks.add(stream ? STREAM_SUFFIX : NO_STREAM_SUFFIX);
+        if (event != null) {
+            long bytes = 0;
+            for (byte[] chunk : chunks) {
+                bytes += chunk.length;
+            }
+            OllamaEvents.serialized(event, "chat", model, bytes);
+        }
+        return HttpRequest.BodyPublishers.ofByteArrays(chunks);
+    }
+
+    private byte[] encode(Message message) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = codec.getFactory()
+                .createGenerator(out)) {
+            codec.writeMessage(generator, message);
+        }
+        return out.toByteArray();
+    }
+}
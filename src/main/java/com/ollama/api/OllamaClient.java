@@ -1,21 +1,52 @@
 package com.ollama.api;
 
-import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ollama.api.codec.JacksonJsonCodec;
+import com.ollama.api.codec.JsonCodec;
+import com.ollama.api.codec.StreamingJsonCodec;
 import com.ollama.api.dto.ChatRequest;
 import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.dto.GenerateRequest;
+import com.ollama.api.dto.GenerateResponse;
+import com.ollama.api.dto.Message;
 import com.ollama.api.dto.Model;
 import com.ollama.api.dto.ModelsResponse;
 import com.ollama.api.exception.OllamaException;
+import com.ollama.api.exception.OllamaTimeoutException;
+import com.ollama.api.metrics.MetricsRegistry;
+import com.ollama.api.metrics.RequestMetrics;
+import com.ollama.api.metrics.RequestTiming;
+import com.ollama.api.ratelimit.ConcurrencyLimiter;
+import com.ollama.api.usage.UsageLedger;
+import com.ollama.api.util.SpscRingBuffer;
+import com.ollama.api.util.StopSequenceMatcher;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,10 +64,28 @@ public class OllamaClient {
 
   private static final String DEFAULT_BASE_URL = "http://localhost:11434";
   private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(60);
+  private static final Duration DEFAULT_FIRST_TOKEN_TIMEOUT = Duration.ofMinutes(5);
+  private static final Duration DEFAULT_INTER_TOKEN_TIMEOUT = Duration.ofSeconds(60);
+  private static final String BLACKBIRD_MODULE =
+      "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
 
   private final String baseUrl;
   private final HttpClient httpClient;
-  private final ObjectMapper objectMapper;
+  private final JsonCodec codec;
+  private final Duration requestTimeout;
+  private final Duration firstTokenTimeout;
+  private final Duration interTokenTimeout;
+  private final int streamBufferCapacity;
+  private final SpscRingBuffer.WaitStrategy streamWaitStrategy;
+  private final StreamBufferStats.Accumulator streamBufferStats =
+      new StreamBufferStats.Accumulator();
+  private final StreamWatchdog watchdog = StreamWatchdog.shared();
+  private final MetricsRegistry metrics;
+  private final Consumer<RequestTiming> timingListener;
+  private final double timingSampleRate;
+  private final UsageLedger usageLedger;
+  private final ConcurrencyLimiter concurrencyLimiter;
+
   /** Creates a new Ollama client with default settings. Uses localhost:11434 as the default Ollama server. */
   public OllamaClient() {
     this(DEFAULT_BASE_URL);
@@ -48,13 +97,94 @@ public class OllamaClient {
    * @param baseUrl the Ollama server base URL
    */
   public OllamaClient(String baseUrl) {
-    this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
-    this.httpClient = HttpClient.newBuilder().connectTimeout(DEFAULT_TIMEOUT).build();
-    this.objectMapper = new ObjectMapper();
+    this(baseUrl, new StreamingJsonCodec());
+  }
+
+  /**
+   * Creates a new Ollama client that shares an existing object mapper.
+   *
+   * <p>The mapper should tolerate unknown properties, since Ollama adds response fields
+   * between releases. See {@link #defaultObjectMapper()} for the recommended configuration.
+   *
+   * @param baseUrl the Ollama server base URL
+   * @param objectMapper the mapper used for all JSON processing
+   * @since 1.1.0
+   */
+  public OllamaClient(String baseUrl, ObjectMapper objectMapper) {
+    this(baseUrl, new JacksonJsonCodec(objectMapper));
+  }
+
+  /**
+   * Creates a new Ollama client with a custom JSON codec.
+   *
+   * @param baseUrl the Ollama server base URL
+   * @param codec the codec used for all JSON processing
+   * @since 1.1.0
+   */
+  public OllamaClient(String baseUrl, JsonCodec codec) {
+    this(builder().baseUrl(baseUrl).codec(codec));
+  }
+
+  private OllamaClient(Builder builder) {
+    this.baseUrl =
+        builder.baseUrl.endsWith("/")
+            ? builder.baseUrl.substring(0, builder.baseUrl.length() - 1)
+            : builder.baseUrl;
+    this.httpClient = HttpClient.newBuilder().connectTimeout(builder.connectTimeout).build();
+    this.codec = builder.codec != null ? builder.codec : new StreamingJsonCodec();
+    this.requestTimeout = builder.requestTimeout;
+    this.firstTokenTimeout = builder.firstTokenTimeout;
+    this.interTokenTimeout = builder.interTokenTimeout;
+    this.streamBufferCapacity = builder.streamBufferCapacity;
+    this.streamWaitStrategy = builder.streamWaitStrategy;
+    this.metrics = builder.metrics != null ? builder.metrics : new MetricsRegistry();
+    this.timingListener = builder.timingListener;
+    this.timingSampleRate = builder.timingSampleRate;
+    this.usageLedger = builder.usageLedger;
+    this.concurrencyLimiter = builder.concurrencyLimiter;
+    if (concurrencyLimiter != null) {
+      concurrencyLimiter.bindMetrics(metrics);
+    }
 
     logger.info("Initialized Ollama client with URL: {}", this.baseUrl);
   }
 
+  /**
+   * Creates a builder for a client with non-default settings.
+   *
+   * @return a new builder
+   * @since 1.1.0
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Creates an object mapper tuned for the Ollama API, for use with
+   * {@link #OllamaClient(String, ObjectMapper)}.
+   *
+   * <p>Unknown response properties are ignored. When {@code jackson-module-blackbird} is on
+   * the classpath it is registered to replace reflective property access with generated
+   * lambdas.
+   *
+   * @return a new configured mapper
+   * @since 1.1.0
+   */
+  public static ObjectMapper defaultObjectMapper() {
+    ObjectMapper mapper =
+        new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    try {
+      Class<?> moduleClass = Class.forName(BLACKBIRD_MODULE);
+      mapper.registerModule((Module) moduleClass.getDeclaredConstructor().newInstance());
+      logger.debug("Registered Jackson Blackbird module");
+    } catch (ClassNotFoundException e) {
+      logger.debug("Jackson Blackbird module not available, using reflection");
+    } catch (ReflectiveOperationException | LinkageError e) {
+      logger.warn("Failed to register Jackson Blackbird module", e);
+    }
+    return mapper;
+  }
+
   /**
    * Sends a chat completion request.
    *
@@ -65,93 +195,774 @@ public class OllamaClient {
   public ChatResponse chat(ChatRequest request) throws OllamaException {
     logger.debug("Sending chat request for model: {}", request.getModel());
 
+    // Ollama streams by default; request a single response object
+    request.setStream(false);
+
+    return sendChat(request.getTenant(), request.getModel(), () -> streamingBody(request));
+  }
+
+  /**
+   * Sends a chat completion request built from a compiled template.
+   *
+   * <p>Only the variable messages are serialized; the template prefix is sent as-is.
+   *
+   * @param template the compiled request template
+   * @param messages the messages appended after the template messages
+   * @return the chat response
+   * @throws OllamaException if the request fails
+   * @since 1.1.0
+   */
+  public ChatResponse chat(ChatTemplate template, Message... messages)
+      throws OllamaException {
+    logger.debug("Sending templated chat request for model: {}", template.getModel());
+
+    return sendChat(
+        template.getTenant(),
+        template.getModel(),
+        () -> template.bodyPublisher(Arrays.asList(messages), false));
+  }
+
+  /**
+   * Sends a streaming chat completion request.
+   *
+   * @param request the chat request
+   * @param callback function to handle each response chunk
+   * @throws OllamaException if the request fails
+   */
+  public void chatStream(ChatRequest request, Consumer<ChatResponse> callback)
+      throws OllamaException {
+    logger.debug("Sending streaming chat request for model: {}", request.getModel());
+
+    // Enable streaming for this request
+    request.setStream(true);
+
+    sendChatStream(
+        request.getTenant(),
+        request.getModel(),
+        () -> streamingBody(request),
+        continueWith(callback),
+        null);
+  }
+
+  /**
+   * Sends a streaming chat completion request built from a compiled template.
+   *
+   * @param template the compiled request template
+   * @param messages the messages appended after the template messages
+   * @param callback function to handle each response chunk
+   * @throws OllamaException if the request fails
+   * @since 1.1.0
+   */
+  public void chatStream(
+      ChatTemplate template, List<Message> messages, Consumer<ChatResponse> callback)
+      throws OllamaException {
+    logger.debug(
+        "Sending templated streaming chat request for model: {}", template.getModel());
+
+    sendChatStream(
+        template.getTenant(),
+        template.getModel(),
+        () -> template.bodyPublisher(messages, true),
+        continueWith(callback),
+        null);
+  }
+
+  /**
+   * Sends a streaming chat completion request that the caller can stop early.
+   *
+   * <p>The handler is called for each chunk. Once it returns false the connection is closed
+   * and the server stops generating, so no further tokens are paid for.
+   *
+   * @param request the chat request
+   * @param handler receives each chunk and returns false to cancel the stream
+   * @throws OllamaException if the request fails
+   * @since 1.1.0
+   */
+  public void chatStreamWhile(ChatRequest request, Predicate<ChatResponse> handler)
+      throws OllamaException {
+    logger.debug("Sending cancellable streaming chat request for model: {}", request.getModel());
+
+    request.setStream(true);
+
+    sendChatStream(
+        request.getTenant(), request.getModel(), () -> streamingBody(request), handler, null);
+  }
+
+  /**
+   * Sends a streaming chat completion request that the caller can stop early, from the
+   * handler or from another thread.
+   *
+   * <p>Cancelling closes the connection at once, even while waiting for the response or
+   * for the next chunk, and this method then returns normally. Like a handler returning
+   * false, a cancel is not counted as a failed request.
+   *
+   * @param request the chat request
+   * @param handler receives each chunk and returns false to cancel the stream
+   * @param cancellation cancels the stream from any thread
+   * @throws OllamaException if the request fails
+   * @since 1.1.0
+   */
+  public void chatStreamWhile(
+      ChatRequest request, Predicate<ChatResponse> handler, StreamCancellation cancellation)
+      throws OllamaException {
+    Objects.requireNonNull(cancellation, "cancellation");
+    if (cancellation.isCancelled()) {
+      return;
+    }
+    logger.debug("Sending cancellable streaming chat request for model: {}", request.getModel());
+
+    request.setStream(true);
+
+    sendChatStream(
+        request.getTenant(),
+        request.getModel(),
+        () -> streamingBody(request),
+        chunk -> !cancellation.isCancelled() && handler.test(chunk),
+        cancellation);
+  }
+
+  /**
+   * Sends a streaming chat completion request that stops at client-side stop sequences.
+   *
+   * <p>Unlike {@link com.ollama.api.dto.Options#setStop(List) server stop sequences}, the
+   * patterns may be anything the caller needs, such as custom delimiters. As soon as one
+   * appears the connection is closed. The callback only receives text before the match:
+   * text that could still be the start of a stop sequence is held back until it is known
+   * not to be. The chunk that completes a match is delivered with {@code done} set and
+   * {@code done_reason} {@code "stop"}; it carries no server statistics.
+   *
+   * @param request the chat request
+   * @param stopSequences the compiled stop sequences
+   * @param callback function to handle each response chunk
+   * @return the generated text, cut before the first stop sequence
+   * @throws OllamaException if the request fails
+   * @since 1.1.0
+   */
+  public String chatStream(
+      ChatRequest request, StopSequenceMatcher stopSequences, Consumer<ChatResponse> callback)
+      throws OllamaException {
+    StopSequenceMatcher.Scanner scanner = stopSequences.scanner();
+    int[] emitted = new int[1];
+    chatStreamWhile(
+        request,
+        chunk -> {
+          Message message = chunk.getMessage();
+          boolean matched = scanner.append(message == null ? null : message.getContent());
+          boolean last = matched || Boolean.TRUE.equals(chunk.getDone());
+          int end = last ? scanner.length() : scanner.getSafeLength();
+          if (message != null) {
+            message.setContent(scanner.substring(emitted[0], end));
+            emitted[0] = end;
+          }
+          if (matched) {
+            chunk.setDone(true);
+            chunk.setDoneReason("stop");
+          }
+          callback.accept(chunk);
+          return !matched;
+        });
+    return scanner.getText();
+  }
+
+  /**
+   * Compiles a request template whose model, options and messages are serialized once.
+   *
+   * <p>Use it when many requests share a large fixed prefix (system prompt, few-shot
+   * examples) and differ only in the trailing messages.
+   *
+   * @param prefix the request holding the fixed model, options and messages
+   * @return the compiled template
+   * @throws OllamaException if the prefix cannot be serialized
+   * @since 1.1.0
+   */
+  public ChatTemplate compileTemplate(ChatRequest prefix) throws OllamaException {
     try {
-      String jsonRequest = objectMapper.writeValueAsString(request);
+      return ChatTemplate.compile(codec, prefix);
+    } catch (IOException e) {
+      throw new OllamaException("Failed to compile chat template", e);
+    }
+  }
+
+  /**
+   * Sends a completion request to {@code /api/generate}.
+   *
+   * <p>The returned {@link GenerateResponse#getContext() context} can be passed to the next
+   * request to continue without re-evaluating the prompt. See {@link
+   * com.ollama.api.util.ContextTokens} for a compact stored form.
+   *
+   * @param request the completion request
+   * @return the completion response
+   * @throws OllamaException if the request fails
+   * @since 1.1.0
+   */
+  public GenerateResponse generate(GenerateRequest request) throws OllamaException {
+    logger.debug("Sending generate request for model: {}", request.getModel());
+
+    request.setStream(false);
+
+    return send(
+        request.getTenant(),
+        request.getModel(),
+        "/api/generate",
+        () -> generateBody(request),
+        codec::readGenerateResponse,
+        "Generate request");
+  }
+
+  /**
+   * Sends a streaming completion request to {@code /api/generate}. The context is carried
+   * by the final chunk.
+   *
+   * @param request the completion request
+   * @param callback function to handle each response chunk
+   * @throws OllamaException if the request fails
+   * @since 1.1.0
+   */
+  public void generateStream(GenerateRequest request, Consumer<GenerateResponse> callback)
+      throws OllamaException {
+    logger.debug("Sending streaming generate request for model: {}", request.getModel());
+
+    request.setStream(true);
+
+    sendStream(
+        request.getTenant(),
+        request.getModel(),
+        "/api/generate",
+        () -> generateBody(request),
+        codec::readGenerateResponse,
+        continueWith(callback),
+        response -> Boolean.TRUE.equals(response.getDone()),
+        null,
+        "Streaming generate request");
+  }
 
+  private HttpRequest.BodyPublisher generateBody(GenerateRequest request)
+      throws OllamaException {
+    OllamaEvents.Serialization event = OllamaEvents.serialization();
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    try (JsonGenerator generator = codec.getFactory().createGenerator(body)) {
+      codec.writeGenerateRequest(generator, request);
+    } catch (IOException e) {
+      throw new OllamaException("Failed to serialize generate request", e);
+    }
+    OllamaEvents.serialized(event, "generate", request.getModel(), body.size());
+    return HttpRequest.BodyPublishers.ofByteArray(body.toByteArray());
+  }
+
+  /**
+   * Creates a body that is serialized as the HTTP client writes it, so large histories are
+   * never materialized as one string.
+   */
+  private HttpRequest.BodyPublisher streamingBody(ChatRequest request) {
+    return HttpRequest.BodyPublishers.ofInputStream(
+        () -> new ChatRequestBody(codec, request));
+  }
+
+  private ChatResponse sendChat(String tenant, String model, BodySource body)
+      throws OllamaException {
+    return send(tenant, model, "/api/chat", body, codec::readChatResponse, "Chat request");
+  }
+
+  private void sendChatStream(
+      String tenant,
+      String model,
+      BodySource body,
+      Predicate<ChatResponse> handler,
+      StreamCancellation cancellation)
+      throws OllamaException {
+    sendStream(
+        tenant,
+        model,
+        "/api/chat",
+        body,
+        codec::readChatResponse,
+        handler,
+        response -> Boolean.TRUE.equals(response.getDone()),
+        cancellation,
+        "Streaming chat request");
+  }
+
+  /**
+   * Posts a JSON body and decodes the single JSON response.
+   *
+   * @param tenant the tenant charged for the request
+   * @param model the model, for metrics
+   * @param path the API path
+   * @param body creates the request body
+   * @param reader the response decoder
+   * @param operation the operation name used in error messages
+   * @return the decoded response
+   * @throws OllamaException if the request fails
+   */
+  private <T> T send(
+      String tenant,
+      String model,
+      String path,
+      BodySource body,
+      ResponseReader<T> reader,
+      String operation)
+      throws OllamaException {
+    checkQuota(tenant);
+    return measure(
+        path,
+        tenant,
+        model,
+        acquire(path),
+        timer -> {
+          T response = exchange(path, body, reader, timer, operation);
+          timer.complete(response);
+          return response;
+        });
+  }
+
+  private <T> T exchange(
+      String path,
+      BodySource body,
+      ResponseReader<T> reader,
+      RequestTimer timer,
+      String operation)
+      throws OllamaException {
+    try {
       HttpRequest httpRequest =
           HttpRequest.newBuilder()
-              .uri(URI.create(baseUrl + "/api/chat"))
+              .uri(URI.create(baseUrl + path))
               .header("Content-Type", "application/json")
-              .timeout(DEFAULT_TIMEOUT)
-              .POST(HttpRequest.BodyPublishers.ofString(jsonRequest))
+              .timeout(requestTimeout)
+              .POST(open(body, timer))
               .build();
 
-      HttpResponse<String> response =
-          httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+      HttpResponse<byte[]> response =
+          httpClient.send(httpRequest, timer.track(HttpResponse.BodyHandlers.ofByteArray()));
+      timer.body(response.body().length);
 
       if (response.statusCode() != 200) {
         throw new OllamaException(
-            "Chat request failed: " + response.body(), response.statusCode());
+            operation + " failed: " + new String(response.body(), StandardCharsets.UTF_8),
+            response.statusCode());
       }
 
-      return objectMapper.readValue(response.body(), ChatResponse.class);
+      try (JsonParser parser = codec.getFactory().createParser(response.body())) {
+        return reader.read(parser);
+      }
 
     } catch (IOException | InterruptedException e) {
-      throw new OllamaException("Failed to send chat request", e);
+      throw new OllamaException("Failed to send " + operation.toLowerCase(), e);
     }
   }
 
   /**
-   * Sends a streaming chat completion request.
+   * Posts a JSON body and decodes the newline-delimited JSON response stream as it arrives.
    *
-   * @param request the chat request
-   * @param callback function to handle each response chunk
+   * <p>When the handler returns false the response body is closed before the server has
+   * finished. The connection is dropped and Ollama stops generating. The same happens when
+   * the first chunk or the next chunk does not arrive in time.
+   *
+   * @param tenant the tenant charged for the request
+   * @param model the model, for metrics
+   * @param path the API path
+   * @param body creates the request body
+   * @param reader the chunk decoder
+   * @param handler receives each decoded chunk and returns false to cancel the stream
+   * @param done tells whether a chunk is the last one
+   * @param cancellation cancels the stream from another thread, or null
+   * @param operation the operation name used in error messages
+   * @throws OllamaTimeoutException if a chunk does not arrive in time
    * @throws OllamaException if the request fails
    */
-  public void chatStream(ChatRequest request, Consumer<ChatResponse> callback)
+  private <T> void sendStream(
+      String tenant,
+      String model,
+      String path,
+      BodySource body,
+      ResponseReader<T> reader,
+      Predicate<T> handler,
+      Predicate<T> done,
+      StreamCancellation cancellation,
+      String operation)
       throws OllamaException {
-    logger.debug("Sending streaming chat request for model: {}", request.getModel());
-
-    // Enable streaming for this request
-    request.setStream(true);
+    checkQuota(tenant);
+    measure(
+        path,
+        tenant,
+        model,
+        acquire(path),
+        timer -> {
+          exchangeStream(path, body, reader, handler, done, cancellation, timer, operation);
+          return null;
+        });
+  }
 
+  private <T> void exchangeStream(
+      String path,
+      BodySource body,
+      ResponseReader<T> reader,
+      Predicate<T> handler,
+      Predicate<T> done,
+      StreamCancellation cancellation,
+      RequestTimer timer,
+      String operation)
+      throws OllamaException {
+    HttpRequest httpRequest;
     try {
-      String jsonRequest = objectMapper.writeValueAsString(request);
-
-      HttpRequest httpRequest =
+      httpRequest =
           HttpRequest.newBuilder()
-              .uri(URI.create(baseUrl + "/api/chat"))
+              .uri(URI.create(baseUrl + path))
               .header("Content-Type", "application/json")
-              .timeout(Duration.ofMinutes(5))
-              .POST(HttpRequest.BodyPublishers.ofString(jsonRequest))
-                .build();
-            
-            HttpResponse<String> response = httpClient
-                .send(httpRequest, HttpResponse.BodyHandlers
-                    .ofString());
-            
-            if (response.statusCode() != 200) {
-                throw new OllamaException(
-                    "Streaming chat request failed: " + 
-                    response.body(), response.statusCode());
-            }
-            
-            // Parse each line as a separate JSON response
-            String[] lines = response.body().split("\n");
-            for (String line : lines) {
-                if (!line.trim().isEmpty()) {
-                    try {
-                        ChatResponse chatResponse = objectMapper
-                            .readValue(line, ChatResponse.class);
-                        callback.accept(chatResponse);
-                        
-                        if (Boolean.TRUE.equals(chatResponse
-                                .getDone())) {
-                            break;
-                        }
-                    } catch (IOException e) {
-                        logger.warn("Failed to parse response line: {}", 
-                            line, e);
-                    }
-                }
-            }
-            
-        } catch (IOException | InterruptedException e) {
-            throw new OllamaException(
-                "Failed to send streaming chat request", e);
+              .POST(open(body, timer))
+              .build();
+    } catch (IOException e) {
+      throw new OllamaException("Failed to send " + operation.toLowerCase(), e);
+    }
+
+    CompletableFuture<HttpResponse<InputStream>> exchange =
+        httpClient.sendAsync(httpRequest, timer.track(HttpResponse.BodyHandlers.ofInputStream()));
+    StreamAbort abort = new StreamAbort(exchange);
+    StreamWatchdog.Watch watch = watchdog.watch(firstTokenTimeout.toNanos(), abort);
+    if (cancellation != null) {
+      cancellation.bind(abort);
+    }
+    try {
+      HttpResponse<InputStream> response = exchange.get();
+
+      try (InputStream in = abort.attach(response.body())) {
+        if (response.statusCode() != 200) {
+          throw new OllamaException(
+              operation + " failed: " + new String(in.readAllBytes(), StandardCharsets.UTF_8),
+              response.statusCode());
         }
+
+        if (streamBufferCapacity > 0) {
+          readChunksDecoupled(in, reader, handler, done, watch, timer, abort, operation);
+        } else {
+          readChunks(in, reader, handler, done, watch, timer, operation);
+        }
+      }
+
+    } catch (IOException | ExecutionException | CancellationException e) {
+      if (cancellation != null && cancellation.isCancelled()) {
+        logger.debug("{} cancelled by the caller", operation);
+        return;
+      }
+      if (watch.isExpired()) {
+        throw timeout(operation, !watch.hasProgress());
+      }
+      Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+      throw new OllamaException("Failed to send " + operation.toLowerCase(), cause);
+    } catch (InterruptedException e) {
+      exchange.cancel(true);
+      throw new OllamaException("Failed to send " + operation.toLowerCase(), e);
+    } finally {
+      watch.cancel();
     }
-    
+  }
+
+  /**
+   * Decodes chunks from a response body and passes them to a sink until the last chunk, the
+   * end of the body, or the sink returns false.
+   */
+  private <T> void readChunks(
+      InputStream in,
+      ResponseReader<T> reader,
+      Predicate<T> sink,
+      Predicate<T> done,
+      StreamWatchdog.Watch watch,
+      RequestTimer timer,
+      String operation)
+      throws IOException {
+    BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    String line;
+    while ((line = lines.readLine()) != null) {
+      if (line.isBlank()) {
+        continue;
+      }
+      timer.chunk(line.length());
+      T chunk;
+      try (JsonParser parser = codec.getFactory().createParser(line)) {
+        chunk = reader.read(parser);
+      } catch (IOException e) {
+        logger.warn("Failed to parse response line: {}", line, e);
+        continue;
+      }
+      timer.decoded();
+      if (done.test(chunk)) {
+        timer.complete(chunk);
+      }
+      // Time spent in the sink does not count as idle time
+      watch.pause();
+      if (!sink.test(chunk)) {
+        logger.debug("{} cancelled by the caller", operation);
+        return;
+      }
+      if (done.test(chunk)) {
+        // Read the end of the body so the connection can be reused, but only for as long as
+        // a chunk may take: a body kept open after the last chunk gets its connection closed
+        watch.touch(interTokenTimeout.toNanos());
+        try {
+          lines.transferTo(Writer.nullWriter());
+        } catch (IOException e) {
+          logger.debug("{} dropped its connection after the last chunk", operation, e);
+        }
+        return;
+      }
+      watch.touch(interTokenTimeout.toNanos());
+    }
+  }
+
+  /**
+   * Reads chunks on a dedicated thread into a ring buffer that the calling thread drains, so
+   * a slow handler never stalls the socket read.
+   */
+  private <T> void readChunksDecoupled(
+      InputStream in,
+      ResponseReader<T> reader,
+      Predicate<T> handler,
+      Predicate<T> done,
+      StreamWatchdog.Watch watch,
+      RequestTimer timer,
+      StreamAbort abort,
+      String operation)
+      throws IOException, InterruptedException {
+    SpscRingBuffer<T> ring = new SpscRingBuffer<>(streamBufferCapacity, streamWaitStrategy);
+    Throwable[] failure = new Throwable[1];
+    // A spinning reader would hold the carrier of a virtual thread
+    Thread.Builder threads =
+        streamWaitStrategy == SpscRingBuffer.WaitStrategy.BUSY_SPIN
+            ? Thread.ofPlatform().daemon()
+            : Thread.ofVirtual();
+    Thread readerThread =
+        threads
+            .name("ollama-stream-reader")
+            .start(
+                () -> {
+                  try {
+                    readChunks(in, reader, chunk -> put(ring, chunk), done, watch, timer, operation);
+                  } catch (Throwable t) {
+                    failure[0] = t;
+                  } finally {
+                    ring.close();
+                  }
+                });
+
+    try {
+      T chunk;
+      while ((chunk = ring.take()) != null) {
+        if (!handler.test(chunk)) {
+          logger.debug("{} cancelled by the caller", operation);
+          return;
+        }
+      }
+    } finally {
+      ring.close();
+      if (readerThread.isAlive()) {
+        // Cancelled or failed: unblock a reader waiting on the socket
+        abort.run();
+      }
+      readerThread.join();
+      streamBufferStats.record(ring);
+    }
+
+    // The join makes the reader's failure visible here
+    if (failure[0] instanceof IOException e) {
+      throw e;
+    } else if (failure[0] instanceof RuntimeException e) {
+      throw e;
+    } else if (failure[0] instanceof Error e) {
+      throw e;
+    }
+  }
+
+  private static <T> boolean put(SpscRingBuffer<T> ring, T chunk) {
+    try {
+      return ring.put(chunk);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Gets queue statistics of streams read in decoupled mode.
+   *
+   * @return the accumulated statistics, all zero unless {@link
+   *     Builder#decoupledStreams(int, SpscRingBuffer.WaitStrategy)} is enabled
+   * @since 1.1.0
+   */
+  public StreamBufferStats getStreamBufferStats() {
+    return streamBufferStats.snapshot();
+  }
+
+  /**
+   * Gets the metrics of the requests sent by this client.
+   *
+   * @return the registry given to {@link Builder#metrics(MetricsRegistry)}, or the client's
+   *     own registry
+   * @since 1.1.0
+   */
+  public MetricsRegistry getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Runs an exchange and records its latency and outcome in the metrics of its endpoint and
+   * model. Responses that report token counts are charged to the tenant, and the concurrency
+   * slot, if any, is released with the latency the limiter adapts to.
+   */
+  private <T> T measure(
+      String path,
+      String tenant,
+      String model,
+      ConcurrencyLimiter.Permit permit,
+      Exchange<T> exchange)
+      throws OllamaException {
+    String endpoint = path.substring(path.lastIndexOf('/') + 1);
+    RequestMetrics requestMetrics = metrics.forRequest(endpoint, model);
+    RequestTimer timer = new RequestTimer(endpoint, model, requestMetrics, usageLedger, tenant);
+    requestMetrics.requestStarted();
+    String status = "200";
+    try {
+      T response = exchange.run(timer);
+      requestMetrics.requestSucceeded(System.nanoTime() - timer.start());
+      return response;
+    } catch (Throwable t) {
+      status = statusOf(t);
+      requestMetrics.requestFailed(status);
+      throw t;
+    } finally {
+      timer.finish(status);
+      if (permit != null) {
+        release(permit, status, timer);
+      }
+      if (timingListener != null
+          && ThreadLocalRandom.current().nextDouble() < timingSampleRate) {
+        report(timer.timing());
+      }
+    }
+  }
+
+  private ConcurrencyLimiter.Permit acquire(String path) throws OllamaException {
+    if (concurrencyLimiter == null) {
+      return null;
+    }
+    return concurrencyLimiter.acquire(path.substring(path.lastIndexOf('/') + 1));
+  }
+
+  /**
+   * Releases a concurrency slot. Timeouts, server errors and transport failures are what
+   * overload looks like, so they lower the limit; client errors and local failures, such as
+   * a throwing handler or an interrupt, say nothing about load.
+   */
+  private static void release(ConcurrencyLimiter.Permit permit, String status, RequestTimer timer) {
+    if (status.equals("200")) {
+      long latency = timer.loadLatency();
+      if (latency >= 0) {
+        permit.onSuccess(latency);
+      } else {
+        permit.onIgnore();
+      }
+    } else if (status.equals(RequestMetrics.TIMEOUT)
+        || status.equals(RequestMetrics.TRANSPORT_ERROR)
+        || status.startsWith("5")) {
+      permit.onDropped();
+    } else {
+      permit.onIgnore();
+    }
+  }
+
+  private void checkQuota(String tenant) throws OllamaException {
+    if (usageLedger != null) {
+      usageLedger.checkQuota(tenant);
+    }
+  }
+
+  private void report(RequestTiming timing) {
+    try {
+      timingListener.accept(timing);
+    } catch (RuntimeException e) {
+      logger.warn("Request timing listener failed", e);
+    }
+  }
+
+  private static HttpRequest.BodyPublisher open(BodySource body, RequestTimer timer)
+      throws IOException, OllamaException {
+    HttpRequest.BodyPublisher publisher = body.open();
+    timer.serialized();
+    return timer.track(publisher);
+  }
+
+  /**
+   * Classifies a failure. Only I/O failures of the exchange itself count as transport
+   * errors; JSON that fails to encode or decode, interrupts and exceptions thrown by the
+   * caller's handler are local.
+   */
+  private static String statusOf(Throwable failure) {
+    if (failure instanceof OllamaTimeoutException) {
+      return RequestMetrics.TIMEOUT;
+    }
+    if (failure instanceof OllamaException e) {
+      if (e.getStatusCode() > 0) {
+        return String.valueOf(e.getStatusCode());
+      }
+      if (e.getCause() instanceof IOException
+          && !(e.getCause() instanceof JsonProcessingException)) {
+        return RequestMetrics.TRANSPORT_ERROR;
+      }
+    }
+    return RequestMetrics.LOCAL_ERROR;
+  }
+
+  private OllamaTimeoutException timeout(String operation, boolean firstChunk) {
+    if (firstChunk) {
+      return new OllamaTimeoutException(
+          operation + " received no response within " + firstTokenTimeout,
+          OllamaTimeoutException.Phase.FIRST_TOKEN,
+          firstTokenTimeout);
+    }
+    return new OllamaTimeoutException(
+        operation + " stalled for more than " + interTokenTimeout + " between chunks",
+        OllamaTimeoutException.Phase.INTER_TOKEN,
+        interTokenTimeout);
+  }
+
+  /**
+   * Aborts a streaming exchange from the watchdog thread, before or after the response
+   * body is available.
+   */
+  private static final class StreamAbort implements Runnable {
+    private final CompletableFuture<?> exchange;
+    private InputStream body;
+    private boolean aborted;
+
+    StreamAbort(CompletableFuture<?> exchange) {
+      this.exchange = exchange;
+    }
+
+    synchronized InputStream attach(InputStream body) throws IOException {
+      if (aborted) {
+        body.close();
+        throw new IOException("Stream aborted");
+      }
+      this.body = body;
+      return body;
+    }
+
+    @Override
+    public void run() {
+      InputStream stream;
+      synchronized (this) {
+        aborted = true;
+        stream = body;
+      }
+      exchange.cancel(true);
+      if (stream != null) {
+        try {
+          stream.close();
+        } catch (IOException e) {
+          logger.debug("Failed to close aborted stream", e);
+        }
+      }
+    }
+  }
+
     /**
      * Lists all available models.
      * 
@@ -161,11 +972,16 @@ public class OllamaClient {
     public List<Model> listModels() throws OllamaException {
         logger.debug("Listing available models");
         
+        return measure("/api/tags", null, null, null,
+            timer -> fetchModels());
+    }
+    
+    private List<Model> fetchModels() throws OllamaException {
         try {
             HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(baseUrl + "/api/tags"))
                 .header("Content-Type", "application/json")
-                .timeout(DEFAULT_TIMEOUT)
+                .timeout(requestTimeout)
                 .GET()
                 .build();
             
@@ -179,8 +995,11 @@ public class OllamaClient {
                     response.statusCode());
             }
             
-            ModelsResponse modelsResponse = objectMapper
-                .readValue(response.body(), ModelsResponse.class);
+            ModelsResponse modelsResponse;
+            try (JsonParser parser = codec.getFactory()
+                    .createParser(response.body())) {
+                modelsResponse = codec.readModelsResponse(parser);
+            }
             
             return Optional.ofNullable(modelsResponse.getModels())
                 .orElse(List.of());
@@ -199,16 +1018,39 @@ public class OllamaClient {
     public void pullModel(String modelName) throws OllamaException {
         logger.info("Pulling model: {}", modelName);
         
+        OllamaEvents.ModelPull event = new OllamaEvents.ModelPull();
+        event.begin();
         try {
-            String jsonRequest = objectMapper.writeValueAsString(
-                new PullRequest(modelName));
+            measure("/api/pull", null, modelName, null, timer -> {
+                pull(modelName);
+                return null;
+            });
+            event.succeeded = true;
+        } finally {
+            if (event.shouldCommit()) {
+                event.model = modelName;
+                event.commit();
+            }
+        }
+    }
+    
+    private void pull(String modelName) throws OllamaException {
+        try {
+            ByteArrayOutputStream jsonRequest =
+                new ByteArrayOutputStream();
+            try (JsonGenerator generator = codec.getFactory()
+                    .createGenerator(jsonRequest)) {
+                generator.writeStartObject();
+                generator.writeStringField("name", modelName);
+                generator.writeEndObject();
+            }
             
             HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(baseUrl + "/api/pull"))
                 .header("Content-Type", "application/json")
                 .timeout(Duration.ofMinutes(30))
                 .POST(HttpRequest.BodyPublishers
-                    .ofString(jsonRequest))
+                    .ofByteArray(jsonRequest.toByteArray()))
                 .build();
             
             HttpResponse<String> response = httpClient
@@ -255,17 +1097,279 @@ public class OllamaClient {
     }
     
     /**
-     * Internal class for pull requests.
+     * Builder for {@link OllamaClient}.
+     *
+     * @since 1.1.0
      */
-    private static class PullRequest {
-        private final String name;
-        
-        public PullRequest(String name) {
-            this.name = name;
+    public static class Builder {
+        private String baseUrl = DEFAULT_BASE_URL;
+        private JsonCodec codec;
+        private Duration connectTimeout = DEFAULT_TIMEOUT;
+        private Duration requestTimeout = DEFAULT_TIMEOUT;
+        private Duration firstTokenTimeout =
+            DEFAULT_FIRST_TOKEN_TIMEOUT;
+        private Duration interTokenTimeout =
+            DEFAULT_INTER_TOKEN_TIMEOUT;
+        private int streamBufferCapacity;
+        private SpscRingBuffer.WaitStrategy streamWaitStrategy;
+        private MetricsRegistry metrics;
+        private Consumer<RequestTiming> timingListener;
+        private double timingSampleRate;
+        private UsageLedger usageLedger;
+        private ConcurrencyLimiter concurrencyLimiter;
+
+        private Builder() {
         }
-        @JsonProperty("name")
-        public String getName() {
-            return name;
+
+        /**
+         * Sets the Ollama server base URL.
+         *
+         * @param baseUrl the base URL
+         * @return this builder
+         */
+        public Builder baseUrl(String baseUrl) {
+            this.baseUrl = Objects.requireNonNull(baseUrl,
+                "baseUrl");
+            return this;
         }
+
+        /**
+         * Sets the codec used for all JSON processing.
+         *
+         * @param codec the codec
+         * @return this builder
+         */
+        public Builder codec(JsonCodec codec) {
+            this.codec = codec;
+            return this;
+        }
+
+        /**
+         * Uses Jackson databinding with the given mapper for all
+         * JSON processing.
+         *
+         * @param objectMapper the mapper
+         * @return this builder
+         * @see OllamaClient#defaultObjectMapper()
+         */
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            this.codec = new JacksonJsonCodec(objectMapper);
+            return this;
         }
-    }
\ No newline at end of file
+
+        /**
+         * Sets the connect timeout. Defaults to 60 seconds.
+         *
+         * @param connectTimeout the timeout
+         * @return this builder
+         */
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = positive(connectTimeout);
+            return this;
+        }
+
+        /**
+         * Sets the timeout of non-streaming requests. Defaults
+         * to 60 seconds.
+         *
+         * @param requestTimeout the timeout
+         * @return this builder
+         */
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = positive(requestTimeout);
+            return this;
+        }
+
+        /**
+         * Sets how long a streaming request may wait for its
+         * first chunk. This covers model loading and prompt
+         * evaluation. Defaults to 5 minutes.
+         *
+         * @param firstTokenTimeout the timeout
+         * @return this builder
+         */
+        public Builder firstTokenTimeout(
+                Duration firstTokenTimeout) {
+            this.firstTokenTimeout = positive(firstTokenTimeout);
+            return this;
+        }
+
+        /**
+         * Sets how long a stream may stay silent between two
+         * chunks. Time spent in the caller's callback is not
+         * counted. Defaults to 60 seconds.
+         *
+         * @param interTokenTimeout the timeout
+         * @return this builder
+         */
+        public Builder interTokenTimeout(
+                Duration interTokenTimeout) {
+            this.interTokenTimeout = positive(interTokenTimeout);
+            return this;
+        }
+
+        /**
+         * Reads streaming responses on a dedicated thread.
+         *
+         * <p>By default the callback of a streaming call runs on
+         * the thread that reads the response, so a slow callback
+         * delays reading from the socket. In decoupled mode a
+         * reader thread decodes chunks into a bounded
+         * {@link SpscRingBuffer} and the calling thread runs the
+         * callback as it drains the buffer. When the buffer is
+         * full the reader waits, which applies backpressure to
+         * the connection.
+         *
+         * <p>The reader is a virtual thread, except with
+         * {@link SpscRingBuffer.WaitStrategy#BUSY_SPIN}, where it
+         * is a platform thread so its spinning does not hold a
+         * carrier thread. A virtual calling thread yields
+         * instead of spinning.
+         *
+         * @param capacity the buffer size in chunks
+         * @param waitStrategy how the threads wait for each other
+         * @return this builder
+         * @see OllamaClient#getStreamBufferStats()
+         */
+        public Builder decoupledStreams(int capacity,
+                SpscRingBuffer.WaitStrategy waitStrategy) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException(
+                    "Capacity must be positive: " + capacity);
+            }
+            this.streamBufferCapacity = capacity;
+            this.streamWaitStrategy =
+                Objects.requireNonNull(waitStrategy, "waitStrategy");
+            return this;
+        }
+
+        /**
+         * Records request metrics in the given registry, so that
+         * several clients can share one. By default each client
+         * has its own registry.
+         *
+         * @param metrics the registry
+         * @return this builder
+         * @see OllamaClient#getMetrics()
+         */
+        public Builder metrics(MetricsRegistry metrics) {
+            this.metrics = Objects.requireNonNull(metrics,
+                "metrics");
+            return this;
+        }
+
+        /**
+         * Reports the timing breakdown of a sample of requests,
+         * for example to log slow ones. The listener runs on the
+         * calling thread after each sampled request completes or
+         * fails, so it should return quickly. The timing of
+         * successful requests is also available from
+         * {@link ChatResponse#getTiming()} and
+         * {@link GenerateResponse#getTiming()}.
+         *
+         * @param listener receives the timings
+         * @param sampleRate the fraction of requests reported,
+         *     greater than 0 and at most 1
+         * @return this builder
+         */
+        public Builder timingListener(
+                Consumer<RequestTiming> listener, double sampleRate) {
+            if (!(sampleRate > 0 && sampleRate <= 1)) {
+                throw new IllegalArgumentException(
+                    "Sample rate must be in (0, 1]: " + sampleRate);
+            }
+            this.timingListener = Objects.requireNonNull(listener,
+                "listener");
+            this.timingSampleRate = sampleRate;
+            return this;
+        }
+
+        /**
+         * Charges the token usage of chat and generate requests to
+         * their tenant in the given ledger, and rejects requests
+         * of tenants over their hard quota with a
+         * {@link com.ollama.api.exception.QuotaExceededException}
+         * before they are sent.
+         *
+         * @param usageLedger the ledger
+         * @return this builder
+         * @see ChatRequest#setTenant(String)
+         */
+        public Builder usageLedger(UsageLedger usageLedger) {
+            this.usageLedger = Objects.requireNonNull(usageLedger,
+                "usageLedger");
+            return this;
+        }
+
+        /**
+         * Limits the chat and generate requests in flight with an
+         * adaptive limiter. Requests over the limit wait or are
+         * rejected as the limiter is configured, and the limit is
+         * published as a gauge in the client's metrics. Clients of
+         * the same server should share one limiter.
+         *
+         * @param concurrencyLimiter the limiter
+         * @return this builder
+         */
+        public Builder concurrencyLimiter(
+                ConcurrencyLimiter concurrencyLimiter) {
+            this.concurrencyLimiter = Objects.requireNonNull(
+                concurrencyLimiter, "concurrencyLimiter");
+            return this;
+        }
+
+        /**
+         * Builds the client.
+         *
+         * @return a new client
+         */
+        public OllamaClient build() {
+            return new OllamaClient(this);
+        }
+
+        private static Duration positive(Duration duration) {
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException(
+                    "Timeout must be positive: " + duration);
+            }
+            return duration;
+        }
+    }
+    
+    /**
+     * Adapts a callback that never cancels its stream.
+     */
+    private static <T> Predicate<T> continueWith(
+            Consumer<T> callback) {
+        return chunk -> {
+            callback.accept(chunk);
+            return true;
+        };
+    }
+    
+    /**
+     * Decodes one JSON value from a parser.
+     */
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+    
+    /**
+     * Performs one HTTP exchange on behalf of
+     * {@link #measure(String, String, String, ConcurrencyLimiter.Permit, Exchange)}.
+     */
+    @FunctionalInterface
+    private interface Exchange<T> {
+        T run(RequestTimer timer) throws OllamaException;
+    }
+    
+    /**
+     * Creates a request body once the request is being timed.
+     */
+    @FunctionalInterface
+    private interface BodySource {
+        HttpRequest.BodyPublisher open()
+            throws IOException, OllamaException;
+    }
+}
@@ -0,0 +1,177 @@
+package com.ollama.api;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events emitted by the client.
+ *
+ * <p>The events show up under the "Ollama" category of a
+ * recording, next to GC and CPU events of the same period. When
+ * no recording has them enabled, creating and committing an
+ * event costs next to nothing. Stream chunks are reported in
+ * batches rather than one event each, so even a fully enabled
+ * recording stays small.
+ *
+ * <p>The events are enabled by default, so any recording started
+ * with {@code -XX:StartFlightRecording} or {@code jcmd JFR.start}
+ * includes them. They can be turned off by name, for example
+ * {@code com.ollama.api.ChunkBatch#enabled=false}.
+ */
+final class OllamaEvents {
+
+    /** Chunks reported by one {@link ChunkBatch} event. */
+    static final int CHUNK_BATCH_SIZE = 32;
+
+    private OllamaEvents() {
+    }
+
+    @Name("com.ollama.api.Request")
+    @Label("Ollama Request")
+    @Category("Ollama")
+    @Description("An API request, from building the request until"
+        + " the response or the last stream chunk was handled")
+    @StackTrace(false)
+    static final class Request extends Event {
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Model")
+        String model;
+
+        @Label("Status")
+        @Description("HTTP status, -1 for a transport failure,"
+            + " timeout, or local for a client-side failure")
+        String status;
+
+        @Label("Chunks")
+        int chunks;
+
+        @Label("Prompt Tokens")
+        int promptEvalCount;
+
+        @Label("Generated Tokens")
+        int evalCount;
+    }
+
+    @Name("com.ollama.api.FirstToken")
+    @Label("Ollama First Token")
+    @Category("Ollama")
+    @Description("Time from building a streaming request until its"
+        + " first chunk arrived")
+    @StackTrace(false)
+    static final class FirstToken extends Event {
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Model")
+        String model;
+    }
+
+    @Name("com.ollama.api.ChunkBatch")
+    @Label("Ollama Stream Chunks")
+    @Category("Ollama")
+    @Description("A batch of consecutive stream chunks, from the"
+        + " arrival of the first one until the last one was decoded")
+    @StackTrace(false)
+    static final class ChunkBatch extends Event {
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Model")
+        String model;
+
+        @Label("Chunks")
+        int chunks;
+
+        @Label("Characters")
+        long characters;
+
+        @Label("Parse Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long parseTime;
+    }
+
+    @Name("com.ollama.api.Serialization")
+    @Label("Ollama Request Serialization")
+    @Category("Ollama")
+    @Description("Encoding of a request body. Chat bodies are"
+        + " encoded while they are sent, so the event also covers"
+        + " the writes in between")
+    @StackTrace(false)
+    static final class Serialization extends Event {
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Model")
+        String model;
+
+        @Label("Size")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("com.ollama.api.Deserialization")
+    @Label("Ollama Response Deserialization")
+    @Category("Ollama")
+    @Description("Decoding of a non-streaming response body")
+    @StackTrace(false)
+    static final class Deserialization extends Event {
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Model")
+        String model;
+
+        @Label("Size")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("com.ollama.api.ModelPull")
+    @Label("Ollama Model Pull")
+    @Category("Ollama")
+    @Description("Download of a model by the server")
+    @StackTrace(false)
+    static final class ModelPull extends Event {
+        @Label("Model")
+        String model;
+
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    /**
+     * Starts a serialization event if it is enabled.
+     *
+     * @return the started event, or null
+     */
+    static Serialization serialization() {
+        Serialization event = new Serialization();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Commits a serialization event started by
+     * {@link #serialization()}.
+     */
+    static void serialized(Serialization event, String endpoint,
+            String model, long bytes) {
+        if (event != null && event.shouldCommit()) {
+            event.endpoint = endpoint;
+            event.model = model;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.ollama.api;
+
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.dto.GenerateResponse;
+import com.ollama.api.metrics.RequestMetrics;
+import com.ollama.api.metrics.RequestTiming;
+import com.ollama.api.usage.UsageLedger;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.concurrent.Flow;
+
+/**
+ * Collects the client-side timestamps of one request, emits its
+ * {@link OllamaEvents flight recorder events} and charges its
+ * token usage.
+ *
+ * <p>The marks taken by the HTTP client's own threads (body sent,
+ * headers received) are volatile. All other marks are taken by
+ * the thread reading the response, and the finished timing is
+ * read after that thread is done.
+ */
+final class RequestTimer {
+
+    private static final long UNSET = -1;
+
+    private final String endpoint;
+    private final String model;
+    private final RequestMetrics metrics;
+    private final UsageLedger usageLedger;
+    private final String tenant;
+    private final Instant startTime = Instant.now();
+    private final long start = System.nanoTime();
+    private long serialized = UNSET;
+    private volatile long sent = UNSET;
+    private volatile long firstByte = UNSET;
+    private long firstToken = UNSET;
+    private long lastToken = UNSET;
+    private long parsed = UNSET;
+    private RequestTiming timing;
+    private final OllamaEvents.Request requestEvent =
+        new OllamaEvents.Request();
+    private final OllamaEvents.FirstToken firstTokenEvent =
+        new OllamaEvents.FirstToken();
+    private OllamaEvents.ChunkBatch batchEvent;
+    private OllamaEvents.Deserialization decodeEvent;
+    private int chunks;
+    private boolean charged;
+
+    RequestTimer(String endpoint, String model,
+            RequestMetrics metrics, UsageLedger usageLedger,
+            String tenant) {
+        this.endpoint = endpoint;
+        this.model = model;
+        this.metrics = metrics;
+        this.usageLedger = usageLedger;
+        this.tenant = tenant;
+        requestEvent.begin();
+        firstTokenEvent.begin();
+    }
+
+    /**
+     * Gets the nanosecond time when the request was built.
+     */
+    long start() {
+        return start;
+    }
+
+    /**
+     * Marks the request body as ready to send.
+     */
+    void serialized() {
+        serialized = elapsed();
+    }
+
+    /**
+     * Wraps a request body so that the end of the upload is
+     * marked as sent.
+     */
+    HttpRequest.BodyPublisher track(HttpRequest.BodyPublisher body) {
+        return new TrackedBody(body);
+    }
+
+    /**
+     * Wraps a response handler so that the arrival of the
+     * headers is marked as the first byte.
+     */
+    <T> HttpResponse.BodyHandler<T> track(
+            HttpResponse.BodyHandler<T> handler) {
+        return info -> {
+            firstByte = elapsed();
+            return handler.apply(info);
+        };
+    }
+
+    /**
+     * Marks the arrival of a stream chunk, recording the time to
+     * first token or the gap since the previous chunk.
+     *
+     * @param length the length of the chunk's line
+     */
+    void chunk(int length) {
+        long now = elapsed();
+        if (firstToken == UNSET) {
+            firstToken = now;
+            metrics.firstToken(now);
+            if (firstTokenEvent.shouldCommit()) {
+                firstTokenEvent.endpoint = endpoint;
+                firstTokenEvent.model = model;
+                firstTokenEvent.commit();
+            }
+        } else {
+            metrics.interToken(now - lastToken);
+        }
+        lastToken = now;
+        chunks++;
+        if (batchEvent == null) {
+            batchEvent = new OllamaEvents.ChunkBatch();
+            batchEvent.begin();
+        }
+        batchEvent.chunks++;
+        batchEvent.characters += length;
+    }
+
+    /**
+     * Marks the chunk that arrived last as decoded.
+     */
+    void decoded() {
+        batchEvent.parseTime += elapsed() - lastToken;
+        if (batchEvent.chunks >= OllamaEvents.CHUNK_BATCH_SIZE) {
+            commitBatch();
+        }
+    }
+
+    /**
+     * Marks the arrival of a complete non-streaming body.
+     *
+     * @param bytes the size of the body
+     */
+    void body(long bytes) {
+        long now = elapsed();
+        firstToken = now;
+        lastToken = now;
+        decodeEvent = new OllamaEvents.Deserialization();
+        decodeEvent.begin();
+        decodeEvent.bytes = bytes;
+    }
+
+    /**
+     * Marks the final response as decoded, records its server
+     * statistics and attaches the timing to it.
+     *
+     * @param response the final response or chunk
+     */
+    void complete(Object response) {
+        parsed = elapsed();
+        if (decodeEvent != null && decodeEvent.shouldCommit()) {
+            decodeEvent.endpoint = endpoint;
+            decodeEvent.model = model;
+            decodeEvent.commit();
+        }
+        if (response instanceof ChatResponse chat) {
+            metrics.serverStats(chat.getLoadDuration(),
+                chat.getPromptEvalCount(),
+                chat.getPromptEvalDuration(), chat.getEvalCount(),
+                chat.getEvalDuration());
+            timing = timing(chat.getTotalDuration(),
+                chat.getLoadDuration(), chat.getPromptEvalDuration(),
+                chat.getEvalDuration());
+            chat.setTiming(timing);
+            counts(chat.getPromptEvalCount(), chat.getEvalCount(),
+                chat.getPromptEvalDuration(), chat.getEvalDuration());
+        } else if (response instanceof GenerateResponse generate) {
+            metrics.serverStats(generate.getLoadDuration(),
+                generate.getPromptEvalCount(),
+                generate.getPromptEvalDuration(),
+                generate.getEvalCount(), generate.getEvalDuration());
+            timing = timing(generate.getTotalDuration(),
+                generate.getLoadDuration(),
+                generate.getPromptEvalDuration(),
+                generate.getEvalDuration());
+            generate.setTiming(timing);
+            counts(generate.getPromptEvalCount(),
+                generate.getEvalCount(),
+                generate.getPromptEvalDuration(),
+                generate.getEvalDuration());
+        }
+    }
+
+    /**
+     * Ends the request and commits its remaining events. A stream
+     * that ended without counts is charged one completion token
+     * per chunk received.
+     *
+     * @param status the HTTP status or failure kind
+     */
+    void finish(String status) {
+        if (!charged && chunks > 0 && usageLedger != null) {
+            // A stream cut off before its counts still generated
+            // one token per chunk
+            usageLedger.record(tenant, model, null, chunks, 0);
+        }
+        if (batchEvent != null) {
+            commitBatch();
+        }
+        if (requestEvent.shouldCommit()) {
+            requestEvent.endpoint = endpoint;
+            requestEvent.model = model;
+            requestEvent.status = status;
+            requestEvent.chunks = chunks;
+            requestEvent.commit();
+        }
+    }
+
+    /**
+     * Gets the latency that grows when the server queues
+     * requests: the time to the first chunk of a stream, or the
+     * time to a whole response less the server's generation time.
+     *
+     * @return the latency in nanoseconds, or -1 if no response
+     *     arrived
+     */
+    long loadLatency() {
+        if (firstToken == UNSET) {
+            return UNSET;
+        }
+        if (chunks > 0 || timing == null
+                || timing.evalDuration() == null) {
+            return firstToken;
+        }
+        return Math.max(0, firstToken - timing.evalDuration());
+    }
+
+    /**
+     * Gets the timing of the request, with the marks reached so
+     * far if it did not complete.
+     */
+    RequestTiming timing() {
+        return timing != null
+            ? timing
+            : timing(null, null, null, null);
+    }
+
+    private RequestTiming timing(Long totalDuration,
+            Long loadDuration, Long promptEvalDuration,
+            Long evalDuration) {
+        long bodySent = sent;
+        return new RequestTiming(endpoint, model, startTime,
+            serialized, bodySent, firstByte, firstToken, lastToken,
+            parsed, totalDuration, loadDuration, promptEvalDuration,
+            evalDuration);
+    }
+
+    private void counts(Integer promptEvalCount, Integer evalCount,
+            Long promptEvalDuration, Long evalDuration) {
+        requestEvent.promptEvalCount =
+            promptEvalCount != null ? promptEvalCount : 0;
+        requestEvent.evalCount = evalCount != null ? evalCount : 0;
+        if (usageLedger != null
+                && (promptEvalCount != null || evalCount != null)) {
+            long computeNanos =
+                (promptEvalDuration != null ? promptEvalDuration : 0)
+                + (evalDuration != null ? evalDuration : 0);
+            usageLedger.record(tenant, model, promptEvalCount,
+                evalCount, computeNanos);
+            charged = true;
+        }
+    }
+
+    private void commitBatch() {
+        if (batchEvent.shouldCommit()) {
+            batchEvent.endpoint = endpoint;
+            batchEvent.model = model;
+            batchEvent.commit();
+        }
+        batchEvent = null;
+    }
+
+    private long elapsed() {
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Request body that marks the request as sent when the HTTP
+     * client has pulled all of it.
+     */
+    private final class TrackedBody implements HttpRequest.BodyPublisher {
+        private final HttpRequest.BodyPublisher body;
+
+        TrackedBody(HttpRequest.BodyPublisher body) {
+            this.body = body;
+        }
+
+        @Override
+        public long contentLength() {
+            return body.contentLength();
+        }
+
+        @Override
+        public void subscribe(
+                Flow.Subscriber<? super ByteBuffer> subscriber) {
+            body.subscribe(new Flow.Subscriber<ByteBuffer>() {
+                @Override
+                public void onSubscribe(
+                        Flow.Subscription subscription) {
+                    subscriber.onSubscribe(subscription);
+                }
+
+                @Override
+                public void onNext(ByteBuffer item) {
+                    subscriber.onNext(item);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    subscriber.onError(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    sent = elapsed();
+                    subscriber.onComplete();
+                }
+            });
+        }
+    }
+}
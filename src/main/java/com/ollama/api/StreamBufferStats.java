@@ -0,0 +1,44 @@
+package com.ollama.api;
+
+import com.ollama.api.util.SpscRingBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Queue statistics of streams read in decoupled mode.
+ *
+ * @param streams the number of streams read
+ * @param maxDepth the highest number of chunks waiting for the
+ *     callback in any stream
+ * @param producerWaits how often a reader found its buffer full,
+ *     which means the callback was the bottleneck
+ * @param consumerWaits how often a callback thread found its
+ *     buffer empty, which means the server was the bottleneck
+ * @since 1.1.0
+ */
+public record StreamBufferStats(long streams, int maxDepth,
+        long producerWaits, long consumerWaits) {
+
+    /**
+     * Collects statistics from finished streams.
+     */
+    static final class Accumulator {
+        private final LongAdder streams = new LongAdder();
+        private final AtomicInteger maxDepth = new AtomicInteger();
+        private final LongAdder producerWaits = new LongAdder();
+        private final LongAdder consumerWaits = new LongAdder();
+
+        void record(SpscRingBuffer<?> ring) {
+            streams.increment();
+            maxDepth.accumulateAndGet(ring.getMaxDepth(), Math::max);
+            producerWaits.add(ring.getProducerWaits());
+            consumerWaits.add(ring.getConsumerWaits());
+        }
+
+        StreamBufferStats snapshot() {
+            return new StreamBufferStats(streams.sum(),
+                maxDepth.get(), producerWaits.sum(),
+                consumerWaits.sum());
+        }
+    }
+}
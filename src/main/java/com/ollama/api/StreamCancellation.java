@@ -0,0 +1,69 @@
+package com.ollama.api;
+
+/**
+ * Stops a stream from outside its handler.
+ *
+ * <p>Pass one to {@link OllamaClient#chatStreamWhile(
+ * com.ollama.api.dto.ChatRequest, java.util.function.Predicate,
+ * StreamCancellation)} and call {@link #cancel()} from any thread.
+ * The connection is closed at once, whether the stream is still
+ * waiting for the response or blocked between chunks, and the
+ * call returns as if its handler had returned false. A stream
+ * cancelled before it starts returns without sending anything.
+ *
+ * <p>A cancellation is meant for one stream.
+ *
+ * @since 1.1.0
+ */
+public final class StreamCancellation {
+
+    private Runnable abort;
+    private boolean cancelled;
+
+    /**
+     * Creates a cancellation that is not yet cancelled.
+     */
+    public StreamCancellation() {
+    }
+
+    /**
+     * Cancels the stream. Does nothing if it is already cancelled
+     * or has finished.
+     */
+    public void cancel() {
+        Runnable bound;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            bound = abort;
+        }
+        if (bound != null) {
+            bound.run();
+        }
+    }
+
+    /**
+     * Tells whether {@link #cancel()} has been called.
+     *
+     * @return true once cancelled
+     */
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Binds the abort of the running exchange, running it at once
+     * if the stream was cancelled before it started.
+     */
+    void bind(Runnable abort) {
+        synchronized (this) {
+            this.abort = abort;
+            if (!cancelled) {
+                return;
+            }
+        }
+        abort.run();
+    }
+}
@@ -0,0 +1,295 @@
+package com.ollama.api;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Enforces idle timeouts on open response streams.
+ *
+ * <p>All streams share one daemon thread driving a hashed timer
+ * wheel. Extending a timeout after each chunk only writes a
+ * volatile deadline; the wheel notices the new deadline when it
+ * reaches the old slot and moves the entry on. Only a deadline
+ * that moves earlier than its slot is handed back to the wheel
+ * through a lock-free queue. There is no lock, thread or
+ * scheduled task per stream.
+ *
+ * <p>When an entry expires its abort action runs on the
+ * watchdog thread, so it must be short, such as closing the
+ * response body. A cancelled entry goes back through the queue
+ * and is unlinked on the next tick, so a finished stream's
+ * response body is not held until its deadline.
+ */
+final class StreamWatchdog {
+
+    private static final Logger logger =
+        LoggerFactory.getLogger(StreamWatchdog.class);
+
+    private static final StreamWatchdog SHARED =
+        new StreamWatchdog(TimeUnit.MILLISECONDS.toNanos(50), 512);
+
+    private static final long PAUSED_NANOS = Long.MAX_VALUE / 4;
+
+    private final long tickNanos;
+    private final int mask;
+    private final Watch[] slots;
+    private final Queue<Watch> pending =
+        new ConcurrentLinkedQueue<>();
+    private final long origin = System.nanoTime();
+    private volatile Thread worker;
+    private volatile int active;
+
+    StreamWatchdog(long tickNanos, int slotCount) {
+        if (Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException(
+                "Slot count must be a power of two");
+        }
+        this.tickNanos = tickNanos;
+        this.mask = slotCount - 1;
+        this.slots = new Watch[slotCount];
+    }
+
+    /**
+     * Gets the watchdog shared by all clients.
+     */
+    static StreamWatchdog shared() {
+        return SHARED;
+    }
+
+    /**
+     * Starts watching a stream.
+     *
+     * @param timeoutNanos the time allowed until the first
+     *     {@link Watch#touch(long)}
+     * @param abort the action run if the deadline passes
+     * @return the new watch
+     */
+    Watch watch(long timeoutNanos, Runnable abort) {
+        Watch watch = new Watch(
+            System.nanoTime() + timeoutNanos, abort);
+        enqueue(watch);
+        return watch;
+    }
+
+    private void enqueue(Watch watch) {
+        pending.add(watch);
+        Thread thread = worker;
+        if (thread == null) {
+            thread = start();
+        }
+        LockSupport.unpark(thread);
+    }
+
+    private synchronized Thread start() {
+        if (worker == null) {
+            Thread thread = new Thread(this::run,
+                "ollama-stream-watchdog");
+            thread.setDaemon(true);
+            thread.start();
+            worker = thread;
+        }
+        return worker;
+    }
+
+    /**
+     * Gets the number of streams registered on the wheel.
+     */
+    int getActive() {
+        return active;
+    }
+
+    private void run() {
+        long processed = tick(System.nanoTime());
+        while (true) {
+            if (active == 0 && pending.isEmpty()) {
+                LockSupport.park(this);
+                processed = tick(System.nanoTime());
+            } else {
+                LockSupport.parkNanos(this, tickNanos);
+            }
+            long now = System.nanoTime();
+            long current = tick(now);
+            Watch added;
+            while ((added = pending.poll()) != null) {
+                if (!added.registered) {
+                    added.registered = true;
+                    active++;
+                }
+                if (added.closed) {
+                    retire(added);
+                } else if (!added.retired) {
+                    unlink(added);
+                    schedule(added, current);
+                }
+            }
+            // Visit each slot at most once, however late we woke
+            long first = Math.max(processed + 1,
+                current - mask);
+            for (long t = first; t <= current; t++) {
+                expire(t, now, current);
+            }
+            processed = current;
+        }
+    }
+
+    private void expire(long t, long now, long current) {
+        Watch watch = slots[(int) (t & mask)];
+        while (watch != null) {
+            Watch next = watch.next;
+            // Entries of a later rotation stay where they are
+            if (watch.scheduledTick <= t) {
+                if (watch.closed) {
+                    retire(watch);
+                } else if (watch.deadline - now <= 0) {
+                    retire(watch);
+                    watch.expire();
+                } else {
+                    unlink(watch);
+                    schedule(watch, current);
+                }
+            }
+            watch = next;
+        }
+    }
+
+    private void schedule(Watch watch, long current) {
+        long target = slotTick(watch.deadline, current);
+        while (true) {
+            watch.scheduledTick = target;
+            // A deadline moved earlier meanwhile is seen either
+            // here or by the touch, which then requeues the watch
+            long latest = slotTick(watch.deadline, current);
+            if (latest >= target) {
+                break;
+            }
+            target = latest;
+        }
+        int slot = (int) (target & mask);
+        watch.slot = slot;
+        watch.prev = null;
+        watch.next = slots[slot];
+        if (watch.next != null) {
+            watch.next.prev = watch;
+        }
+        slots[slot] = watch;
+    }
+
+    private void unlink(Watch watch) {
+        if (watch.slot < 0) {
+            return;
+        }
+        if (watch.prev != null) {
+            watch.prev.next = watch.next;
+        } else {
+            slots[watch.slot] = watch.next;
+        }
+        if (watch.next != null) {
+            watch.next.prev = watch.prev;
+        }
+        watch.prev = null;
+        watch.next = null;
+        watch.slot = -1;
+    }
+
+    private void retire(Watch watch) {
+        if (!watch.retired) {
+            watch.retired = true;
+            unlink(watch);
+            active--;
+        }
+    }
+
+    private long slotTick(long deadline, long current) {
+        return Math.max(current + 1,
+            tick(deadline + tickNanos - 1));
+    }
+
+    private long tick(long nanos) {
+        return (nanos - origin) / tickNanos;
+    }
+
+    /**
+     * The timeout state of one stream.
+     */
+    final class Watch {
+        private final Runnable abort;
+        private volatile long deadline;
+        private volatile long scheduledTick = Long.MIN_VALUE;
+        private volatile boolean closed;
+        private volatile boolean expired;
+        private volatile boolean progress;
+
+        // Owned by the watchdog thread
+        private boolean registered;
+        private boolean retired;
+        private int slot = -1;
+        private Watch prev;
+        private Watch next;
+
+        private Watch(long deadline, Runnable abort) {
+            this.deadline = deadline;
+            this.abort = abort;
+        }
+
+        /**
+         * Moves the deadline to the given time from now.
+         */
+        void touch(long timeoutNanos) {
+            progress = true;
+            long next = System.nanoTime() + timeoutNanos;
+            deadline = next;
+            if (tick(next + tickNanos - 1) < scheduledTick) {
+                enqueue(this);
+            }
+        }
+
+        /**
+         * Suspends the deadline until the next
+         * {@link #touch(long)}.
+         */
+        void pause() {
+            progress = true;
+            deadline = System.nanoTime() + PAUSED_NANOS;
+        }
+
+        /**
+         * Tells whether the stream made progress since it was
+         * registered.
+         */
+        boolean hasProgress() {
+            return progress;
+        }
+
+        /**
+         * Stops watching without aborting.
+         */
+        void cancel() {
+            closed = true;
+            // The wheel is ticking while this is registered, so
+            // the entry is unlinked on the next tick
+            pending.add(this);
+        }
+
+        /**
+         * Tells whether the deadline passed and the stream was
+         * aborted.
+         */
+        boolean isExpired() {
+            return expired;
+        }
+
+        private void expire() {
+            expired = true;
+            closed = true;
+            try {
+                abort.run();
+            } catch (RuntimeException e) {
+                logger.warn("Failed to abort timed out stream", e);
+            }
+        }
+    }
+}
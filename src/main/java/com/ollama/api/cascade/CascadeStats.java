@@ -0,0 +1,35 @@
+package com.ollama.api.cascade;
+
+import java.util.List;
+
+/**
+ * Totals of the requests run by a {@link ModelCascade}.
+ *
+ * <p>The latency saved compares every answer with what the last
+ * model would have taken: each request answered by an earlier
+ * model saves the mean latency of the last model, and every
+ * attempt on an earlier model, answered or escalated, costs its
+ * own latency. The estimate is 0 until the last model has
+ * answered at least once.
+ *
+ * @param requests the requests run
+ * @param stages the outcomes of each model, cheapest first
+ * @param estimatedNanosSaved the estimated latency saved, in
+ *     nanoseconds, negative if escalations cost more than the
+ *     earlier models saved
+ * @since 1.1.0
+ */
+public record CascadeStats(long requests, List<StageStats> stages,
+        long estimatedNanosSaved) {
+
+    /**
+     * Gets the fraction of requests answered by the first model.
+     *
+     * @return the fraction, or 0 if no request was run
+     */
+    public double absorbedFraction() {
+        return requests == 0
+            ? 0
+            : (double) stages.get(0).accepted() / requests;
+    }
+}
@@ -0,0 +1,350 @@
+package com.ollama.api.cascade;
+
+import com.ollama.api.OllamaClient;
+import com.ollama.api.StreamCancellation;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.exception.OllamaException;
+import com.ollama.api.exception.OllamaTimeoutException;
+import com.ollama.api.metrics.Histogram;
+import com.ollama.api.util.ModelManager;
+import com.ollama.api.util.StreamCollector;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Answers chat requests with the cheapest model that does well
+ * enough.
+ *
+ * <p>A request first goes to the cheapest model. Its answer is
+ * returned if the {@link Acceptor} accepts it; otherwise the
+ * request is sent again to the next model, up to the last one,
+ * whose answer is always returned. An answer is also escalated
+ * when the token limit cut it off ({@code done_reason}
+ * {@code "length"}), when an earlier model takes longer than the
+ * stage timeout, or when it fails. Use
+ * {@link ModelManager#rankByCost(List)} to order installed
+ * models by parameter count and quantization.
+ *
+ * <p>With a stage timeout, the earlier models are streamed on a
+ * virtual thread and abandoned when the timeout passes; their
+ * connection is closed at once, which stops the server
+ * generating. The last model is never timed out by the cascade.
+ *
+ * <p>{@link #getStats()} shows the share of requests each model
+ * answered and the latency saved compared with sending every
+ * request to the last model. Instances are thread-safe.
+ *
+ * @since 1.1.0
+ */
+public final class ModelCascade {
+
+    private static final Logger logger =
+        LoggerFactory.getLogger(ModelCascade.class);
+
+    private final OllamaClient client;
+    private final Stage[] stages;
+    private final Acceptor acceptor;
+    private final Duration stageTimeout;
+    private final LongAdder requests = new LongAdder();
+
+    /**
+     * Decides whether an answer is good enough to return.
+     */
+    @FunctionalInterface
+    public interface Acceptor {
+
+        /**
+         * Checks an answer of a model other than the last one.
+         * Implementations may be called concurrently.
+         *
+         * @param request the caller's request
+         * @param response the complete answer
+         * @return true to return the answer, false to escalate
+         */
+        boolean accept(ChatRequest request, ChatResponse response);
+    }
+
+    private static final class Stage {
+        final String model;
+        final LongAdder attempts = new LongAdder();
+        final LongAdder accepted = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder truncated = new LongAdder();
+        final LongAdder timedOut = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final Histogram latency = new Histogram();
+
+        Stage(String model) {
+            this.model = model;
+        }
+
+        StageStats stats() {
+            return new StageStats(model, attempts.sum(),
+                accepted.sum(), rejected.sum(), truncated.sum(),
+                timedOut.sum(), failed.sum(), latency.snapshot());
+        }
+    }
+
+    private ModelCascade(Builder builder) {
+        this.client = builder.client;
+        this.acceptor = builder.acceptor;
+        this.stageTimeout = builder.stageTimeout;
+        this.stages = builder.models.stream()
+            .map(Stage::new)
+            .toArray(Stage[]::new);
+    }
+
+    /**
+     * Creates a new builder.
+     *
+     * @param client the client sending the requests
+     * @return a builder without models
+     */
+    public static Builder builder(OllamaClient client) {
+        return new Builder(client);
+    }
+
+    /**
+     * Answers a request, escalating through the models as needed.
+     * The model of the request is ignored; the model that
+     * answered is the one of the response.
+     *
+     * @param request the chat request
+     * @return the first accepted answer, or the answer of the last
+     *     model
+     * @throws OllamaException if the last model fails
+     */
+    public ChatResponse chat(ChatRequest request) throws OllamaException {
+        requests.increment();
+        for (int i = 0; i < stages.length - 1; i++) {
+            ChatResponse response = attempt(stages[i], request);
+            if (response != null) {
+                return response;
+            }
+        }
+        Stage last = stages[stages.length - 1];
+        last.attempts.increment();
+        long start = System.nanoTime();
+        try {
+            ChatResponse response = client.chat(forModel(request,
+                last.model));
+            last.accepted.increment();
+            return response;
+        } catch (OllamaException | RuntimeException e) {
+            last.failed.increment();
+            throw e;
+        } finally {
+            last.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Gets the outcomes of the requests run so far.
+     *
+     * @return the statistics
+     */
+    public CascadeStats getStats() {
+        List<StageStats> stats = new ArrayList<>(stages.length);
+        for (Stage stage : stages) {
+            stats.add(stage.stats());
+        }
+        long total = requests.sum();
+        StageStats last = stats.get(stats.size() - 1);
+        long saved = 0;
+        if (last.latency().count() > 0) {
+            long earlierNanos = 0;
+            for (int i = 0; i < stats.size() - 1; i++) {
+                earlierNanos += stats.get(i).latency().sum();
+            }
+            saved = (long) ((total - last.attempts())
+                * last.latency().mean()) - earlierNanos;
+        }
+        return new CascadeStats(total, stats, saved);
+    }
+
+    /**
+     * Tries one of the earlier models.
+     *
+     * @return the accepted answer, or null to escalate
+     */
+    private ChatResponse attempt(Stage stage, ChatRequest request) {
+        stage.attempts.increment();
+        long start = System.nanoTime();
+        ChatResponse response;
+        try {
+            response = run(forModel(request, stage.model));
+        } catch (TimeoutException e) {
+            stage.timedOut.increment();
+            logger.debug("Escalating from {}: no answer within {}",
+                stage.model, stageTimeout);
+            return null;
+        } catch (OllamaTimeoutException e) {
+            stage.timedOut.increment();
+            logger.debug("Escalating from {}: {}", stage.model,
+                e.getMessage());
+            return null;
+        } catch (OllamaException | RuntimeException e) {
+            stage.failed.increment();
+            logger.warn("Escalating from {} after a failure: {}",
+                stage.model, e.getMessage());
+            return null;
+        } finally {
+            stage.latency.record(System.nanoTime() - start);
+        }
+        if ("length".equals(response.getDoneReason())) {
+            stage.truncated.increment();
+            return null;
+        }
+        if (!acceptor.accept(request, response)) {
+            stage.rejected.increment();
+            return null;
+        }
+        stage.accepted.increment();
+        return response;
+    }
+
+    private ChatResponse run(ChatRequest request)
+            throws OllamaException, TimeoutException {
+        if (stageTimeout == null) {
+            return client.chat(request);
+        }
+        StreamCancellation cancellation = new StreamCancellation();
+        StreamCollector collector = new StreamCollector();
+        CompletableFuture<ChatResponse> answer = new CompletableFuture<>();
+        Thread.ofVirtual().name("ollama-cascade").start(() -> {
+            try {
+                client.chatStreamWhile(request, chunk -> {
+                    collector.accept(chunk);
+                    return true;
+                }, cancellation);
+                answer.complete(collector.getResponse());
+            } catch (Throwable t) {
+                // Anything else would leave the caller waiting for
+                // the timeout
+                answer.completeExceptionally(t);
+                if (t instanceof Error e) {
+                    throw e;
+                }
+            }
+        });
+        try {
+            return answer.get(stageTimeout.toNanos(),
+                TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            cancellation.cancel();
+            throw e;
+        } catch (InterruptedException e) {
+            cancellation.cancel();
+            Thread.currentThread().interrupt();
+            throw new OllamaException(
+                "Interrupted while waiting for " + request.getModel(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof OllamaException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    private static ChatRequest forModel(ChatRequest request,
+            String model) {
+        ChatRequest copy = new ChatRequest(model, request.getMessages());
+        if (request.getOptions() != null) {
+            copy.setOptions(request.getOptions().copy());
+        }
+        copy.setKeepAlive(request.getKeepAlive());
+        copy.setTenant(request.getTenant());
+        return copy;
+    }
+
+    /**
+     * Builder for {@link ModelCascade}.
+     */
+    public static final class Builder {
+        private final OllamaClient client;
+        private List<String> models = List.of();
+        private Acceptor acceptor = (request, response) -> true;
+        private Duration stageTimeout;
+
+        private Builder(OllamaClient client) {
+            this.client = Objects.requireNonNull(client, "client");
+        }
+
+        /**
+         * Sets the models to try, cheapest first.
+         *
+         * @param models the model names
+         * @return this builder
+         * @see ModelManager#rankByCost(List)
+         */
+        public Builder models(List<String> models) {
+            this.models = List.copyOf(models);
+            return this;
+        }
+
+        /**
+         * Sets the models to try, cheapest first.
+         *
+         * @param models the model names
+         * @return this builder
+         */
+        public Builder models(String... models) {
+            return models(List.of(models));
+        }
+
+        /**
+         * Sets the check of the earlier models' answers. By
+         * default every complete answer is accepted, so only the
+         * token limit and the stage timeout escalate.
+         *
+         * @param acceptor the acceptor
+         * @return this builder
+         */
+        public Builder acceptor(Acceptor acceptor) {
+            this.acceptor = Objects.requireNonNull(acceptor,
+                "acceptor");
+            return this;
+        }
+
+        /**
+         * Sets how long an earlier model may take before the
+         * request escalates. Unbounded by default.
+         *
+         * @param stageTimeout the timeout
+         * @return this builder
+         */
+        public Builder stageTimeout(Duration stageTimeout) {
+            if (stageTimeout.isNegative() || stageTimeout.isZero()) {
+                throw new IllegalArgumentException(
+                    "Timeout must be positive: " + stageTimeout);
+            }
+            this.stageTimeout = stageTimeout;
+            return this;
+        }
+
+        /**
+         * Builds the cascade.
+         *
+         * @return a new cascade
+         */
+        public ModelCascade build() {
+            if (models.isEmpty()) {
+                throw new IllegalStateException("No models set");
+            }
+            return new ModelCascade(this);
+        }
+    }
+}
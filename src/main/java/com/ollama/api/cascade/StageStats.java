@@ -0,0 +1,21 @@
+package com.ollama.api.cascade;
+
+import com.ollama.api.metrics.Histogram;
+
+/**
+ * Outcomes of one model of a {@link ModelCascade}.
+ *
+ * @param model the model name
+ * @param attempts the requests sent to the model
+ * @param accepted the answers returned to the caller
+ * @param rejected the answers the acceptor rejected
+ * @param truncated the answers cut off by the token limit
+ * @param timedOut the attempts abandoned at the stage timeout
+ * @param failed the attempts that failed with an error
+ * @param latency the time of each attempt, in nanoseconds
+ * @since 1.1.0
+ */
+public record StageStats(String model, long attempts, long accepted,
+        long rejected, long truncated, long timedOut, long failed,
+        Histogram.Snapshot latency) {
+}
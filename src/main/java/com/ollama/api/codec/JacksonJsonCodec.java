@@ -0,0 +1,95 @@
+package com.ollama.api.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.dto.GenerateRequest;
+import com.ollama.api.dto.GenerateResponse;
+import com.ollama.api.dto.Message;
+import com.ollama.api.dto.ModelsResponse;
+import com.ollama.api.dto.Options;
+import java.io.IOException;
+
+/**
+ * Codec backed by Jackson databinding.
+ *
+ * <p>Readers and writers are bound once per root type, so
+ * serializers are not resolved on every call. Use it when the
+ * DTOs need custom modules or mixins from a shared mapper.
+ *
+ * @since 1.1.0
+ */
+public class JacksonJsonCodec implements JsonCodec {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter messageWriter;
+    private final ObjectWriter optionsWriter;
+    private final ObjectReader chatResponseReader;
+    private final ObjectReader modelsResponseReader;
+    private final ObjectWriter generateRequestWriter;
+    private final ObjectReader generateResponseReader;
+
+    /**
+     * Creates a codec over the given mapper.
+     *
+     * @param objectMapper the mapper used for databinding
+     */
+    public JacksonJsonCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.messageWriter = objectMapper.writerFor(Message.class);
+        this.optionsWriter = objectMapper.writerFor(Options.class);
+        this.chatResponseReader =
+            objectMapper.readerFor(ChatResponse.class);
+        this.modelsResponseReader =
+            objectMapper.readerFor(ModelsResponse.class);
+        this.generateRequestWriter =
+            objectMapper.writerFor(GenerateRequest.class);
+        this.generateResponseReader =
+            objectMapper.readerFor(GenerateResponse.class);
+    }
+
+    @Override
+    public JsonFactory getFactory() {
+        return objectMapper.getFactory();
+    }
+
+    @Override
+    public void writeMessage(JsonGenerator generator,
+            Message message) throws IOException {
+        messageWriter.writeValue(generator, message);
+    }
+
+    @Override
+    public void writeOptions(JsonGenerator generator,
+            Options options) throws IOException {
+        optionsWriter.writeValue(generator, options);
+    }
+
+    @Override
+    public ChatResponse readChatResponse(JsonParser parser)
+            throws IOException {
+        return chatResponseReader.readValue(parser);
+    }
+
+    @Override
+    public ModelsResponse readModelsResponse(JsonParser parser)
+            throws IOException {
+        return modelsResponseReader.readValue(parser);
+    }
+
+    @Override
+    public void writeGenerateRequest(JsonGenerator generator,
+            GenerateRequest request) throws IOException {
+        generateRequestWriter.writeValue(generator, request);
+    }
+
+    @Override
+    public GenerateResponse readGenerateResponse(JsonParser parser)
+            throws IOException {
+        return generateResponseReader.readValue(parser);
+    }
+}
@@ -0,0 +1,91 @@
+package com.ollama.api.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.dto.GenerateRequest;
+import com.ollama.api.dto.GenerateResponse;
+import com.ollama.api.dto.Message;
+import com.ollama.api.dto.ModelsResponse;
+import com.ollama.api.dto.Options;
+import java.io.IOException;
+
+/**
+ * Encodes and decodes the JSON exchanged with Ollama.
+ *
+ * <p>The client works on Jackson streaming generators and
+ * parsers so request bodies can be written incrementally.
+ * Implementations must be thread-safe.
+ *
+ * @since 1.1.0
+ */
+public interface JsonCodec {
+
+    /**
+     * Gets the factory used to create generators and parsers.
+     *
+     * @return the JSON factory
+     */
+    JsonFactory getFactory();
+
+    /**
+     * Writes a message object.
+     *
+     * @param generator the target generator
+     * @param message the message to write
+     * @throws IOException if writing fails
+     */
+    void writeMessage(JsonGenerator generator, Message message)
+        throws IOException;
+
+    /**
+     * Writes a generation options object.
+     *
+     * @param generator the target generator
+     * @param options the options to write
+     * @throws IOException if writing fails
+     */
+    void writeOptions(JsonGenerator generator, Options options)
+        throws IOException;
+
+    /**
+     * Reads a chat response object.
+     *
+     * @param parser the source parser
+     * @return the chat response
+     * @throws IOException if the input is not a valid response
+     */
+    ChatResponse readChatResponse(JsonParser parser)
+        throws IOException;
+
+    /**
+     * Reads a model list response object.
+     *
+     * @param parser the source parser
+     * @return the models response
+     * @throws IOException if the input is not a valid response
+     */
+    ModelsResponse readModelsResponse(JsonParser parser)
+        throws IOException;
+
+    /**
+     * Writes a completion request object.
+     *
+     * @param generator the target generator
+     * @param request the request to write
+     * @throws IOException if writing fails
+     */
+    void writeGenerateRequest(JsonGenerator generator,
+            GenerateRequest request) throws IOException;
+
+    /**
+     * Reads a completion response object.
+     *
+     * @param parser the source parser
+     * @return the completion response
+     * @throws IOException if the input is not a valid response
+     */
+    GenerateResponse readGenerateResponse(JsonParser parser)
+        throws IOException;
+}
@@ -0,0 +1,406 @@
+package com.ollama.api.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.dto.GenerateRequest;
+import com.ollama.api.dto.GenerateResponse;
+import com.ollama.api.dto.Message;
+import com.ollama.api.dto.Model;
+import com.ollama.api.dto.ModelsResponse;
+import com.ollama.api.dto.Options;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hand-written codec for the DTO package.
+ *
+ * <p>Reads and writes the DTOs directly on Jackson's streaming
+ * API, without databinding, reflection or per-type serializer
+ * lookup. This keeps the hot chat paths cheap, shortens startup
+ * and needs no reflection configuration for native images.
+ * Unknown properties are skipped.
+ *
+ * <p>Property names mirror the {@code @JsonProperty}
+ * annotations on the DTOs and must be kept in sync with them.
+ *
+ * @since 1.1.0
+ */
+public class StreamingJsonCodec implements JsonCodec {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    @Override
+    public JsonFactory getFactory() {
+        return FACTORY;
+    }
+
+    @Override
+    public void writeMessage(JsonGenerator generator,
+            Message message) throws IOException {
+        if (message == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject();
+        generator.writeStringField("role", message.getRole());
+        generator.writeStringField("content",
+            message.getContent());
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void writeOptions(JsonGenerator generator,
+            Options options) throws IOException {
+        if (options == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject();
+        if (options.getTemperature() != null) {
+            generator.writeNumberField("temperature",
+                options.getTemperature());
+        }
+        writeIntField(generator, "seed", options.getSeed());
+        writeIntField(generator, "num_predict",
+            options.getNumPredict());
+        writeIntField(generator, "num_ctx", options.getNumCtx());
+        writeIntField(generator, "num_batch",
+            options.getNumBatch());
+        writeIntField(generator, "num_thread",
+            options.getNumThread());
+        writeIntField(generator, "num_gpu", options.getNumGpu());
+        if (options.getStop() != null) {
+            generator.writeArrayFieldStart("stop");
+            for (String stop : options.getStop()) {
+                generator.writeString(stop);
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void writeGenerateRequest(JsonGenerator generator,
+            GenerateRequest request) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("model", request.getModel());
+        generator.writeStringField("prompt", request.getPrompt());
+        if (request.getSystem() != null) {
+            generator.writeStringField("system",
+                request.getSystem());
+        }
+        if (request.getContext() != null) {
+            int[] context = request.getContext();
+            generator.writeFieldName("context");
+            generator.writeArray(context, 0, context.length);
+        }
+        if (request.getRaw() != null) {
+            generator.writeBooleanField("raw", request.getRaw());
+        }
+        if (request.getStream() != null) {
+            generator.writeBooleanField("stream",
+                request.getStream());
+        }
+        if (request.getOptions() != null) {
+            generator.writeFieldName("options");
+            writeOptions(generator, request.getOptions());
+        }
+        if (request.getKeepAlive() != null) {
+            generator.writeStringField("keep_alive",
+                request.getKeepAlive());
+        }
+        generator.writeEndObject();
+    }
+
+    @Override
+    public ChatResponse readChatResponse(JsonParser parser)
+            throws IOException {
+        if (!startObject(parser)) {
+            return null;
+        }
+        ChatResponse response = new ChatResponse();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "model" -> response.setModel(text(parser));
+                case "created_at" ->
+                    response.setCreatedAt(text(parser));
+                case "message" ->
+                    response.setMessage(readMessage(parser));
+                case "done" -> response.setDone(bool(parser));
+                case "done_reason" ->
+                    response.setDoneReason(text(parser));
+                case "total_duration" ->
+                    response.setTotalDuration(int64(parser));
+                case "load_duration" ->
+                    response.setLoadDuration(int64(parser));
+                case "prompt_eval_count" ->
+                    response.setPromptEvalCount(int32(parser));
+                case "prompt_eval_duration" ->
+                    response.setPromptEvalDuration(int64(parser));
+                case "eval_count" ->
+                    response.setEvalCount(int32(parser));
+                case "eval_duration" ->
+                    response.setEvalDuration(int64(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return response;
+    }
+
+    @Override
+    public GenerateResponse readGenerateResponse(JsonParser parser)
+            throws IOException {
+        if (!startObject(parser)) {
+            return null;
+        }
+        GenerateResponse response = new GenerateResponse();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "model" -> response.setModel(text(parser));
+                case "created_at" ->
+                    response.setCreatedAt(text(parser));
+                case "response" ->
+                    response.setResponse(text(parser));
+                case "done" -> response.setDone(bool(parser));
+                case "done_reason" ->
+                    response.setDoneReason(text(parser));
+                case "context" ->
+                    response.setContext(intArray(parser));
+                case "total_duration" ->
+                    response.setTotalDuration(int64(parser));
+                case "load_duration" ->
+                    response.setLoadDuration(int64(parser));
+                case "prompt_eval_count" ->
+                    response.setPromptEvalCount(int32(parser));
+                case "prompt_eval_duration" ->
+                    response.setPromptEvalDuration(int64(parser));
+                case "eval_count" ->
+                    response.setEvalCount(int32(parser));
+                case "eval_duration" ->
+                    response.setEvalDuration(int64(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return response;
+    }
+
+    @Override
+    public ModelsResponse readModelsResponse(JsonParser parser)
+            throws IOException {
+        if (!startObject(parser)) {
+            return null;
+        }
+        ModelsResponse response = new ModelsResponse();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if ("models".equals(name)) {
+                response.setModels(readModels(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Reads a message object.
+     *
+     * @param parser the source parser
+     * @return the message, or null for a JSON null
+     * @throws IOException if the input is not a valid message
+     */
+    public Message readMessage(JsonParser parser)
+            throws IOException {
+        if (!startObject(parser)) {
+            return null;
+        }
+        Message message = new Message();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "role" -> message.setRole(text(parser));
+                case "content" -> message.setContent(text(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return message;
+    }
+
+    /**
+     * Reads a model object.
+     *
+     * @param parser the source parser
+     * @return the model, or null for a JSON null
+     * @throws IOException if the input is not a valid model
+     */
+    public Model readModel(JsonParser parser) throws IOException {
+        if (!startObject(parser)) {
+            return null;
+        }
+        Model model = new Model();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "name" -> model.setName(text(parser));
+                case "model" -> model.setModel(text(parser));
+                case "modified_at" ->
+                    model.setModifiedAt(text(parser));
+                case "size" -> model.setSize(int64(parser));
+                case "digest" -> model.setDigest(text(parser));
+                case "details" ->
+                    model.setDetails(readDetails(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return model;
+    }
+
+    private List<Model> readModels(JsonParser parser)
+            throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, JsonToken.START_ARRAY);
+        List<Model> models = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            models.add(readModel(parser));
+        }
+        return models;
+    }
+
+    private Model.ModelDetails readDetails(JsonParser parser)
+            throws IOException {
+        if (!startObject(parser)) {
+            return null;
+        }
+        Model.ModelDetails details = new Model.ModelDetails();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "parent_model" ->
+                    details.setParentModel(text(parser));
+                case "format" -> details.setFormat(text(parser));
+                case "family" -> details.setFamily(text(parser));
+                case "families" ->
+                    details.setFamilies(textArray(parser));
+                case "parameter_size" ->
+                    details.setParameterSize(text(parser));
+                case "quantization_level" ->
+                    details.setQuantizationLevel(text(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return details;
+    }
+
+    /**
+     * Positions the parser on an object start.
+     *
+     * @return false if the value is a JSON null
+     */
+    private static boolean startObject(JsonParser parser)
+            throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == null) {
+            token = parser.nextToken();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return false;
+        }
+        expect(parser, JsonToken.START_OBJECT);
+        return true;
+    }
+
+    private static void expect(JsonParser parser,
+            JsonToken expected) throws IOException {
+        if (parser.currentToken() != expected) {
+            throw new JsonParseException(parser, "Expected "
+                + expected + " but found "
+                + parser.currentToken());
+        }
+    }
+
+    private static String text(JsonParser parser)
+            throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL
+            ? null
+            : parser.getValueAsString();
+    }
+
+    private static Integer int32(JsonParser parser)
+            throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL
+            ? null
+            : parser.getValueAsInt();
+    }
+
+    private static Long int64(JsonParser parser)
+            throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL
+            ? null
+            : parser.getValueAsLong();
+    }
+
+    private static Boolean bool(JsonParser parser)
+            throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL
+            ? null
+            : parser.getValueAsBoolean();
+    }
+
+    private static String[] textArray(JsonParser parser)
+            throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, JsonToken.START_ARRAY);
+        List<String> values = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            values.add(text(parser));
+        }
+        return values.toArray(new String[0]);
+    }
+
+    /**
+     * Reads an array of integers without boxing them.
+     */
+    private static int[] intArray(JsonParser parser)
+            throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, JsonToken.START_ARRAY);
+        int[] values = new int[256];
+        int size = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = parser.getIntValue();
+        }
+        return size == values.length
+            ? values
+            : Arrays.copyOf(values, size);
+    }
+
+    private static void writeIntField(JsonGenerator generator,
+            String name, Integer value) throws IOException {
+        if (value != null) {
+            generator.writeNumberField(name, value);
+        }
+    }
+}
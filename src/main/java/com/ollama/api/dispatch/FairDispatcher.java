@@ -0,0 +1,387 @@
+package com.ollama.api.dispatch;
+
+import com.ollama.api.OllamaClient;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.exception.OllamaException;
+import com.ollama.api.metrics.Histogram;
+import com.ollama.api.usage.UsageLedger;
+import com.ollama.api.util.HeuristicTokenEstimator;
+import com.ollama.api.util.TokenEstimator;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Shares one Ollama node fairly between tenants.
+ *
+ * <p>Requests are queued per {@linkplain ChatRequest#getTenant()
+ * tenant} and sent by deficit round robin: each time a tenant's
+ * turn comes, its deficit grows by the quantum times its weight,
+ * and its queued requests are sent while their cost fits in the
+ * deficit. A request costs its estimated prompt tokens plus its
+ * {@linkplain ChatRequest#getMaxTokens() max tokens}, or
+ * {@link #DEFAULT_COMPLETION_TOKENS} if it sets none. Over time
+ * each tenant with queued work gets a share of the tokens
+ * proportional to its weight, however many requests the others
+ * submit, and a tenant with little work is never stuck behind a
+ * large backlog.
+ *
+ * <p>At most {@code maxInFlight} requests are sent at once; the
+ * server runs only a few generations in parallel, and keeping
+ * the rest here is what makes the order fair. Requests are sent
+ * on virtual threads. A future cancelled while its request is
+ * queued removes it from the queue; once sent, a request runs to
+ * completion.
+ *
+ * <p>Instances are thread-safe.
+ *
+ * @since 1.1.0
+ */
+public final class FairDispatcher implements AutoCloseable {
+
+    /** Completion tokens assumed for requests without a limit. */
+    public static final int DEFAULT_COMPLETION_TOKENS = 256;
+
+    /** Tokens added to a weight 1 tenant's deficit per turn. */
+    public static final int DEFAULT_QUANTUM = 256;
+
+    private final OllamaClient client;
+    private final int maxInFlight;
+    private final TokenEstimator estimator;
+    private final int quantum;
+    private final Map<String, TenantQueue> queues = new HashMap<>();
+    private final Map<String, Double> weights = new HashMap<>();
+    private final ArrayDeque<TenantQueue> active = new ArrayDeque<>();
+    private int inFlight;
+    private boolean closed;
+
+    /**
+     * Work sent for one queued request.
+     */
+    @FunctionalInterface
+    private interface Job<T> {
+        T run() throws OllamaException;
+    }
+
+    private static final class Task<T> {
+        final TenantQueue queue;
+        final long cost;
+        final Job<T> job;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final long enqueued = System.nanoTime();
+
+        Task(TenantQueue queue, long cost, Job<T> job) {
+            this.queue = queue;
+            this.cost = cost;
+            this.job = job;
+        }
+    }
+
+    private static final class TenantQueue {
+        final String tenant;
+        final ArrayDeque<Task<?>> tasks = new ArrayDeque<>();
+        final Histogram queueWait = new Histogram();
+        double weight;
+        double deficit;
+        boolean credited;
+        int inFlight;
+        long dispatched;
+        long dispatchedCost;
+
+        TenantQueue(String tenant, double weight) {
+            this.tenant = tenant;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Creates a dispatcher with the default estimator and
+     * quantum.
+     *
+     * @param client the client sending the requests
+     * @param maxInFlight the most requests sent at once
+     */
+    public FairDispatcher(OllamaClient client, int maxInFlight) {
+        this(client, maxInFlight, HeuristicTokenEstimator.DEFAULT,
+            DEFAULT_QUANTUM);
+    }
+
+    /**
+     * Creates a dispatcher.
+     *
+     * @param client the client sending the requests
+     * @param maxInFlight the most requests sent at once
+     * @param estimator the estimator of prompt tokens
+     * @param quantum the tokens added to a weight 1 tenant's
+     *     deficit per turn
+     */
+    public FairDispatcher(OllamaClient client, int maxInFlight,
+            TokenEstimator estimator, int quantum) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException(
+                "maxInFlight must be at least 1: " + maxInFlight);
+        }
+        if (quantum < 1) {
+            throw new IllegalArgumentException(
+                "Quantum must be at least 1: " + quantum);
+        }
+        this.client = client;
+        this.maxInFlight = maxInFlight;
+        this.estimator = estimator;
+        this.quantum = quantum;
+    }
+
+    /**
+     * Sets the share weight of a tenant. A tenant with weight 2
+     * gets twice the tokens of a tenant with weight 1 while both
+     * have queued work. The default weight is 1.
+     *
+     * @param tenant the tenant, or null for the default tenant
+     * @param weight the weight
+     */
+    public synchronized void setWeight(String tenant, double weight) {
+        if (!(weight > 0)) {
+            throw new IllegalArgumentException(
+                "Weight must be positive: " + weight);
+        }
+        String key = tenantOf(tenant);
+        weights.put(key, weight);
+        TenantQueue queue = queues.get(key);
+        if (queue != null) {
+            queue.weight = weight;
+        }
+    }
+
+    /**
+     * Queues a chat request.
+     *
+     * @param request the chat request
+     * @return the future response, completed exceptionally with
+     *     the {@link OllamaException} if the request fails
+     */
+    public CompletableFuture<ChatResponse> submit(ChatRequest request) {
+        return enqueue(request, () -> client.chat(request));
+    }
+
+    /**
+     * Queues a streaming chat request.
+     *
+     * @param request the chat request
+     * @param callback function to handle each response chunk,
+     *     called on the request's virtual thread
+     * @return a future completed when the stream ends
+     */
+    public CompletableFuture<Void> submitStream(ChatRequest request,
+            Consumer<ChatResponse> callback) {
+        return enqueue(request, () -> {
+            client.chatStream(request, callback);
+            return null;
+        });
+    }
+
+    /**
+     * Gets the number of requests sent and not yet completed.
+     *
+     * @return the requests in flight
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Gets the number of requests waiting in all queues.
+     *
+     * @return the queued requests
+     */
+    public synchronized int getQueued() {
+        int queued = 0;
+        for (TenantQueue queue : active) {
+            queued += queue.tasks.size();
+        }
+        return queued;
+    }
+
+    /**
+     * Gets the statistics of every tenant that submitted work,
+     * sorted by tenant.
+     *
+     * @return the statistics
+     */
+    public synchronized List<TenantStats> getTenantStats() {
+        List<TenantStats> stats = new ArrayList<>(queues.size());
+        for (TenantQueue queue : queues.values()) {
+            stats.add(new TenantStats(queue.tenant, queue.weight,
+                queue.tasks.size(), queue.inFlight, queue.dispatched,
+                queue.dispatchedCost, queue.queueWait.snapshot()));
+        }
+        stats.sort(Comparator.comparing(TenantStats::tenant));
+        return stats;
+    }
+
+    /**
+     * Stops accepting requests and fails the queued ones.
+     * Requests in flight run to completion.
+     */
+    @Override
+    public void close() {
+        List<Task<?>> dropped = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            for (TenantQueue queue : active) {
+                dropped.addAll(queue.tasks);
+                queue.tasks.clear();
+            }
+            active.clear();
+        }
+        for (Task<?> task : dropped) {
+            task.future.completeExceptionally(
+                new OllamaException("Dispatcher closed"));
+        }
+    }
+
+    private <T> CompletableFuture<T> enqueue(ChatRequest request,
+            Job<T> job) {
+        Integer maxTokens = request.getMaxTokens();
+        long cost = (long) estimator.estimate(request)
+            + (maxTokens != null && maxTokens > 0
+                ? maxTokens
+                : DEFAULT_COMPLETION_TOKENS);
+        Task<T> task;
+        synchronized (this) {
+            if (closed) {
+                return CompletableFuture.failedFuture(
+                    new OllamaException("Dispatcher closed"));
+            }
+            String key = tenantOf(request.getTenant());
+            TenantQueue queue = queues.computeIfAbsent(key,
+                k -> new TenantQueue(k, weights.getOrDefault(k, 1.0)));
+            task = new Task<>(queue, cost, job);
+            if (queue.tasks.isEmpty()) {
+                active.addLast(queue);
+            }
+            queue.tasks.addLast(task);
+        }
+        task.future.whenComplete((result, error) -> {
+            if (task.future.isCancelled()) {
+                cancel(task);
+            }
+        });
+        dispatch();
+        return task.future;
+    }
+
+    private synchronized void cancel(Task<?> task) {
+        TenantQueue queue = task.queue;
+        if (queue.tasks.remove(task) && queue.tasks.isEmpty()) {
+            active.remove(queue);
+            queue.deficit = 0;
+            queue.credited = false;
+        }
+    }
+
+    /**
+     * Sends queued requests while there is room in flight.
+     */
+    private void dispatch() {
+        while (true) {
+            Task<?> task;
+            synchronized (this) {
+                if (inFlight >= maxInFlight) {
+                    return;
+                }
+                task = next();
+                if (task == null) {
+                    return;
+                }
+                inFlight++;
+                TenantQueue queue = task.queue;
+                queue.inFlight++;
+                queue.dispatched++;
+                queue.dispatchedCost += task.cost;
+                queue.queueWait.record(System.nanoTime() - task.enqueued);
+            }
+            start(task);
+        }
+    }
+
+    /**
+     * Picks the next request by deficit round robin.
+     */
+    private Task<?> next() {
+        int misses = 0;
+        while (!active.isEmpty()) {
+            TenantQueue queue = active.peekFirst();
+            if (!queue.credited) {
+                queue.deficit += quantum * queue.weight;
+                queue.credited = true;
+            }
+            Task<?> head = queue.tasks.peekFirst();
+            if (head.cost <= queue.deficit) {
+                queue.tasks.removeFirst();
+                queue.deficit -= head.cost;
+                if (queue.tasks.isEmpty()) {
+                    // An idle tenant does not save up credit
+                    active.removeFirst();
+                    queue.deficit = 0;
+                    queue.credited = false;
+                }
+                return head;
+            }
+            queue.credited = false;
+            active.addLast(active.removeFirst());
+            if (++misses == active.size()) {
+                skipRounds();
+                misses = 0;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Credits every queue at once with the rounds that would pass
+     * before any head fits, after a round in which none did. A
+     * head costing far more than the quantum would otherwise take
+     * one pass over the queues per quantum.
+     */
+    private void skipRounds() {
+        long rounds = Long.MAX_VALUE;
+        for (TenantQueue queue : active) {
+            double missing = queue.tasks.peekFirst().cost - queue.deficit;
+            rounds = Math.min(rounds,
+                (long) Math.ceil(missing / (quantum * queue.weight)));
+        }
+        // The last round is left to the loop, so that queues
+        // ahead of the first fit are credited in order
+        if (rounds > 1) {
+            for (TenantQueue queue : active) {
+                queue.deficit += (rounds - 1) * quantum * queue.weight;
+            }
+        }
+    }
+
+    private <T> void start(Task<T> task) {
+        Thread.ofVirtual().name("ollama-dispatch").start(() -> {
+            try {
+                task.future.complete(task.job.run());
+            } catch (OllamaException | RuntimeException e) {
+                task.future.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    inFlight--;
+                    task.queue.inFlight--;
+                }
+                dispatch();
+            }
+        });
+    }
+
+    private static String tenantOf(String tenant) {
+        return tenant != null ? tenant : UsageLedger.DEFAULT_TENANT;
+    }
+}
@@ -0,0 +1,22 @@
+package com.ollama.api.dispatch;
+
+import com.ollama.api.metrics.Histogram;
+
+/**
+ * Queueing statistics of one tenant of a {@link FairDispatcher}.
+ *
+ * @param tenant the tenant
+ * @param weight the tenant's share weight
+ * @param queued the requests waiting now
+ * @param inFlight the requests sent and not yet completed
+ * @param dispatched the requests sent so far
+ * @param dispatchedCost the estimated tokens of the requests
+ *     sent so far
+ * @param queueWait the time requests waited in the queue, in
+ *     nanoseconds
+ * @since 1.1.0
+ */
+public record TenantStats(String tenant, double weight, int queued,
+        int inFlight, long dispatched, long dispatchedCost,
+        Histogram.Snapshot queueWait) {
+}
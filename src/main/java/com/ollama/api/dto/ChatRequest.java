@@ -1,5 +1,7 @@
 package com.ollama.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.List;
 
@@ -19,11 +21,15 @@ public class ChatRequest {
   @JsonProperty("stream")
   private Boolean stream;
 
-  @JsonProperty("temperature")
-  private Double temperature;
+  @JsonProperty("options")
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private Options options;
 
-  @JsonProperty("max_tokens")
-  private Integer maxTokens;
+  @JsonProperty("keep_alive")
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String keepAlive;
+
+  @JsonIgnore private String tenant;
 
   /** Default constructor for JSON deserialization. */
   public ChatRequest() {}
@@ -93,22 +99,83 @@ public class ChatRequest {
     this.stream = stream;
   }
 
+  /**
+   * Gets the generation options.
+   *
+   * @return the options, or null if none are set
+   */
+  public Options getOptions() {
+    return options;
+  }
+
+  /**
+   * Sets the generation options.
+   *
+   * @param options the options
+   */
+  public void setOptions(Options options) {
+    this.options = options;
+  }
+
+  /**
+   * Gets how long the model stays loaded after the request.
+   *
+   * @return the keep-alive duration, or null for the server default
+   */
+  public String getKeepAlive() {
+    return keepAlive;
+  }
+
+  /**
+   * Sets how long the model stays loaded after the request. Unloading the model also drops
+   * its cached prompt state.
+   *
+   * @param keepAlive a duration such as {@code "30m"}, or {@code "-1"} to keep it loaded
+   */
+  public void setKeepAlive(String keepAlive) {
+    this.keepAlive = keepAlive;
+  }
+
+  /**
+   * Gets the tenant the request is charged to. The tenant is not sent to the server.
+   *
+   * @return the tenant, or null for the default tenant
+   * @since 1.1.0
+   */
+  @JsonIgnore
+  public String getTenant() {
+    return tenant;
+  }
+
+  /**
+   * Sets the tenant the request is charged to in the client's {@link
+   * com.ollama.api.usage.UsageLedger usage ledger}.
+   *
+   * @param tenant the tenant key, such as a team name
+   * @since 1.1.0
+   */
+  @JsonIgnore
+  public void setTenant(String tenant) {
+    this.tenant = tenant;
+  }
+
   /**
    * Gets the temperature setting.
    *
    * @return the temperature
    */
+  @JsonIgnore
   public Double getTemperature() {
-    return temperature;
+    return options == null ? null : options.getTemperature();
   }
 
   /**
-   * Sets the temperature setting.
+   * Sets the temperature setting. Stored in the generation options.
    *
    * @param temperature the temperature (0.0 to 1.0)
    */
   public void setTemperature(Double temperature) {
-    this.temperature = temperature;
+    getOrCreateOptions().setTemperature(temperature);
   }
 
   /**
@@ -116,17 +183,25 @@ public class ChatRequest {
    *
    * @return the max tokens
    */
+  @JsonIgnore
   public Integer getMaxTokens() {
-    return maxTokens;
+    return options == null ? null : options.getNumPredict();
   }
 
   /**
-   * Sets the max tokens setting.
+   * Sets the max tokens setting. Stored as {@code num_predict} in the generation options.
    *
    * @param maxTokens the maximum number of tokens
    */
   public void setMaxTokens(Integer maxTokens) {
-    this.maxTokens = maxTokens;
+    getOrCreateOptions().setNumPredict(maxTokens);
+  }
+
+  private Options getOrCreateOptions() {
+    if (options == null) {
+      options = new Options();
+    }
+    return options;
   }
 
   /**
@@ -197,6 +272,40 @@ public class ChatRequest {
       return this;
     }
 
+    /**
+     * Sets the generation options.
+     *
+     * @param options the options
+     * @return this builder
+     */
+    public Builder options(Options options) {
+      this.request.setOptions(options);
+      return this;
+    }
+
+    /**
+     * Sets how long the model stays loaded after the request.
+     *
+     * @param keepAlive a duration such as {@code "30m"}
+     * @return this builder
+     */
+    public Builder keepAlive(String keepAlive) {
+      this.request.setKeepAlive(keepAlive);
+      return this;
+    }
+
+    /**
+     * Sets the tenant the request is charged to.
+     *
+     * @param tenant the tenant key
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder tenant(String tenant) {
+      this.request.setTenant(tenant);
+      return this;
+    }
+
     /**
      * Builds the chat request.
      *
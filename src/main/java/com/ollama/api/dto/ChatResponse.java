@@ -1,6 +1,8 @@
 package com.ollama.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ollama.api.metrics.RequestTiming;
 
 /**
  * Response object for chat completion API.
@@ -42,6 +44,12 @@ public class ChatResponse {
     @JsonProperty("eval_duration")
     private Long evalDuration;
     
+    @JsonIgnore
+    private RequestTiming timing;
+    
+    @JsonIgnore
+    private Long timeToFirstToken;
+    
     /**
      * Default constructor for JSON deserialization.
      */
@@ -245,4 +253,68 @@ public class ChatResponse {
     public void setEvalDuration(Long evalDuration) {
         this.evalDuration = evalDuration;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Gets the generation speed derived from {@code eval_count}
+     * and {@code eval_duration}.
+     * 
+     * @return tokens per second, or null if the counts are missing
+     * @since 1.1.0
+     */
+    @JsonIgnore
+    public Double getTokensPerSecond() {
+        if (evalCount == null || evalDuration == null
+                || evalDuration <= 0) {
+            return null;
+        }
+        return evalCount * 1e9 / evalDuration;
+    }
+    
+    /**
+     * Gets the time to the first token measured by the client.
+     * Only set on responses assembled by
+     * {@link com.ollama.api.util.StreamCollector}.
+     * 
+     * @return the time in nanoseconds, or null if not measured
+     * @since 1.1.0
+     */
+    @JsonIgnore
+    public Long getTimeToFirstToken() {
+        return timeToFirstToken;
+    }
+    
+    /**
+     * Sets the time to the first token measured by the client.
+     * 
+     * @param timeToFirstToken the time in nanoseconds
+     * @since 1.1.0
+     */
+    @JsonIgnore
+    public void setTimeToFirstToken(Long timeToFirstToken) {
+        this.timeToFirstToken = timeToFirstToken;
+    }
+    
+    /**
+     * Gets the timing breakdown of the request measured by the
+     * client. Set on non-streaming responses and on the final
+     * chunk of a stream.
+     * 
+     * @return the timing, or null if not measured
+     * @since 1.1.0
+     */
+    @JsonIgnore
+    public RequestTiming getTiming() {
+        return timing;
+    }
+    
+    /**
+     * Sets the timing breakdown of the request.
+     * 
+     * @param timing the timing
+     * @since 1.1.0
+     */
+    @JsonIgnore
+    public void setTiming(RequestTiming timing) {
+        this.timing = timing;
+    }
+}
@@ -0,0 +1,346 @@
+package com.ollama.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Request object for the completion API ({@code /api/generate}).
+ *
+ * <p>To continue a previous completion without re-evaluating its prompt,
+ * pass the {@code context} of the previous response.
+ *
+ * @since 1.1.0
+ */
+public class GenerateRequest {
+    
+    @JsonProperty("model")
+    private String model;
+    
+    @JsonProperty("prompt")
+    private String prompt;
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("system")
+    private String system;
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("context")
+    private int[] context;
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("raw")
+    private Boolean raw;
+    
+    @JsonProperty("stream")
+    private Boolean stream;
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("options")
+    private Options options;
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("keep_alive")
+    private String keepAlive;
+    
+    @JsonIgnore
+    private String tenant;
+    
+    /**
+     * Default constructor for JSON deserialization.
+     */
+    public GenerateRequest() {
+    }
+    
+    /**
+     * Gets the model name.
+     * 
+     * @return the model name
+     */
+    public String getModel() {
+        return model;
+    }
+    
+    /**
+     * Sets the model name.
+     * 
+     * @param model the model name
+     */
+    public void setModel(String model) {
+        this.model = model;
+    }
+    
+    /**
+     * Gets the prompt text.
+     * 
+     * @return the prompt text
+     */
+    public String getPrompt() {
+        return prompt;
+    }
+    
+    /**
+     * Sets the prompt text.
+     * 
+     * @param prompt the prompt text
+     */
+    public void setPrompt(String prompt) {
+        this.prompt = prompt;
+    }
+    
+    /**
+     * Gets the system prompt.
+     * 
+     * @return the system prompt
+     */
+    public String getSystem() {
+        return system;
+    }
+    
+    /**
+     * Sets the system prompt.
+     * 
+     * @param system the system prompt
+     */
+    public void setSystem(String system) {
+        this.system = system;
+    }
+    
+    /**
+     * Gets the context tokens returned by a previous response.
+     * 
+     * @return the context tokens returned by a previous response
+     */
+    public int[] getContext() {
+        return context;
+    }
+    
+    /**
+     * Sets the context tokens returned by a previous response.
+     * 
+     * @param context the context tokens returned by a previous response
+     */
+    public void setContext(int[] context) {
+        this.context = context;
+    }
+    
+    /**
+     * Gets the raw mode flag, which bypasses the prompt template.
+     * 
+     * @return the raw mode flag, which bypasses the prompt template
+     */
+    public Boolean getRaw() {
+        return raw;
+    }
+    
+    /**
+     * Sets the raw mode flag, which bypasses the prompt template.
+     * 
+     * @param raw the raw mode flag, which bypasses the prompt template
+     */
+    public void setRaw(Boolean raw) {
+        this.raw = raw;
+    }
+    
+    /**
+     * Gets the stream setting.
+     * 
+     * @return the stream setting
+     */
+    public Boolean getStream() {
+        return stream;
+    }
+    
+    /**
+     * Sets the stream setting.
+     * 
+     * @param stream the stream setting
+     */
+    public void setStream(Boolean stream) {
+        this.stream = stream;
+    }
+    
+    /**
+     * Gets the generation options.
+     * 
+     * @return the generation options
+     */
+    public Options getOptions() {
+        return options;
+    }
+    
+    /**
+     * Sets the generation options.
+     * 
+     * @param options the generation options
+     */
+    public void setOptions(Options options) {
+        this.options = options;
+    }
+    
+    /**
+     * Gets the keep-alive duration.
+     * 
+     * @return the keep-alive duration
+     */
+    public String getKeepAlive() {
+        return keepAlive;
+    }
+    
+    /**
+     * Sets the keep-alive duration.
+     * 
+     * @param keepAlive the keep-alive duration
+     */
+    public void setKeepAlive(String keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+    
+    /**
+     * Creates a builder for a generate request.
+     * 
+     * @param model the model to use
+     * @return a new builder
+     */
+    public static Builder builder(String model) {
+        return new Builder(model);
+    }
+    
+    /**
+     * Gets the tenant the request is charged to. The tenant is
+     * not sent to the server.
+     * 
+     * @return the tenant, or null for the default tenant
+     * @since 1.1.0
+     */
+    @JsonIgnore
+    public String getTenant() {
+        return tenant;
+    }
+    
+    /**
+     * Sets the tenant the request is charged to in the client's
+     * {@link com.ollama.api.usage.UsageLedger usage ledger}.
+     * 
+     * @param tenant the tenant key, such as a team name
+     * @since 1.1.0
+     */
+    @JsonIgnore
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+    
+    /**
+     * Builder class for GenerateRequest.
+     */
+    public static class Builder {
+        private final GenerateRequest request = new GenerateRequest();
+        
+        /**
+         * Creates a new builder.
+         * 
+         * @param model the model to use
+         */
+        public Builder(String model) {
+            request.setModel(model);
+        }
+        
+        /**
+         * Sets the prompt text.
+         * 
+         * @param prompt the prompt text
+         * @return this builder
+         */
+        public Builder prompt(String prompt) {
+            request.setPrompt(prompt);
+            return this;
+        }
+        
+        /**
+         * Sets the system prompt.
+         * 
+         * @param system the system prompt
+         * @return this builder
+         */
+        public Builder system(String system) {
+            request.setSystem(system);
+            return this;
+        }
+        
+        /**
+         * Sets the context tokens returned by a previous response.
+         * 
+         * @param context the context tokens returned by a previous response
+         * @return this builder
+         */
+        public Builder context(int[] context) {
+            request.setContext(context);
+            return this;
+        }
+        
+        /**
+         * Sets the raw mode flag, which bypasses the prompt template.
+         * 
+         * @param raw the raw mode flag, which bypasses the prompt template
+         * @return this builder
+         */
+        public Builder raw(Boolean raw) {
+            request.setRaw(raw);
+            return this;
+        }
+        
+        /**
+         * Sets the stream setting.
+         * 
+         * @param stream the stream setting
+         * @return this builder
+         */
+        public Builder stream(Boolean stream) {
+            request.setStream(stream);
+            return this;
+        }
+        
+        /**
+         * Sets the generation options.
+         * 
+         * @param options the generation options
+         * @return this builder
+         */
+        public Builder options(Options options) {
+            request.setOptions(options);
+            return this;
+        }
+        
+        /**
+         * Sets the keep-alive duration.
+         * 
+         * @param keepAlive the keep-alive duration
+         * @return this builder
+         */
+        public Builder keepAlive(String keepAlive) {
+            request.setKeepAlive(keepAlive);
+            return this;
+        }
+        
+        /**
+         * Sets the tenant the request is charged to.
+         * 
+         * @param tenant the tenant key
+         * @return this builder
+         * @since 1.1.0
+         */
+        public Builder tenant(String tenant) {
+            request.setTenant(tenant);
+            return this;
+        }
+        
+        /**
+         * Builds the generate request.
+         * 
+         * @return the generate request
+         */
+        public GenerateRequest build() {
+            return request;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.ollama.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ollama.api.metrics.RequestTiming;
+
+/**
+ * Response object for the completion API ({@code /api/generate}).
+ *
+ * @since 1.1.0
+ */
+public class GenerateResponse {
+    
+    @JsonProperty("model")
+    private String model;
+    
+    @JsonProperty("created_at")
+    private String createdAt;
+    
+    @JsonProperty("response")
+    private String response;
+    
+    @JsonProperty("done")
+    private Boolean done;
+    
+    @JsonProperty("done_reason")
+    private String doneReason;
+    
+    @JsonProperty("context")
+    private int[] context;
+    
+    @JsonProperty("total_duration")
+    private Long totalDuration;
+    
+    @JsonProperty("load_duration")
+    private Long loadDuration;
+    
+    @JsonProperty("prompt_eval_count")
+    private Integer promptEvalCount;
+    
+    @JsonProperty("prompt_eval_duration")
+    private Long promptEvalDuration;
+    
+    @JsonProperty("eval_count")
+    private Integer evalCount;
+    
+    @JsonProperty("eval_duration")
+    private Long evalDuration;
+    
+    @JsonIgnore
+    private RequestTiming timing;
+    
+    /**
+     * Default constructor for JSON deserialization.
+     */
+    public GenerateResponse() {
+    }
+    
+    /**
+     * Gets the model name.
+     * 
+     * @return the model name
+     */
+    public String getModel() {
+        return model;
+    }
+    
+    /**
+     * Sets the model name.
+     * 
+     * @param model the model name
+     */
+    public void setModel(String model) {
+        this.model = model;
+    }
+    
+    /**
+     * Gets the creation timestamp.
+     * 
+     * @return the creation timestamp
+     */
+    public String getCreatedAt() {
+        return createdAt;
+    }
+    
+    /**
+     * Sets the creation timestamp.
+     * 
+     * @param createdAt the creation timestamp
+     */
+    public void setCreatedAt(String createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    /**
+     * Gets the generated text.
+     * 
+     * @return the generated text
+     */
+    public String getResponse() {
+        return response;
+    }
+    
+    /**
+     * Sets the generated text.
+     * 
+     * @param response the generated text
+     */
+    public void setResponse(String response) {
+        this.response = response;
+    }
+    
+    /**
+     * Gets the completion status.
+     * 
+     * @return the completion status
+     */
+    public Boolean getDone() {
+        return done;
+    }
+    
+    /**
+     * Sets the completion status.
+     * 
+     * @param done the completion status
+     */
+    public void setDone(Boolean done) {
+        this.done = done;
+    }
+    
+    /**
+     * Gets the completion reason.
+     * 
+     * @return the completion reason
+     */
+    public String getDoneReason() {
+        return doneReason;
+    }
+    
+    /**
+     * Sets the completion reason.
+     * 
+     * @param doneReason the completion reason
+     */
+    public void setDoneReason(String doneReason) {
+        this.doneReason = doneReason;
+    }
+    
+    /**
+     * Gets the context tokens, present on the final response.
+     * 
+     * @return the context tokens, present on the final response
+     */
+    public int[] getContext() {
+        return context;
+    }
+    
+    /**
+     * Sets the context tokens, present on the final response.
+     * 
+     * @param context the context tokens, present on the final response
+     */
+    public void setContext(int[] context) {
+        this.context = context;
+    }
+    
+    /**
+     * Gets the total duration in nanoseconds.
+     * 
+     * @return the total duration in nanoseconds
+     */
+    public Long getTotalDuration() {
+        return totalDuration;
+    }
+    
+    /**
+     * Sets the total duration in nanoseconds.
+     * 
+     * @param totalDuration the total duration in nanoseconds
+     */
+    public void setTotalDuration(Long totalDuration) {
+        this.totalDuration = totalDuration;
+    }
+    
+    /**
+     * Gets the model load duration in nanoseconds.
+     * 
+     * @return the model load duration in nanoseconds
+     */
+    public Long getLoadDuration() {
+        return loadDuration;
+    }
+    
+    /**
+     * Sets the model load duration in nanoseconds.
+     * 
+     * @param loadDuration the model load duration in nanoseconds
+     */
+    public void setLoadDuration(Long loadDuration) {
+        this.loadDuration = loadDuration;
+    }
+    
+    /**
+     * Gets the prompt evaluation count.
+     * 
+     * @return the prompt evaluation count
+     */
+    public Integer getPromptEvalCount() {
+        return promptEvalCount;
+    }
+    
+    /**
+     * Sets the prompt evaluation count.
+     * 
+     * @param promptEvalCount the prompt evaluation count
+     */
+    public void setPromptEvalCount(Integer promptEvalCount) {
+        this.promptEvalCount = promptEvalCount;
+    }
+    
+    /**
+     * Gets the prompt evaluation duration in nanoseconds.
+     * 
+     * @return the prompt evaluation duration in nanoseconds
+     */
+    public Long getPromptEvalDuration() {
+        return promptEvalDuration;
+    }
+    
+    /**
+     * Sets the prompt evaluation duration in nanoseconds.
+     * 
+     * @param promptEvalDuration the prompt evaluation duration in nanoseconds
+     */
+    public void setPromptEvalDuration(Long promptEvalDuration) {
+        this.promptEvalDuration = promptEvalDuration;
+    }
+    
+    /**
+     * Gets the evaluation token count.
+     * 
+     * @return the evaluation token count
+     */
+    public Integer getEvalCount() {
+        return evalCount;
+    }
+    
+    /**
+     * Sets the evaluation token count.
+     * 
+     * @param evalCount the evaluation token count
+     */
+    public void setEvalCount(Integer evalCount) {
+        this.evalCount = evalCount;
+    }
+    
+    /**
+     * Gets the evaluation duration in nanoseconds.
+     * 
+     * @return the evaluation duration in nanoseconds
+     */
+    public Long getEvalDuration() {
+        return evalDuration;
+    }
+    
+    /**
+     * Sets the evaluation duration in nanoseconds.
+     * 
+     * @param evalDuration the evaluation duration in nanoseconds
+     */
+    public void setEvalDuration(Long evalDuration) {
+        this.evalDuration = evalDuration;
+    }
+    
+    /**
+     * Gets the timing breakdown of the request measured by the
+     * client. Set on non-streaming responses and on the final
+     * chunk of a stream.
+     * 
+     * @return the timing, or null if not measured
+     * @since 1.1.0
+     */
+    @JsonIgnore
+    public RequestTiming getTiming() {
+        return timing;
+    }
+    
+    /**
+     * Sets the timing breakdown of the request.
+     * 
+     * @param timing the timing
+     * @since 1.1.0
+     */
+    @JsonIgnore
+    public void setTiming(RequestTiming timing) {
+        this.timing = timing;
+    }
+}
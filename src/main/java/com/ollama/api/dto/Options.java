@@ -0,0 +1,325 @@
+package com.ollama.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Model generation parameters sent in the {@code options}
+ * object of a request.
+ *
+ * <p>Ollama only reads generation parameters from this object;
+ * unset values are omitted so the model defaults apply.
+ *
+ * @since 1.1.0
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Options {
+
+    @JsonProperty("temperature")
+    private Double temperature;
+
+    @JsonProperty("seed")
+    private Integer seed;
+
+    @JsonProperty("num_predict")
+    private Integer numPredict;
+
+    @JsonProperty("num_ctx")
+    private Integer numCtx;
+
+    @JsonProperty("num_batch")
+    private Integer numBatch;
+
+    @JsonProperty("num_thread")
+    private Integer numThread;
+
+    @JsonProperty("num_gpu")
+    private Integer numGpu;
+
+    @JsonProperty("stop")
+    private List<String> stop;
+
+    /**
+     * Default constructor for JSON deserialization.
+     */
+    public Options() {
+    }
+
+    /**
+     * Gets the sampling temperature.
+     *
+     * @return the temperature
+     */
+    public Double getTemperature() {
+        return temperature;
+    }
+
+    /**
+     * Sets the sampling temperature.
+     *
+     * @param temperature the temperature
+     */
+    public void setTemperature(Double temperature) {
+        this.temperature = temperature;
+    }
+
+    /**
+     * Gets the random seed.
+     *
+     * @return the seed
+     */
+    public Integer getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the random seed used for sampling.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(Integer seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the maximum number of tokens to generate.
+     *
+     * @return the token limit
+     */
+    public Integer getNumPredict() {
+        return numPredict;
+    }
+
+    /**
+     * Sets the maximum number of tokens to generate.
+     *
+     * @param numPredict the token limit, -1 for unlimited
+     */
+    public void setNumPredict(Integer numPredict) {
+        this.numPredict = numPredict;
+    }
+
+    /**
+     * Gets the context window size.
+     *
+     * @return the context size in tokens
+     */
+    public Integer getNumCtx() {
+        return numCtx;
+    }
+
+    /**
+     * Sets the context window size.
+     *
+     * @param numCtx the context size in tokens
+     */
+    public void setNumCtx(Integer numCtx) {
+        this.numCtx = numCtx;
+    }
+
+    /**
+     * Gets the prompt processing batch size.
+     *
+     * @return the batch size
+     */
+    public Integer getNumBatch() {
+        return numBatch;
+    }
+
+    /**
+     * Sets the prompt processing batch size.
+     *
+     * @param numBatch the batch size
+     */
+    public void setNumBatch(Integer numBatch) {
+        this.numBatch = numBatch;
+    }
+
+    /**
+     * Gets the number of CPU threads.
+     *
+     * @return the thread count
+     */
+    public Integer getNumThread() {
+        return numThread;
+    }
+
+    /**
+     * Sets the number of CPU threads used for generation.
+     *
+     * @param numThread the thread count
+     */
+    public void setNumThread(Integer numThread) {
+        this.numThread = numThread;
+    }
+
+    /**
+     * Gets the number of layers offloaded to the GPU.
+     *
+     * @return the GPU layer count
+     */
+    public Integer getNumGpu() {
+        return numGpu;
+    }
+
+    /**
+     * Sets the number of layers offloaded to the GPU.
+     *
+     * @param numGpu the GPU layer count
+     */
+    public void setNumGpu(Integer numGpu) {
+        this.numGpu = numGpu;
+    }
+
+    /**
+     * Gets the stop sequences.
+     *
+     * @return the stop sequences
+     */
+    public List<String> getStop() {
+        return stop;
+    }
+
+    /**
+     * Sets the sequences that end generation.
+     *
+     * @param stop the stop sequences
+     */
+    public void setStop(List<String> stop) {
+        this.stop = stop;
+    }
+
+    /**
+     * Copies these options, so that one request's options can be
+     * changed without affecting another's.
+     *
+     * @return a copy with its own list of stop sequences
+     */
+    public Options copy() {
+        Options copy = new Options();
+        copy.temperature = temperature;
+        copy.seed = seed;
+        copy.numPredict = numPredict;
+        copy.numCtx = numCtx;
+        copy.numBatch = numBatch;
+        copy.numThread = numThread;
+        copy.numGpu = numGpu;
+        copy.stop = stop == null ? null : new ArrayList<>(stop);
+        return copy;
+    }
+
+    /**
+     * Creates a builder for generation options.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder class for Options.
+     */
+    public static class Builder {
+        private final Options options = new Options();
+
+        /**
+         * Sets the sampling temperature.
+         *
+         * @param temperature the temperature
+         * @return this builder
+         */
+        public Builder temperature(Double temperature) {
+            options.setTemperature(temperature);
+            return this;
+        }
+
+        /**
+         * Sets the random seed.
+         *
+         * @param seed the seed
+         * @return this builder
+         */
+        public Builder seed(Integer seed) {
+            options.setSeed(seed);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of tokens to generate.
+         *
+         * @param numPredict the token limit
+         * @return this builder
+         */
+        public Builder numPredict(Integer numPredict) {
+            options.setNumPredict(numPredict);
+            return this;
+        }
+
+        /**
+         * Sets the context window size.
+         *
+         * @param numCtx the context size in tokens
+         * @return this builder
+         */
+        public Builder numCtx(Integer numCtx) {
+            options.setNumCtx(numCtx);
+            return this;
+        }
+
+        /**
+         * Sets the prompt processing batch size.
+         *
+         * @param numBatch the batch size
+         * @return this builder
+         */
+        public Builder numBatch(Integer numBatch) {
+            options.setNumBatch(numBatch);
+            return this;
+        }
+
+        /**
+         * Sets the number of CPU threads.
+         *
+         * @param numThread the thread count
+         * @return this builder
+         */
+        public Builder numThread(Integer numThread) {
+            options.setNumThread(numThread);
+            return this;
+        }
+
+        /**
+         * Sets the number of layers offloaded to the GPU.
+         *
+         * @param numGpu the GPU layer count
+         * @return this builder
+         */
+        public Builder numGpu(Integer numGpu) {
+            options.setNumGpu(numGpu);
+            return this;
+        }
+
+        /**
+         * Sets the stop sequences.
+         *
+         * @param stop the stop sequences
+         * @return this builder
+         */
+        public Builder stop(List<String> stop) {
+            options.setStop(stop);
+            return this;
+        }
+
+        /**
+         * Builds the options.
+         *
+         * @return the options
+         */
+        public Options build() {
+            return options;
+        }
+    }
+}
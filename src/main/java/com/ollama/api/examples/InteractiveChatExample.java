@@ -1,12 +1,9 @@
 package com.ollama.api.examples;
 
 import com.ollama.api.OllamaClient;
-import com.ollama.api.dto.ChatRequest;
 import com.ollama.api.dto.ChatResponse;
-import com.ollama.api.dto.Message;
 import com.ollama.api.exception.OllamaException;
-import java.util.ArrayList;
-import java.util.List;
+import com.ollama.api.util.Conversation;
 import java.util.Scanner;
 
 /**
@@ -16,7 +13,7 @@ import java.util.Scanner;
  *
  * <ul>
  *   <li>Create an interactive chat session
- *   <li>Maintain conversation history
+ *   <li>Maintain conversation history within a token budget
  *   <li>Handle user input and responses
  * </ul>
  *
@@ -36,7 +33,8 @@ public class InteractiveChatExample {
     }
 
     Scanner scanner = new Scanner(System.in);
-    List<Message> conversationHistory = new ArrayList<>();
+    // Keep the prompt under 4096 tokens, evicting the oldest turns
+    Conversation conversation = new Conversation(client, "llama3.2", 4096);
 
     System.out.println("Interactive Chat with Ollama (llama3.2)");
     System.out.println("Type 'quit', 'exit', or 'bye' to end the conversation");
@@ -60,33 +58,22 @@ public class InteractiveChatExample {
       }
 
       try {
-        // Add user message to conversation history
-        conversationHistory.add(Message.user(userInput));
-
-        // Create chat request with conversation history
-        ChatRequest request = new ChatRequest("llama3.2", conversationHistory);
-
-        // Send the chat request
+        // Send the message; the conversation records both sides
         System.out.print("Assistant: ");
-        ChatResponse response = client.chat(request);
-
-        String assistantResponse = response.getMessage().getContent();
-        System.out.println(assistantResponse);
+        ChatResponse response = conversation.send(userInput);
 
-        // Add assistant response to conversation history
-        conversationHistory.add(Message.assistant(assistantResponse));
+        System.out.println(response.getMessage().getContent());
 
         System.out.println(); // Add blank line for readability
 
       } catch (OllamaException e) {
+        // The failed user message is not kept in the history
         System.err.println("Error: " + e.getMessage());
-        // Remove the last user message if the request failed
-        if (!conversationHistory.isEmpty()) {
-          conversationHistory.remove(conversationHistory.size() - 1);
-        }
       }
     }
 
+    System.out.printf(
+        "Prompt tokens saved by trimming: ~%d%n", conversation.getEstimatedTokensSaved());
     scanner.close();
   }
 }
\ No newline at end of file
@@ -2,7 +2,9 @@ package com.ollama.api.examples;
 
 import com.ollama.api.OllamaClient;
 import com.ollama.api.exception.OllamaException;
+import com.ollama.api.dto.ChatResponse;
 import com.ollama.api.util.ChatBuilder;
+import com.ollama.api.util.StreamCollector;
 
 /**
  * Example demonstrating streaming chat functionality.
@@ -13,6 +15,7 @@ import com.ollama.api.util.ChatBuilder;
  *   <li>Create an Ollama client
  *   <li>Send a streaming chat message
  *   <li>Handle streaming responses in real-time
+ *   <li>Collect the stream into a single response with statistics
  * </ul>
  *
  * @since 1.0.0
@@ -42,35 +45,40 @@ public class StreamingChatExample {
       System.out.println("User: " + request.getMessages().get(0).getContent());
       System.out.println("Assistant: ");
 
-      // Send the streaming chat request
+      // Send the streaming chat request, collecting the full answer as well
+      StreamCollector collector = new StreamCollector();
       client.chatStream(
           request,
-          response -> {
-            // Handle each streaming chunk
-            if (response.getMessage() != null && response.getMessage().getContent() != null) {
-              System.out.print(response.getMessage().getContent());
-              System.out.flush();
-            }
+          collector.andThen(
+              response -> {
+                // Handle each streaming chunk
+                if (response.getMessage() != null && response.getMessage().getContent() != null) {
+                  System.out.print(response.getMessage().getContent());
+                  System.out.flush();
+                }
 
-            // Check if this is the final chunk
-            if (Boolean.TRUE.equals(response.getDone())) {
-              System.out.println("\n\nStream completed!");
-              System.out.println("Model: " + response.getModel());
-              if (response.getTotalDuration() != null) {
-                System.out.println("Total Duration: " + response.getTotalDuration() + "ns");
-              }
-            }
-          });
+                // Check if this is the final chunk
+                if (Boolean.TRUE.equals(response.getDone())) {
+                  System.out.println("\n\nStream completed!");
+                  System.out.println("Model: " + response.getModel());
+                  if (response.getTotalDuration() != null) {
+                    System.out.println("Total Duration: " + response.getTotalDuration() + "ns");
+                  }
+                }
+              }));
 
-      // Wait a bit for the stream to complete
-      Thread.sleep(1000);
+      ChatResponse collected = collector.getResponse();
+      System.out.println("Characters: " + collected.getMessage().getContent().length());
+      if (collected.getTimeToFirstToken() != null) {
+        System.out.println("Time to first token: " + collected.getTimeToFirstToken() / 1_000_000 + "ms");
+      }
+      if (collected.getTokensPerSecond() != null) {
+        System.out.printf("Speed: %.1f tokens/s%n", collected.getTokensPerSecond());
+      }
 
     } catch (OllamaException e) {
       System.err.println("Error communicating with Ollama: " + e.getMessage());
       e.printStackTrace();
-    } catch (InterruptedException e) {
-      System.err.println("Thread interrupted: " + e.getMessage());
-      Thread.currentThread().interrupt();
     }
   }
 }
\ No newline at end of file
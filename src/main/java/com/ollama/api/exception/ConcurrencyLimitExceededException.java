@@ -0,0 +1,47 @@
+package com.ollama.api.exception;
+
+/**
+ * Thrown when a request finds its endpoint at the adaptive
+ * concurrency limit and cannot wait for a slot. The request is
+ * not sent.
+ *
+ * @since 1.1.0
+ */
+public class ConcurrencyLimitExceededException extends OllamaException {
+
+    private final String endpoint;
+    private final int limit;
+
+    /**
+     * Creates a new ConcurrencyLimitExceededException.
+     *
+     * @param message the error message
+     * @param endpoint the endpoint at its limit
+     * @param limit the concurrency limit when the request was
+     *     rejected
+     */
+    public ConcurrencyLimitExceededException(String message,
+            String endpoint, int limit) {
+        super(message, 503);
+        this.endpoint = endpoint;
+        this.limit = limit;
+    }
+
+    /**
+     * Gets the endpoint at its limit.
+     *
+     * @return the endpoint, such as {@code chat}
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Gets the concurrency limit when the request was rejected.
+     *
+     * @return the limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,56 @@
+package com.ollama.api.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a streaming response stalls and is aborted.
+ *
+ * @since 1.1.0
+ */
+public class OllamaTimeoutException extends OllamaException {
+
+    /**
+     * The part of the stream that timed out.
+     */
+    public enum Phase {
+        /** No chunk arrived after the request was sent. */
+        FIRST_TOKEN,
+        /** The stream went quiet between two chunks. */
+        INTER_TOKEN
+    }
+
+    private final Phase phase;
+    private final Duration timeout;
+
+    /**
+     * Creates a new OllamaTimeoutException.
+     *
+     * @param message the error message
+     * @param phase the phase that timed out
+     * @param timeout the timeout that was exceeded
+     */
+    public OllamaTimeoutException(String message, Phase phase,
+            Duration timeout) {
+        super(message);
+        this.phase = phase;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Gets the phase that timed out.
+     *
+     * @return the phase
+     */
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Gets the timeout that was exceeded.
+     *
+     * @return the timeout
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+}
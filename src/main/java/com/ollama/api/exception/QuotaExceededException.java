@@ -0,0 +1,57 @@
+package com.ollama.api.exception;
+
+/**
+ * Thrown when a tenant has used up its hard token quota. The
+ * request is rejected before it is sent.
+ *
+ * @since 1.1.0
+ */
+public class QuotaExceededException extends OllamaException {
+
+    private final String tenant;
+    private final long used;
+    private final long limit;
+
+    /**
+     * Creates a new QuotaExceededException.
+     *
+     * @param tenant the tenant over quota
+     * @param used the tokens used in the current period
+     * @param limit the hard limit
+     */
+    public QuotaExceededException(String tenant, long used,
+            long limit) {
+        super("Tenant " + tenant + " used " + used
+            + " tokens, hard quota is " + limit, 429);
+        this.tenant = tenant;
+        this.used = used;
+        this.limit = limit;
+    }
+
+    /**
+     * Gets the tenant over quota.
+     *
+     * @return the tenant
+     */
+    public String getTenant() {
+        return tenant;
+    }
+
+    /**
+     * Gets the tokens used in the current quota period.
+     *
+     * @return the tokens used
+     */
+    public long getUsed() {
+        return used;
+    }
+
+    /**
+     * Gets the hard limit that was reached.
+     *
+     * @return the limit in tokens
+     */
+    public long getLimit() {
+        return limit;
+    }
+}
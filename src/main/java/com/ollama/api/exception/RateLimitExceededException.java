@@ -0,0 +1,62 @@
+package com.ollama.api.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a request is not admitted by a rate limiter and
+ * the caller asked not to wait. The request is not sent.
+ *
+ * @since 1.1.0
+ */
+public class RateLimitExceededException extends OllamaException {
+
+    private final String tenant;
+    private final String model;
+    private final Duration retryAfter;
+
+    /**
+     * Creates a new RateLimitExceededException.
+     *
+     * @param tenant the tenant of the request
+     * @param model the model of the request
+     * @param retryAfter the estimated time until the request
+     *     would be admitted
+     */
+    public RateLimitExceededException(String tenant, String model,
+            Duration retryAfter) {
+        super("Rate limit reached for tenant " + tenant + " and model "
+            + model + ", retry after " + retryAfter.toMillis() + " ms",
+            429);
+        this.tenant = tenant;
+        this.model = model;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Gets the tenant of the rejected request.
+     *
+     * @return the tenant
+     */
+    public String getTenant() {
+        return tenant;
+    }
+
+    /**
+     * Gets the model of the rejected request.
+     *
+     * @return the model name
+     */
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * Gets the estimated time until the request would be
+     * admitted, if no other request takes the capacity first.
+     *
+     * @return the time to wait
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
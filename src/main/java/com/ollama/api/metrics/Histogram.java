@@ -0,0 +1,163 @@
+package com.ollama.api.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent histogram of non-negative values with logarithmic
+ * buckets.
+ *
+ * <p>As in HdrHistogram, every power of two is split into 16
+ * linear sub-buckets, so any recorded value is reported within
+ * about 6% while the whole {@code long} range fits in under a
+ * thousand buckets. Recording is one array increment plus
+ * striped updates of the count, sum and maximum; it never locks
+ * or allocates.
+ *
+ * @since 1.1.0
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS =
+        (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets =
+        new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max =
+        new LongAccumulator(Math::max, 0);
+
+    /**
+     * Summary of a histogram at one point in time.
+     *
+     * @param count the number of recorded values
+     * @param sum the sum of recorded values
+     * @param max the largest recorded value
+     * @param p50 the median
+     * @param p90 the 90th percentile
+     * @param p99 the 99th percentile
+     */
+    public record Snapshot(long count, long sum, long max,
+            long p50, long p90, long p99) {
+
+        /**
+         * Gets the mean of the recorded values.
+         *
+         * @return the mean, or 0 if nothing was recorded
+         */
+        public double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+    }
+
+    /**
+     * Records a value. Negative values are recorded as zero.
+     *
+     * @param value the value
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        buckets.incrementAndGet(indexOf(v));
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @return the maximum, or 0 if nothing was recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Estimates a percentile.
+     *
+     * <p>The result is the upper bound of the bucket holding the
+     * percentile, capped at the maximum. Values recorded while
+     * the estimate is computed may or may not be included.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the estimate, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long total = 0;
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        return percentile(counts, total, percentile);
+    }
+
+    /**
+     * Takes a snapshot of the histogram.
+     *
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        long total = 0;
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        return new Snapshot(total, sum.sum(), max.get(),
+            percentile(counts, total, 50),
+            percentile(counts, total, 90),
+            percentile(counts, total, 99));
+    }
+
+    private long percentile(long[] counts, long total,
+            double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1,
+            (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS))
+            & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = index % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        long lower = (SUB_BUCKETS + sub) << shift;
+        return lower + ((1L << shift) - 1);
+    }
+}
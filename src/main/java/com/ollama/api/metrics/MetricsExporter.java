@@ -0,0 +1,26 @@
+package com.ollama.api.metrics;
+
+/**
+ * Receives periodic snapshots of a {@link MetricsRegistry}, for
+ * example to push them to a monitoring system.
+ *
+ * <p>Exporters run on the registry's scheduler thread, one call
+ * at a time. A slow exporter delays the next snapshot but never
+ * the requests being measured.
+ *
+ * @since 1.1.0
+ * @see MetricsRegistry#startExporter(MetricsExporter,
+ *     java.time.Duration)
+ */
+@FunctionalInterface
+public interface MetricsExporter {
+
+    /**
+     * Exports a snapshot.
+     *
+     * @param snapshot the metrics at the time of the call
+     * @throws Exception if the export fails; the failure is logged
+     *     and the next export still runs
+     */
+    void export(MetricsSnapshot snapshot) throws Exception;
+}
@@ -0,0 +1,272 @@
+package com.ollama.api.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the metrics of an {@link com.ollama.api.OllamaClient}.
+ *
+ * <p>Requests are measured per endpoint and model. Looking up
+ * the metrics of a known pair is one concurrent map read, and
+ * every counter and histogram is striped, so recording never
+ * takes a lock. Components can add gauges that are sampled when
+ * a snapshot is taken.
+ *
+ * <p>The metrics can be read with {@link #snapshot()}, pushed to
+ * {@link MetricsExporter exporters} on a schedule, or published
+ * as MXBeans with {@link #enableJmx(String)}.
+ *
+ * @since 1.1.0
+ */
+public final class MetricsRegistry implements AutoCloseable {
+
+    private static final Logger logger =
+        LoggerFactory.getLogger(MetricsRegistry.class);
+
+    /** The JMX domain of the published MXBeans. */
+    public static final String JMX_DOMAIN = "com.ollama.api";
+
+    private final ConcurrentMap<Key, RequestMetrics> requests =
+        new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DoubleSupplier> gauges =
+        new ConcurrentHashMap<>();
+    private final Set<ObjectName> registered =
+        new LinkedHashSet<>();
+    private volatile String jmxName;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * JMX view of the gauges of a registry.
+     */
+    public interface GaugesMXBean {
+
+        /**
+         * Gets the current value of each gauge.
+         *
+         * @return the values by gauge name
+         */
+        Map<String, Double> getValues();
+    }
+
+    private record Key(String endpoint, String model) {
+    }
+
+    /**
+     * Gets the metrics of an endpoint and model, creating them on
+     * first use.
+     *
+     * @param endpoint the API endpoint, such as {@code chat}
+     * @param model the model name, or null if unknown
+     * @return the metrics
+     */
+    public RequestMetrics forRequest(String endpoint, String model) {
+        Key key = new Key(endpoint,
+            model != null ? model : "unknown");
+        RequestMetrics metrics = requests.get(key);
+        if (metrics == null) {
+            metrics = requests.computeIfAbsent(key,
+                k -> new RequestMetrics(k.endpoint(), k.model()));
+            if (jmxName != null) {
+                register(metrics);
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Adds a gauge, replacing any gauge of the same name.
+     *
+     * @param name the gauge name
+     * @param value supplies the current value; called on every
+     *     snapshot, so it must be cheap and thread-safe
+     */
+    public void gauge(String name, DoubleSupplier value) {
+        gauges.put(Objects.requireNonNull(name, "name"),
+            Objects.requireNonNull(value, "value"));
+    }
+
+    /**
+     * Removes a gauge.
+     *
+     * @param name the gauge name
+     */
+    public void removeGauge(String name) {
+        gauges.remove(name);
+    }
+
+    /**
+     * Gets the metrics of every endpoint and model used so far.
+     *
+     * @return the metrics
+     */
+    public List<RequestMetrics> getRequestMetrics() {
+        return List.copyOf(requests.values());
+    }
+
+    /**
+     * Takes a snapshot of all metrics.
+     *
+     * @return the snapshot
+     */
+    public MetricsSnapshot snapshot() {
+        List<RequestMetrics.Snapshot> snapshots = new ArrayList<>();
+        for (RequestMetrics metrics : requests.values()) {
+            snapshots.add(metrics.snapshot());
+        }
+        return new MetricsSnapshot(Instant.now(),
+            List.copyOf(snapshots), gaugeValues());
+    }
+
+    /**
+     * Publishes the metrics on the platform MBean server. Each
+     * endpoint and model gets an MXBean named
+     * {@code com.ollama.api:type=RequestMetrics,registry=<name>,
+     * endpoint=<endpoint>,model="<model>"}, and the gauges are
+     * published as {@code type=Gauges}. Metrics created later are
+     * published as they appear.
+     *
+     * @param name distinguishes the registries of several clients
+     *     in one JVM
+     * @throws IllegalStateException if JMX is already enabled
+     */
+    public synchronized void enableJmx(String name) {
+        Objects.requireNonNull(name, "name");
+        if (jmxName != null) {
+            throw new IllegalStateException(
+                "JMX already enabled as " + jmxName);
+        }
+        jmxName = name;
+        GaugesMXBean view = this::gaugeValues;
+        register(objectName("Gauges", null), view);
+        requests.values().forEach(this::register);
+    }
+
+    /**
+     * Exports snapshots at a fixed rate on a daemon thread shared
+     * by the exporters of this registry.
+     *
+     * @param exporter the exporter
+     * @param interval the time between exports
+     * @return a handle to stop this exporter
+     */
+    public synchronized ScheduledFuture<?> startExporter(
+            MetricsExporter exporter, Duration interval) {
+        Objects.requireNonNull(exporter, "exporter");
+        if (interval.isZero() || interval.isNegative()) {
+            throw new IllegalArgumentException(
+                "Interval must be positive: " + interval);
+        }
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(
+                runnable -> {
+                    Thread thread = new Thread(runnable,
+                        "ollama-metrics-exporter");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        }
+        long nanos = interval.toNanos();
+        return scheduler.scheduleAtFixedRate(() -> {
+            try {
+                exporter.export(snapshot());
+            } catch (Exception e) {
+                logger.warn("Metrics export failed", e);
+            }
+        }, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops the exporters and unpublishes the MXBeans. The
+     * metrics themselves stay readable.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (jmxName != null) {
+            MBeanServer server =
+                ManagementFactory.getPlatformMBeanServer();
+            for (ObjectName name : registered) {
+                try {
+                    server.unregisterMBean(name);
+                } catch (JMException e) {
+                    logger.debug("Failed to unregister {}", name, e);
+                }
+            }
+            registered.clear();
+            jmxName = null;
+        }
+    }
+
+    private Map<String, Double> gaugeValues() {
+        Map<String, Double> values = new TreeMap<>();
+        gauges.forEach((name, gauge) -> {
+            try {
+                values.put(name, gauge.getAsDouble());
+            } catch (RuntimeException e) {
+                logger.debug("Gauge {} failed", name, e);
+            }
+        });
+        return values;
+    }
+
+    private synchronized void register(RequestMetrics metrics) {
+        if (jmxName != null) {
+            register(objectName("RequestMetrics", metrics), metrics);
+        }
+    }
+
+    private void register(ObjectName name, Object bean) {
+        if (name == null || registered.contains(name)) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                .registerMBean(bean, name);
+            registered.add(name);
+        } catch (JMException e) {
+            logger.warn("Failed to register MXBean {}", name, e);
+        }
+    }
+
+    private ObjectName objectName(String type,
+            RequestMetrics metrics) {
+        StringBuilder name = new StringBuilder(JMX_DOMAIN)
+            .append(":type=").append(type)
+            .append(",registry=").append(ObjectName.quote(jmxName));
+        if (metrics != null) {
+            name.append(",endpoint=")
+                .append(ObjectName.quote(metrics.getEndpoint()))
+                .append(",model=")
+                .append(ObjectName.quote(metrics.getModel()));
+        }
+        try {
+            return new ObjectName(name.toString());
+        } catch (JMException e) {
+            logger.warn("Invalid MXBean name {}", name, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.ollama.api.metrics;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point-in-time copy of all metrics of a {@link MetricsRegistry}.
+ *
+ * @param timestamp when the snapshot was taken
+ * @param requests the metrics of each endpoint and model
+ * @param gauges the current value of each gauge
+ * @since 1.1.0
+ */
+public record MetricsSnapshot(Instant timestamp,
+        List<RequestMetrics.Snapshot> requests,
+        Map<String, Double> gauges) {
+}
@@ -0,0 +1,290 @@
+package com.ollama.api.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of the requests sent to one endpoint for one model.
+ *
+ * <p>All recording methods are lock-free and safe to call from
+ * any thread. Durations are recorded in nanoseconds.
+ *
+ * @since 1.1.0
+ */
+public final class RequestMetrics implements RequestMetricsMXBean {
+
+    /** Status key for failures without an HTTP status. */
+    public static final String TRANSPORT_ERROR = "-1";
+
+    /** Status key for streams aborted by a timeout. */
+    public static final String TIMEOUT = "timeout";
+
+    /**
+     * Status key for failures on the client side: a handler that
+     * throws, an interrupt, or a body that fails to encode or
+     * decode. These say nothing about the server.
+     */
+    public static final String LOCAL_ERROR = "local";
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String endpoint;
+    private final String model;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> errorsByStatus =
+        new ConcurrentHashMap<>();
+    private final Histogram latency = new Histogram();
+    private final Histogram timeToFirstToken = new Histogram();
+    private final Histogram interToken = new Histogram();
+    private final Histogram loadDuration = new Histogram();
+    private final Histogram promptEvalDuration = new Histogram();
+    private final LongAdder promptTokens = new LongAdder();
+    private final LongAdder evalTokens = new LongAdder();
+    private final LongAdder evalNanos = new LongAdder();
+
+    /**
+     * Point-in-time copy of the metrics.
+     *
+     * @param endpoint the API endpoint
+     * @param model the model name
+     * @param requests the number of requests sent
+     * @param inFlight the requests in flight
+     * @param errors the number of failed requests
+     * @param errorsByStatus the failures by status
+     * @param latency the end-to-end latency in nanoseconds
+     * @param timeToFirstToken the stream time to first token in
+     *     nanoseconds
+     * @param interToken the gaps between stream chunks in
+     *     nanoseconds
+     * @param loadDuration the server {@code load_duration}
+     * @param promptEvalDuration the server
+     *     {@code prompt_eval_duration}
+     * @param promptTokens the sum of {@code prompt_eval_count}
+     * @param evalTokens the sum of {@code eval_count}
+     * @param tokensPerSecond the overall generation speed
+     */
+    public record Snapshot(String endpoint, String model,
+            long requests, long inFlight, long errors,
+            Map<String, Long> errorsByStatus,
+            Histogram.Snapshot latency,
+            Histogram.Snapshot timeToFirstToken,
+            Histogram.Snapshot interToken,
+            Histogram.Snapshot loadDuration,
+            Histogram.Snapshot promptEvalDuration,
+            long promptTokens, long evalTokens,
+            double tokensPerSecond) {
+    }
+
+    RequestMetrics(String endpoint, String model) {
+        this.endpoint = endpoint;
+        this.model = model;
+    }
+
+    /**
+     * Records that a request was sent.
+     */
+    public void requestStarted() {
+        requests.increment();
+        inFlight.increment();
+    }
+
+    /**
+     * Records a successful request.
+     *
+     * @param latencyNanos the end-to-end latency
+     */
+    public void requestSucceeded(long latencyNanos) {
+        inFlight.decrement();
+        latency.record(latencyNanos);
+    }
+
+    /**
+     * Records a failed request.
+     *
+     * @param status the HTTP status code, {@link #TRANSPORT_ERROR},
+     *     {@link #TIMEOUT} or {@link #LOCAL_ERROR}
+     */
+    public void requestFailed(String status) {
+        inFlight.decrement();
+        errors.increment();
+        errorsByStatus.computeIfAbsent(status,
+            key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Records the time until the first chunk of a stream.
+     *
+     * @param nanos the time since the request was sent
+     */
+    public void firstToken(long nanos) {
+        timeToFirstToken.record(nanos);
+    }
+
+    /**
+     * Records the gap between two stream chunks.
+     *
+     * @param nanos the gap
+     */
+    public void interToken(long nanos) {
+        interToken.record(nanos);
+    }
+
+    /**
+     * Records the statistics reported by the server for a
+     * completed request. Null values are skipped.
+     *
+     * @param loadDurationNanos {@code load_duration}
+     * @param promptEvalCount {@code prompt_eval_count}
+     * @param promptEvalDurationNanos {@code prompt_eval_duration}
+     * @param evalCount {@code eval_count}
+     * @param evalDurationNanos {@code eval_duration}
+     */
+    public void serverStats(Long loadDurationNanos,
+            Integer promptEvalCount, Long promptEvalDurationNanos,
+            Integer evalCount, Long evalDurationNanos) {
+        if (loadDurationNanos != null) {
+            loadDuration.record(loadDurationNanos);
+        }
+        if (promptEvalCount != null) {
+            promptTokens.add(promptEvalCount);
+        }
+        if (promptEvalDurationNanos != null) {
+            promptEvalDuration.record(promptEvalDurationNanos);
+        }
+        if (evalCount != null && evalDurationNanos != null) {
+            evalTokens.add(evalCount);
+            evalNanos.add(evalDurationNanos);
+        }
+    }
+
+    /**
+     * Takes a snapshot of the metrics.
+     *
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(endpoint, model, requests.sum(),
+            inFlight.sum(), errors.sum(), getErrorsByStatus(),
+            latency.snapshot(), timeToFirstToken.snapshot(),
+            interToken.snapshot(), loadDuration.snapshot(),
+            promptEvalDuration.snapshot(), promptTokens.sum(),
+            evalTokens.sum(), getTokensPerSecond());
+    }
+
+    /**
+     * Gets the end-to-end latency histogram.
+     *
+     * @return the histogram in nanoseconds
+     */
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Gets the time-to-first-token histogram of streams.
+     *
+     * @return the histogram in nanoseconds
+     */
+    public Histogram getTimeToFirstToken() {
+        return timeToFirstToken;
+    }
+
+    /**
+     * Gets the histogram of gaps between stream chunks.
+     *
+     * @return the histogram in nanoseconds
+     */
+    public Histogram getInterToken() {
+        return interToken;
+    }
+
+    @Override
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    @Override
+    public String getModel() {
+        return model;
+    }
+
+    @Override
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public Map<String, Long> getErrorsByStatus() {
+        Map<String, Long> counts = new TreeMap<>();
+        errorsByStatus.forEach((status, count) ->
+            counts.put(status, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public double getLatencyP50Millis() {
+        return latency.getPercentile(50) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getLatencyP99Millis() {
+        return latency.getPercentile(99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getTimeToFirstTokenP50Millis() {
+        return timeToFirstToken.getPercentile(50) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getTimeToFirstTokenP99Millis() {
+        return timeToFirstToken.getPercentile(99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getInterTokenP99Millis() {
+        return interToken.getPercentile(99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getTokensPerSecond() {
+        long nanos = evalNanos.sum();
+        return nanos == 0 ? 0 : evalTokens.sum() * 1e9 / nanos;
+    }
+
+    @Override
+    public double getLoadDurationP50Millis() {
+        return loadDuration.getPercentile(50) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getPromptEvalDurationP50Millis() {
+        return promptEvalDuration.getPercentile(50)
+            / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public long getPromptTokens() {
+        return promptTokens.sum();
+    }
+
+    @Override
+    public long getEvalTokens() {
+        return evalTokens.sum();
+    }
+}
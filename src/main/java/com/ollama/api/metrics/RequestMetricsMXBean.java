@@ -0,0 +1,128 @@
+package com.ollama.api.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the metrics of one endpoint and model.
+ *
+ * <p>Durations are reported in milliseconds.
+ *
+ * @since 1.1.0
+ */
+public interface RequestMetricsMXBean {
+
+    /**
+     * Gets the API endpoint, such as {@code chat}.
+     *
+     * @return the endpoint
+     */
+    String getEndpoint();
+
+    /**
+     * Gets the model name.
+     *
+     * @return the model
+     */
+    String getModel();
+
+    /**
+     * Gets the number of requests sent.
+     *
+     * @return the request count
+     */
+    long getRequests();
+
+    /**
+     * Gets the number of requests in flight.
+     *
+     * @return the in-flight count
+     */
+    long getInFlight();
+
+    /**
+     * Gets the number of failed requests.
+     *
+     * @return the error count
+     */
+    long getErrors();
+
+    /**
+     * Gets the failed requests by HTTP status code. Transport
+     * failures are counted under {@code -1} and stream timeouts
+     * under {@code timeout}.
+     *
+     * @return the error counts by status
+     */
+    Map<String, Long> getErrorsByStatus();
+
+    /**
+     * Gets the median end-to-end latency.
+     *
+     * @return the latency in milliseconds
+     */
+    double getLatencyP50Millis();
+
+    /**
+     * Gets the 99th percentile end-to-end latency.
+     *
+     * @return the latency in milliseconds
+     */
+    double getLatencyP99Millis();
+
+    /**
+     * Gets the median time to first token of streams.
+     *
+     * @return the time in milliseconds
+     */
+    double getTimeToFirstTokenP50Millis();
+
+    /**
+     * Gets the 99th percentile time to first token of streams.
+     *
+     * @return the time in milliseconds
+     */
+    double getTimeToFirstTokenP99Millis();
+
+    /**
+     * Gets the 99th percentile gap between stream chunks.
+     *
+     * @return the gap in milliseconds
+     */
+    double getInterTokenP99Millis();
+
+    /**
+     * Gets the generation speed over all requests, from
+     * {@code eval_count} and {@code eval_duration}.
+     *
+     * @return tokens per second
+     */
+    double getTokensPerSecond();
+
+    /**
+     * Gets the median server {@code load_duration}.
+     *
+     * @return the duration in milliseconds
+     */
+    double getLoadDurationP50Millis();
+
+    /**
+     * Gets the median server {@code prompt_eval_duration}.
+     *
+     * @return the duration in milliseconds
+     */
+    double getPromptEvalDurationP50Millis();
+
+    /**
+     * Gets the prompt tokens evaluated by the server.
+     *
+     * @return the sum of {@code prompt_eval_count}
+     */
+    long getPromptTokens();
+
+    /**
+     * Gets the tokens generated by the server.
+     *
+     * @return the sum of {@code eval_count}
+     */
+    long getEvalTokens();
+}
@@ -0,0 +1,76 @@
+package com.ollama.api.metrics;
+
+import java.time.Instant;
+
+/**
+ * Where the time of one request went, as seen by the client and
+ * as reported by the server.
+ *
+ * <p>Client marks are nanoseconds since the request was built,
+ * or {@code -1} if the request never reached that point, for
+ * example a stream cancelled before its first chunk. Connect
+ * time falls between {@code serialized} and {@code sent}, and
+ * so does the serialization of chat request bodies, which are
+ * generated while the HTTP client writes them. For
+ * non-streaming requests the first and last token arrive with
+ * the whole body.
+ *
+ * <p>Server durations are the nanosecond values of the final
+ * response, or null if the server did not report them.
+ *
+ * @param endpoint the API endpoint, such as {@code chat}
+ * @param model the model name
+ * @param startTime when the request was built
+ * @param serialized when the request body was ready to send
+ * @param sent when the request body was handed to the
+ *     connection
+ * @param firstByte when the response headers arrived
+ * @param firstToken when the first chunk arrived
+ * @param lastToken when the final chunk arrived
+ * @param parsed when the final chunk was decoded
+ * @param totalDuration the server {@code total_duration}
+ * @param loadDuration the server {@code load_duration}
+ * @param promptEvalDuration the server
+ *     {@code prompt_eval_duration}
+ * @param evalDuration the server {@code eval_duration}
+ * @since 1.1.0
+ */
+public record RequestTiming(String endpoint, String model,
+        Instant startTime, long serialized, long sent,
+        long firstByte, long firstToken, long lastToken,
+        long parsed, Long totalDuration, Long loadDuration,
+        Long promptEvalDuration, Long evalDuration) {
+
+    /**
+     * Gets the server time not spent loading the model,
+     * evaluating the prompt or generating, mostly waiting for a
+     * runner while other requests hold it.
+     *
+     * @return the time in nanoseconds, or null if the server did
+     *     not report all durations
+     */
+    public Long serverQueueNanos() {
+        if (totalDuration == null || loadDuration == null
+                || promptEvalDuration == null
+                || evalDuration == null) {
+            return null;
+        }
+        return Math.max(0, totalDuration - loadDuration
+            - promptEvalDuration - evalDuration);
+    }
+
+    /**
+     * Gets the time between sending the request and decoding the
+     * response that the server did not account for, such as
+     * network transfer and client-side parsing.
+     *
+     * @return the time in nanoseconds, or null if the request did
+     *     not complete or the server did not report its duration
+     */
+    public Long clientOverheadNanos() {
+        if (totalDuration == null || sent < 0 || parsed < 0) {
+            return null;
+        }
+        return Math.max(0, parsed - sent - totalDuration);
+    }
+}
@@ -0,0 +1,418 @@
+package com.ollama.api.parallel;
+
+import com.ollama.api.OllamaClient;
+import com.ollama.api.StreamCancellation;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.dto.Options;
+import com.ollama.api.exception.OllamaException;
+import com.ollama.api.metrics.Histogram;
+import com.ollama.api.util.StreamCollector;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs several variants of a chat request at once and keeps one
+ * answer.
+ *
+ * <p>Variants may differ in seed, model or anything else; see
+ * {@link #withSeeds(ChatRequest, int)} and
+ * {@link #withModels(ChatRequest, List)}. Variant {@code i} is
+ * sent through client {@code i % clients}, so with one client
+ * per node the variants spread over the nodes. Each variant is
+ * streamed on its own virtual thread.
+ *
+ * <p>{@link #first(List)} returns the first variant to finish;
+ * {@link #best(List, Scorer)} returns the highest-scoring one,
+ * waiting for all of them or, with a deadline, for those done by
+ * then. Either way, the other variants are cancelled as soon as
+ * the answer is chosen: their connections are closed at once,
+ * which stops the server generating. A variant that fails is
+ * ignored unless all of them do.
+ *
+ * <p>{@link #getStats()} compares each call with its first
+ * variant alone, the request that would have been sent without
+ * racing. Instances are thread-safe.
+ *
+ * @since 1.1.0
+ */
+public final class ParallelGenerator {
+
+    private static final Logger logger =
+        LoggerFactory.getLogger(ParallelGenerator.class);
+
+    private final List<OllamaClient> clients;
+    private final Duration deadline;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder variants = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder primaryWins = new LongAdder();
+    private final LongAdder nanosShaved = new LongAdder();
+    private final Histogram latency = new Histogram();
+    private final Histogram primaryLatency = new Histogram();
+
+    /**
+     * Rates an answer for {@link #best(List, Scorer)}.
+     */
+    @FunctionalInterface
+    public interface Scorer {
+
+        /**
+         * Scores a complete answer. Called on the caller's thread.
+         *
+         * @param response the answer
+         * @return the score, higher is better
+         */
+        double score(ChatResponse response);
+    }
+
+    /**
+     * One variant in flight. Written by its stream thread, read
+     * by the caller once it is chosen or cancelled.
+     */
+    private static final class Run {
+        final int index;
+        final long start;
+        final StreamCollector collector = new StreamCollector();
+        final StreamCancellation cancellation = new StreamCancellation();
+        volatile int tokens;
+        volatile long firstToken;
+        volatile long lastToken;
+        volatile long end;
+        volatile ChatResponse response;
+        volatile Throwable failure;
+
+        Run(int index, long start) {
+            this.index = index;
+            this.start = start;
+        }
+
+        boolean accept(ChatResponse chunk) {
+            collector.accept(chunk);
+            if (!Boolean.TRUE.equals(chunk.getDone())) {
+                long now = System.nanoTime();
+                if (tokens == 0) {
+                    firstToken = now;
+                }
+                lastToken = now;
+                tokens++;
+            }
+            return true;
+        }
+    }
+
+    private ParallelGenerator(Builder builder) {
+        this.clients = List.copyOf(builder.clients);
+        this.deadline = builder.deadline;
+    }
+
+    /**
+     * Creates a new builder.
+     *
+     * @param clients the clients to send the variants through
+     * @return a new builder
+     */
+    public static Builder builder(OllamaClient... clients) {
+        return new Builder(List.of(clients));
+    }
+
+    /**
+     * Makes variants of a request that differ only in seed. The
+     * seeds count up from the request's seed, or from 0.
+     *
+     * @param request the request
+     * @param count the number of variants
+     * @return the variants
+     */
+    public static List<ChatRequest> withSeeds(ChatRequest request,
+            int count) {
+        Options options = request.getOptions();
+        int seed = options == null || options.getSeed() == null
+            ? 0
+            : options.getSeed();
+        List<ChatRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ChatRequest copy = copy(request, request.getModel());
+            copy.getOptions().setSeed(seed + i);
+            requests.add(copy);
+        }
+        return requests;
+    }
+
+    /**
+     * Makes variants of a request that differ only in model.
+     *
+     * @param request the request
+     * @param models the models, the first being the primary
+     * @return the variants
+     */
+    public static List<ChatRequest> withModels(ChatRequest request,
+            List<String> models) {
+        return models.stream()
+            .map(model -> copy(request, model))
+            .toList();
+    }
+
+    /**
+     * Returns the first variant to finish and cancels the others.
+     *
+     * @param requests the variants, the first being the primary
+     * @return the first complete answer
+     * @throws OllamaException if every variant fails
+     */
+    public ChatResponse first(List<ChatRequest> requests)
+            throws OllamaException {
+        return race(requests, null);
+    }
+
+    /**
+     * Returns the highest-scoring variant and cancels the others.
+     * Without a deadline every variant is awaited. With one, the
+     * best of the variants done by the deadline wins; if none is,
+     * the first to finish after it does.
+     *
+     * @param requests the variants, the first being the primary
+     * @param scorer rates the answers
+     * @return the best complete answer
+     * @throws OllamaException if every variant fails
+     */
+    public ChatResponse best(List<ChatRequest> requests, Scorer scorer)
+            throws OllamaException {
+        return race(requests, Objects.requireNonNull(scorer, "scorer"));
+    }
+
+    /**
+     * Gets the outcomes of the calls run so far.
+     *
+     * @return the statistics
+     */
+    public ParallelStats getStats() {
+        return new ParallelStats(calls.sum(), variants.sum(),
+            cancelled.sum(), failed.sum(), primaryWins.sum(),
+            latency.snapshot(), primaryLatency.snapshot(),
+            nanosShaved.sum());
+    }
+
+    private ChatResponse race(List<ChatRequest> requests, Scorer scorer)
+            throws OllamaException {
+        if (requests.isEmpty()) {
+            throw new IllegalArgumentException("No variants given");
+        }
+        long start = System.nanoTime();
+        calls.increment();
+        variants.add(requests.size());
+
+        BlockingQueue<Run> finished = new LinkedBlockingQueue<>();
+        List<Run> runs = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            // Streaming sets a flag on the request, so each variant
+            // gets its own copy
+            ChatRequest request = copy(requests.get(i),
+                requests.get(i).getModel());
+            OllamaClient client = clients.get(i % clients.size());
+            Run run = new Run(i, start);
+            runs.add(run);
+            Thread.ofVirtual().name("ollama-parallel-" + i).start(() -> {
+                try {
+                    client.chatStreamWhile(request, run::accept,
+                        run.cancellation);
+                    if (run.collector.isDone()) {
+                        run.response = run.collector.getResponse();
+                    } else if (!run.cancellation.isCancelled()) {
+                        run.failure = new OllamaException(
+                            "Stream ended before the last chunk");
+                    }
+                } catch (Throwable t) {
+                    // A run with neither answer nor failure would be
+                    // taken for a winner
+                    run.failure = t;
+                    if (t instanceof Error e) {
+                        throw e;
+                    }
+                } finally {
+                    run.end = System.nanoTime();
+                    finished.add(run);
+                }
+            });
+        }
+
+        Run winner;
+        try {
+            winner = choose(runs.size(), finished, scorer, start);
+        } catch (InterruptedException e) {
+            cancelAll(runs, null);
+            Thread.currentThread().interrupt();
+            throw new OllamaException("Interrupted while racing "
+                + runs.size() + " variants", e);
+        } catch (RuntimeException e) {
+            cancelAll(runs, null);
+            throw e;
+        }
+        long now = System.nanoTime();
+        cancelAll(runs, winner);
+        if (winner == null) {
+            throw failure(runs);
+        }
+
+        latency.record(now - start);
+        if (winner.index == 0) {
+            primaryWins.increment();
+        }
+        long primary = primaryNanos(runs.get(0), winner, now);
+        if (primary >= 0) {
+            primaryLatency.record(primary);
+            nanosShaved.add(primary - (now - start));
+        }
+        return winner.response;
+    }
+
+    /**
+     * Waits for the winning variant.
+     *
+     * @return the winner, or null if every variant failed
+     */
+    private Run choose(int count, BlockingQueue<Run> finished,
+            Scorer scorer, long start) throws InterruptedException {
+        Run best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        long until = deadline == null ? 0 : start + deadline.toNanos();
+        for (int done = 0; done < count; done++) {
+            Run run;
+            if (scorer != null && deadline != null && best != null) {
+                run = finished.poll(until - System.nanoTime(),
+                    TimeUnit.NANOSECONDS);
+                if (run == null) {
+                    return best;
+                }
+            } else {
+                run = finished.take();
+            }
+            if (run.failure != null) {
+                failed.increment();
+                logger.debug("Variant {} failed: {}", run.index,
+                    run.failure.getMessage());
+                continue;
+            }
+            if (scorer == null) {
+                return run;
+            }
+            double score = scorer.score(run.response);
+            if (best == null || score > bestScore) {
+                best = run;
+                bestScore = score;
+            }
+            if (deadline != null && System.nanoTime() - until >= 0) {
+                return best;
+            }
+        }
+        return best;
+    }
+
+    private void cancelAll(List<Run> runs, Run winner) {
+        for (Run run : runs) {
+            if (run != winner && run.end == 0) {
+                run.cancellation.cancel();
+                cancelled.increment();
+            }
+        }
+    }
+
+    /**
+     * Gets how long the primary variant took or would have taken.
+     *
+     * @return the time in nanoseconds, or -1 if it failed
+     */
+    private static long primaryNanos(Run primary, Run winner, long now) {
+        if (primary.end != 0 && primary.response != null) {
+            return primary.end - primary.start;
+        }
+        if (primary.failure != null) {
+            return -1;
+        }
+        long elapsed = now - primary.start;
+        int tokens = primary.tokens;
+        Integer evalCount = winner.response.getEvalCount();
+        int needed = evalCount != null && evalCount > 0
+            ? evalCount
+            : winner.tokens;
+        if (tokens < 2 || needed <= tokens) {
+            return elapsed;
+        }
+        double perToken = (double) (primary.lastToken - primary.firstToken)
+            / (tokens - 1);
+        return elapsed + (long) ((needed - tokens) * perToken);
+    }
+
+    private static OllamaException failure(List<Run> runs) {
+        Throwable last = null;
+        for (Run run : runs) {
+            if (run.failure != null) {
+                last = run.failure;
+            }
+        }
+        if (last instanceof OllamaException e) {
+            return e;
+        }
+        return new OllamaException("All " + runs.size()
+            + " variants failed", last);
+    }
+
+    private static ChatRequest copy(ChatRequest request, String model) {
+        ChatRequest copy = new ChatRequest(model, request.getMessages());
+        copy.setKeepAlive(request.getKeepAlive());
+        copy.setTenant(request.getTenant());
+        Options options = request.getOptions();
+        copy.setOptions(options == null ? new Options() : options.copy());
+        return copy;
+    }
+
+    /**
+     * Builder for {@link ParallelGenerator}.
+     */
+    public static final class Builder {
+        private final List<OllamaClient> clients;
+        private Duration deadline;
+
+        private Builder(List<OllamaClient> clients) {
+            if (clients.isEmpty()) {
+                throw new IllegalArgumentException("No clients given");
+            }
+            this.clients = clients;
+        }
+
+        /**
+         * Sets how long {@link #best(List, Scorer)} waits for more
+         * answers once it has one. Unbounded by default.
+         *
+         * @param deadline the time from the start of the call
+         * @return this builder
+         */
+        public Builder deadline(Duration deadline) {
+            if (deadline.isNegative() || deadline.isZero()) {
+                throw new IllegalArgumentException(
+                    "Deadline must be positive: " + deadline);
+            }
+            this.deadline = deadline;
+            return this;
+        }
+
+        /**
+         * Builds the generator.
+         *
+         * @return a new generator
+         */
+        public ParallelGenerator build() {
+            return new ParallelGenerator(this);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.ollama.api.parallel;
+
+import com.ollama.api.metrics.Histogram;
+
+/**
+ * Totals of the calls run by a {@link ParallelGenerator}.
+ *
+ * <p>The primary variant is the first of each call; its latency
+ * is what the call would have taken without the other variants.
+ * When it finished, that is its measured latency. When it was
+ * cancelled, its finish is extrapolated from its progress: the
+ * tokens it still lacked to match the winner's answer, at the
+ * rate it was streaming them. A primary cancelled before its
+ * first token counts with the time it had run, so the estimate
+ * errs low. Calls whose primary failed have no primary latency.
+ *
+ * @param calls the calls run
+ * @param variants the variants started
+ * @param cancelled the variants cancelled after another won
+ * @param failed the variants that failed with an error
+ * @param primaryWins the calls the primary variant won
+ * @param latency the time of each call, in nanoseconds
+ * @param primaryLatency the measured or estimated time of each
+ *     primary variant, in nanoseconds
+ * @param estimatedNanosShaved the sum over calls of the primary
+ *     latency minus the call latency, negative if waiting for
+ *     the best answer cost more than racing saved
+ * @since 1.1.0
+ */
+public record ParallelStats(long calls, long variants, long cancelled,
+        long failed, long primaryWins, Histogram.Snapshot latency,
+        Histogram.Snapshot primaryLatency, long estimatedNanosShaved) {
+
+    /**
+     * Gets how much lower the 99th percentile latency is than
+     * the primary variants'.
+     *
+     * @return the difference in nanoseconds, negative if calls
+     *     were slower
+     */
+    public long tailShavedNanos() {
+        return primaryLatency.p99() - latency.p99();
+    }
+}
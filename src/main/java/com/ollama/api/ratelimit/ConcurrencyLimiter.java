@@ -0,0 +1,595 @@
+package com.ollama.api.ratelimit;
+
+import com.ollama.api.exception.ConcurrencyLimitExceededException;
+import com.ollama.api.exception.OllamaException;
+import com.ollama.api.metrics.MetricsRegistry;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adapts the number of requests in flight per endpoint to what
+ * the server can run without queueing them.
+ *
+ * <p>An Ollama server runs a few generations in parallel and
+ * queues the rest, so past some concurrency more requests only
+ * add latency. The limiter finds that point from latency alone,
+ * with a gradient like the one of Envoy's adaptive concurrency
+ * filter. Every {@code probeInterval}, counted from the start of
+ * the previous probe, it lets only {@code minLimit} requests
+ * through until it has seen {@value #PROBE_SAMPLES} of them or
+ * {@code probeDuration} has passed, and takes their median
+ * latency as the baseline of a request that did not queue. A
+ * probe that ends without samples keeps the previous baseline;
+ * only the first probe waits for one. In between, each sample moves the limit towards
+ * {@code limit * tolerance * baseline / sample + sqrt(limit)}:
+ * while latency stays within {@code tolerance} times the
+ * baseline the limit grows, and when requests start to queue it
+ * shrinks in proportion, by at most half. Timeouts and server
+ * errors cut the limit by {@code backoffRatio}.
+ *
+ * <p>The latency used is the one that grows with queueing on the
+ * server: the time to first chunk for streams, and for whole
+ * responses the time until the body arrived less the server's
+ * generation time, so long answers do not read as overload.
+ * Samples taken while far fewer requests were in flight than the
+ * limit allows say nothing about the limit and are ignored.
+ *
+ * <p>Requests over the limit wait in a queue, up to
+ * {@code maxQueued} requests for at most {@code maxWait}; others
+ * are rejected with a {@link ConcurrencyLimitExceededException}.
+ * Use one limiter per server, given to its clients with
+ * {@link com.ollama.api.OllamaClient.Builder#concurrencyLimiter}.
+ * The limit, requests in flight and queued requests of each
+ * endpoint are published as gauges named
+ * {@code concurrency.limit.<endpoint>},
+ * {@code concurrency.inflight.<endpoint>} and
+ * {@code concurrency.queued.<endpoint>}.
+ *
+ * <p>Instances are thread-safe.
+ *
+ * @since 1.1.0
+ */
+public final class ConcurrencyLimiter {
+
+    /** Requests whose median latency becomes the baseline. */
+    public static final int PROBE_SAMPLES = 5;
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+    private final int maxQueued;
+    private final Duration maxWait;
+    private final long probeInterval;
+    private final long probeDuration;
+    private final ConcurrentMap<String, EndpointLimit> endpoints =
+        new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<MetricsRegistry> registries =
+        new CopyOnWriteArrayList<>();
+
+    private ConcurrencyLimiter(Builder builder) {
+        this.initialLimit = builder.initialLimit;
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.tolerance = builder.tolerance;
+        this.smoothing = builder.smoothing;
+        this.backoffRatio = builder.backoffRatio;
+        this.maxQueued = builder.maxQueued;
+        this.maxWait = builder.maxWait;
+        this.probeInterval = builder.probeInterval.toNanos();
+        this.probeDuration = builder.probeDuration.toNanos();
+    }
+
+    /**
+     * Creates a new builder.
+     *
+     * @return a builder with the default settings
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * A slot taken by one request. Exactly one of the release
+     * methods must be called when the request ends.
+     */
+    public final class Permit {
+        private final EndpointLimit endpoint;
+        private final int inFlight;
+        private final boolean probe;
+        private boolean released;
+
+        private Permit(EndpointLimit endpoint, int inFlight,
+                boolean probe) {
+            this.endpoint = endpoint;
+            this.inFlight = inFlight;
+            this.probe = probe;
+        }
+
+        /**
+         * Releases the slot of a request that succeeded.
+         *
+         * @param latencyNanos the request's latency, as described
+         *     in the class documentation
+         */
+        public void onSuccess(long latencyNanos) {
+            release(latencyNanos, false);
+        }
+
+        /**
+         * Releases the slot of a request that timed out or that
+         * the server failed, lowering the limit.
+         */
+        public void onDropped() {
+            release(-1, true);
+        }
+
+        /**
+         * Releases the slot of a request whose outcome says
+         * nothing about load, such as a rejected request body.
+         */
+        public void onIgnore() {
+            release(-1, false);
+        }
+
+        private void release(long latencyNanos, boolean dropped) {
+            if (released) {
+                return;
+            }
+            released = true;
+            endpoint.release(this, latencyNanos, dropped);
+        }
+    }
+
+    /**
+     * Takes a slot for a request, waiting while the endpoint is at
+     * its limit.
+     *
+     * @param endpoint the endpoint, such as {@code chat}
+     * @return the slot
+     * @throws ConcurrencyLimitExceededException if the queue is
+     *     full or the wait timed out
+     * @throws OllamaException if the thread is interrupted while
+     *     waiting
+     */
+    public Permit acquire(String endpoint) throws OllamaException {
+        return endpoint(endpoint).acquire();
+    }
+
+    /**
+     * Takes a slot for a request if the endpoint is below its
+     * limit.
+     *
+     * @param endpoint the endpoint, such as {@code chat}
+     * @return the slot, or null if the endpoint is at its limit
+     */
+    public Permit tryAcquire(String endpoint) {
+        return endpoint(endpoint).tryAcquire();
+    }
+
+    /**
+     * Gets the current limit of an endpoint.
+     *
+     * @param endpoint the endpoint, such as {@code chat}
+     * @return the number of requests allowed in flight
+     */
+    public int getLimit(String endpoint) {
+        EndpointLimit limit = endpoints.get(endpoint);
+        return limit == null ? initialLimit : limit.limit();
+    }
+
+    /**
+     * Gets the number of requests in flight to an endpoint.
+     *
+     * @param endpoint the endpoint, such as {@code chat}
+     * @return the requests in flight
+     */
+    public int getInFlight(String endpoint) {
+        EndpointLimit limit = endpoints.get(endpoint);
+        return limit == null ? 0 : limit.inFlight();
+    }
+
+    /**
+     * Publishes the gauges of every endpoint in a registry.
+     * Clients call this for their own registry when built.
+     *
+     * @param registry the registry
+     */
+    public void bindMetrics(MetricsRegistry registry) {
+        if (registries.addIfAbsent(registry)) {
+            endpoints.values().forEach(limit -> limit.publish(registry));
+        }
+    }
+
+    private EndpointLimit endpoint(String endpoint) {
+        EndpointLimit limit = endpoints.get(endpoint);
+        if (limit == null) {
+            limit = endpoints.computeIfAbsent(endpoint,
+                EndpointLimit::new);
+            for (MetricsRegistry registry : registries) {
+                limit.publish(registry);
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * The limit and queue of one endpoint.
+     */
+    private final class EndpointLimit {
+        private final String name;
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private final Condition slotFree = lock.newCondition();
+        private final long[] probeSamples = new long[PROBE_SAMPLES];
+        private double limit = initialLimit;
+        private double baseline;
+        private int inFlight;
+        private int queued;
+        private boolean probing = true;
+        private int probed;
+        private long probeStart = System.nanoTime();
+
+        EndpointLimit(String name) {
+            this.name = name;
+        }
+
+        Permit acquire() throws OllamaException {
+            lock.lock();
+            try {
+                if (inFlight < effectiveLimit()) {
+                    return take();
+                }
+                if (queued >= maxQueued) {
+                    throw rejected("queue is full");
+                }
+                queued++;
+                try {
+                    long nanos = maxWait == null
+                        ? Long.MAX_VALUE
+                        : maxWait.toNanos();
+                    while (inFlight >= effectiveLimit()) {
+                        if (maxWait == null) {
+                            slotFree.await();
+                        } else if (nanos <= 0) {
+                            throw rejected("no slot within " + maxWait);
+                        } else {
+                            nanos = slotFree.awaitNanos(nanos);
+                        }
+                    }
+                    return take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new OllamaException(
+                        "Interrupted while waiting for a " + name
+                        + " slot", e);
+                } finally {
+                    queued--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Permit tryAcquire() {
+            lock.lock();
+            try {
+                return inFlight < effectiveLimit() ? take() : null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void release(Permit permit, long latencyNanos,
+                boolean dropped) {
+            lock.lock();
+            try {
+                inFlight--;
+                if (probing) {
+                    if (permit.probe && latencyNanos >= 0) {
+                        probe(latencyNanos);
+                    }
+                } else if (dropped) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                } else if (latencyNanos >= 0) {
+                    update(permit.inFlight, latencyNanos);
+                }
+                long now = System.nanoTime();
+                if (probing) {
+                    if (now - probeStart >= probeDuration
+                            && (probed > 0 || baseline > 0)) {
+                        endProbe();
+                    }
+                } else if (now - probeStart >= probeInterval) {
+                    probing = true;
+                    probed = 0;
+                    probeStart = now;
+                }
+                slotFree.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int limit() {
+            lock.lock();
+            try {
+                return effectiveLimit();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int inFlight() {
+            lock.lock();
+            try {
+                return inFlight;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int queued() {
+            lock.lock();
+            try {
+                return queued;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void publish(MetricsRegistry registry) {
+            registry.gauge("concurrency.limit." + name, this::limit);
+            registry.gauge("concurrency.inflight." + name,
+                this::inFlight);
+            registry.gauge("concurrency.queued." + name, this::queued);
+        }
+
+        private int effectiveLimit() {
+            return probing ? minLimit : (int) limit;
+        }
+
+        private Permit take() {
+            inFlight++;
+            // Requests let in before a probe add to its latency, so
+            // only those taken while no more than minLimit are in
+            // flight count towards the baseline
+            return new Permit(this, inFlight,
+                probing && inFlight <= minLimit);
+        }
+
+        private void probe(long latencyNanos) {
+            probeSamples[probed++] = latencyNanos;
+            if (probed == PROBE_SAMPLES) {
+                endProbe();
+            }
+        }
+
+        private void endProbe() {
+            if (probed > 0) {
+                long[] sorted = Arrays.copyOf(probeSamples, probed);
+                Arrays.sort(sorted);
+                baseline = Math.max(1, sorted[probed / 2]);
+            }
+            probing = false;
+        }
+
+        private void update(int inFlightAtStart, long latencyNanos) {
+            if (inFlightAtStart < limit / 2) {
+                return;
+            }
+            double sample = Math.max(1, latencyNanos);
+            double gradient = Math.max(0.5,
+                Math.min(2.0, tolerance * baseline / sample));
+            double target = limit * gradient + Math.sqrt(limit);
+            limit = limit * (1 - smoothing) + target * smoothing;
+            limit = Math.max(minLimit, Math.min(maxLimit, limit));
+        }
+
+        private ConcurrencyLimitExceededException rejected(
+                String reason) {
+            int current = effectiveLimit();
+            return new ConcurrencyLimitExceededException(
+                "Concurrency limit of " + current + " reached for "
+                + name + ", " + reason, name, current);
+        }
+    }
+
+    /**
+     * Builder for {@link ConcurrencyLimiter}.
+     */
+    public static final class Builder {
+        private int initialLimit = 4;
+        private int minLimit = 1;
+        private int maxLimit = 64;
+        private double tolerance = 1.25;
+        private double smoothing = 0.2;
+        private double backoffRatio = 0.9;
+        private int maxQueued = Integer.MAX_VALUE;
+        private Duration maxWait;
+        private Duration probeInterval = Duration.ofMinutes(1);
+        private Duration probeDuration = Duration.ofSeconds(5);
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the limit each endpoint starts at. Defaults to 4.
+         *
+         * @param initialLimit the initial limit
+         * @return this builder
+         */
+        public Builder initialLimit(int initialLimit) {
+            this.initialLimit = atLeastOne(initialLimit);
+            return this;
+        }
+
+        /**
+         * Sets the bounds of the limit. Default to 1 and 64.
+         *
+         * @param minLimit the lowest limit
+         * @param maxLimit the highest limit
+         * @return this builder
+         */
+        public Builder limits(int minLimit, int maxLimit) {
+            if (atLeastOne(minLimit) > maxLimit) {
+                throw new IllegalArgumentException(
+                    "minLimit exceeds maxLimit: " + minLimit + " > "
+                    + maxLimit);
+            }
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * Sets how often the baseline latency is measured again,
+         * from the start of one measurement to the next. Each
+         * measurement holds the endpoint at its lowest limit for
+         * {@value ConcurrencyLimiter#PROBE_SAMPLES} requests or
+         * the {@linkplain #probeDuration probe duration},
+         * whichever ends first. Defaults to 1 minute.
+         *
+         * @param probeInterval the time between measurements
+         * @return this builder
+         */
+        public Builder probeInterval(Duration probeInterval) {
+            if (probeInterval.isNegative() || probeInterval.isZero()) {
+                throw new IllegalArgumentException(
+                    "Probe interval must be positive: " + probeInterval);
+            }
+            this.probeInterval = probeInterval;
+            return this;
+        }
+
+        /**
+         * Sets the longest time one measurement of the baseline
+         * holds the endpoint at its lowest limit. With slow
+         * requests a measurement ends on this bound with fewer
+         * samples. Defaults to 5 seconds.
+         *
+         * @param probeDuration the longest measurement
+         * @return this builder
+         */
+        public Builder probeDuration(Duration probeDuration) {
+            if (probeDuration.isNegative() || probeDuration.isZero()) {
+                throw new IllegalArgumentException(
+                    "Probe duration must be positive: " + probeDuration);
+            }
+            this.probeDuration = probeDuration;
+            return this;
+        }
+
+        /**
+         * Sets how far latency may rise above its baseline before
+         * the limit shrinks. Defaults to 1.25.
+         *
+         * @param tolerance the ratio, at least 1
+         * @return this builder
+         */
+        public Builder tolerance(double tolerance) {
+            if (!(tolerance >= 1)) {
+                throw new IllegalArgumentException(
+                    "Tolerance must be at least 1: " + tolerance);
+            }
+            this.tolerance = tolerance;
+            return this;
+        }
+
+        /**
+         * Sets how much of each new estimate is blended into the
+         * limit. Defaults to 0.2.
+         *
+         * @param smoothing the weight, greater than 0 and at most 1
+         * @return this builder
+         */
+        public Builder smoothing(double smoothing) {
+            if (!(smoothing > 0 && smoothing <= 1)) {
+                throw new IllegalArgumentException(
+                    "Smoothing must be in (0, 1]: " + smoothing);
+            }
+            this.smoothing = smoothing;
+            return this;
+        }
+
+        /**
+         * Sets the factor applied to the limit on a timeout or
+         * server error. Defaults to 0.9.
+         *
+         * @param backoffRatio the factor, greater than 0 and less
+         *     than 1
+         * @return this builder
+         */
+        public Builder backoffRatio(double backoffRatio) {
+            if (!(backoffRatio > 0 && backoffRatio < 1)) {
+                throw new IllegalArgumentException(
+                    "Backoff ratio must be in (0, 1): " + backoffRatio);
+            }
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * Sets how many requests may wait for a slot per endpoint.
+         * With 0, requests over the limit are rejected at once.
+         * Unbounded by default.
+         *
+         * @param maxQueued the queue size
+         * @return this builder
+         */
+        public Builder maxQueued(int maxQueued) {
+            if (maxQueued < 0) {
+                throw new IllegalArgumentException(
+                    "maxQueued must not be negative: " + maxQueued);
+            }
+            this.maxQueued = maxQueued;
+            return this;
+        }
+
+        /**
+         * Sets how long a request may wait for a slot before it is
+         * rejected. Unbounded by default.
+         *
+         * @param maxWait the longest wait
+         * @return this builder
+         */
+        public Builder maxWait(Duration maxWait) {
+            Objects.requireNonNull(maxWait, "maxWait");
+            if (maxWait.isNegative()) {
+                throw new IllegalArgumentException(
+                    "maxWait must not be negative: " + maxWait);
+            }
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        /**
+         * Builds the limiter.
+         *
+         * @return a new limiter
+         */
+        public ConcurrencyLimiter build() {
+            if (initialLimit < minLimit || initialLimit > maxLimit) {
+                throw new IllegalArgumentException("initialLimit "
+                    + initialLimit + " is outside [" + minLimit + ", "
+                    + maxLimit + "]");
+            }
+            return new ConcurrencyLimiter(this);
+        }
+
+        private static int atLeastOne(int value) {
+            if (value < 1) {
+                throw new IllegalArgumentException(
+                    "Limit must be at least 1: " + value);
+            }
+            return value;
+        }
+    }
+}
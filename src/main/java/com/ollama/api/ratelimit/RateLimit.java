@@ -0,0 +1,66 @@
+package com.ollama.api.ratelimit;
+
+/**
+ * Rates allowed for a model or a tenant, as two token buckets.
+ *
+ * <p>The request bucket holds up to {@code requestBurst} permits
+ * and refills at {@code requestsPerSecond}; each request takes
+ * one permit. The token bucket holds up to {@code tokenBurst}
+ * generated tokens and refills at {@code tokensPerSecond}. Since
+ * the length of an answer is only known once it is done, a
+ * request is admitted while the token bucket is not in debt, and
+ * its {@code eval_count} is charged when it completes, which may
+ * leave the bucket in debt. Later requests then wait until the
+ * debt is paid back.
+ *
+ * <p>A rate of 0 leaves that dimension unlimited.
+ *
+ * @param requestsPerSecond the sustained request rate
+ * @param requestBurst the requests allowed at once
+ * @param tokensPerSecond the sustained generated token rate
+ * @param tokenBurst the generated tokens allowed at once
+ * @since 1.1.0
+ */
+public record RateLimit(double requestsPerSecond, double requestBurst,
+        double tokensPerSecond, double tokenBurst) {
+
+    /**
+     * Validates the rates.
+     */
+    public RateLimit {
+        if (requestsPerSecond < 0 || tokensPerSecond < 0) {
+            throw new IllegalArgumentException(
+                "Rates must not be negative");
+        }
+        if (requestsPerSecond > 0 && requestBurst < 1) {
+            throw new IllegalArgumentException(
+                "Request burst must be at least 1: " + requestBurst);
+        }
+        if (tokensPerSecond > 0 && tokenBurst <= 0) {
+            throw new IllegalArgumentException(
+                "Token burst must be positive: " + tokenBurst);
+        }
+    }
+
+    /**
+     * Creates a limit on requests only.
+     *
+     * @param perSecond the sustained request rate
+     * @param burst the requests allowed at once
+     * @return the limit
+     */
+    public static RateLimit requests(double perSecond, double burst) {
+        return new RateLimit(perSecond, burst, 0, 0);
+    }
+
+    /**
+     * Creates a limit on generated tokens only.
+     *
+     * @param perSecond the sustained generated token rate
+     * @param burst the generated tokens allowed at once
+     * @return the limit
+     */
+    public static RateLimit tokens(double perSecond, double burst) {
+        return new RateLimit(0, 0, perSecond, burst);
+    }
+}
@@ -0,0 +1,316 @@
+package com.ollama.api.ratelimit;
+
+import com.ollama.api.OllamaClient;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.dto.GenerateRequest;
+import com.ollama.api.dto.GenerateResponse;
+import com.ollama.api.exception.OllamaException;
+import com.ollama.api.exception.RateLimitExceededException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Sends requests through a {@link RateLimiter}.
+ *
+ * <p>Each request is admitted by the limiter under its
+ * {@linkplain ChatRequest#getTenant() tenant} and model, and its
+ * {@code eval_count} is charged when it completes. Streams that
+ * are cancelled before the final chunk have no count, so each of
+ * their chunks is charged as one token, which is how Ollama
+ * streams them.
+ *
+ * <p>Three ways of waiting are offered: {@code chat} blocks until
+ * the request is admitted, {@code tryChat} fails at once with a
+ * {@link RateLimitExceededException}, and {@code chatAsync}
+ * returns a future and sends the request on a virtual thread once
+ * it is admitted.
+ *
+ * @since 1.1.0
+ */
+public final class RateLimitedClient {
+
+    private static final Executor SENDER = runnable ->
+        Thread.ofVirtual().name("ollama-rate-limited").start(runnable);
+
+    private final OllamaClient client;
+    private final RateLimiter limiter;
+
+    /**
+     * Creates a rate-limited view of a client.
+     *
+     * @param client the client sending the requests
+     * @param limiter the limiter admitting them
+     */
+    public RateLimitedClient(OllamaClient client, RateLimiter limiter) {
+        this.client = client;
+        this.limiter = limiter;
+    }
+
+    /**
+     * Gets the client sending the requests.
+     *
+     * @return the client
+     */
+    public OllamaClient getClient() {
+        return client;
+    }
+
+    /**
+     * Gets the limiter admitting the requests.
+     *
+     * @return the limiter
+     */
+    public RateLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * Waits until the request is admitted, then sends it.
+     *
+     * @param request the chat request
+     * @return the chat response
+     * @throws OllamaException if the request fails or the thread
+     *     is interrupted while waiting
+     */
+    public ChatResponse chat(ChatRequest request) throws OllamaException {
+        acquire(request.getTenant(), request.getModel());
+        return sendChat(request);
+    }
+
+    /**
+     * Sends the request if it is admitted now.
+     *
+     * @param request the chat request
+     * @return the chat response
+     * @throws RateLimitExceededException if the request is not
+     *     admitted
+     * @throws OllamaException if the request fails
+     */
+    public ChatResponse tryChat(ChatRequest request)
+            throws OllamaException {
+        tryAcquire(request.getTenant(), request.getModel());
+        return sendChat(request);
+    }
+
+    /**
+     * Sends the request once it is admitted, without blocking the
+     * caller. Failures complete the future with a
+     * {@link CompletionException} wrapping the
+     * {@link OllamaException}. Cancelling the future before the
+     * request is sent gives its permit back.
+     *
+     * @param request the chat request
+     * @return the future chat response
+     */
+    public CompletableFuture<ChatResponse> chatAsync(
+            ChatRequest request) {
+        return sendAsync(request.getTenant(), request.getModel(),
+            () -> sendChat(request));
+    }
+
+    /**
+     * Waits until the request is admitted, then streams it.
+     *
+     * @param request the chat request
+     * @param callback function to handle each response chunk
+     * @throws OllamaException if the request fails or the thread
+     *     is interrupted while waiting
+     */
+    public void chatStream(ChatRequest request,
+            Consumer<ChatResponse> callback) throws OllamaException {
+        chatStreamWhile(request, chunk -> {
+            callback.accept(chunk);
+            return true;
+        });
+    }
+
+    /**
+     * Waits until the request is admitted, then streams it until
+     * the handler returns false.
+     *
+     * @param request the chat request
+     * @param handler receives each chunk and returns false to
+     *     cancel the stream
+     * @throws OllamaException if the request fails or the thread
+     *     is interrupted while waiting
+     */
+    public void chatStreamWhile(ChatRequest request,
+            Predicate<ChatResponse> handler) throws OllamaException {
+        String tenant = request.getTenant();
+        String model = request.getModel();
+        acquire(tenant, model);
+        long[] chunks = new long[1];
+        Integer[] evalCount = new Integer[1];
+        try {
+            client.chatStreamWhile(request, chunk -> {
+                chunks[0]++;
+                if (Boolean.TRUE.equals(chunk.getDone())) {
+                    evalCount[0] = chunk.getEvalCount();
+                }
+                return handler.test(chunk);
+            });
+        } finally {
+            limiter.charge(tenant, model,
+                evalCount[0] != null ? evalCount[0] : chunks[0]);
+        }
+    }
+
+    /**
+     * Waits until the request is admitted, then sends it.
+     *
+     * @param request the completion request
+     * @return the completion response
+     * @throws OllamaException if the request fails or the thread
+     *     is interrupted while waiting
+     */
+    public GenerateResponse generate(GenerateRequest request)
+            throws OllamaException {
+        acquire(request.getTenant(), request.getModel());
+        return sendGenerate(request);
+    }
+
+    /**
+     * Sends the request if it is admitted now.
+     *
+     * @param request the completion request
+     * @return the completion response
+     * @throws RateLimitExceededException if the request is not
+     *     admitted
+     * @throws OllamaException if the request fails
+     */
+    public GenerateResponse tryGenerate(GenerateRequest request)
+            throws OllamaException {
+        tryAcquire(request.getTenant(), request.getModel());
+        return sendGenerate(request);
+    }
+
+    /**
+     * Sends the request once it is admitted, without blocking the
+     * caller. Cancelling the future before the request is sent
+     * gives its permit back.
+     *
+     * @param request the completion request
+     * @return the future completion response
+     */
+    public CompletableFuture<GenerateResponse> generateAsync(
+            GenerateRequest request) {
+        return sendAsync(request.getTenant(), request.getModel(),
+            () -> sendGenerate(request));
+    }
+
+    /**
+     * Waits until the request is admitted, then streams it.
+     *
+     * @param request the completion request
+     * @param callback function to handle each response chunk
+     * @throws OllamaException if the request fails or the thread
+     *     is interrupted while waiting
+     */
+    public void generateStream(GenerateRequest request,
+            Consumer<GenerateResponse> callback) throws OllamaException {
+        String tenant = request.getTenant();
+        String model = request.getModel();
+        acquire(tenant, model);
+        long[] chunks = new long[1];
+        Integer[] evalCount = new Integer[1];
+        try {
+            client.generateStream(request, chunk -> {
+                chunks[0]++;
+                if (Boolean.TRUE.equals(chunk.getDone())) {
+                    evalCount[0] = chunk.getEvalCount();
+                }
+                callback.accept(chunk);
+            });
+        } finally {
+            limiter.charge(tenant, model,
+                evalCount[0] != null ? evalCount[0] : chunks[0]);
+        }
+    }
+
+    /**
+     * Sends a request on a virtual thread once it is admitted.
+     * Cancelling the returned future before the request is sent
+     * stops waiting, or gives back the permit if one was taken.
+     */
+    private <T> CompletableFuture<T> sendAsync(String tenant,
+            String model, Send<T> send) {
+        CompletableFuture<Void> admitted =
+            limiter.acquireAsync(tenant, model);
+        AtomicBoolean claimed = new AtomicBoolean();
+        CompletableFuture<T> result = admitted.thenApplyAsync(
+            ignored -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    throw new CancellationException();
+                }
+                try {
+                    return send.run();
+                } catch (OllamaException e) {
+                    throw new CompletionException(e);
+                }
+            }, SENDER);
+        result.whenComplete((response, error) -> {
+            if (!result.isCancelled() || admitted.cancel(false)) {
+                // Not cancelled, or cancelled while still waiting,
+                // in which case acquireAsync gives back any permit
+                return;
+            }
+            if (!admitted.isCompletedExceptionally()
+                    && claimed.compareAndSet(false, true)) {
+                limiter.release(tenant, model);
+            }
+        });
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface Send<T> {
+        T run() throws OllamaException;
+    }
+
+    private ChatResponse sendChat(ChatRequest request)
+            throws OllamaException {
+        ChatResponse response = client.chat(request);
+        charge(request.getTenant(), request.getModel(),
+            response.getEvalCount());
+        return response;
+    }
+
+    private GenerateResponse sendGenerate(GenerateRequest request)
+            throws OllamaException {
+        GenerateResponse response = client.generate(request);
+        charge(request.getTenant(), request.getModel(),
+            response.getEvalCount());
+        return response;
+    }
+
+    private void charge(String tenant, String model, Integer evalCount) {
+        if (evalCount != null) {
+            limiter.charge(tenant, model, evalCount);
+        }
+    }
+
+    private void acquire(String tenant, String model)
+            throws OllamaException {
+        try {
+            limiter.acquire(tenant, model);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OllamaException(
+                "Interrupted while waiting for the rate limit", e);
+        }
+    }
+
+    private void tryAcquire(String tenant, String model)
+            throws RateLimitExceededException {
+        if (!limiter.tryAcquire(tenant, model)) {
+            throw new RateLimitExceededException(tenant, model,
+                limiter.timeUntilAvailable(tenant, model));
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.ollama.api.ratelimit;
+
+import com.ollama.api.usage.UsageLedger;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket rate limits per model and per tenant.
+ *
+ * <p>A request for a tenant and a model is admitted when both
+ * the tenant's and the model's buckets allow it, and then takes
+ * a request permit from each. When it completes, its generated
+ * tokens are {@linkplain #charge charged} to both. See
+ * {@link RateLimit} for how the two buckets interact.
+ *
+ * <p>Tenants without a limit of their own get separate buckets
+ * from the {@linkplain #setDefaultTenantLimit default limit}, so
+ * one bulk job cannot use up the capacity of another. Requests
+ * without a tenant count as {@link UsageLedger#DEFAULT_TENANT}.
+ * Such buckets are dropped once they have refilled, since a full
+ * bucket is the same as a new one, so tenants that come and go
+ * do not accumulate.
+ *
+ * <p>Waiting callers are not served in arrival order: a request
+ * that finds capacity free takes it, even if others have been
+ * waiting. Instances are thread-safe.
+ *
+ * @see RateLimitedClient
+ * @since 1.1.0
+ */
+public final class RateLimiter {
+
+    private static final long SWEEP_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, Buckets> models = new HashMap<>();
+    private final Map<String, Buckets> tenants = new HashMap<>();
+    private RateLimit defaultTenantLimit;
+    private long nextSweep = System.nanoTime() + SWEEP_NANOS;
+
+    private static final class Buckets {
+        final TokenBucket requests;
+        final TokenBucket tokens;
+        final boolean byDefault;
+
+        Buckets(RateLimit limit, boolean byDefault) {
+            this.requests = limit.requestsPerSecond() > 0
+                ? new TokenBucket(limit.requestsPerSecond(),
+                    limit.requestBurst())
+                : null;
+            this.tokens = limit.tokensPerSecond() > 0
+                ? new TokenBucket(limit.tokensPerSecond(),
+                    limit.tokenBurst())
+                : null;
+            this.byDefault = byDefault;
+        }
+
+        boolean isFull() {
+            return (requests == null || requests.isFull())
+                && (tokens == null || tokens.isFull());
+        }
+
+        long nanosUntilAdmitted() {
+            long wait = 0;
+            if (requests != null) {
+                wait = requests.nanosUntil(1);
+            }
+            if (tokens != null) {
+                wait = Math.max(wait, tokens.nanosUntil(0));
+            }
+            return wait;
+        }
+    }
+
+    /**
+     * Sets the limit of a model, replacing any previous limit
+     * with full buckets.
+     *
+     * @param model the model name
+     * @param limit the limit, or null to remove it
+     */
+    public synchronized void setModelLimit(String model,
+            RateLimit limit) {
+        put(models, model, limit);
+    }
+
+    /**
+     * Sets the limit of a tenant, replacing any previous limit
+     * with full buckets.
+     *
+     * @param tenant the tenant
+     * @param limit the limit, or null to fall back to the default
+     *     limit
+     */
+    public synchronized void setTenantLimit(String tenant,
+            RateLimit limit) {
+        put(tenants, tenant, limit);
+    }
+
+    /**
+     * Sets the limit given to each tenant that has no limit of its
+     * own. Every such tenant gets its own buckets.
+     *
+     * @param limit the limit, or null for no default limit
+     */
+    public synchronized void setDefaultTenantLimit(RateLimit limit) {
+        defaultTenantLimit = limit;
+        tenants.values().removeIf(buckets -> buckets.byDefault);
+    }
+
+    /**
+     * Takes a request permit if the request is admitted now.
+     *
+     * @param tenant the tenant, or null for the default tenant
+     * @param model the model name
+     * @return true if the request may be sent
+     */
+    public boolean tryAcquire(String tenant, String model) {
+        return admit(tenant, model) == 0;
+    }
+
+    /**
+     * Waits until the request is admitted and takes a permit.
+     *
+     * @param tenant the tenant, or null for the default tenant
+     * @param model the model name
+     * @throws InterruptedException if the thread is interrupted
+     *     while waiting
+     */
+    public void acquire(String tenant, String model)
+            throws InterruptedException {
+        long wait;
+        while ((wait = admit(tenant, model)) > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Waits at most a timeout for the request to be admitted.
+     *
+     * @param tenant the tenant, or null for the default tenant
+     * @param model the model name
+     * @param timeout the longest time to wait
+     * @return true if a permit was taken, false on timeout
+     * @throws InterruptedException if the thread is interrupted
+     *     while waiting
+     */
+    public boolean acquire(String tenant, String model,
+            Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long wait;
+        while ((wait = admit(tenant, model)) > 0) {
+            long left = deadline - System.nanoTime();
+            if (wait > left) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+        return true;
+    }
+
+    /**
+     * Takes a permit once the request is admitted, without
+     * blocking the caller.
+     *
+     * <p>The returned future completes on a virtual thread when a
+     * permit was taken. Cancelling it stops waiting; a permit
+     * taken at the same moment is given back.
+     *
+     * @param tenant the tenant, or null for the default tenant
+     * @param model the model name
+     * @return a future completed once the request may be sent
+     */
+    public CompletableFuture<Void> acquireAsync(String tenant,
+            String model) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (admit(tenant, model) == 0) {
+            future.complete(null);
+            return future;
+        }
+        Thread waiter = Thread.ofVirtual().name("ollama-rate-limit-wait")
+            .start(() -> {
+                try {
+                    acquire(tenant, model);
+                } catch (InterruptedException e) {
+                    future.completeExceptionally(e);
+                    return;
+                }
+                if (!future.complete(null)) {
+                    release(tenant, model);
+                }
+            });
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                waiter.interrupt();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Gets the time until a request would be admitted, if no other
+     * request takes the capacity first.
+     *
+     * @param tenant the tenant, or null for the default tenant
+     * @param model the model name
+     * @return the time to wait, zero if admitted now
+     */
+    public synchronized Duration timeUntilAvailable(String tenant,
+            String model) {
+        return Duration.ofNanos(nanosUntilAdmitted(
+            tenantBuckets(tenant), models.get(model)));
+    }
+
+    /**
+     * Charges the tokens generated by a completed request. The
+     * buckets may go into debt.
+     *
+     * @param tenant the tenant, or null for the default tenant
+     * @param model the model name
+     * @param tokens the {@code eval_count} of the response
+     */
+    public synchronized void charge(String tenant, String model,
+            long tokens) {
+        if (tokens <= 0) {
+            return;
+        }
+        Buckets tenantBuckets = tenantBuckets(tenant);
+        Buckets modelBuckets = models.get(model);
+        if (tenantBuckets != null && tenantBuckets.tokens != null) {
+            tenantBuckets.tokens.take(tokens);
+        }
+        if (modelBuckets != null && modelBuckets.tokens != null) {
+            modelBuckets.tokens.take(tokens);
+        }
+    }
+
+    /**
+     * Gives back a request permit that was taken but not used.
+     *
+     * @param tenant the tenant, or null for the default tenant
+     * @param model the model name
+     */
+    public synchronized void release(String tenant, String model) {
+        Buckets tenantBuckets = tenantBuckets(tenant);
+        Buckets modelBuckets = models.get(model);
+        if (tenantBuckets != null && tenantBuckets.requests != null) {
+            tenantBuckets.requests.give(1);
+        }
+        if (modelBuckets != null && modelBuckets.requests != null) {
+            modelBuckets.requests.give(1);
+        }
+    }
+
+    /**
+     * Gets the generated tokens a tenant may still use at once,
+     * negative when it is in debt.
+     *
+     * @param tenant the tenant, or null for the default tenant
+     * @return the balance, or {@link Double#POSITIVE_INFINITY} if
+     *     its generated tokens are not limited
+     */
+    public synchronized double getTokenBalance(String tenant) {
+        Buckets buckets = tenantBuckets(tenant);
+        return buckets == null || buckets.tokens == null
+            ? Double.POSITIVE_INFINITY
+            : buckets.tokens.balance();
+    }
+
+    /**
+     * Gets the number of tenants that have buckets, including
+     * default buckets not yet dropped.
+     */
+    synchronized int getTenantBucketCount() {
+        return tenants.size();
+    }
+
+    /**
+     * Takes a request permit from every bucket if all of them
+     * admit the request.
+     *
+     * @return 0 if a permit was taken, otherwise the nanoseconds
+     *     to wait before trying again
+     */
+    private synchronized long admit(String tenant, String model) {
+        Buckets tenantBuckets = tenantBuckets(tenant);
+        Buckets modelBuckets = models.get(model);
+        long wait = nanosUntilAdmitted(tenantBuckets, modelBuckets);
+        if (wait > 0) {
+            return wait;
+        }
+        if (tenantBuckets != null && tenantBuckets.requests != null) {
+            tenantBuckets.requests.take(1);
+        }
+        if (modelBuckets != null && modelBuckets.requests != null) {
+            modelBuckets.requests.take(1);
+        }
+        return 0;
+    }
+
+    private static long nanosUntilAdmitted(Buckets tenantBuckets,
+            Buckets modelBuckets) {
+        long wait = 0;
+        if (tenantBuckets != null) {
+            wait = tenantBuckets.nanosUntilAdmitted();
+        }
+        if (modelBuckets != null) {
+            wait = Math.max(wait, modelBuckets.nanosUntilAdmitted());
+        }
+        return wait;
+    }
+
+    private Buckets tenantBuckets(String tenant) {
+        String key = tenant != null ? tenant : UsageLedger.DEFAULT_TENANT;
+        Buckets buckets = tenants.get(key);
+        if (buckets == null && defaultTenantLimit != null) {
+            sweep();
+            buckets = new Buckets(defaultTenantLimit, true);
+            tenants.put(key, buckets);
+        }
+        return buckets;
+    }
+
+    /**
+     * Drops refilled default buckets, at most once a second so
+     * that a burst of new tenants does not rescan the map each
+     * time.
+     */
+    private void sweep() {
+        long now = System.nanoTime();
+        if (now - nextSweep < 0) {
+            return;
+        }
+        nextSweep = now + SWEEP_NANOS;
+        tenants.values().removeIf(
+            buckets -> buckets.byDefault && buckets.isFull());
+    }
+
+    private static void put(Map<String, Buckets> map, String key,
+            RateLimit limit) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key must not be null");
+        }
+        if (limit == null) {
+            map.remove(key);
+        } else {
+            map.put(key, new Buckets(limit, false));
+        }
+    }
+}
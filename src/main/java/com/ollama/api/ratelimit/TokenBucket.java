@@ -0,0 +1,86 @@
+package com.ollama.api.ratelimit;
+
+/**
+ * A token bucket that refills continuously and may go into debt.
+ *
+ * <p>The bucket is refilled lazily from {@link System#nanoTime()}
+ * when it is used, so idle buckets cost nothing. Instances are
+ * not thread-safe; {@link RateLimiter} guards them.
+ */
+final class TokenBucket {
+
+    private final double perNano;
+    private final double capacity;
+    private double tokens;
+    private long refilled = System.nanoTime();
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param perSecond the refill rate
+     * @param capacity the maximum balance
+     */
+    TokenBucket(double perSecond, double capacity) {
+        this.perNano = perSecond / 1e9;
+        this.capacity = capacity;
+        this.tokens = capacity;
+    }
+
+    /**
+     * Gets the time until the balance reaches an amount.
+     *
+     * @param amount the balance needed
+     * @return the time in nanoseconds, or 0 if it is reached
+     */
+    long nanosUntil(double amount) {
+        refill();
+        if (tokens >= amount) {
+            return 0;
+        }
+        return (long) Math.ceil((amount - tokens) / perNano);
+    }
+
+    /**
+     * Takes an amount from the balance, going into debt if the
+     * balance is too low.
+     *
+     * @param amount the amount to take
+     */
+    void take(double amount) {
+        refill();
+        tokens -= amount;
+    }
+
+    /**
+     * Returns an amount to the balance, up to the capacity.
+     *
+     * @param amount the amount to return
+     */
+    void give(double amount) {
+        refill();
+        tokens = Math.min(capacity, tokens + amount);
+    }
+
+    /**
+     * Tells whether the bucket is full, and so in the same state
+     * as a new one.
+     */
+    boolean isFull() {
+        refill();
+        return tokens >= capacity;
+    }
+
+    /**
+     * Gets the current balance, negative when in debt.
+     */
+    double balance() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - refilled) * perNano);
+        refilled = now;
+    }
+}
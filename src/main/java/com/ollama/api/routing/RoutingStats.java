@@ -0,0 +1,34 @@
+package com.ollama.api.routing;
+
+/**
+ * Totals of the requests routed by a {@link SessionRouter}.
+ *
+ * <p>A request is an affinity hit when it went to the same node
+ * as the previous request of its session, and a move when it
+ * went elsewhere, because that node was down or over its load
+ * bound. Cached tokens are the estimated prompt tokens the
+ * server did not have to evaluate because a previous turn left
+ * them in its cache; the time saved prices them at the
+ * per-token prompt evaluation rate observed on each request.
+ *
+ * @param requests the completed requests
+ * @param affinityHits the requests sent to their session's
+ *     previous node
+ * @param sessionMoves the requests sent to a different node than
+ *     their session's previous one
+ * @param failovers the requests retried on another node after a
+ *     connection failure
+ * @param promptEvalCount the sum of {@code prompt_eval_count}
+ * @param promptEvalDuration the sum of
+ *     {@code prompt_eval_duration} in nanoseconds
+ * @param estimatedCachedTokens the estimated prompt tokens served
+ *     from a node's cache
+ * @param estimatedPromptEvalNanosSaved the estimated prompt
+ *     evaluation time saved, in nanoseconds
+ * @since 1.1.0
+ */
+public record RoutingStats(long requests, long affinityHits,
+        long sessionMoves, long failovers, long promptEvalCount,
+        long promptEvalDuration, long estimatedCachedTokens,
+        long estimatedPromptEvalNanosSaved) {
+}
@@ -0,0 +1,541 @@
+package com.ollama.api.routing;
+
+import com.ollama.api.OllamaClient;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.exception.OllamaException;
+import com.ollama.api.exception.OllamaTimeoutException;
+import com.ollama.api.util.HeuristicTokenEstimator;
+import com.ollama.api.util.TokenEstimator;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Routes the requests of a session to the same Ollama node.
+ *
+ * <p>Each node keeps the prompt of its recent requests in its KV
+ * cache, so a conversation whose turns land on the same node
+ * only has the new messages evaluated, while a turn sent to
+ * another node evaluates the whole history again. The router
+ * hashes a session key onto a ring holding
+ * {@code virtualNodes} points per node and sends the request to
+ * the first node clockwise. Sessions spread evenly, and when a
+ * node goes down only its own sessions move, each to the next
+ * node on the ring; they return when it comes back.
+ *
+ * <p>The load of each node is bounded as in consistent hashing
+ * with bounded loads (Mirrokni, Thorup and Zadimoghaddam): a node
+ * whose requests in flight reach {@code loadFactor} times the
+ * average is skipped, so one busy session cannot pile work onto
+ * a single node while others idle.
+ *
+ * <p>A node is marked down for {@code downTime} when a connection
+ * to it fails, and the request is retried on the next node. A
+ * stream is only retried if it failed before its first chunk.
+ * {@link #getStats()} reports how often sessions stayed on their
+ * node and how much prompt evaluation time that saved.
+ *
+ * <p>Instances are thread-safe.
+ *
+ * @since 1.1.0
+ */
+public final class SessionRouter {
+
+    private static final Logger logger =
+        LoggerFactory.getLogger(SessionRouter.class);
+
+    /** Sessions whose previous node is remembered for the stats. */
+    private static final int TRACKED_SESSIONS = 100_000;
+
+    private final Node[] nodes;
+    private final long[] ringHashes;
+    private final int[] ringNodes;
+    private final double loadFactor;
+    private final long downTime;
+    private final TokenEstimator estimator;
+    private final AtomicInteger totalInFlight = new AtomicInteger();
+    private final Map<String, Integer> lastNode =
+        new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, Integer> eldest) {
+                return size() > TRACKED_SESSIONS;
+            }
+        };
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder affinityHits = new LongAdder();
+    private final LongAdder sessionMoves = new LongAdder();
+    private final LongAdder failovers = new LongAdder();
+    private final LongAdder promptEvalCount = new LongAdder();
+    private final LongAdder promptEvalDuration = new LongAdder();
+    private final LongAdder cachedTokens = new LongAdder();
+    private final LongAdder nanosSaved = new LongAdder();
+
+    /**
+     * The state of one node.
+     *
+     * @param name the node name
+     * @param up whether the node is taking requests
+     * @param inFlight the requests in flight to the node
+     */
+    public record NodeStatus(String name, boolean up, int inFlight) {
+    }
+
+    private static final class Node {
+        final String name;
+        final OllamaClient client;
+        final AtomicInteger inFlight = new AtomicInteger();
+        volatile long downUntil;
+        volatile boolean down;
+
+        Node(String name, OllamaClient client) {
+            this.name = name;
+            this.client = client;
+        }
+
+        boolean isUp() {
+            return !down || System.nanoTime() - downUntil >= 0;
+        }
+    }
+
+    /**
+     * Sends one request to a chosen node.
+     */
+    @FunctionalInterface
+    private interface Call<T> {
+        T run(OllamaClient client) throws OllamaException;
+    }
+
+    private SessionRouter(Builder builder) {
+        this.nodes = builder.nodes.toArray(new Node[0]);
+        this.loadFactor = builder.loadFactor;
+        this.downTime = builder.downTime.toNanos();
+        this.estimator = builder.estimator;
+        int points = nodes.length * builder.virtualNodes;
+        long[] hashes = new long[points];
+        int[] owners = new int[points];
+        for (int n = 0; n < nodes.length; n++) {
+            for (int v = 0; v < builder.virtualNodes; v++) {
+                int point = n * builder.virtualNodes + v;
+                hashes[point] = hash(nodes[n].name + "#" + v);
+                owners[point] = n;
+            }
+        }
+        // Sort the points by hash, carrying their owners along
+        Integer[] order = new Integer[points];
+        for (int i = 0; i < points; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(hashes[a], hashes[b]));
+        this.ringHashes = new long[points];
+        this.ringNodes = new int[points];
+        for (int i = 0; i < points; i++) {
+            ringHashes[i] = hashes[order[i]];
+            ringNodes[i] = owners[order[i]];
+        }
+    }
+
+    /**
+     * Creates a new builder.
+     *
+     * @return a builder without nodes
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Sends a chat request to the node of its session.
+     *
+     * @param sessionKey the key of the conversation
+     * @param request the chat request
+     * @return the chat response
+     * @throws OllamaException if the request fails on every node
+     *     it was tried on
+     */
+    public ChatResponse chat(String sessionKey, ChatRequest request)
+            throws OllamaException {
+        return route(sessionKey, request, () -> true,
+            client -> client.chat(request));
+    }
+
+    /**
+     * Streams a chat request from the node of its session.
+     *
+     * @param sessionKey the key of the conversation
+     * @param request the chat request
+     * @param callback function to handle each response chunk
+     * @throws OllamaException if the request fails
+     */
+    public void chatStream(String sessionKey, ChatRequest request,
+            Consumer<ChatResponse> callback) throws OllamaException {
+        boolean[] started = new boolean[1];
+        ChatResponse[] last = new ChatResponse[1];
+        route(sessionKey, request, () -> !started[0], client -> {
+            client.chatStream(request, chunk -> {
+                started[0] = true;
+                if (Boolean.TRUE.equals(chunk.getDone())) {
+                    last[0] = chunk;
+                }
+                callback.accept(chunk);
+            });
+            return last[0];
+        });
+    }
+
+    /**
+     * Gets the node a session is routed to when every node is up
+     * and none is over its load bound.
+     *
+     * @param sessionKey the key of the conversation
+     * @return the node name
+     */
+    public String getHomeNode(String sessionKey) {
+        return nodes[ringNodes[firstPoint(hash(sessionKey))]].name;
+    }
+
+    /**
+     * Marks a node down until it is marked up or its down time
+     * ends. Its sessions move to the next nodes on the ring.
+     *
+     * @param name the node name
+     */
+    public void markDown(String name) {
+        markDown(node(name));
+    }
+
+    /**
+     * Marks a node up. Its sessions return to it.
+     *
+     * @param name the node name
+     */
+    public void markUp(String name) {
+        node(name).down = false;
+    }
+
+    /**
+     * Gets the state of every node, in the order they were added.
+     *
+     * @return the node states
+     */
+    public List<NodeStatus> getNodes() {
+        List<NodeStatus> status = new ArrayList<>(nodes.length);
+        for (Node node : nodes) {
+            status.add(new NodeStatus(node.name, node.isUp(),
+                node.inFlight.get()));
+        }
+        return status;
+    }
+
+    /**
+     * Gets the totals of the requests routed so far.
+     *
+     * @return the statistics
+     */
+    public RoutingStats getStats() {
+        return new RoutingStats(requests.sum(), affinityHits.sum(),
+            sessionMoves.sum(), failovers.sum(), promptEvalCount.sum(),
+            promptEvalDuration.sum(), cachedTokens.sum(),
+            nanosSaved.sum());
+    }
+
+    private <T extends ChatResponse> T route(String sessionKey,
+            ChatRequest request,
+            BooleanSupplier retryable, Call<T> call)
+            throws OllamaException {
+        Objects.requireNonNull(sessionKey, "sessionKey");
+        long hash = hash(sessionKey);
+        boolean[] tried = new boolean[nodes.length];
+        OllamaException failure = null;
+        for (int attempt = 0; attempt < nodes.length; attempt++) {
+            int index = pick(hash, tried);
+            if (index < 0) {
+                break;
+            }
+            tried[index] = true;
+            Node node = nodes[index];
+            node.inFlight.incrementAndGet();
+            totalInFlight.incrementAndGet();
+            try {
+                T response = call.run(node.client);
+                record(sessionKey, index, request, response);
+                return response;
+            } catch (OllamaException e) {
+                if (!isConnectionFailure(e)) {
+                    throw e;
+                }
+                logger.warn("Node {} failed, moving its sessions: {}",
+                    node.name, e.getMessage());
+                markDown(node);
+                if (!retryable.getAsBoolean()) {
+                    throw e;
+                }
+                failovers.increment();
+                failure = e;
+            } finally {
+                node.inFlight.decrementAndGet();
+                totalInFlight.decrementAndGet();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        throw new OllamaException("No Ollama node is up");
+    }
+
+    /**
+     * Walks the ring clockwise from a hash to the first node that
+     * is up, not yet tried and under its load bound. If every
+     * such node is over the bound, the first one is used.
+     *
+     * @return the node index, or -1 if no node is left
+     */
+    private int pick(long hash, boolean[] tried) {
+        int up = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            if (!tried[i] && nodes[i].isUp()) {
+                up++;
+            }
+        }
+        if (up == 0) {
+            return -1;
+        }
+        double bound = Math.ceil(
+            loadFactor * (totalInFlight.get() + 1) / up);
+        boolean[] seen = new boolean[nodes.length];
+        int fallback = -1;
+        int start = firstPoint(hash);
+        for (int i = 0; i < ringNodes.length && up > 0; i++) {
+            int index = ringNodes[(start + i) % ringNodes.length];
+            if (seen[index]) {
+                continue;
+            }
+            seen[index] = true;
+            Node node = nodes[index];
+            if (tried[index] || !node.isUp()) {
+                continue;
+            }
+            up--;
+            if (node.inFlight.get() < bound) {
+                return index;
+            }
+            if (fallback < 0) {
+                fallback = index;
+            }
+        }
+        return fallback;
+    }
+
+    private int firstPoint(long hash) {
+        int point = Arrays.binarySearch(ringHashes, hash);
+        if (point < 0) {
+            point = -point - 1;
+        }
+        return point == ringHashes.length ? 0 : point;
+    }
+
+    private void record(String sessionKey, int index,
+            ChatRequest request, ChatResponse response) {
+        requests.increment();
+        Integer previous;
+        synchronized (lastNode) {
+            previous = lastNode.put(sessionKey, index);
+        }
+        if (previous != null) {
+            if (previous == index) {
+                affinityHits.increment();
+            } else {
+                sessionMoves.increment();
+            }
+        }
+        if (response == null) {
+            return;
+        }
+        Integer count = response.getPromptEvalCount();
+        Long duration = response.getPromptEvalDuration();
+        if (count == null || duration == null) {
+            return;
+        }
+        promptEvalCount.add(count);
+        promptEvalDuration.add(duration);
+        long cached = Math.max(0, estimator.estimate(request) - count);
+        cachedTokens.add(cached);
+        if (count > 0) {
+            nanosSaved.add((long) (cached * ((double) duration / count)));
+        }
+    }
+
+    private void markDown(Node node) {
+        node.downUntil = System.nanoTime() + downTime;
+        node.down = true;
+    }
+
+    private Node node(String name) {
+        for (Node node : nodes) {
+            if (node.name.equals(name)) {
+                return node;
+            }
+        }
+        throw new IllegalArgumentException("Unknown node: " + name);
+    }
+
+    private static boolean isConnectionFailure(OllamaException e) {
+        return e.getStatusCode() < 0
+            && !(e instanceof OllamaTimeoutException)
+            && e.getCause() instanceof IOException;
+    }
+
+    /**
+     * Hashes a key with 64-bit FNV-1a and the MurmurHash3
+     * finalizer, which spreads similar keys across the ring.
+     */
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Builder for {@link SessionRouter}.
+     */
+    public static final class Builder {
+        private final List<Node> nodes = new ArrayList<>();
+        private int virtualNodes = 160;
+        private double loadFactor = 1.25;
+        private Duration downTime = Duration.ofSeconds(30);
+        private TokenEstimator estimator =
+            HeuristicTokenEstimator.DEFAULT;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a node with a default client.
+         *
+         * @param baseUrl the node's base URL, also its name
+         * @return this builder
+         */
+        public Builder node(String baseUrl) {
+            return node(baseUrl,
+                OllamaClient.builder().baseUrl(baseUrl).build());
+        }
+
+        /**
+         * Adds a node with its own client. The name places the
+         * node on the ring, so it must stay the same across
+         * restarts for sessions to keep their node.
+         *
+         * @param name the node name
+         * @param client the client of the node
+         * @return this builder
+         */
+        public Builder node(String name, OllamaClient client) {
+            Objects.requireNonNull(name, "name");
+            Objects.requireNonNull(client, "client");
+            for (Node node : nodes) {
+                if (node.name.equals(name)) {
+                    throw new IllegalArgumentException(
+                        "Duplicate node: " + name);
+                }
+            }
+            nodes.add(new Node(name, client));
+            return this;
+        }
+
+        /**
+         * Sets the points each node has on the ring. More points
+         * spread sessions more evenly. Defaults to 160.
+         *
+         * @param virtualNodes the points per node
+         * @return this builder
+         */
+        public Builder virtualNodes(int virtualNodes) {
+            if (virtualNodes < 1) {
+                throw new IllegalArgumentException(
+                    "virtualNodes must be at least 1: " + virtualNodes);
+            }
+            this.virtualNodes = virtualNodes;
+            return this;
+        }
+
+        /**
+         * Sets how far above the average load a node may go
+         * before its sessions spill to the next node. Lower
+         * values balance better and break affinity more often.
+         * Defaults to 1.25.
+         *
+         * @param loadFactor the factor, greater than 1
+         * @return this builder
+         */
+        public Builder loadFactor(double loadFactor) {
+            if (!(loadFactor > 1)) {
+                throw new IllegalArgumentException(
+                    "Load factor must be greater than 1: " + loadFactor);
+            }
+            this.loadFactor = loadFactor;
+            return this;
+        }
+
+        /**
+         * Sets how long a node whose connection failed is left
+         * out. Defaults to 30 seconds.
+         *
+         * @param downTime the time a failed node is skipped
+         * @return this builder
+         */
+        public Builder downTime(Duration downTime) {
+            if (downTime.isNegative() || downTime.isZero()) {
+                throw new IllegalArgumentException(
+                    "Down time must be positive: " + downTime);
+            }
+            this.downTime = downTime;
+            return this;
+        }
+
+        /**
+         * Sets the estimator of prompt tokens used to report the
+         * tokens served from cache.
+         *
+         * @param estimator the estimator
+         * @return this builder
+         */
+        public Builder estimator(TokenEstimator estimator) {
+            this.estimator = Objects.requireNonNull(estimator,
+                "estimator");
+            return this;
+        }
+
+        /**
+         * Builds the router.
+         *
+         * @return a new router
+         */
+        public SessionRouter build() {
+            if (nodes.isEmpty()) {
+                throw new IllegalStateException("No nodes added");
+            }
+            return new SessionRouter(this);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.ollama.api.usage;
+
+import java.time.Duration;
+
+/**
+ * Token limits of a tenant, counting prompt and completion
+ * tokens over all models.
+ *
+ * <p>Reaching the soft limit logs a warning and notifies the
+ * ledger's listener once per period; requests still go out.
+ * Reaching the hard limit rejects further requests until the
+ * period ends. Limits are checked before a request is sent and
+ * usage is charged when it completes, so requests already in
+ * flight can take a tenant past its hard limit.
+ *
+ * @param softLimit the warning threshold in tokens, or 0 for none
+ * @param hardLimit the rejection threshold in tokens, or 0 for
+ *     none
+ * @param period how often usage resets, or null to never reset
+ * @since 1.1.0
+ */
+public record Quota(long softLimit, long hardLimit, Duration period) {
+
+    /**
+     * Validates the limits.
+     */
+    public Quota {
+        if (softLimit < 0 || hardLimit < 0) {
+            throw new IllegalArgumentException(
+                "Limits must not be negative");
+        }
+        if (period != null
+                && (period.isZero() || period.isNegative())) {
+            throw new IllegalArgumentException(
+                "Period must be positive: " + period);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.ollama.api.usage;
+
+/**
+ * Token usage of one tenant and model.
+ *
+ * @param tenant the tenant
+ * @param model the model name
+ * @param requests the number of completed requests
+ * @param promptTokens the sum of {@code prompt_eval_count}
+ * @param completionTokens the sum of {@code eval_count}
+ * @param computeNanos the sum of {@code prompt_eval_duration}
+ *     and {@code eval_duration}
+ * @since 1.1.0
+ */
+public record Usage(String tenant, String model, long requests,
+        long promptTokens, long completionTokens,
+        long computeNanos) {
+
+    /**
+     * Gets the prompt and completion tokens together.
+     *
+     * @return the total tokens
+     */
+    public long totalTokens() {
+        return promptTokens + completionTokens;
+    }
+}
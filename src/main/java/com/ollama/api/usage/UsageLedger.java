@@ -0,0 +1,344 @@
+package com.ollama.api.usage;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.ollama.api.exception.QuotaExceededException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Attributes token usage to tenants and models, and enforces
+ * per-tenant quotas.
+ *
+ * <p>When given to a client with
+ * {@link com.ollama.api.OllamaClient.Builder#usageLedger(UsageLedger)},
+ * every completed chat or generate request is charged with the
+ * {@code prompt_eval_count}, {@code eval_count} and compute time
+ * reported by the server, under the request's tenant. Requests
+ * without a tenant are charged to {@link #DEFAULT_TENANT}.
+ * Streams cancelled before their final chunk carry no counts, so
+ * each chunk received is charged as one completion token, which
+ * is how Ollama streams them. Their prompt tokens and compute
+ * time are unknown and not charged.
+ *
+ * <p>Counters are {@link LongAdder}s, so many threads charging
+ * the same tenant do not contend on one memory location. The
+ * totals can be written to a file on demand or periodically.
+ *
+ * @since 1.1.0
+ */
+public final class UsageLedger implements AutoCloseable {
+
+    private static final Logger logger =
+        LoggerFactory.getLogger(UsageLedger.class);
+
+    /** The tenant of requests that do not name one. */
+    public static final String DEFAULT_TENANT = "default";
+
+    private final ConcurrentMap<Key, Account> accounts =
+        new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, QuotaWindow> quotas =
+        new ConcurrentHashMap<>();
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private volatile SoftLimitListener softLimitListener;
+    private ScheduledExecutorService flusher;
+    private Path flushFile;
+
+    /**
+     * Notified when a tenant passes its soft limit.
+     */
+    @FunctionalInterface
+    public interface SoftLimitListener {
+
+        /**
+         * Called once per quota period, on the thread of the
+         * request that found the limit passed.
+         *
+         * @param tenant the tenant
+         * @param used the tokens used in the current period
+         * @param quota the tenant's quota
+         */
+        void softLimitReached(String tenant, long used, Quota quota);
+    }
+
+    private record Key(String tenant, String model) {
+    }
+
+    private static final class Account {
+        final LongAdder requests = new LongAdder();
+        final LongAdder promptTokens = new LongAdder();
+        final LongAdder completionTokens = new LongAdder();
+        final LongAdder computeNanos = new LongAdder();
+    }
+
+    private static final class QuotaWindow {
+        final Quota quota;
+        final LongAdder used = new LongAdder();
+        volatile long start = System.nanoTime();
+        volatile boolean warned;
+
+        QuotaWindow(Quota quota) {
+            this.quota = quota;
+        }
+
+        long used() {
+            if (quota.period() != null) {
+                long now = System.nanoTime();
+                if (now - start >= quota.period().toNanos()) {
+                    synchronized (this) {
+                        if (now - start >= quota.period().toNanos()) {
+                            used.reset();
+                            warned = false;
+                            start = now;
+                        }
+                    }
+                }
+            }
+            return used.sum();
+        }
+    }
+
+    /**
+     * Sets the quota of a tenant, replacing any previous quota
+     * and starting a new period.
+     *
+     * @param tenant the tenant
+     * @param quota the quota, or null to remove it
+     */
+    public void setQuota(String tenant, Quota quota) {
+        Objects.requireNonNull(tenant, "tenant");
+        if (quota == null) {
+            quotas.remove(tenant);
+        } else {
+            quotas.put(tenant, new QuotaWindow(quota));
+        }
+    }
+
+    /**
+     * Sets the listener notified when a tenant passes its soft
+     * limit. By default only a warning is logged.
+     *
+     * @param listener the listener, or null
+     */
+    public void setSoftLimitListener(SoftLimitListener listener) {
+        this.softLimitListener = listener;
+    }
+
+    /**
+     * Checks the quota of a tenant before a request is sent.
+     *
+     * @param tenant the tenant, or null for the default tenant
+     * @throws QuotaExceededException if the hard limit is reached
+     */
+    public void checkQuota(String tenant)
+            throws QuotaExceededException {
+        String key = tenantOf(tenant);
+        QuotaWindow window = quotas.get(key);
+        if (window == null) {
+            return;
+        }
+        Quota quota = window.quota;
+        long used = window.used();
+        if (quota.hardLimit() > 0 && used >= quota.hardLimit()) {
+            throw new QuotaExceededException(key, used,
+                quota.hardLimit());
+        }
+        if (quota.softLimit() > 0 && used >= quota.softLimit()
+                && !window.warned) {
+            window.warned = true;
+            logger.warn("Tenant {} passed its soft quota: {} of {}"
+                + " tokens", key, used, quota.softLimit());
+            SoftLimitListener listener = softLimitListener;
+            if (listener != null) {
+                listener.softLimitReached(key, used, quota);
+            }
+        }
+    }
+
+    /**
+     * Charges a completed request. Null counts are treated as 0.
+     *
+     * @param tenant the tenant, or null for the default tenant
+     * @param model the model name
+     * @param promptTokens the {@code prompt_eval_count}
+     * @param completionTokens the {@code eval_count}
+     * @param computeNanos the server compute time
+     */
+    public void record(String tenant, String model,
+            Integer promptTokens, Integer completionTokens,
+            long computeNanos) {
+        String key = tenantOf(tenant);
+        Account account = accounts.computeIfAbsent(
+            new Key(key, model != null ? model : "unknown"),
+            k -> new Account());
+        long prompt = promptTokens != null ? promptTokens : 0;
+        long completion =
+            completionTokens != null ? completionTokens : 0;
+        account.requests.increment();
+        account.promptTokens.add(prompt);
+        account.completionTokens.add(completion);
+        account.computeNanos.add(computeNanos);
+        QuotaWindow window = quotas.get(key);
+        if (window != null) {
+            window.used.add(prompt + completion);
+        }
+    }
+
+    /**
+     * Gets the tokens a tenant used in its current quota period.
+     *
+     * @param tenant the tenant
+     * @return the tokens used, or 0 if the tenant has no quota
+     */
+    public long getQuotaUsage(String tenant) {
+        QuotaWindow window = quotas.get(tenantOf(tenant));
+        return window == null ? 0 : window.used();
+    }
+
+    /**
+     * Takes a snapshot of the usage of every tenant and model,
+     * sorted by tenant and model.
+     *
+     * @return the usage since the ledger was created
+     */
+    public List<Usage> snapshot() {
+        List<Usage> usage = new ArrayList<>(accounts.size());
+        accounts.forEach((key, account) -> usage.add(new Usage(
+            key.tenant(), key.model(), account.requests.sum(),
+            account.promptTokens.sum(),
+            account.completionTokens.sum(),
+            account.computeNanos.sum())));
+        usage.sort(Comparator.comparing(Usage::tenant)
+            .thenComparing(Usage::model));
+        return usage;
+    }
+
+    /**
+     * Writes a snapshot to a JSON file. The file is replaced
+     * atomically where the file system allows it, so readers never
+     * see a partial snapshot.
+     *
+     * @param file the target file
+     * @throws IOException if the file cannot be written
+     */
+    public void flush(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(),
+            absolute.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp);
+                    JsonGenerator generator =
+                        jsonFactory.createGenerator(out)) {
+                writeSnapshot(generator);
+            }
+            try {
+                Files.move(temp, absolute,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, absolute,
+                    StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes a snapshot to a file at a fixed rate on a daemon
+     * thread, and once more on {@link #close()}.
+     *
+     * @param file the target file
+     * @param interval the time between snapshots
+     * @throws IllegalStateException if flushing already started
+     */
+    public synchronized void startFlushing(Path file,
+            Duration interval) {
+        Objects.requireNonNull(file, "file");
+        if (interval.isZero() || interval.isNegative()) {
+            throw new IllegalArgumentException(
+                "Interval must be positive: " + interval);
+        }
+        if (flusher != null) {
+            throw new IllegalStateException(
+                "Already flushing to " + flushFile);
+        }
+        flushFile = file;
+        flusher = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+                Thread thread = new Thread(runnable,
+                    "ollama-usage-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+        long nanos = interval.toNanos();
+        flusher.scheduleAtFixedRate(() -> flushQuietly(file),
+            nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops periodic flushing and writes a final snapshot.
+     */
+    @Override
+    public synchronized void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flusher = null;
+            flushQuietly(flushFile);
+        }
+    }
+
+    private void flushQuietly(Path file) {
+        try {
+            flush(file);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to write usage snapshot to {}",
+                file, e);
+        }
+    }
+
+    private void writeSnapshot(JsonGenerator generator)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("timestamp",
+            Instant.now().toString());
+        generator.writeArrayFieldStart("usage");
+        for (Usage usage : snapshot()) {
+            generator.writeStartObject();
+            generator.writeStringField("tenant", usage.tenant());
+            generator.writeStringField("model", usage.model());
+            generator.writeNumberField("requests", usage.requests());
+            generator.writeNumberField("prompt_tokens",
+                usage.promptTokens());
+            generator.writeNumberField("completion_tokens",
+                usage.completionTokens());
+            generator.writeNumberField("compute_ns",
+                usage.computeNanos());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static String tenantOf(String tenant) {
+        return tenant != null ? tenant : DEFAULT_TENANT;
+    }
+}
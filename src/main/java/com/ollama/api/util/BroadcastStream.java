@@ -0,0 +1,559 @@
+package com.ollama.api.util;
+
+import com.ollama.api.OllamaClient;
+import com.ollama.api.StreamCancellation;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.dto.Message;
+import com.ollama.api.exception.OllamaException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streams one generation to many subscribers.
+ *
+ * <p>A single upstream {@link OllamaClient#chatStreamWhile}
+ * call is fanned out to every subscriber, so the model runs once
+ * no matter how many viewers there are. Each subscriber has its
+ * own bounded queue drained by its own virtual thread, and the
+ * upstream never waits for a subscriber: a subscriber that falls
+ * behind is handled by its {@link OverflowPolicy} without
+ * affecting the others.
+ *
+ * <p>Subscribers that join late first receive one replay chunk
+ * holding all content generated so far, then the live chunks. A
+ * subscriber joining after the end receives the complete answer
+ * with the final statistics.
+ *
+ * <p>Chunks are shared between subscribers and must not be
+ * modified. Instances are thread-safe.
+ *
+ * @since 1.1.0
+ */
+public final class BroadcastStream implements AutoCloseable {
+
+    private static final Logger logger =
+        LoggerFactory.getLogger(BroadcastStream.class);
+
+    /**
+     * What happens when a subscriber's queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Discard new chunks until the subscriber catches up.
+         * The subscriber misses that text.
+         */
+        DROP,
+        /**
+         * Merge new chunks into the newest queued one. No text
+         * is lost and the queue stays bounded in chunks, but the
+         * subscriber receives larger, less frequent chunks. The
+         * merged text of a stalled subscriber is not bounded: it
+         * grows up to the rest of the answer, which the broadcast
+         * keeps for late subscribers anyway.
+         */
+        COALESCE,
+        /**
+         * Disconnect the subscriber with an error.
+         */
+        DISCONNECT
+    }
+
+    /**
+     * Receives the chunks of a broadcast. All methods are called
+     * on the subscriber's own thread.
+     */
+    public interface Listener {
+
+        /**
+         * Called for each chunk.
+         *
+         * @param chunk the chunk, shared with other subscribers
+         */
+        void onChunk(ChatResponse chunk);
+
+        /**
+         * Called after the last chunk of a completed stream.
+         */
+        default void onComplete() {
+        }
+
+        /**
+         * Called when the upstream fails or the subscriber is
+         * disconnected.
+         *
+         * @param error the cause
+         */
+        default void onError(Throwable error) {
+        }
+    }
+
+    private final int capacity;
+    private final OverflowPolicy defaultPolicy;
+    private final Object lock = new Object();
+    private final StringBuilder text = new StringBuilder();
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private final StreamCancellation cancellation =
+        new StreamCancellation();
+    private ChatResponse latest;
+    private Throwable failure;
+    private boolean done;
+    private long chunks;
+
+    private BroadcastStream(int capacity,
+            OverflowPolicy defaultPolicy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(
+                "Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.defaultPolicy = defaultPolicy;
+    }
+
+    /**
+     * Starts a broadcast. The request is sent at once on a
+     * virtual thread.
+     *
+     * @param client the client for the upstream request
+     * @param request the chat request
+     * @param capacity the queue size of each subscriber, in
+     *     chunks
+     * @param defaultPolicy the overflow policy of subscribers
+     *     that do not choose one
+     * @return the running broadcast
+     */
+    public static BroadcastStream start(OllamaClient client,
+            ChatRequest request, int capacity,
+            OverflowPolicy defaultPolicy) {
+        BroadcastStream stream =
+            new BroadcastStream(capacity, defaultPolicy);
+        Thread.ofVirtual().name("ollama-broadcast").start(() -> {
+            Throwable error = null;
+            try {
+                // A chunk arriving after close() is not published
+                client.chatStreamWhile(request, chunk -> {
+                    stream.publish(chunk);
+                    return true;
+                }, stream.cancellation);
+            } catch (Throwable t) {
+                error = t;
+                if (t instanceof Error e) {
+                    throw e;
+                }
+            } finally {
+                // Subscribers and await() get a terminal signal
+                // even when an Error escapes
+                stream.finish(error);
+            }
+        });
+        return stream;
+    }
+
+    /**
+     * Subscribes with the default overflow policy.
+     *
+     * @param listener receives the chunks
+     * @return the subscription
+     */
+    public Subscription subscribe(Listener listener) {
+        return subscribe(listener, defaultPolicy);
+    }
+
+    /**
+     * Subscribes with a specific overflow policy.
+     *
+     * @param listener receives the chunks
+     * @param policy the overflow policy for this subscriber
+     * @return the subscription
+     */
+    public Subscription subscribe(Listener listener,
+            OverflowPolicy policy) {
+        Subscription subscription =
+            new Subscription(listener, policy);
+        synchronized (lock) {
+            if (text.length() > 0 || latest != null) {
+                subscription.offer(snapshot());
+            }
+            if (done) {
+                subscription.terminate(failure);
+            } else {
+                subscriptions.add(subscription);
+            }
+        }
+        Thread.ofVirtual().name("ollama-broadcast-subscriber")
+            .start(subscription::drain);
+        return subscription;
+    }
+
+    /**
+     * Waits for the upstream to finish.
+     *
+     * @return the complete answer with the final statistics
+     * @throws OllamaException if the upstream failed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public ChatResponse await()
+            throws OllamaException, InterruptedException {
+        finished.await();
+        synchronized (lock) {
+            if (failure instanceof OllamaException e) {
+                throw e;
+            }
+            if (failure instanceof RuntimeException e) {
+                throw e;
+            }
+            if (failure != null) {
+                throw new OllamaException(
+                    "Broadcast upstream failed", failure);
+            }
+            return snapshot();
+        }
+    }
+
+    /**
+     * Gets the number of active subscribers.
+     *
+     * @return the subscriber count
+     */
+    public int getSubscriberCount() {
+        synchronized (lock) {
+            subscriptions.removeIf(Subscription::isClosed);
+            return subscriptions.size();
+        }
+    }
+
+    /**
+     * Gets the number of chunks received from upstream.
+     *
+     * @return the chunk count
+     */
+    public long getChunks() {
+        synchronized (lock) {
+            return chunks;
+        }
+    }
+
+    /**
+     * Tells whether the upstream has finished.
+     *
+     * @return true once the stream completed or failed
+     */
+    public boolean isDone() {
+        return finished.getCount() == 0;
+    }
+
+    /**
+     * Cancels the upstream request, closing its connection at
+     * once so the server stops generating. Subscribers receive
+     * what was already published, then complete.
+     */
+    @Override
+    public void close() {
+        cancellation.cancel();
+    }
+
+    private void publish(ChatResponse chunk) {
+        synchronized (lock) {
+            chunks++;
+            String content = contentOf(chunk);
+            if (content != null) {
+                text.append(content);
+            }
+            latest = chunk;
+            // Offering never blocks, so one slow subscriber
+            // cannot hold the lock
+            for (int i = subscriptions.size() - 1; i >= 0; i--) {
+                Subscription subscription = subscriptions.get(i);
+                if (subscription.isClosed()
+                        || !subscription.offer(chunk)) {
+                    subscriptions.remove(i);
+                }
+            }
+        }
+    }
+
+    private void finish(Throwable error) {
+        synchronized (lock) {
+            done = true;
+            failure = error;
+            for (Subscription subscription : subscriptions) {
+                subscription.terminate(error);
+            }
+            subscriptions.clear();
+        }
+        finished.countDown();
+        if (error != null) {
+            logger.debug("Broadcast upstream failed", error);
+        }
+    }
+
+    /**
+     * Creates a chunk holding all content so far, with the
+     * metadata of the latest chunk.
+     */
+    private ChatResponse snapshot() {
+        return copyOf(latest, text.toString());
+    }
+
+    private static String contentOf(ChatResponse chunk) {
+        return chunk.getMessage() == null
+            ? null
+            : chunk.getMessage().getContent();
+    }
+
+    private static ChatResponse copyOf(ChatResponse source,
+            String content) {
+        ChatResponse copy = new ChatResponse();
+        String role = "assistant";
+        if (source != null) {
+            copy.setModel(source.getModel());
+            copy.setCreatedAt(source.getCreatedAt());
+            copy.setDone(source.getDone());
+            copy.setDoneReason(source.getDoneReason());
+            copy.setTotalDuration(source.getTotalDuration());
+            copy.setLoadDuration(source.getLoadDuration());
+            copy.setPromptEvalCount(source.getPromptEvalCount());
+            copy.setPromptEvalDuration(
+                source.getPromptEvalDuration());
+            copy.setEvalCount(source.getEvalCount());
+            copy.setEvalDuration(source.getEvalDuration());
+            copy.setTiming(source.getTiming());
+            if (source.getMessage() != null
+                    && source.getMessage().getRole() != null) {
+                role = source.getMessage().getRole();
+            }
+        }
+        copy.setMessage(new Message(role, content));
+        return copy;
+    }
+
+    /**
+     * One subscriber of a broadcast.
+     */
+    public final class Subscription {
+
+        private final Listener listener;
+        private final OverflowPolicy policy;
+        private final ReentrantLock queueLock = new ReentrantLock();
+        private final Condition notEmpty = queueLock.newCondition();
+        private final ArrayDeque<ChatResponse> queue;
+        private final CountDownLatch terminated =
+            new CountDownLatch(1);
+        private ChatResponse mergedChunk;
+        private StringBuilder mergedText;
+        private boolean ended;
+        private Throwable error;
+        private volatile boolean closed;
+        private long dropped;
+        private long coalesced;
+
+        private Subscription(Listener listener,
+                OverflowPolicy policy) {
+            this.listener = listener;
+            this.policy = policy;
+            this.queue = new ArrayDeque<>(Math.min(capacity, 64));
+        }
+
+        /**
+         * Stops delivery. Queued chunks are discarded and no
+         * further callbacks are made.
+         */
+        public void cancel() {
+            queueLock.lock();
+            try {
+                closed = true;
+                queue.clear();
+                mergedChunk = null;
+                mergedText = null;
+                notEmpty.signal();
+            } finally {
+                queueLock.unlock();
+            }
+        }
+
+        /**
+         * Tells whether the subscription ended.
+         *
+         * @return true once cancelled, disconnected or
+         *     terminated
+         */
+        public boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * Waits until the last callback has returned.
+         *
+         * @param timeout the maximum time to wait
+         * @return true if delivery finished in time
+         * @throws InterruptedException if interrupted while
+         *     waiting
+         */
+        public boolean await(Duration timeout)
+                throws InterruptedException {
+            return terminated.await(timeout.toNanos(),
+                TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Gets the number of chunks discarded by the
+         * {@link OverflowPolicy#DROP} policy.
+         *
+         * @return the dropped chunk count
+         */
+        public long getDropped() {
+            queueLock.lock();
+            try {
+                return dropped;
+            } finally {
+                queueLock.unlock();
+            }
+        }
+
+        /**
+         * Gets the number of chunks merged by the
+         * {@link OverflowPolicy#COALESCE} policy.
+         *
+         * @return the merged chunk count
+         */
+        public long getCoalesced() {
+            queueLock.lock();
+            try {
+                return coalesced;
+            } finally {
+                queueLock.unlock();
+            }
+        }
+
+        /**
+         * Queues a chunk without blocking.
+         *
+         * @return false if the subscriber was disconnected
+         */
+        private boolean offer(ChatResponse chunk) {
+            queueLock.lock();
+            try {
+                if (closed) {
+                    return false;
+                }
+                int size = queue.size()
+                    + (mergedText == null ? 0 : 1);
+                // The final chunk is always queued
+                if (size < capacity
+                        || Boolean.TRUE.equals(chunk.getDone())
+                            && policy != OverflowPolicy.COALESCE) {
+                    if (mergedText != null) {
+                        queue.add(copyOf(mergedChunk,
+                            mergedText.toString()));
+                        mergedChunk = null;
+                        mergedText = null;
+                    }
+                    queue.add(chunk);
+                } else if (policy == OverflowPolicy.DROP) {
+                    dropped++;
+                    return true;
+                } else if (policy == OverflowPolicy.COALESCE) {
+                    coalesce(chunk);
+                } else {
+                    closed = true;
+                    queue.clear();
+                    error = new IllegalStateException(
+                        "Subscriber fell more than " + capacity
+                            + " chunks behind");
+                    ended = true;
+                }
+                notEmpty.signal();
+                return !closed;
+            } finally {
+                queueLock.unlock();
+            }
+        }
+
+        private void coalesce(ChatResponse chunk) {
+            if (mergedText == null) {
+                ChatResponse newest = queue.pollLast();
+                String content = newest == null
+                    ? null
+                    : contentOf(newest);
+                mergedText = new StringBuilder(
+                    content == null ? "" : content);
+            }
+            String content = contentOf(chunk);
+            if (content != null) {
+                mergedText.append(content);
+            }
+            // The newest metadata carries done and the statistics
+            mergedChunk = chunk;
+            coalesced++;
+        }
+
+        private void terminate(Throwable cause) {
+            queueLock.lock();
+            try {
+                if (!ended) {
+                    ended = true;
+                    error = cause;
+                    notEmpty.signal();
+                }
+            } finally {
+                queueLock.unlock();
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    ChatResponse next;
+                    Throwable cause;
+                    queueLock.lock();
+                    try {
+                        while (queue.isEmpty() && mergedText == null
+                                && !ended && !closed) {
+                            notEmpty.await();
+                        }
+                        if (closed && error == null) {
+                            return;
+                        }
+                        next = queue.poll();
+                        if (next == null && mergedText != null) {
+                            next = copyOf(mergedChunk,
+                                mergedText.toString());
+                            mergedChunk = null;
+                            mergedText = null;
+                        }
+                        cause = error;
+                    } finally {
+                        queueLock.unlock();
+                    }
+                    if (next == null) {
+                        closed = true;
+                        if (cause == null) {
+                            listener.onComplete();
+                        } else {
+                            listener.onError(cause);
+                        }
+                        return;
+                    }
+                    listener.onChunk(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                logger.warn("Broadcast subscriber failed, "
+                    + "cancelling it", e);
+                cancel();
+            } finally {
+                terminated.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.ollama.api.util;
+
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.dto.Model;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Per-model token estimator that learns from server counts.
+ *
+ * <p>Each model uses a base estimator chosen from its family.
+ * A correction factor scales that estimate. After each
+ * response, {@link #observe(ChatRequest, ChatResponse)} compares
+ * the estimate with the server-reported
+ * {@code prompt_eval_count} and moves the factor toward the
+ * observed ratio with an exponentially weighted average.
+ *
+ * <p>Ollama only counts prompt tokens it had to evaluate. A
+ * request that reused a cached prefix reports far fewer tokens
+ * than it contains. Such samples are recognized by their
+ * outlying ratio and ignored. The first few samples are taken
+ * as they come and their median sets the starting factor, so a
+ * model whose true ratio is far from 1, such as one tokenizing
+ * CJK text or code, still calibrates.
+ *
+ * <p>Instances are thread-safe.
+ *
+ * @since 1.1.0
+ */
+public class CalibratedTokenEstimator {
+
+    private static final double SMOOTHING = 0.1;
+    private static final double MIN_RATIO = 0.5;
+    private static final double MAX_RATIO = 2.0;
+    private static final int MIN_SAMPLE_TOKENS = 16;
+    private static final int INITIAL_SAMPLES = 3;
+
+    private final Function<String, TokenEstimator> baseEstimators;
+    private final Map<String, Calibration> calibrations =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Creates a calibrated estimator.
+     *
+     * @param baseEstimators chooses the base estimator for a
+     *     model name
+     */
+    public CalibratedTokenEstimator(
+            Function<String, TokenEstimator> baseEstimators) {
+        this.baseEstimators = baseEstimators;
+    }
+
+    /**
+     * Creates a calibrated estimator whose base estimators
+     * follow the family of each listed model, as returned by
+     * {@code OllamaClient.listModels()}.
+     *
+     * @param models the known models
+     * @return a new calibrated estimator
+     */
+    public static CalibratedTokenEstimator forModels(
+            List<Model> models) {
+        Map<String, TokenEstimator> byName =
+            new ConcurrentHashMap<>();
+        for (Model model : models) {
+            String family = model.getDetails() == null
+                ? null
+                : model.getDetails().getFamily();
+            byName.put(model.getName(),
+                HeuristicTokenEstimator.forFamily(family));
+        }
+        return new CalibratedTokenEstimator(name ->
+            byName.getOrDefault(name,
+                HeuristicTokenEstimator.DEFAULT));
+    }
+
+    /**
+     * Gets the calibrated estimator for a model.
+     *
+     * @param model the model name
+     * @return an estimator applying the model's correction
+     */
+    public TokenEstimator forModel(String model) {
+        return calibration(model);
+    }
+
+    /**
+     * Estimates the prompt tokens of a request for its model.
+     *
+     * @param request the chat request
+     * @return the corrected token estimate
+     */
+    public int estimate(ChatRequest request) {
+        return calibration(request.getModel()).estimate(request);
+    }
+
+    /**
+     * Updates the model's correction factor from a completed
+     * request.
+     *
+     * @param request the request that was sent
+     * @param response the final response carrying
+     *     {@code prompt_eval_count}
+     * @return true if the sample was used
+     */
+    public boolean observe(ChatRequest request,
+            ChatResponse response) {
+        Integer observed = response.getPromptEvalCount();
+        if (observed == null || observed < MIN_SAMPLE_TOKENS) {
+            return false;
+        }
+        Calibration calibration = calibration(request.getModel());
+        int raw = calibration.base.estimate(request);
+        if (raw <= 0) {
+            return false;
+        }
+        return calibration.update((double) observed / raw);
+    }
+
+    /**
+     * Gets the current correction factor of a model.
+     *
+     * @param model the model name
+     * @return the factor applied to base estimates
+     */
+    public double getCorrection(String model) {
+        Calibration calibration = calibrations.get(model);
+        return calibration == null ? 1.0 : calibration.factor;
+    }
+
+    private Calibration calibration(String model) {
+        return calibrations.computeIfAbsent(model,
+            name -> new Calibration(baseEstimators.apply(name)));
+    }
+
+    /**
+     * Correction state of one model.
+     */
+    private static final class Calibration
+            implements TokenEstimator {
+        private final TokenEstimator base;
+        private volatile double factor = 1.0;
+        private final double[] initial = new double[INITIAL_SAMPLES];
+        private int samples;
+
+        private Calibration(TokenEstimator base) {
+            this.base = base;
+        }
+
+        @Override
+        public int estimate(CharSequence text) {
+            return (int) Math.ceil(base.estimate(text) * factor);
+        }
+
+        @Override
+        public int messageOverhead() {
+            return base.messageOverhead();
+        }
+
+        synchronized boolean update(double ratio) {
+            if (samples < INITIAL_SAMPLES) {
+                // Nothing to compare with yet: the median outvotes
+                // a single cached-prefix sample
+                initial[samples++] = ratio;
+                factor = median(initial, samples);
+                return true;
+            }
+            double relative = ratio / factor;
+            if (relative < MIN_RATIO || relative > MAX_RATIO) {
+                // Likely a cached prefix or a template mismatch
+                return false;
+            }
+            factor += SMOOTHING * (ratio - factor);
+            samples++;
+            return true;
+        }
+
+        private static double median(double[] values, int count) {
+            double[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            return count % 2 == 1
+                ? sorted[count / 2]
+                : (sorted[count / 2 - 1] + sorted[count / 2]) / 2;
+        }
+    }
+}
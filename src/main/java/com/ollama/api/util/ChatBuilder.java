@@ -2,6 +2,7 @@ package com.ollama.api.util;
 
 import com.ollama.api.dto.ChatRequest;
 import com.ollama.api.dto.Message;
+import com.ollama.api.dto.Options;
 
 import java.util.Arrays;
 import java.util.List;
@@ -119,6 +120,8 @@ public class ChatBuilder {
     /**
      * Sets the maximum tokens for the response.
      * 
+     * <p>Sent to Ollama as {@code options.num_predict}.
+     * 
      * @param maxTokens the maximum number of tokens
      * @return this builder for method chaining
      */
@@ -127,6 +130,83 @@ public class ChatBuilder {
         return this;
     }
     
+    /**
+     * Replaces the generation options of the request.
+     * 
+     * @param options the generation options
+     * @return this builder for method chaining
+     */
+    public ChatBuilder options(Options options) {
+        this.request.setOptions(options);
+        return this;
+    }
+    
+    /**
+     * Sets the context window size.
+     * 
+     * @param numCtx the context size in tokens
+     * @return this builder for method chaining
+     */
+    public ChatBuilder numCtx(int numCtx) {
+        options().setNumCtx(numCtx);
+        return this;
+    }
+    
+    /**
+     * Sets the prompt processing batch size.
+     * 
+     * @param numBatch the batch size
+     * @return this builder for method chaining
+     */
+    public ChatBuilder numBatch(int numBatch) {
+        options().setNumBatch(numBatch);
+        return this;
+    }
+    
+    /**
+     * Sets the number of CPU threads used for generation.
+     * 
+     * @param numThread the thread count
+     * @return this builder for method chaining
+     */
+    public ChatBuilder numThread(int numThread) {
+        options().setNumThread(numThread);
+        return this;
+    }
+    
+    /**
+     * Sets the number of layers offloaded to the GPU.
+     * 
+     * @param numGpu the GPU layer count
+     * @return this builder for method chaining
+     */
+    public ChatBuilder numGpu(int numGpu) {
+        options().setNumGpu(numGpu);
+        return this;
+    }
+    
+    /**
+     * Sets the sequences that end generation.
+     * 
+     * @param stop the stop sequences
+     * @return this builder for method chaining
+     */
+    public ChatBuilder stop(String... stop) {
+        options().setStop(Arrays.asList(stop));
+        return this;
+    }
+    
+    /**
+     * Sets the random seed used for sampling.
+     * 
+     * @param seed the seed
+     * @return this builder for method chaining
+     */
+    public ChatBuilder seed(int seed) {
+        options().setSeed(seed);
+        return this;
+    }
+    
     /**
      * Enables or disables streaming for the response.
      * 
@@ -138,6 +218,18 @@ public class ChatBuilder {
         return this;
     }
     
+    /**
+     * Sets the tenant the request is charged to.
+     * 
+     * @param tenant the tenant key
+     * @return this builder for method chaining
+     * @since 1.1.0
+     */
+    public ChatBuilder tenant(String tenant) {
+        this.request.setTenant(tenant);
+        return this;
+    }
+    
     /**
      * Builds the chat request.
      * 
@@ -147,6 +239,13 @@ public class ChatBuilder {
         return request;
     }
     
+    private Options options() {
+        if (request.getOptions() == null) {
+            request.setOptions(new Options());
+        }
+        return request.getOptions();
+    }
+    
     /**
      * Creates a simple chat builder for a single user message.
      * 
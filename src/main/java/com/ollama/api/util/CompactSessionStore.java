@@ -0,0 +1,501 @@
+package com.ollama.api.util;
+
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.Message;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Memory-efficient store for many chat histories.
+ *
+ * <p>Each session's history is one append-only log of UTF-8
+ * records in an off-heap {@link ByteBuffer}, instead of
+ * {@code Message} and {@code String} objects on the heap. When
+ * the resident off-heap size exceeds the configured budget, the
+ * least recently used sessions are written to a spill
+ * directory. They are loaded back on their next access.
+ *
+ * <p>{@link #request(String, String)} returns a
+ * {@link ChatRequest} whose message list decodes records only
+ * while it is iterated. The client serializes request bodies
+ * one message at a time, so only one decoded message exists at
+ * a time while a request is sent.
+ *
+ * <p>Record layout: a role byte (0 system, 1 user,
+ * 2 assistant, 3 custom role followed by its length-prefixed
+ * name), the content length as a varint, then the UTF-8
+ * content. A null content is stored as length 0 with role bit
+ * 0x80 set.
+ *
+ * <p>All methods are thread-safe.
+ *
+ * @since 1.1.0
+ */
+public class CompactSessionStore {
+
+    private static final Logger logger =
+        LoggerFactory.getLogger(CompactSessionStore.class);
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final byte ROLE_SYSTEM = 0;
+    private static final byte ROLE_USER = 1;
+    private static final byte ROLE_ASSISTANT = 2;
+    private static final byte ROLE_CUSTOM = 3;
+    private static final int NULL_CONTENT = 0x80;
+    // Keeps spill file names well below the usual 255-byte limit
+    private static final int MAX_ENCODED_NAME = 200;
+
+    private final Path spillDirectory;
+    private final long maxResidentBytes;
+    private final Map<String, SessionLog> sessions =
+        new LinkedHashMap<>(1024, 0.75f, true);
+    private long residentBytes;
+    private long spills;
+    private long loads;
+
+    /**
+     * Creates a new store.
+     *
+     * @param spillDirectory where evicted sessions are written
+     * @param maxResidentBytes the off-heap budget in bytes
+     * @throws IOException if the directory cannot be created
+     */
+    public CompactSessionStore(Path spillDirectory,
+            long maxResidentBytes) throws IOException {
+        if (maxResidentBytes <= 0) {
+            throw new IllegalArgumentException(
+                "Resident budget must be positive");
+        }
+        this.spillDirectory =
+            Files.createDirectories(spillDirectory);
+        this.maxResidentBytes = maxResidentBytes;
+    }
+
+    /**
+     * Appends a message to a session, creating it if needed.
+     *
+     * @param sessionId the session key
+     * @param message the message to append
+     */
+    public synchronized void append(String sessionId,
+            Message message) {
+        Objects.requireNonNull(message.getRole(), "role");
+        SessionLog log = sessions.get(sessionId);
+        if (log == null) {
+            log = new SessionLog();
+            sessions.put(sessionId, log);
+            residentBytes += log.capacity();
+        }
+        long before = load(sessionId, log);
+        log.append(message);
+        residentBytes += log.capacity() - before;
+        spillIfNeeded(sessionId);
+    }
+
+    /**
+     * Gets a session's messages as a lazily decoded view.
+     *
+     * <p>The view is a snapshot: messages appended later are
+     * not visible. Each access decodes a new {@link Message}.
+     *
+     * @param sessionId the session key
+     * @return the messages, or empty if the session is unknown
+     */
+    public synchronized Optional<List<Message>> messages(
+            String sessionId) {
+        SessionLog log = sessions.get(sessionId);
+        if (log == null) {
+            return Optional.empty();
+        }
+        long before = load(sessionId, log);
+        residentBytes += log.capacity() - before;
+        List<Message> view = log.view();
+        spillIfNeeded(sessionId);
+        return Optional.of(view);
+    }
+
+    /**
+     * Creates a chat request over a session's history.
+     *
+     * @param sessionId the session key
+     * @param model the model name
+     * @return the request, or empty if the session is unknown
+     */
+    public Optional<ChatRequest> request(String sessionId,
+            String model) {
+        return messages(sessionId)
+            .map(view -> new ChatRequest(model, view));
+    }
+
+    /**
+     * Removes a session and its spill file.
+     *
+     * @param sessionId the session key
+     * @return true if the session existed
+     */
+    public synchronized boolean remove(String sessionId) {
+        SessionLog log = sessions.remove(sessionId);
+        if (log == null) {
+            return false;
+        }
+        residentBytes -= log.capacity();
+        deleteSpillFile(sessionId);
+        return true;
+    }
+
+    /**
+     * Gets the number of sessions, resident or spilled.
+     *
+     * @return the session count
+     */
+    public synchronized int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Gets the off-heap bytes held by resident sessions.
+     *
+     * @return the resident size in bytes
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * Gets how many times a session was spilled to disk.
+     *
+     * @return the spill count
+     */
+    public synchronized long getSpills() {
+        return spills;
+    }
+
+    /**
+     * Gets how many times a spilled session was loaded back.
+     *
+     * @return the load count
+     */
+    public synchronized long getLoads() {
+        return loads;
+    }
+
+    /**
+     * Makes a session resident, reading its spill file if it
+     * was evicted.
+     *
+     * @return the resident capacity before loading
+     */
+    private long load(String sessionId, SessionLog log) {
+        if (log.buffer != null) {
+            return log.capacity();
+        }
+        Path file = spillFile(sessionId);
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(
+                Math.max(INITIAL_CAPACITY,
+                    (int) channel.size()));
+            while (buffer.position() < channel.size()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            log.buffer = buffer;
+            log.size = buffer.position();
+            log.count = log.countRecords();
+            Files.delete(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(
+                "Failed to load session " + sessionId, e);
+        }
+        loads++;
+        return 0;
+    }
+
+    /**
+     * Spills least recently used sessions until the resident
+     * size fits the budget. The active session is kept.
+     */
+    private void spillIfNeeded(String activeId) {
+        Iterator<Map.Entry<String, SessionLog>> it =
+            sessions.entrySet().iterator();
+        while (residentBytes > maxResidentBytes && it.hasNext()) {
+            Map.Entry<String, SessionLog> entry = it.next();
+            SessionLog log = entry.getValue();
+            if (log.buffer == null
+                    || entry.getKey().equals(activeId)) {
+                continue;
+            }
+            spill(entry.getKey(), log);
+        }
+    }
+
+    private void spill(String sessionId, SessionLog log) {
+        ByteBuffer data = log.buffer.duplicate();
+        data.position(0).limit(log.size);
+        try (FileChannel channel = FileChannel.open(
+                spillFile(sessionId), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to spill session {}", sessionId,
+                e);
+            return;
+        }
+        residentBytes -= log.capacity();
+        log.buffer = null;
+        spills++;
+    }
+
+    private void deleteSpillFile(String sessionId) {
+        try {
+            Files.deleteIfExists(spillFile(sessionId));
+        } catch (IOException e) {
+            logger.warn("Failed to delete spill file for {}",
+                sessionId, e);
+        }
+    }
+
+    /**
+     * Gets the spill file of a session. The name is the Base64
+     * encoded id, or for ids too long for a file name, the hex
+     * SHA-256 of the id with its own suffix so the two kinds of
+     * names cannot collide.
+     */
+    private Path spillFile(String sessionId) {
+        byte[] id = sessionId.getBytes(StandardCharsets.UTF_8);
+        String name = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(id);
+        if (name.length() <= MAX_ENCODED_NAME) {
+            return spillDirectory.resolve(name + ".session");
+        }
+        try {
+            byte[] hash =
+                MessageDigest.getInstance("SHA-256").digest(id);
+            return spillDirectory.resolve(
+                HexFormat.of().formatHex(hash) + ".hashed.session");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(
+                "SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Append-only record log of one session.
+     */
+    private static final class SessionLog {
+        private ByteBuffer buffer =
+            ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+        private int size;
+        private int count;
+
+        int capacity() {
+            return buffer == null ? 0 : buffer.capacity();
+        }
+
+        void append(Message message) {
+            String role = message.getRole();
+            String content = message.getContent();
+            byte code = roleCode(role);
+            byte[] roleBytes = code == ROLE_CUSTOM
+                ? role.getBytes(StandardCharsets.UTF_8)
+                : null;
+            byte[] bytes = content == null
+                ? new byte[0]
+                : content.getBytes(StandardCharsets.UTF_8);
+
+            int needed = 1 + 5 + bytes.length
+                + (roleBytes == null ? 0 : 5 + roleBytes.length);
+            ensureCapacity(needed);
+            ByteBuffer out = buffer.duplicate();
+            out.position(size);
+            out.put((byte) (content == null
+                ? code | NULL_CONTENT
+                : code));
+            if (roleBytes != null) {
+                putVarint(out, roleBytes.length);
+                out.put(roleBytes);
+            }
+            putVarint(out, bytes.length);
+            out.put(bytes);
+            size = out.position();
+            count++;
+        }
+
+        List<Message> view() {
+            ByteBuffer data = buffer.duplicate();
+            data.position(0).limit(size);
+            return new RecordView(data.slice(), count);
+        }
+
+        int countRecords() {
+            ByteBuffer data = buffer.duplicate();
+            data.position(0).limit(size);
+            int records = 0;
+            while (data.hasRemaining()) {
+                skipRecord(data);
+                records++;
+            }
+            return records;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra <= buffer.capacity()) {
+                return;
+            }
+            int capacity = Math.max(buffer.capacity() * 2,
+                size + extra);
+            ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+            ByteBuffer data = buffer.duplicate();
+            data.position(0).limit(size);
+            grown.put(data);
+            buffer = grown;
+        }
+    }
+
+    /**
+     * Read-only list decoding records on access.
+     */
+    private static final class RecordView
+            extends AbstractList<Message> {
+        private final ByteBuffer data;
+        private final int count;
+        private int[] offsets;
+
+        RecordView(ByteBuffer data, int count) {
+            this.data = data;
+            this.count = count;
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public Message get(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            if (offsets == null) {
+                offsets = indexRecords();
+            }
+            ByteBuffer in = data.duplicate();
+            in.position(offsets[index]);
+            return readRecord(in);
+        }
+
+        @Override
+        public Iterator<Message> iterator() {
+            ByteBuffer in = data.duplicate();
+            return new Iterator<>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < count;
+                }
+
+                @Override
+                public Message next() {
+                    if (next >= count) {
+                        throw new NoSuchElementException();
+                    }
+                    next++;
+                    return readRecord(in);
+                }
+            };
+        }
+
+        private int[] indexRecords() {
+            int[] result = new int[count];
+            ByteBuffer in = data.duplicate();
+            for (int i = 0; i < count; i++) {
+                result[i] = in.position();
+                skipRecord(in);
+            }
+            return result;
+        }
+    }
+
+    private static byte roleCode(String role) {
+        return switch (role) {
+            case "system" -> ROLE_SYSTEM;
+            case "user" -> ROLE_USER;
+            case "assistant" -> ROLE_ASSISTANT;
+            default -> ROLE_CUSTOM;
+        };
+    }
+
+    private static Message readRecord(ByteBuffer in) {
+        int header = in.get() & 0xFF;
+        String role = switch (header & ~NULL_CONTENT) {
+            case ROLE_SYSTEM -> "system";
+            case ROLE_USER -> "user";
+            case ROLE_ASSISTANT -> "assistant";
+            default -> readString(in);
+        };
+        String content = readString(in);
+        return new Message(role,
+            (header & NULL_CONTENT) != 0 ? null : content);
+    }
+
+    private static void skipRecord(ByteBuffer in) {
+        int header = in.get() & 0xFF;
+        if ((header & ~NULL_CONTENT) == ROLE_CUSTOM) {
+            int length = getVarint(in);
+            in.position(in.position() + length);
+        }
+        int length = getVarint(in);
+        in.position(in.position() + length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = getVarint(in);
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.ollama.api.util;
+
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Compact storage form for completion context tokens.
+ *
+ * <p>The {@code context} returned by {@code /api/generate} is
+ * an array of token ids, usually thousands long. As JSON it
+ * takes about six bytes per token. This class stores it as
+ * unsigned LEB128 varints behind a small header. Token ids
+ * below 2^21 fit in at most three bytes, so typical contexts
+ * shrink to about a third of their JSON size.
+ *
+ * <p>Layout: one version byte, the token count as a varint,
+ * then one varint per token.
+ *
+ * @since 1.1.0
+ */
+public final class ContextTokens {
+
+    private static final byte VERSION = 1;
+
+    private ContextTokens() {
+    }
+
+    /**
+     * Encodes context tokens into their compact form.
+     *
+     * @param tokens the token ids
+     * @return the encoded bytes
+     */
+    public static byte[] encode(int[] tokens) {
+        byte[] out = new byte[1 + 5 + tokens.length * 5];
+        out[0] = VERSION;
+        int pos = writeVarint(out, 1, tokens.length);
+        for (int token : tokens) {
+            pos = writeVarint(out, pos, token);
+        }
+        return Arrays.copyOf(out, pos);
+    }
+
+    /**
+     * Decodes context tokens from their compact form.
+     *
+     * @param data the encoded bytes
+     * @return the token ids
+     * @throws IllegalArgumentException if the data is malformed
+     */
+    public static int[] decode(byte[] data) {
+        if (data.length == 0 || data[0] != VERSION) {
+            throw new IllegalArgumentException(
+                "Unsupported context encoding");
+        }
+        int[] cursor = {1};
+        int count = readVarint(data, cursor);
+        if (count < 0 || count > data.length) {
+            throw new IllegalArgumentException(
+                "Invalid context length: " + count);
+        }
+        int[] tokens = new int[count];
+        for (int i = 0; i < count; i++) {
+            tokens[i] = readVarint(data, cursor);
+        }
+        return tokens;
+    }
+
+    /**
+     * Encodes context tokens as URL-safe Base64 text, for
+     * stores that only hold strings.
+     *
+     * @param tokens the token ids
+     * @return the encoded text
+     */
+    public static String toBase64(int[] tokens) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(encode(tokens));
+    }
+
+    /**
+     * Decodes context tokens from URL-safe Base64 text.
+     *
+     * @param text the encoded text
+     * @return the token ids
+     * @throws IllegalArgumentException if the text is malformed
+     */
+    public static int[] fromBase64(String text) {
+        return decode(Base64.getUrlDecoder().decode(text));
+    }
+
+    private static int writeVarint(byte[] out, int pos,
+            int value) {
+        while ((value & ~0x7F) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int readVarint(byte[] data, int[] cursor) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (cursor[0] >= data.length) {
+                throw new IllegalArgumentException(
+                    "Truncated context data");
+            }
+            byte b = data[cursor[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException(
+            "Malformed context varint");
+    }
+}
@@ -0,0 +1,484 @@
+package com.ollama.api.util;
+
+import com.ollama.api.OllamaClient;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.dto.Message;
+import com.ollama.api.dto.Options;
+import com.ollama.api.exception.OllamaException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Multi-turn chat session with a bounded prompt size.
+ *
+ * <p>Each message is stored with an approximate token count.
+ * Before a request is sent, the oldest turns are evicted until
+ * the history fits the context budget. A turn is a user message
+ * with the replies that follow it, and is evicted whole. System
+ * messages and the newest message are always kept. When a
+ * {@link Summarizer} is configured, evicted turns are replaced by
+ * a summary message instead of being dropped. Eviction only takes
+ * effect once the request succeeds.
+ *
+ * <p>The conversation reports how many prompt tokens eviction
+ * kept out of each request, and converts that into saved
+ * prompt-evaluation time using the per-token rate reported by
+ * the server.
+ *
+ * <p>Instances are not thread-safe.
+ *
+ * @since 1.1.0
+ */
+public class Conversation {
+
+    private static final Logger logger =
+        LoggerFactory.getLogger(Conversation.class);
+
+    private static final String SUMMARY_PREFIX =
+        "Summary of the earlier conversation: ";
+
+    private final OllamaClient client;
+    private final String model;
+    private final int contextBudget;
+    private final TokenEstimator tokenEstimator;
+    private final List<Entry> history = new ArrayList<>();
+    private Summarizer summarizer;
+    private Options options;
+    private Entry summary;
+    private int historyTokens;
+    private int evictedTokens;
+
+    private int turns;
+    private int evictedMessages;
+    private long totalPromptEvalCount;
+    private long totalPromptEvalDuration;
+    private long estimatedTokensSaved;
+    private double estimatedNanosSaved;
+
+    /**
+     * Creates a new conversation.
+     *
+     * @param client the client used to send requests
+     * @param model the model name
+     * @param contextBudget the maximum prompt size in tokens
+     */
+    public Conversation(OllamaClient client, String model,
+            int contextBudget) {
+        this(client, model, contextBudget,
+            HeuristicTokenEstimator.DEFAULT);
+    }
+
+    /**
+     * Creates a new conversation with a specific token
+     * estimator, for example one from
+     * {@link CalibratedTokenEstimator#forModel(String)}.
+     *
+     * @param client the client used to send requests
+     * @param model the model name
+     * @param contextBudget the maximum prompt size in tokens
+     * @param tokenEstimator the estimator for message sizes
+     */
+    public Conversation(OllamaClient client, String model,
+            int contextBudget, TokenEstimator tokenEstimator) {
+        if (contextBudget <= 0) {
+            throw new IllegalArgumentException(
+                "Context budget must be positive");
+        }
+        this.client = client;
+        this.model = model;
+        this.contextBudget = contextBudget;
+        this.tokenEstimator = tokenEstimator;
+    }
+
+    /**
+     * Summarizes turns that no longer fit the context budget.
+     */
+    @FunctionalInterface
+    public interface Summarizer {
+
+        /**
+         * Summarizes evicted messages.
+         *
+         * @param evicted the evicted messages, oldest first,
+         *     including any previous summary
+         * @return the summary text
+         * @throws OllamaException if summarization fails
+         */
+        String summarize(List<Message> evicted)
+            throws OllamaException;
+    }
+
+    /**
+     * Creates a summarizer that asks a model to condense the
+     * evicted turns.
+     *
+     * @param client the client used for summarization
+     * @param model the model to summarize with
+     * @return a new summarizer
+     */
+    public static Summarizer modelSummarizer(OllamaClient client,
+            String model) {
+        return evicted -> {
+            StringBuilder transcript = new StringBuilder();
+            for (Message message : evicted) {
+                transcript.append(message.getRole())
+                    .append(": ")
+                    .append(message.getContent())
+                    .append('\n');
+            }
+            ChatRequest request = ChatBuilder.withSystem(model,
+                "Summarize the conversation below in a few "
+                    + "sentences. Keep names, facts and "
+                    + "decisions.",
+                transcript.toString()).build();
+            Message summary = client.chat(request).getMessage();
+            if (summary == null) {
+                throw new OllamaException(
+                    "Summarizer response has no message");
+            }
+            return summary.getContent();
+        };
+    }
+
+    /**
+     * Sets the summarizer for evicted turns.
+     *
+     * @param summarizer the summarizer, or null to drop turns
+     * @return this conversation
+     */
+    public Conversation summarizer(Summarizer summarizer) {
+        this.summarizer = summarizer;
+        return this;
+    }
+
+    /**
+     * Sets the generation options sent with every request.
+     *
+     * @param options the generation options
+     * @return this conversation
+     */
+    public Conversation options(Options options) {
+        this.options = options;
+        return this;
+    }
+
+    /**
+     * Adds a system message. System messages are never evicted.
+     *
+     * @param content the system message content
+     * @return this conversation
+     */
+    public Conversation system(String content) {
+        append(Message.system(content));
+        return this;
+    }
+
+    /**
+     * Sends a user message and records the assistant reply.
+     *
+     * <p>If the summarizer or the request fails, the user message
+     * is removed again and no turn is evicted, so the conversation
+     * can be retried.
+     *
+     * @param content the user message content
+     * @return the chat response
+     * @throws OllamaException if the request fails
+     */
+    public ChatResponse send(String content)
+            throws OllamaException {
+        Entry user = append(Message.user(content));
+        Eviction eviction;
+        ChatResponse response;
+        try {
+            eviction = planEviction();
+            ChatRequest request = new ChatRequest(model,
+                messages(eviction.count, eviction.summary));
+            request.setOptions(options);
+            response = client.chat(request);
+        } catch (OllamaException | RuntimeException e) {
+            remove(user);
+            throw e;
+        }
+        evict(eviction);
+        if (response.getMessage() != null) {
+            append(Message.assistant(
+                response.getMessage().getContent()));
+        }
+        record(response);
+        return response;
+    }
+
+    /**
+     * Gets the messages that would be sent for the next turn.
+     *
+     * @return the pinned, summary and retained messages
+     */
+    public List<Message> getMessages() {
+        return messages(0, summary);
+    }
+
+    /**
+     * Gets the approximate token count of the next prompt.
+     *
+     * @return the prompt size in tokens
+     */
+    public int getPromptTokens() {
+        return historyTokens
+            + (summary == null ? 0 : summary.tokens);
+    }
+
+    /**
+     * Gets the context budget.
+     *
+     * @return the maximum prompt size in tokens
+     */
+    public int getContextBudget() {
+        return contextBudget;
+    }
+
+    /**
+     * Gets the number of completed turns.
+     *
+     * @return the turn count
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * Gets the number of messages evicted from the history.
+     *
+     * @return the evicted message count
+     */
+    public int getEvictedMessages() {
+        return evictedMessages;
+    }
+
+    /**
+     * Gets the prompt tokens evaluated by the server.
+     *
+     * @return the sum of {@code prompt_eval_count}
+     */
+    public long getTotalPromptEvalCount() {
+        return totalPromptEvalCount;
+    }
+
+    /**
+     * Gets the prompt evaluation time reported by the server.
+     *
+     * @return the sum of {@code prompt_eval_duration} in nanos
+     */
+    public long getTotalPromptEvalDuration() {
+        return totalPromptEvalDuration;
+    }
+
+    /**
+     * Gets the prompt tokens that eviction kept out of the
+     * requests sent so far.
+     *
+     * @return the estimated saved tokens
+     */
+    public long getEstimatedTokensSaved() {
+        return estimatedTokensSaved;
+    }
+
+    /**
+     * Gets the prompt evaluation time saved by eviction,
+     * priced at the per-token rate observed on each turn.
+     *
+     * @return the estimated saved time in nanoseconds
+     */
+    public long getEstimatedPromptEvalNanosSaved() {
+        return (long) estimatedNanosSaved;
+    }
+
+    /**
+     * Clears the history, keeping system messages.
+     */
+    public void reset() {
+        history.removeIf(entry -> !entry.pinned);
+        summary = null;
+        evictedTokens = 0;
+        historyTokens = 0;
+        for (Entry entry : history) {
+            historyTokens += entry.tokens;
+        }
+    }
+
+    private Entry append(Message message) {
+        Entry entry = new Entry(message,
+            tokenEstimator.estimate(message),
+            "system".equals(message.getRole()));
+        if (entry.pinned) {
+            history.add(firstUnpinnedIndex(), entry);
+        } else {
+            history.add(entry);
+        }
+        historyTokens += entry.tokens;
+        return entry;
+    }
+
+    private void remove(Entry entry) {
+        if (history.remove(entry)) {
+            historyTokens -= entry.tokens;
+        }
+    }
+
+    private int firstUnpinnedIndex() {
+        int index = 0;
+        while (index < history.size()
+                && history.get(index).pinned) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Builds the prompt with the oldest unpinned messages left out
+     * and the given summary.
+     */
+    private List<Message> messages(int evicted, Entry summaryEntry) {
+        List<Message> messages = new ArrayList<>(
+            history.size() + 1);
+        int firstUnpinned = firstUnpinnedIndex();
+        for (int i = 0; i < firstUnpinned; i++) {
+            messages.add(history.get(i).message);
+        }
+        if (summaryEntry != null) {
+            messages.add(summaryEntry.message);
+        }
+        for (int i = firstUnpinned + evicted; i < history.size(); i++) {
+            messages.add(history.get(i).message);
+        }
+        return messages;
+    }
+
+    /**
+     * Chooses the oldest turns to evict until the prompt fits the
+     * budget, and summarizes them. The history is left as it is.
+     * The newest message is never evicted.
+     */
+    private Eviction planEviction() throws OllamaException {
+        if (getPromptTokens() <= contextBudget) {
+            return new Eviction(0, 0, summary);
+        }
+        // A new summary replaces the old one, so the old one does
+        // not count while choosing what to evict
+        boolean resummarize = summarizer != null;
+        int tokens = historyTokens;
+        if (!resummarize && summary != null) {
+            tokens += summary.tokens;
+        }
+        int first = firstUnpinnedIndex();
+        int end = first;
+        int dropped = 0;
+        while (tokens - dropped > contextBudget) {
+            int next = end + 1;
+            // A turn runs up to the next user message
+            while (next < history.size() && !isUser(next)) {
+                next++;
+            }
+            if (next >= history.size()) {
+                break;
+            }
+            for (int i = end; i < next; i++) {
+                dropped += history.get(i).tokens;
+            }
+            end = next;
+        }
+        int count = end - first;
+        Entry newSummary = summary;
+        if (resummarize && count > 0) {
+            List<Message> messages = new ArrayList<>(count + 1);
+            if (summary != null) {
+                messages.add(summary.message);
+            }
+            for (int i = first; i < end; i++) {
+                messages.add(history.get(i).message);
+            }
+            String text = summarizer.summarize(
+                Collections.unmodifiableList(messages));
+            Message message = Message.system(SUMMARY_PREFIX + text);
+            newSummary = new Entry(message,
+                tokenEstimator.estimate(message), true);
+        }
+        int promptTokens = historyTokens - dropped
+            + (newSummary == null ? 0 : newSummary.tokens);
+        if (promptTokens > contextBudget) {
+            logger.warn("Prompt of {} tokens exceeds budget of {} "
+                + "after eviction", promptTokens, contextBudget);
+        }
+        return new Eviction(count, dropped, newSummary);
+    }
+
+    private boolean isUser(int index) {
+        return "user".equals(history.get(index).message.getRole());
+    }
+
+    /**
+     * Applies an eviction once its request has succeeded.
+     */
+    private void evict(Eviction eviction) {
+        int first = firstUnpinnedIndex();
+        history.subList(first, first + eviction.count).clear();
+        historyTokens -= eviction.tokens;
+        evictedTokens += eviction.tokens;
+        evictedMessages += eviction.count;
+        summary = eviction.summary;
+    }
+
+    private void record(ChatResponse response) {
+        turns++;
+        Integer count = response.getPromptEvalCount();
+        Long duration = response.getPromptEvalDuration();
+        if (count != null) {
+            totalPromptEvalCount += count;
+        }
+        if (duration != null) {
+            totalPromptEvalDuration += duration;
+        }
+        int saved = Math.max(0, evictedTokens
+            - (summary == null ? 0 : summary.tokens));
+        estimatedTokensSaved += saved;
+        if (count != null && count > 0 && duration != null) {
+            estimatedNanosSaved +=
+                saved * ((double) duration / count);
+        }
+    }
+
+    /**
+     * The oldest unpinned messages to drop and the summary that
+     * replaces them.
+     */
+    private static final class Eviction {
+        private final int count;
+        private final int tokens;
+        private final Entry summary;
+
+        private Eviction(int count, int tokens, Entry summary) {
+            this.count = count;
+            this.tokens = tokens;
+            this.summary = summary;
+        }
+    }
+
+    /**
+     * A history message with its approximate token count.
+     */
+    private static final class Entry {
+        private final Message message;
+        private final int tokens;
+        private final boolean pinned;
+
+        private Entry(Message message, int tokens,
+                boolean pinned) {
+            this.message = message;
+            this.tokens = tokens;
+            this.pinned = pinned;
+        }
+    }
+}
@@ -3,7 +3,12 @@ package com.ollama.api.util;
 import com.ollama.api.OllamaClient;
 import com.ollama.api.dto.Model;
 import com.ollama.api.exception.OllamaException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Utility class for managing Ollama models.
@@ -12,6 +17,11 @@ import java.util.List;
  */
 public class ModelManager {
 
+  private static final Pattern PARAMETER_SIZE =
+      Pattern.compile("([0-9]+(?:\\.[0-9]+)?)\\s*([KMBT]?)");
+  private static final Pattern QUANTIZATION_BITS =
+      Pattern.compile("^I?Q([0-9]+)|^B?F([0-9]+)");
+
   private final OllamaClient client;
 
   /**
@@ -82,6 +92,93 @@ public class ModelManager {
     return isModelAvailable(modelName);
   }
 
+  /**
+   * Orders installed models from the cheapest to the most expensive to run.
+   *
+   * <p>The cost is the parameter count times the bits per weight, taken from the {@code
+   * parameter_size} and {@code quantization_level} the server reports. Models without those
+   * details are ranked by their file size.
+   *
+   * @param modelNames the models to rank
+   * @return the installed models among them, cheapest first
+   * @throws OllamaException if there's an error listing models
+   * @since 1.1.0
+   */
+  public List<String> rankByCost(List<String> modelNames) throws OllamaException {
+    List<Model> installed = new ArrayList<>();
+    for (Model model : client.listModels()) {
+      if (modelNames.contains(model.getName())) {
+        installed.add(model);
+      }
+    }
+    installed.sort(Comparator.comparingDouble(ModelManager::estimateCost));
+    return installed.stream().map(Model::getName).toList();
+  }
+
+  /**
+   * Estimates the memory needed for the weights of a model.
+   *
+   * @param model the model
+   * @return the approximate weight size in bytes, or the file size if the model details are
+   *     missing or not understood
+   * @since 1.1.0
+   */
+  public static double estimateCost(Model model) {
+    Model.ModelDetails details = model.getDetails();
+    if (details != null) {
+      double parameters = parseParameterSize(details.getParameterSize());
+      int bits = parseQuantizationBits(details.getQuantizationLevel());
+      if (parameters > 0 && bits > 0) {
+        return parameters * bits / 8;
+      }
+    }
+    return model.getSize() != null ? model.getSize() : Double.MAX_VALUE;
+  }
+
+  /**
+   * Parses a parameter count such as {@code 8.0B} or {@code 270M}.
+   *
+   * @param parameterSize the {@code parameter_size} of a model
+   * @return the number of parameters, or 0 if it cannot be parsed
+   * @since 1.1.0
+   */
+  public static double parseParameterSize(String parameterSize) {
+    if (parameterSize == null) {
+      return 0;
+    }
+    Matcher matcher = PARAMETER_SIZE.matcher(parameterSize.trim().toUpperCase(Locale.ROOT));
+    if (!matcher.matches()) {
+      return 0;
+    }
+    double value = Double.parseDouble(matcher.group(1));
+    return switch (matcher.group(2)) {
+      case "K" -> value * 1e3;
+      case "M" -> value * 1e6;
+      case "B" -> value * 1e9;
+      case "T" -> value * 1e12;
+      default -> value;
+    };
+  }
+
+  /**
+   * Parses the bits per weight of a quantization level such as {@code Q4_K_M}, {@code
+   * IQ3_XXS} or {@code F16}.
+   *
+   * @param quantizationLevel the {@code quantization_level} of a model
+   * @return the bits per weight, or 0 if it cannot be parsed
+   * @since 1.1.0
+   */
+  public static int parseQuantizationBits(String quantizationLevel) {
+    if (quantizationLevel == null) {
+      return 0;
+    }
+    Matcher matcher = QUANTIZATION_BITS.matcher(quantizationLevel.trim().toUpperCase(Locale.ROOT));
+    if (!matcher.find()) {
+      return 0;
+    }
+    return Integer.parseInt(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+  }
+
   /**
    * Gets a list of recommended models for different use cases.
    *
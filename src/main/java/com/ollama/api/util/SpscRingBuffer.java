@@ -0,0 +1,392 @@
+package com.ollama.api.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free queue for one producer and one consumer
+ * thread.
+ *
+ * <p>Elements live in a preallocated array whose size is a power
+ * of two. The producer owns the tail index and the consumer owns
+ * the head index; each publishes its index with release
+ * semantics and keeps a cached copy of the other side's index,
+ * so the shared indexes are only read when the cached view is
+ * exhausted. No locks are taken and nothing is allocated per
+ * element.
+ *
+ * <p>The consumer's and the producer's fields sit in separate
+ * superclasses with padding between them, so each side writes
+ * to its own cache line and the two cores do not keep
+ * invalidating each other's line.
+ *
+ * <p>When the queue is full or empty the waiting side follows
+ * the configured {@link WaitStrategy}. The queue also records
+ * its high-water mark and how often each side had to wait.
+ *
+ * @param <E> the element type
+ * @since 1.1.0
+ */
+public final class SpscRingBuffer<E> extends RingProducerPad {
+
+    /**
+     * How a thread waits for the other side of the queue.
+     */
+    public enum WaitStrategy {
+        /**
+         * Spins without yielding. Lowest latency, but keeps a
+         * core busy while waiting, so it suits platform threads
+         * on dedicated cores. A virtual thread spinning would
+         * hold its carrier thread and starve other virtual
+         * threads, so on a virtual thread this behaves like
+         * {@link #YIELD}.
+         */
+        BUSY_SPIN,
+        /**
+         * Spins briefly, then yields the processor. A virtual
+         * thread that keeps yielding backs off to short parks,
+         * because the scheduler may hand its carrier straight
+         * back to it while the other side waits in a queue.
+         */
+        YIELD,
+        /**
+         * Spins briefly, then parks until the other side
+         * signals. Uses no CPU while waiting.
+         */
+        PARK
+    }
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 2 * SPIN_TRIES;
+    private static final long PARK_NANOS = 1_000_000L;
+    private static final long BACKOFF_NANOS = 50_000L;
+
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+    private static final VarHandle SLOTS =
+        MethodHandles.arrayElementVarHandle(Object[].class);
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(RingConsumerFields.class,
+                "head", long.class);
+            TAIL = lookup.findVarHandle(RingProducerFields.class,
+                "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Object[] slots;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+
+    private volatile boolean closed;
+
+    /**
+     * Creates a ring buffer.
+     *
+     * @param capacity the minimum capacity, rounded up to a power
+     *     of two
+     * @param waitStrategy how full or empty waits are performed
+     */
+    public SpscRingBuffer(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException(
+                "Capacity out of range: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new Object[size];
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Adds an element if there is room. Producer thread only.
+     *
+     * @param element the element, not null
+     * @return false if the queue is full or closed
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+        if (closed) {
+            return false;
+        }
+        long t = tail;
+        if (t - cachedHead > mask) {
+            cachedHead = (long) HEAD.getAcquire(this);
+            if (t - cachedHead > mask) {
+                return false;
+            }
+        }
+        SLOTS.setRelease(slots, (int) (t & mask), element);
+        TAIL.setRelease(this, t + 1);
+        if (waitStrategy == WaitStrategy.PARK) {
+            // Order the publish before the check for a sleeper
+            VarHandle.fullFence();
+            Thread consumer = parkedConsumer;
+            if (consumer != null) {
+                LockSupport.unpark(consumer);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds an element, waiting while the queue is full.
+     * Producer thread only.
+     *
+     * @param element the element, not null
+     * @return false if the queue was closed instead
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean put(E element) throws InterruptedException {
+        if (offer(element)) {
+            return true;
+        }
+        producerWaits++;
+        for (int attempt = 0; ; attempt++) {
+            if (closed) {
+                return false;
+            }
+            if (attempt >= SPIN_TRIES
+                    && waitStrategy == WaitStrategy.PARK) {
+                parkedProducer = Thread.currentThread();
+                if (offer(element)) {
+                    parkedProducer = null;
+                    return true;
+                }
+                LockSupport.parkNanos(this, PARK_NANOS);
+                parkedProducer = null;
+            } else {
+                idle(attempt);
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (offer(element)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes the next element if there is one. Consumer thread
+     * only.
+     *
+     * @return the element, or null if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long h = head;
+        if (h >= cachedTail) {
+            cachedTail = (long) TAIL.getAcquire(this);
+            if (h >= cachedTail) {
+                return null;
+            }
+            // The fresh tail gives the exact backlog right now
+            int depth = (int) (cachedTail - h);
+            if (depth > maxDepth) {
+                maxDepth = depth;
+            }
+        }
+        int index = (int) (h & mask);
+        E element = (E) SLOTS.getAcquire(slots, index);
+        SLOTS.setOpaque(slots, index, null);
+        HEAD.setRelease(this, h + 1);
+        if (waitStrategy == WaitStrategy.PARK) {
+            VarHandle.fullFence();
+            Thread producer = parkedProducer;
+            if (producer != null) {
+                LockSupport.unpark(producer);
+            }
+        }
+        return element;
+    }
+
+    /**
+     * Removes the next element, waiting while the queue is empty.
+     * Consumer thread only.
+     *
+     * @return the element, or null once the queue is closed and
+     *     drained
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public E take() throws InterruptedException {
+        E element = poll();
+        if (element != null) {
+            return element;
+        }
+        consumerWaits++;
+        for (int attempt = 0; ; attempt++) {
+            // Read the flag first so elements published before
+            // close are still drained
+            boolean wasClosed = closed;
+            element = poll();
+            if (element != null || wasClosed) {
+                return element;
+            }
+            if (attempt >= SPIN_TRIES
+                    && waitStrategy == WaitStrategy.PARK) {
+                parkedConsumer = Thread.currentThread();
+                element = poll();
+                if (element != null || closed) {
+                    parkedConsumer = null;
+                    return element != null ? element : poll();
+                }
+                LockSupport.parkNanos(this, PARK_NANOS);
+                parkedConsumer = null;
+            } else {
+                idle(attempt);
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Closes the queue. The producer can no longer add elements;
+     * the consumer drains what is left and then receives null.
+     * Either side may close.
+     */
+    public void close() {
+        closed = true;
+        Thread consumer = parkedConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+        Thread producer = parkedProducer;
+        if (producer != null) {
+            LockSupport.unpark(producer);
+        }
+    }
+
+    /**
+     * Tells whether the queue was closed.
+     *
+     * @return true once {@link #close()} was called
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Gets the capacity.
+     *
+     * @return the number of slots
+     */
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Gets the current number of elements. The value is a
+     * snapshot and may be stale when read by a third thread.
+     *
+     * @return the queue depth
+     */
+    public int size() {
+        long h = (long) HEAD.getAcquire(this);
+        long t = (long) TAIL.getAcquire(this);
+        return (int) Math.max(0, Math.min(t - h, slots.length));
+    }
+
+    /**
+     * Gets the highest backlog the consumer found when it
+     * caught up with the producer. Read it from the consumer
+     * thread or after the consumer finished.
+     *
+     * @return the high-water mark
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Gets how often the producer found the queue full.
+     *
+     * @return the number of producer waits
+     */
+    public long getProducerWaits() {
+        return producerWaits;
+    }
+
+    /**
+     * Gets how often the consumer found the queue empty.
+     *
+     * @return the number of consumer waits
+     */
+    public long getConsumerWaits() {
+        return consumerWaits;
+    }
+
+    private void idle(int attempt) {
+        boolean virtual = Thread.currentThread().isVirtual();
+        if (attempt < SPIN_TRIES
+                || (waitStrategy == WaitStrategy.BUSY_SPIN
+                    && !virtual)) {
+            Thread.onSpinWait();
+        } else if (!virtual || attempt < YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            // Parking reschedules through the scheduler's queues,
+            // which a yield does not always do
+            LockSupport.parkNanos(this, BACKOFF_NANOS);
+        }
+    }
+}
+
+/**
+ * Fills the cache lines before the consumer's fields.
+ */
+abstract class RingHeadPad {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p08, p09, p10, p11, p12, p13, p14, p15;
+}
+
+/**
+ * Fields written by the consumer only.
+ */
+abstract class RingConsumerFields extends RingHeadPad {
+    volatile long head;
+    long cachedTail;
+    long consumerWaits;
+    int maxDepth;
+    volatile Thread parkedConsumer;
+}
+
+/**
+ * Separates the consumer's fields from the producer's. Two
+ * lines, since adjacent-line prefetch pulls lines in pairs.
+ */
+abstract class RingMiddlePad extends RingConsumerFields {
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+    long p28, p29, p30, p31, p32, p33, p34, p35;
+}
+
+/**
+ * Fields written by the producer only.
+ */
+abstract class RingProducerFields extends RingMiddlePad {
+    volatile long tail;
+    long cachedHead;
+    long producerWaits;
+    volatile Thread parkedProducer;
+}
+
+/**
+ * Separates the producer's fields from the read-mostly fields
+ * of the subclass.
+ */
+abstract class RingProducerPad extends RingProducerFields {
+    long p40, p41, p42, p43, p44, p45, p46, p47;
+    long p48, p49, p50, p51, p52, p53, p54, p55;
+}
@@ -0,0 +1,336 @@
+package com.ollama.api.util;
+
+import com.ollama.api.OllamaClient;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.dto.Message;
+import com.ollama.api.dto.Options;
+import com.ollama.api.exception.OllamaException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Multi-turn session whose prompt prefix stays byte-identical
+ * between turns.
+ *
+ * <p>Ollama reuses its cached prompt state only when a request
+ * starts with exactly the tokens of the previous one. This
+ * session keeps an append-only history of private, canonical
+ * copies of each message (Unicode NFC, {@code \n} line
+ * endings), so callers cannot change a message that was already
+ * sent. Assistant replies are kept exactly as generated, since
+ * that is the text the server cached. Anything that would
+ * invalidate the server cache is
+ * detected before sending: a rewritten history or changed
+ * model-loading options. The model is fixed per session.
+ *
+ * <p>Every turn records the server-reported
+ * {@code prompt_eval_count}. With a warm cache it stays close
+ * to the size of the new messages instead of growing with the
+ * history, which {@link #getTurnStats()} makes visible.
+ *
+ * <p>Unlike {@link Conversation}, this session never trims its
+ * history. Instances are not thread-safe.
+ *
+ * @since 1.1.0
+ */
+public class StablePrefixSession {
+
+    private static final Logger logger =
+        LoggerFactory.getLogger(StablePrefixSession.class);
+
+    /**
+     * What to do when a request would not extend the cached
+     * prefix.
+     */
+    public enum DivergencePolicy {
+        /** Reject the request with an exception. */
+        REJECT,
+        /** Send it anyway and count the cache invalidation. */
+        ACCEPT
+    }
+
+    /**
+     * Statistics for one completed turn.
+     *
+     * @param turn the turn number, starting at 1
+     * @param messages the number of messages sent
+     * @param newMessages the messages not sent before
+     * @param prefixReused whether the turn extended the
+     *     previous prompt unchanged
+     * @param promptEvalCount the server {@code prompt_eval_count}
+     * @param promptEvalDuration the server
+     *     {@code prompt_eval_duration} in nanoseconds
+     * @param totalDuration the server {@code total_duration}
+     */
+    public record TurnStats(int turn, int messages,
+            int newMessages, boolean prefixReused,
+            Integer promptEvalCount, Long promptEvalDuration,
+            Long totalDuration) {
+    }
+
+    private final OllamaClient client;
+    private final String model;
+    private final List<Message> history = new ArrayList<>();
+    private final List<TurnStats> turnStats = new ArrayList<>();
+    private DivergencePolicy divergencePolicy =
+        DivergencePolicy.REJECT;
+    private Options options;
+    private String keepAlive;
+    private int sentMessages;
+    private boolean prefixValid = true;
+    private int invalidations;
+
+    /**
+     * Creates a new session.
+     *
+     * @param client the client used to send requests
+     * @param model the model name
+     */
+    public StablePrefixSession(OllamaClient client,
+            String model) {
+        this.client = client;
+        this.model = model;
+    }
+
+    /**
+     * Sets how rewritten histories are handled.
+     *
+     * @param divergencePolicy the policy
+     * @return this session
+     */
+    public StablePrefixSession divergencePolicy(
+            DivergencePolicy divergencePolicy) {
+        this.divergencePolicy = divergencePolicy;
+        return this;
+    }
+
+    /**
+     * Sets how long the model stays loaded between turns. The
+     * cached prompt is lost when the model is unloaded.
+     *
+     * @param keepAlive a duration such as {@code "30m"}
+     * @return this session
+     */
+    public StablePrefixSession keepAlive(String keepAlive) {
+        this.keepAlive = keepAlive;
+        return this;
+    }
+
+    /**
+     * Sets the generation options. Changing the context,
+     * batch, GPU or thread settings after the first turn
+     * reloads the model and is counted as an invalidation. The
+     * options are copied, so later changes to the given instance
+     * have no effect until it is passed again.
+     *
+     * @param options the generation options
+     * @return this session
+     */
+    public StablePrefixSession options(Options options) {
+        if (sentMessages > 0
+                && !sameOptions(this.options, options)) {
+            invalidate("generation options changed");
+        }
+        this.options = options == null ? null : options.copy();
+        return this;
+    }
+
+    /**
+     * Appends a system message.
+     *
+     * @param content the message content
+     * @return this session
+     */
+    public StablePrefixSession system(String content) {
+        history.add(canonical(Message.system(content)));
+        return this;
+    }
+
+    /**
+     * Appends a user message, sends the history and appends
+     * the assistant reply.
+     *
+     * @param content the user message content
+     * @return the chat response
+     * @throws OllamaException if the request fails
+     */
+    public ChatResponse send(String content)
+            throws OllamaException {
+        history.add(canonical(Message.user(content)));
+        try {
+            return dispatch();
+        } catch (OllamaException | RuntimeException e) {
+            history.remove(history.size() - 1);
+            throw e;
+        }
+    }
+
+    /**
+     * Sends a full history rebuilt by the caller.
+     *
+     * <p>The history must start with every message already
+     * sent, unchanged after canonicalization, with assistant
+     * replies exactly as received. Otherwise the
+     * server cache cannot be reused and the
+     * {@link DivergencePolicy} decides what happens.
+     *
+     * @param messages the complete history to send
+     * @return the chat response
+     * @throws OllamaException if the request fails
+     * @throws IllegalStateException if the history diverges and
+     *     the policy is {@link DivergencePolicy#REJECT}
+     */
+    public ChatResponse send(List<Message> messages)
+            throws OllamaException {
+        List<Message> proposed = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            proposed.add(stored(message));
+        }
+        int divergence = findDivergence(proposed);
+        if (divergence >= 0) {
+            if (divergencePolicy == DivergencePolicy.REJECT) {
+                throw new IllegalStateException(
+                    "History diverges from the cached prefix at "
+                        + "message " + divergence);
+            }
+            invalidate("history rewritten at message "
+                + divergence);
+        }
+        List<Message> previous = new ArrayList<>(history);
+        history.clear();
+        history.addAll(proposed);
+        try {
+            return dispatch();
+        } catch (OllamaException | RuntimeException e) {
+            history.clear();
+            history.addAll(previous);
+            throw e;
+        }
+    }
+
+    /**
+     * Finds where a proposed history stops extending the
+     * messages already sent.
+     *
+     * @param messages the proposed history
+     * @return the first differing index, or -1 if the history
+     *     extends the cached prefix
+     */
+    public int findDivergence(List<Message> messages) {
+        int shared = Math.min(sentMessages, messages.size());
+        for (int i = 0; i < shared; i++) {
+            Message sent = history.get(i);
+            Message proposed = stored(messages.get(i));
+            if (!Objects.equals(sent.getRole(),
+                    proposed.getRole())
+                    || !Objects.equals(sent.getContent(),
+                        proposed.getContent())) {
+                return i;
+            }
+        }
+        return messages.size() < sentMessages
+            ? messages.size()
+            : -1;
+    }
+
+    /**
+     * Gets a read-only view of the canonical history.
+     *
+     * @return the messages of the session
+     */
+    public List<Message> getMessages() {
+        return Collections.unmodifiableList(history);
+    }
+
+    /**
+     * Gets the statistics of every completed turn.
+     *
+     * @return the per-turn statistics, oldest first
+     */
+    public List<TurnStats> getTurnStats() {
+        return Collections.unmodifiableList(turnStats);
+    }
+
+    /**
+     * Gets how often the cached prefix was invalidated.
+     *
+     * @return the invalidation count
+     */
+    public int getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Canonicalizes a message so equal text always produces
+     * equal bytes on the wire.
+     *
+     * @param message the message
+     * @return a private canonical copy
+     */
+    static Message canonical(Message message) {
+        String content = message.getContent();
+        if (content != null) {
+            content = Normalizer.normalize(
+                content.replace("\r\n", "\n").replace('\r', '\n'),
+                Normalizer.Form.NFC);
+        }
+        return new Message(message.getRole(), content);
+    }
+
+    /**
+     * Copies a message as the history keeps it: assistant
+     * replies verbatim, everything else canonical.
+     */
+    private static Message stored(Message message) {
+        if ("assistant".equals(message.getRole())) {
+            return new Message(message.getRole(), message.getContent());
+        }
+        return canonical(message);
+    }
+
+    private ChatResponse dispatch() throws OllamaException {
+        ChatRequest request = new ChatRequest(model,
+            new ArrayList<>(history));
+        request.setOptions(options);
+        request.setKeepAlive(keepAlive);
+        ChatResponse response = client.chat(request);
+
+        int sent = history.size();
+        turnStats.add(new TurnStats(turnStats.size() + 1, sent,
+            sent - Math.min(sentMessages, sent), prefixValid,
+            response.getPromptEvalCount(),
+            response.getPromptEvalDuration(),
+            response.getTotalDuration()));
+        if (response.getMessage() != null) {
+            // Normalizing the reply would change the prefix the
+            // server cached
+            history.add(stored(response.getMessage()));
+        }
+        sentMessages = history.size();
+        prefixValid = true;
+        return response;
+    }
+
+    private void invalidate(String reason) {
+        invalidations++;
+        prefixValid = false;
+        logger.debug("Cached prompt prefix invalidated: {}",
+            reason);
+    }
+
+    private static boolean sameOptions(Options a, Options b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return Objects.equals(a.getNumCtx(), b.getNumCtx())
+            && Objects.equals(a.getNumBatch(), b.getNumBatch())
+            && Objects.equals(a.getNumGpu(), b.getNumGpu())
+            && Objects.equals(a.getNumThread(), b.getNumThread());
+    }
+}
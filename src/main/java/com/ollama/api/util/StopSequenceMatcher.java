@@ -0,0 +1,282 @@
+package com.ollama.api.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Finds stop sequences in streamed text.
+ *
+ * <p>The sequences are compiled once into an Aho-Corasick
+ * automaton, so every character of the stream is examined once
+ * no matter how many sequences are registered. A match may span
+ * any number of chunks.
+ *
+ * <p>A compiled matcher is immutable and can be shared. Each
+ * stream uses its own {@link Scanner}.
+ *
+ * @since 1.1.0
+ */
+public final class StopSequenceMatcher {
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final int[] NO_TARGETS = new int[0];
+
+    private final List<String> sequences;
+    private final char[][] keys;
+    private final int[][] targets;
+    private final int[] fail;
+    private final int[] depth;
+    private final int[] matchLength;
+
+    private StopSequenceMatcher(List<String> sequences) {
+        this.sequences = sequences;
+
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        depths.add(0);
+        lengths.add(0);
+        for (String sequence : sequences) {
+            int state = 0;
+            for (int i = 0; i < sequence.length(); i++) {
+                Integer next = trie.get(state)
+                    .get(sequence.charAt(i));
+                if (next == null) {
+                    next = trie.size();
+                    trie.get(state).put(sequence.charAt(i), next);
+                    trie.add(new TreeMap<>());
+                    depths.add(i + 1);
+                    lengths.add(0);
+                }
+                state = next;
+            }
+            lengths.set(state, sequence.length());
+        }
+
+        int states = trie.size();
+        keys = new char[states][];
+        targets = new int[states][];
+        depth = new int[states];
+        matchLength = new int[states];
+        fail = new int[states];
+        for (int s = 0; s < states; s++) {
+            Map<Character, Integer> edges = trie.get(s);
+            keys[s] = edges.isEmpty() ? NO_KEYS
+                : new char[edges.size()];
+            targets[s] = edges.isEmpty() ? NO_TARGETS
+                : new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge
+                    : edges.entrySet()) {
+                keys[s][i] = edge.getKey();
+                targets[s][i] = edge.getValue();
+                i++;
+            }
+            depth[s] = depths.get(s);
+            matchLength[s] = lengths.get(s);
+        }
+
+        // Breadth-first, so every fail target is final before use
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[0]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.remove();
+            if (matchLength[s] == 0) {
+                matchLength[s] = matchLength[fail[s]];
+            }
+            for (int i = 0; i < keys[s].length; i++) {
+                int child = targets[s][i];
+                fail[child] = step(fail[s], keys[s][i]);
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Compiles a matcher for the given stop sequences.
+     *
+     * @param sequences the stop sequences
+     * @return the compiled matcher
+     * @throws IllegalArgumentException if no sequence is given
+     *     or a sequence is empty
+     */
+    public static StopSequenceMatcher of(String... sequences) {
+        return of(Arrays.asList(sequences));
+    }
+
+    /**
+     * Compiles a matcher for the given stop sequences.
+     *
+     * @param sequences the stop sequences
+     * @return the compiled matcher
+     * @throws IllegalArgumentException if no sequence is given
+     *     or a sequence is empty
+     */
+    public static StopSequenceMatcher of(
+            Collection<String> sequences) {
+        if (sequences.isEmpty()) {
+            throw new IllegalArgumentException(
+                "At least one stop sequence is required");
+        }
+        for (String sequence : sequences) {
+            Objects.requireNonNull(sequence, "sequence");
+            if (sequence.isEmpty()) {
+                throw new IllegalArgumentException(
+                    "Stop sequences must not be empty");
+            }
+        }
+        return new StopSequenceMatcher(List.copyOf(sequences));
+    }
+
+    /**
+     * Gets the registered stop sequences.
+     *
+     * @return the stop sequences
+     */
+    public List<String> getSequences() {
+        return sequences;
+    }
+
+    /**
+     * Starts scanning a new stream.
+     *
+     * @return a scanner positioned at the start of the text
+     */
+    public Scanner scanner() {
+        return new Scanner();
+    }
+
+    private int step(int state, char c) {
+        while (true) {
+            int i = Arrays.binarySearch(keys[state], c);
+            if (i >= 0) {
+                return targets[state][i];
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = fail[state];
+        }
+    }
+
+    /**
+     * Accumulates the text of one stream and stops at the first
+     * stop sequence.
+     *
+     * <p>Text is split into a safe part, which can no longer
+     * become part of a match, and a held-back tail that may
+     * still turn into one. Callers forward only the safe part
+     * while the stream is running.
+     *
+     * <p>Instances are not thread-safe.
+     */
+    public final class Scanner {
+
+        private final StringBuilder text = new StringBuilder();
+        private int state;
+        private String matched;
+
+        private Scanner() {
+        }
+
+        /**
+         * Appends the next chunk of the stream.
+         *
+         * <p>When a stop sequence completes, the text is cut
+         * where it starts and the rest of the chunk is ignored.
+         * Earlier matches win; of matches ending at the same
+         * character, the longest wins.
+         *
+         * @param chunk the chunk text, may be null
+         * @return true if a stop sequence has been found
+         */
+        public boolean append(CharSequence chunk) {
+            if (matched != null || chunk == null) {
+                return matched != null;
+            }
+            for (int i = 0; i < chunk.length(); i++) {
+                char c = chunk.charAt(i);
+                text.append(c);
+                state = step(state, c);
+                int length = matchLength[state];
+                if (length > 0) {
+                    int start = text.length() - length;
+                    matched = text.substring(start);
+                    text.setLength(start);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Tells whether a stop sequence has been found.
+         *
+         * @return true once a stop sequence has been found
+         */
+        public boolean isMatched() {
+            return matched != null;
+        }
+
+        /**
+         * Gets the stop sequence that ended the text.
+         *
+         * @return the sequence, or null if none was found
+         */
+        public String getMatch() {
+            return matched;
+        }
+
+        /**
+         * Gets the length of the text that can no longer be
+         * part of a stop sequence.
+         *
+         * @return the safe length in characters
+         */
+        public int getSafeLength() {
+            return matched != null
+                ? text.length()
+                : text.length() - depth[state];
+        }
+
+        /**
+         * Gets the length of the text seen so far.
+         *
+         * @return the text length in characters
+         */
+        public int length() {
+            return text.length();
+        }
+
+        /**
+         * Gets the text seen so far, cut before the stop
+         * sequence once one has been found.
+         *
+         * @return the text
+         */
+        public String getText() {
+            return text.toString();
+        }
+
+        /**
+         * Copies part of the text.
+         *
+         * @param start the first index, inclusive
+         * @param end the last index, exclusive
+         * @return the text between the indexes
+         */
+        public String substring(int start, int end) {
+            return text.substring(start, end);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.ollama.api.util;
+
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.dto.Message;
+import java.util.function.Consumer;
+
+/**
+ * Collects a streamed chat response into one
+ * {@link ChatResponse}.
+ *
+ * <p>Pass the collector as the callback of
+ * {@code OllamaClient.chatStream}, chained with
+ * {@link #andThen(Consumer)} when the chunks are also needed as
+ * they arrive. The content is appended to a presized builder,
+ * and the final chunk contributes {@code done_reason}, the
+ * durations and the counts. The collector also measures the
+ * time to the first token, counted from its creation or the
+ * last {@link #reset()}.
+ *
+ * <p>A collector can be reused for consecutive streams; the
+ * builder keeps its capacity across {@link #reset()} unless it
+ * grew very large. Instances are not thread-safe.
+ *
+ * @since 1.1.0
+ */
+public class StreamCollector implements Consumer<ChatResponse> {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int MAX_RETAINED_CAPACITY = 1 << 20;
+
+    private final int initialCapacity;
+    private StringBuilder content;
+    private ChatResponse last;
+    private String role;
+    private long startNanos;
+    private long firstTokenNanos;
+    private int chunks;
+
+    /**
+     * Creates a collector with a default initial capacity.
+     */
+    public StreamCollector() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a collector presized for the expected answer,
+     * for example about four characters per token of
+     * {@code num_predict}.
+     *
+     * @param expectedChars the expected content length
+     */
+    public StreamCollector(int expectedChars) {
+        this.initialCapacity = Math.max(16, expectedChars);
+        this.content = new StringBuilder(initialCapacity);
+        this.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void accept(ChatResponse chunk) {
+        chunks++;
+        last = chunk;
+        Message message = chunk.getMessage();
+        if (message == null) {
+            return;
+        }
+        if (message.getRole() != null) {
+            role = message.getRole();
+        }
+        String text = message.getContent();
+        if (text != null && !text.isEmpty()) {
+            if (firstTokenNanos == 0) {
+                firstTokenNanos = Math.max(1,
+                    System.nanoTime() - startNanos);
+            }
+            content.append(text);
+        }
+    }
+
+    /**
+     * Tells whether the final chunk has been received.
+     *
+     * @return true once a chunk with {@code done} set arrived
+     */
+    public boolean isDone() {
+        return last != null && Boolean.TRUE.equals(last.getDone());
+    }
+
+    /**
+     * Gets the number of chunks received.
+     *
+     * @return the chunk count
+     */
+    public int getChunks() {
+        return chunks;
+    }
+
+    /**
+     * Gets the content received so far.
+     *
+     * @return the concatenated content
+     */
+    public String getContent() {
+        return content.toString();
+    }
+
+    /**
+     * Assembles the response received so far.
+     *
+     * <p>The message holds the full content. Metadata and
+     * statistics come from the last chunk, so they are complete
+     * once {@link #isDone()} is true. The client-measured time
+     * to first token is set when any content arrived.
+     *
+     * @return the merged response
+     */
+    public ChatResponse getResponse() {
+        ChatResponse response = new ChatResponse();
+        response.setMessage(new Message(
+            role == null ? "assistant" : role, getContent()));
+        if (firstTokenNanos != 0) {
+            response.setTimeToFirstToken(firstTokenNanos);
+        }
+        if (last == null) {
+            return response;
+        }
+        response.setModel(last.getModel());
+        response.setCreatedAt(last.getCreatedAt());
+        response.setDone(last.getDone());
+        response.setDoneReason(last.getDoneReason());
+        response.setTotalDuration(last.getTotalDuration());
+        response.setLoadDuration(last.getLoadDuration());
+        response.setPromptEvalCount(last.getPromptEvalCount());
+        response.setPromptEvalDuration(
+            last.getPromptEvalDuration());
+        response.setEvalCount(last.getEvalCount());
+        response.setEvalDuration(last.getEvalDuration());
+        response.setTiming(last.getTiming());
+        return response;
+    }
+
+    /**
+     * Prepares the collector for the next stream and restarts
+     * the time-to-first-token clock.
+     */
+    public void reset() {
+        if (content.capacity() > MAX_RETAINED_CAPACITY) {
+            content = new StringBuilder(initialCapacity);
+        } else {
+            content.setLength(0);
+        }
+        last = null;
+        role = null;
+        firstTokenNanos = 0;
+        chunks = 0;
+        startNanos = System.nanoTime();
+    }
+}
@@ -0,0 +1,62 @@
+package com.ollama.api.util;
+
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.Message;
+import java.util.List;
+
+/**
+ * Estimates how many tokens text will occupy in a prompt,
+ * without calling the server.
+ *
+ * <p>Implementations must be thread-safe and should not
+ * allocate per call, so they can run on every request.
+ *
+ * @since 1.1.0
+ */
+public interface TokenEstimator {
+
+    /**
+     * Estimates the tokens of a piece of text.
+     *
+     * @param text the text, may be null
+     * @return the approximate token count
+     */
+    int estimate(CharSequence text);
+
+    /**
+     * Gets the tokens the chat template adds per message.
+     *
+     * @return the per-message overhead in tokens
+     */
+    default int messageOverhead() {
+        return 4;
+    }
+
+    /**
+     * Estimates the tokens of a message, including template
+     * overhead.
+     *
+     * @param message the message
+     * @return the approximate token count
+     */
+    default int estimate(Message message) {
+        return estimate(message.getContent()) + messageOverhead();
+    }
+
+    /**
+     * Estimates the prompt tokens of a chat request.
+     *
+     * @param request the request
+     * @return the approximate prompt token count
+     */
+    default int estimate(ChatRequest request) {
+        List<Message> messages = request.getMessages();
+        int total = messageOverhead();
+        if (messages != null) {
+            for (Message message : messages) {
+                total += estimate(message);
+            }
+        }
+        return total;
+    }
+}
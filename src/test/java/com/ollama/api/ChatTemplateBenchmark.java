@@ -0,0 +1,150 @@
+package com.ollama.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ollama.api.codec.JsonCodec;
+import com.ollama.api.codec.StreamingJsonCodec;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.Message;
+import com.ollama.api.util.ChatBuilder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the cost of producing a chat request body from a
+ * compiled template with serializing the whole request.
+ *
+ * <p>The fixed part is a system prompt and few-shot examples;
+ * each request appends one user message. Every benchmark
+ * returns the number of body bytes produced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatTemplateBenchmark {
+
+    @Param({"2", "16"})
+    int fixedMessages;
+
+    @Param({"2000"})
+    int messageChars;
+
+    private final JsonCodec codec = new StreamingJsonCodec();
+    private final ObjectMapper mapper = OllamaClient.defaultObjectMapper();
+    private final byte[] sink = new byte[8192];
+    private ChatRequest request;
+    private ChatTemplate template;
+    private List<Message> appended;
+
+    @Setup
+    public void setUp() throws IOException {
+        String unit = "Lorem ipsum dolor sit amet, \"quoted\" and\n";
+        String text = unit.repeat(messageChars / unit.length() + 1)
+            .substring(0, messageChars);
+        ChatBuilder prefix = ChatBuilder.create("llama3.2")
+            .temperature(0.7)
+            .maxTokens(256)
+            .addSystemMessage(text);
+        for (int i = 1; i < fixedMessages; i++) {
+            if (i % 2 == 1) {
+                prefix.addUserMessage(text);
+            } else {
+                prefix.addAssistantMessage(text);
+            }
+        }
+        template = ChatTemplate.compile(codec, prefix.build());
+        appended = List.of(new Message("user", "What is the answer?"));
+
+        List<Message> all = new ArrayList<>(prefix.build().getMessages());
+        all.addAll(appended);
+        request = ChatBuilder.create("llama3.2")
+            .temperature(0.7)
+            .maxTokens(256)
+            .messages(all)
+            .build();
+        request.setStream(false);
+    }
+
+    /** The request serialized whole by the streamed body. */
+    @Benchmark
+    public long fullBody() throws IOException {
+        long total = 0;
+        try (InputStream in = new ChatRequestBody(codec, request)) {
+            int n;
+            while ((n = in.read(sink)) > 0) {
+                total += n;
+            }
+        }
+        return total;
+    }
+
+    /** The request serialized whole to a byte array by databinding. */
+    @Benchmark
+    public long mapperBytes() throws IOException {
+        return mapper.writeValueAsBytes(request).length;
+    }
+
+    /** The appended message serialized after the compiled prefix. */
+    @Benchmark
+    public long template() throws IOException {
+        return drain(template.bodyPublisher(appended, false));
+    }
+
+    /**
+     * Pulls every buffer from a publisher. Byte array publishers
+     * deliver on the subscribing thread, so the count is final
+     * when this returns.
+     */
+    private static long drain(HttpRequest.BodyPublisher publisher) {
+        long[] total = new long[1];
+        publisher.subscribe(new Flow.Subscriber<ByteBuffer>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                total[0] += item.remaining();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throw new IllegalStateException(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        return total[0];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(ChatTemplateBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
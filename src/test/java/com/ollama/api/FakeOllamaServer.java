@@ -0,0 +1,186 @@
+package com.ollama.api;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process HTTP server standing in for Ollama in tests.
+ *
+ * <p>Each path gets a {@link Handler} that writes the response
+ * body, one JSON object per line for streams. Request bodies are
+ * recorded in arrival order.
+ */
+public final class FakeOllamaServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor =
+        Executors.newVirtualThreadPerTaskExecutor();
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private final AtomicInteger aborted = new AtomicInteger();
+
+    /**
+     * Writes the response to one request.
+     */
+    @FunctionalInterface
+    public interface Handler {
+
+        /**
+         * Handles a request. Status 200 has been sent.
+         *
+         * @param body the request body
+         * @param out the response body
+         */
+        void handle(String body, Response out)
+            throws IOException, InterruptedException;
+    }
+
+    /**
+     * Response body of one request.
+     */
+    public static final class Response {
+        private final OutputStream out;
+
+        Response(OutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Writes one line and flushes it to the client.
+         *
+         * @param json the line, without the newline
+         */
+        public void line(String json) throws IOException {
+            out.write((json + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+    }
+
+    private FakeOllamaServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Starts a server on a free local port.
+     *
+     * @return the server
+     */
+    public static FakeOllamaServer start() throws IOException {
+        return new FakeOllamaServer();
+    }
+
+    /**
+     * Sets the handler of a path.
+     *
+     * @param path the path, such as {@code /api/chat}
+     * @param handler the handler
+     * @return this server
+     */
+    public FakeOllamaServer on(String path, Handler handler) {
+        server.createContext(path, exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(),
+                StandardCharsets.UTF_8);
+            bodies.add(body);
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                handler.handle(body, new Response(out));
+            } catch (IOException e) {
+                // The client closed the connection
+                aborted.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Answers every chat request with one complete message.
+     *
+     * @param content the message content
+     * @return this server
+     */
+    public FakeOllamaServer chat(String content) {
+        return on("/api/chat", (body, out) -> out.line(chatChunk(content, true)));
+    }
+
+    /**
+     * Answers every request to a path with an error status.
+     *
+     * @param path the path, such as {@code /api/chat}
+     * @param status the HTTP status
+     * @return this server
+     */
+    public FakeOllamaServer fail(String path, int status) {
+        server.createContext(path, exchange -> {
+            bodies.add(new String(exchange.getRequestBody().readAllBytes(),
+                StandardCharsets.UTF_8));
+            byte[] error = "{\"error\":\"failed\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, error.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(error);
+            } finally {
+                exchange.close();
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Builds a chat response line.
+     *
+     * @param content the message content
+     * @param done whether this is the last chunk
+     * @return the JSON line
+     */
+    public static String chatChunk(String content, boolean done) {
+        return "{\"model\":\"m\",\"message\":{\"role\":\"assistant\",\"content\":\""
+            + content + "\"},\"done\":" + done
+            + (done ? ",\"done_reason\":\"stop\",\"eval_count\":1" : "") + "}";
+    }
+
+    /**
+     * Gets the base URL to give the client.
+     *
+     * @return the URL
+     */
+    public String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Gets the request bodies received so far.
+     *
+     * @return the bodies in arrival order
+     */
+    public List<String> bodies() {
+        return List.copyOf(bodies);
+    }
+
+    /**
+     * Gets the number of responses the client closed before the
+     * handler finished writing them.
+     *
+     * @return the count
+     */
+    public int aborted() {
+        return aborted.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,78 @@
+package com.ollama.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.util.ChatBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OptionsWireFormatTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private FakeOllamaServer server;
+    private OllamaClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = FakeOllamaServer.start().chat("ok");
+        client = OllamaClient.builder().baseUrl(server.url()).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void chatSendsOptionsKeepAliveAndStream() throws Exception {
+        ChatRequest request = ChatBuilder.create("llama3.2")
+            .addUserMessage("hi")
+            .maxTokens(64)
+            .numCtx(4096)
+            .temperature(0.2)
+            .build();
+        request.setKeepAlive("5m");
+
+        client.chat(request);
+
+        JsonNode body = mapper.readTree(server.bodies().get(0));
+        assertEquals("llama3.2", body.get("model").asText());
+        assertFalse(body.get("stream").asBoolean());
+        assertEquals("5m", body.get("keep_alive").asText());
+        JsonNode options = body.get("options");
+        assertEquals(64, options.get("num_predict").asInt());
+        assertEquals(4096, options.get("num_ctx").asInt());
+        assertEquals(0.2, options.get("temperature").asDouble());
+        assertFalse(options.has("seed"));
+        assertFalse(body.has("tenant"));
+    }
+
+    @Test
+    void streamingChatSetsStream() throws Exception {
+        ChatRequest request = ChatBuilder.create("llama3.2")
+            .addUserMessage("hi")
+            .maxTokens(8)
+            .build();
+
+        client.chatStream(request, chunk -> { });
+
+        JsonNode body = mapper.readTree(server.bodies().get(0));
+        assertTrue(body.get("stream").asBoolean());
+        assertEquals(8, body.get("options").get("num_predict").asInt());
+        assertFalse(body.has("keep_alive"));
+    }
+
+    @Test
+    void requestWithoutOptionsOmitsThem() throws Exception {
+        client.chat(ChatBuilder.create("llama3.2").addUserMessage("hi").build());
+
+        JsonNode body = mapper.readTree(server.bodies().get(0));
+        assertFalse(body.has("options"));
+    }
+}
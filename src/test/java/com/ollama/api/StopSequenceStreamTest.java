@@ -0,0 +1,44 @@
+package com.ollama.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.util.ChatBuilder;
+import com.ollama.api.util.StopSequenceMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class StopSequenceStreamTest {
+
+    @Test
+    void cutsStreamAtSequenceSplitOverChunks() throws Exception {
+        try (FakeOllamaServer server = FakeOllamaServer.start()) {
+            server.on("/api/chat", (body, out) -> {
+                for (String part : List.of("Hello ", "wor", "ld<", "/s",
+                        "> ignored", " more")) {
+                    out.line(FakeOllamaServer.chatChunk(part, false));
+                }
+                out.line(FakeOllamaServer.chatChunk("", true));
+            });
+            OllamaClient client = OllamaClient.builder()
+                .baseUrl(server.url())
+                .build();
+
+            List<ChatResponse> chunks = new ArrayList<>();
+            String text = client.chatStream(
+                ChatBuilder.create("m").addUserMessage("hi").build(),
+                StopSequenceMatcher.of("</s>"), chunks::add);
+
+            assertEquals("Hello world", text);
+            // "<" and "</s" are held back until the match completes
+            assertEquals(List.of("Hello ", "wor", "ld", "", ""),
+                chunks.stream()
+                    .map(chunk -> chunk.getMessage().getContent())
+                    .toList());
+            ChatResponse last = chunks.get(chunks.size() - 1);
+            assertEquals(Boolean.TRUE, last.getDone());
+            assertEquals("stop", last.getDoneReason());
+        }
+    }
+}
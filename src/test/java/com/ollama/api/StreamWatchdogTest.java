@@ -0,0 +1,146 @@
+package com.ollama.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.util.ChatBuilder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class StreamWatchdogTest {
+
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final StreamWatchdog watchdog = new StreamWatchdog(TICK, 64);
+
+    @Test
+    void abortsAfterDeadline() throws Exception {
+        CountDownLatch aborted = new CountDownLatch(1);
+        long start = System.nanoTime();
+        StreamWatchdog.Watch watch = watchdog.watch(millis(50),
+            aborted::countDown);
+
+        assertTrue(aborted.await(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= millis(50));
+        assertTrue(watch.isExpired());
+        assertFalse(watch.hasProgress());
+    }
+
+    @Test
+    void touchesPostponeTheDeadline() throws Exception {
+        AtomicInteger aborts = new AtomicInteger();
+        StreamWatchdog.Watch watch = watchdog.watch(millis(60),
+            aborts::incrementAndGet);
+        for (int i = 0; i < 20; i++) {
+            Thread.sleep(15);
+            watch.touch(millis(60));
+        }
+        assertEquals(0, aborts.get());
+        assertTrue(watch.hasProgress());
+
+        await(() -> aborts.get() == 1);
+        assertTrue(watch.isExpired());
+    }
+
+    @Test
+    void touchWithShorterTimeoutMovesDeadlineEarlier() throws Exception {
+        CountDownLatch aborted = new CountDownLatch(1);
+        StreamWatchdog.Watch watch = watchdog.watch(millis(60_000),
+            aborted::countDown);
+        watch.touch(millis(20));
+        assertTrue(aborted.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void pauseSuspendsTheDeadline() throws Exception {
+        AtomicInteger aborts = new AtomicInteger();
+        StreamWatchdog.Watch watch = watchdog.watch(millis(20),
+            aborts::incrementAndGet);
+        watch.pause();
+        Thread.sleep(100);
+        assertEquals(0, aborts.get());
+        watch.cancel();
+    }
+
+    @Test
+    void cancelUnlinksWithoutWaitingForTheDeadline() throws Exception {
+        AtomicInteger aborts = new AtomicInteger();
+        List<StreamWatchdog.Watch> watches = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            watches.add(watchdog.watch(millis(60_000),
+                aborts::incrementAndGet));
+        }
+        await(() -> watchdog.getActive() == 10_000);
+
+        watches.forEach(StreamWatchdog.Watch::cancel);
+
+        await(() -> watchdog.getActive() == 0);
+        assertEquals(0, aborts.get());
+        assertFalse(watches.get(0).isExpired());
+    }
+
+    @Test
+    void cancelBeforeRegistrationIsHarmless() throws Exception {
+        AtomicInteger aborts = new AtomicInteger();
+        StreamWatchdog.Watch watch = watchdog.watch(millis(10),
+            aborts::incrementAndGet);
+        watch.cancel();
+        watch.cancel();
+        Thread.sleep(60);
+        await(() -> watchdog.getActive() == 0);
+        assertEquals(0, aborts.get());
+    }
+
+    @Test
+    @Timeout(5)
+    void streamReturnsWhenTheBodyStaysOpenAfterTheLastChunk()
+            throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (FakeOllamaServer server = FakeOllamaServer.start()) {
+            server.on("/api/chat", (body, out) -> {
+                out.line(FakeOllamaServer.chatChunk("hi", true));
+                // A proxy that never ends the body
+                release.await();
+            });
+            OllamaClient client = OllamaClient.builder()
+                .baseUrl(server.url())
+                .interTokenTimeout(Duration.ofMillis(100))
+                .build();
+
+            List<ChatResponse> chunks = new ArrayList<>();
+            client.chatStream(
+                ChatBuilder.create("m").addUserMessage("hi").build(),
+                chunks::add);
+
+            assertEquals(1, chunks.size());
+            assertEquals(0, client.getMetrics()
+                .forRequest("chat", "m").getErrors());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static void await(BooleanSupplier condition)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new AssertionError("Condition not met in time");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.ollama.api.cascade;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.ollama.api.FakeOllamaServer;
+import com.ollama.api.OllamaClient;
+import com.ollama.api.StreamCancellation;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.exception.OllamaException;
+import com.ollama.api.metrics.RequestMetrics;
+import com.ollama.api.util.ChatBuilder;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class ModelCascadeTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private FakeOllamaServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = FakeOllamaServer.start();
+        server.on("/api/chat", (body, out) -> {
+            if (body.contains("\"small\"")) {
+                out.line(FakeOllamaServer.chatChunk("bad", true));
+            } else if (body.contains("\"medium\"")) {
+                out.line("{\"model\":\"medium\",\"message\":{\"role\":"
+                    + "\"assistant\",\"content\":\"cut\"},\"done\":true,"
+                    + "\"done_reason\":\"length\"}");
+            } else if (body.contains("\"slow\"")) {
+                out.line(FakeOllamaServer.chatChunk("wait", false));
+                release.await(10, TimeUnit.SECONDS);
+                out.line(FakeOllamaServer.chatChunk("late", true));
+            } else {
+                out.line(FakeOllamaServer.chatChunk("good", true));
+            }
+        });
+    }
+
+    @AfterEach
+    void stopServer() {
+        release.countDown();
+        server.close();
+    }
+
+    @Test
+    void escalatesRejectedAndTruncatedAnswers() throws Exception {
+        ModelCascade cascade = ModelCascade
+            .builder(new OllamaClient(server.url()))
+            .models("small", "medium", "large")
+            .acceptor((request, response) ->
+                !response.getMessage().getContent().equals("bad"))
+            .build();
+
+        assertEquals("good", content(cascade.chat(request())));
+
+        CascadeStats stats = cascade.getStats();
+        assertEquals(1, stats.requests());
+        assertEquals(1, stats.stages().get(0).rejected());
+        assertEquals(1, stats.stages().get(1).truncated());
+        assertEquals(1, stats.stages().get(2).accepted());
+    }
+
+    @Test
+    void returnsTheFirstAcceptedAnswer() throws Exception {
+        ModelCascade cascade = ModelCascade
+            .builder(new OllamaClient(server.url()))
+            .models("small", "large")
+            .build();
+
+        assertEquals("bad", content(cascade.chat(request())));
+        assertEquals(1, server.bodies().size());
+        assertEquals(1, cascade.getStats().stages().get(0).accepted());
+        assertEquals(0, cascade.getStats().stages().get(1).attempts());
+    }
+
+    @Test
+    void abortsATimedOutStageAtOnce() throws Exception {
+        OllamaClient client = new OllamaClient(server.url());
+        ModelCascade cascade = ModelCascade.builder(client)
+            .models("slow", "large")
+            .stageTimeout(Duration.ofMillis(200))
+            .build();
+
+        assertEquals("good", content(cascade.chat(request())));
+        assertEquals(1, cascade.getStats().stages().get(0).timedOut());
+
+        // The slow stream is still waiting for its next chunk, so
+        // only a direct abort ends it
+        RequestMetrics slow = client.getMetrics()
+            .forRequest("chat", "slow");
+        await(() -> slow.getInFlight() == 0);
+        assertEquals(0, slow.getErrors());
+    }
+
+    @Test
+    void escalatesAfterAFailure() throws Exception {
+        ModelCascade cascade = ModelCascade
+            .builder(failing("small", new OllamaException("down")))
+            .models("small", "large")
+            .stageTimeout(Duration.ofSeconds(10))
+            .build();
+
+        assertEquals("good", content(cascade.chat(request())));
+        assertEquals(1, cascade.getStats().stages().get(0).failed());
+    }
+
+    @Test
+    @Timeout(5)
+    void errorInAStageIsNotMistakenForATimeout() {
+        ModelCascade cascade = ModelCascade
+            .builder(failing("small", new AssertionError("broken")))
+            .models("small", "large")
+            .stageTimeout(Duration.ofSeconds(10))
+            .build();
+
+        AssertionError error = assertThrows(AssertionError.class,
+            () -> cascade.chat(request()));
+        assertEquals("broken", error.getMessage());
+        assertEquals(0, cascade.getStats().stages().get(0).timedOut());
+    }
+
+    /**
+     * Creates a client whose streams for one model throw.
+     */
+    private OllamaClient failing(String model, Throwable failure) {
+        return new OllamaClient(server.url()) {
+            @Override
+            public void chatStreamWhile(ChatRequest request,
+                    Predicate<ChatResponse> handler,
+                    StreamCancellation cancellation)
+                    throws OllamaException {
+                if (!request.getModel().equals(model)) {
+                    super.chatStreamWhile(request, handler, cancellation);
+                } else if (failure instanceof OllamaException e) {
+                    throw e;
+                } else {
+                    throw (Error) failure;
+                }
+            }
+        };
+    }
+
+    private static ChatRequest request() {
+        return ChatBuilder.create("ignored").addUserMessage("hi").build();
+    }
+
+    private static String content(ChatResponse response) {
+        return response.getMessage().getContent();
+    }
+
+    private static void await(BooleanSupplier condition)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new AssertionError("Condition not met in time");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
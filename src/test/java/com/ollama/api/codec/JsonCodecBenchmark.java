@@ -0,0 +1,149 @@
+package com.ollama.api.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ollama.api.OllamaClient;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.dto.Message;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures decoding a streamed chat chunk and encoding a message.
+ *
+ * <p>{@code unbound} resolves the root type on every call, as
+ * {@code ObjectMapper.readValue} does; {@code bound} goes through
+ * {@link JacksonJsonCodec} with pre-bound readers and writers on
+ * a plain mapper, and {@code tuned} does the same on
+ * {@link OllamaClient#defaultObjectMapper()}. {@code streaming}
+ * is the hand-written {@link StreamingJsonCodec}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonCodecBenchmark {
+
+    private static final byte[] CHUNK = ("{\"model\":\"llama3.2\","
+        + "\"created_at\":\"2024-08-01T12:00:00.123456Z\","
+        + "\"message\":{\"role\":\"assistant\",\"content\":\" the\"},"
+        + "\"done\":false}").getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] LAST_CHUNK = ("{\"model\":\"llama3.2\","
+        + "\"created_at\":\"2024-08-01T12:00:01.123456Z\","
+        + "\"message\":{\"role\":\"assistant\",\"content\":\"\"},"
+        + "\"done\":true,\"done_reason\":\"stop\","
+        + "\"total_duration\":5043500667,\"load_duration\":5025959,"
+        + "\"prompt_eval_count\":26,\"prompt_eval_duration\":325953000,"
+        + "\"eval_count\":290,\"eval_duration\":4709213000}")
+        .getBytes(StandardCharsets.UTF_8);
+
+    private final Message message = new Message("user",
+        "Why is the sky blue? Answer in \"one\" short paragraph.\n");
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+
+    private ObjectMapper unbound;
+    private JsonCodec bound;
+    private JsonCodec tuned;
+    private JsonCodec streaming;
+
+    @Setup
+    public void setUp() {
+        unbound = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        bound = new JacksonJsonCodec(new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES));
+        tuned = new JacksonJsonCodec(OllamaClient.defaultObjectMapper());
+        streaming = new StreamingJsonCodec();
+    }
+
+    @Benchmark
+    public ChatResponse decodeUnbound() throws IOException {
+        return unbound.readValue(CHUNK, ChatResponse.class);
+    }
+
+    @Benchmark
+    public ChatResponse decodeBound() throws IOException {
+        return decode(bound, CHUNK);
+    }
+
+    @Benchmark
+    public ChatResponse decodeTuned() throws IOException {
+        return decode(tuned, CHUNK);
+    }
+
+    @Benchmark
+    public ChatResponse decodeStreaming() throws IOException {
+        return decode(streaming, CHUNK);
+    }
+
+    @Benchmark
+    public ChatResponse decodeLastUnbound() throws IOException {
+        return unbound.readValue(LAST_CHUNK, ChatResponse.class);
+    }
+
+    @Benchmark
+    public ChatResponse decodeLastTuned() throws IOException {
+        return decode(tuned, LAST_CHUNK);
+    }
+
+    @Benchmark
+    public ChatResponse decodeLastStreaming() throws IOException {
+        return decode(streaming, LAST_CHUNK);
+    }
+
+    @Benchmark
+    public int encodeUnbound() throws IOException {
+        return unbound.writeValueAsBytes(message).length;
+    }
+
+    @Benchmark
+    public int encodeTuned() throws IOException {
+        return encode(tuned);
+    }
+
+    @Benchmark
+    public int encodeStreaming() throws IOException {
+        return encode(streaming);
+    }
+
+    ChatResponse decode(JsonCodec codec, byte[] line) throws IOException {
+        try (JsonParser parser = codec.getFactory().createParser(line)) {
+            return codec.readChatResponse(parser);
+        }
+    }
+
+    int encode(JsonCodec codec) throws IOException {
+        out.reset();
+        try (JsonGenerator generator =
+                codec.getFactory().createGenerator(out)) {
+            codec.writeMessage(generator, message);
+        }
+        return out.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(JsonCodecBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,179 @@
+package com.ollama.api.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.dto.GenerateRequest;
+import com.ollama.api.dto.GenerateResponse;
+import com.ollama.api.dto.Message;
+import com.ollama.api.dto.ModelsResponse;
+import com.ollama.api.dto.Options;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the hand-written codec against databinding for every DTO.
+ *
+ * <p>The sample documents are built from Jackson's own view of
+ * each class, with a distinct value in every property, so a
+ * property added to a DTO but not to {@link StreamingJsonCodec}
+ * makes the two codecs disagree.
+ */
+class StreamingJsonCodecTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonCodec streaming = new StreamingJsonCodec();
+    private final JsonCodec jackson = new JacksonJsonCodec(mapper);
+    private int counter;
+
+    @Test
+    void writesMessageLikeJackson() throws IOException {
+        Message message = mapper.treeToValue(sample(Message.class),
+            Message.class);
+        assertEquals(write(jackson, g -> jackson.writeMessage(g, message)),
+            write(streaming, g -> streaming.writeMessage(g, message)));
+    }
+
+    @Test
+    void writesOptionsLikeJackson() throws IOException {
+        Options options = mapper.treeToValue(sample(Options.class),
+            Options.class);
+        assertEquals(write(jackson, g -> jackson.writeOptions(g, options)),
+            write(streaming, g -> streaming.writeOptions(g, options)));
+    }
+
+    @Test
+    void writesEmptyOptionsLikeJackson() throws IOException {
+        Options options = new Options();
+        assertEquals(write(jackson, g -> jackson.writeOptions(g, options)),
+            write(streaming, g -> streaming.writeOptions(g, options)));
+    }
+
+    @Test
+    void writesGenerateRequestLikeJackson() throws IOException {
+        GenerateRequest request = mapper.treeToValue(
+            sample(GenerateRequest.class), GenerateRequest.class);
+        assertEquals(
+            write(jackson, g -> jackson.writeGenerateRequest(g, request)),
+            write(streaming,
+                g -> streaming.writeGenerateRequest(g, request)));
+    }
+
+    @Test
+    void readsChatResponseLikeJackson() throws IOException {
+        JsonNode json = sample(ChatResponse.class);
+        assertEquals(mapper.valueToTree(read(jackson, json,
+                jackson::readChatResponse)),
+            mapper.valueToTree(read(streaming, json,
+                streaming::readChatResponse)));
+    }
+
+    @Test
+    void readsGenerateResponseLikeJackson() throws IOException {
+        JsonNode json = sample(GenerateResponse.class);
+        assertEquals(mapper.valueToTree(read(jackson, json,
+                jackson::readGenerateResponse)),
+            mapper.valueToTree(read(streaming, json,
+                streaming::readGenerateResponse)));
+    }
+
+    @Test
+    void readsModelsResponseLikeJackson() throws IOException {
+        JsonNode json = sample(ModelsResponse.class);
+        assertEquals(mapper.valueToTree(read(jackson, json,
+                jackson::readModelsResponse)),
+            mapper.valueToTree(read(streaming, json,
+                streaming::readModelsResponse)));
+    }
+
+    @Test
+    void skipsUnknownProperties() throws IOException {
+        ObjectNode json = (ObjectNode) sample(ChatResponse.class);
+        json.putObject("future").putArray("nested").add(1).addObject();
+        json.put("other", "x");
+        ChatResponse response = read(streaming, json,
+            streaming::readChatResponse);
+        json.remove("future");
+        json.remove("other");
+        assertEquals(mapper.valueToTree(read(jackson, json,
+                jackson::readChatResponse)),
+            mapper.valueToTree(response));
+    }
+
+    private interface Writer {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    private interface Reader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+
+    private JsonNode write(JsonCodec codec, Writer writer)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator =
+                codec.getFactory().createGenerator(out)) {
+            writer.write(generator);
+        }
+        return mapper.readTree(out.toByteArray());
+    }
+
+    private <T> T read(JsonCodec codec, JsonNode json, Reader<T> reader)
+            throws IOException {
+        try (JsonParser parser = codec.getFactory()
+                .createParser(mapper.writeValueAsBytes(json))) {
+            return reader.read(parser);
+        }
+    }
+
+    /**
+     * Builds a document with a distinct value for every property
+     * Jackson serializes.
+     */
+    private JsonNode sample(Class<?> type) {
+        return sample(mapper.constructType(type));
+    }
+
+    private JsonNode sample(JavaType type) {
+        JsonNodeFactory nodes = JsonNodeFactory.instance;
+        Class<?> raw = type.getRawClass();
+        int n = ++counter;
+        if (raw == String.class) {
+            return nodes.textNode("value-" + n);
+        } else if (raw == Boolean.class || raw == boolean.class) {
+            return nodes.booleanNode(true);
+        } else if (raw == Integer.class || raw == int.class) {
+            return nodes.numberNode(n);
+        } else if (raw == Long.class || raw == long.class) {
+            return nodes.numberNode(1_000_000_000_000L + n);
+        } else if (raw == Double.class || raw == double.class) {
+            return nodes.numberNode(n + 0.5);
+        } else if (type.isArrayType() || type.isCollectionLikeType()) {
+            ArrayNode array = nodes.arrayNode();
+            array.add(sample(type.getContentType()));
+            array.add(sample(type.getContentType()));
+            return array;
+        }
+        ObjectNode object = nodes.objectNode();
+        for (BeanPropertyDefinition property : mapper
+                .getSerializationConfig()
+                .introspect(type)
+                .findProperties()) {
+            if (property.couldSerialize()) {
+                object.set(property.getName(),
+                    sample(property.getPrimaryType()));
+            }
+        }
+        return object;
+    }
+}
@@ -0,0 +1,139 @@
+package com.ollama.api.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ollama.api.FakeOllamaServer;
+import com.ollama.api.OllamaClient;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.util.ChatBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class FairDispatcherTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private FakeOllamaServer server;
+    private OllamaClient client;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = FakeOllamaServer.start();
+        server.on("/api/chat", (body, out) -> {
+            // Holds the first request so that the rest queue up
+            if (body.contains("blocker")) {
+                release.await(10, TimeUnit.SECONDS);
+            }
+            out.line(FakeOllamaServer.chatChunk("ok", true));
+        });
+        client = new OllamaClient(server.url());
+    }
+
+    @AfterEach
+    void stopServer() {
+        release.countDown();
+        server.close();
+    }
+
+    @Test
+    void sharesTokensByWeight() throws Exception {
+        FairDispatcher dispatcher = new FairDispatcher(client, 1);
+        dispatcher.setWeight("a", 2);
+        CompletableFuture<ChatResponse> blocker =
+            dispatcher.submit(request("x", "blocker", 100));
+        List<CompletableFuture<ChatResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            futures.add(dispatcher.submit(request("a", "a-" + i, 1000)));
+            futures.add(dispatcher.submit(request("b", "b-" + i, 1000)));
+        }
+        release.countDown();
+        blocker.get(10, TimeUnit.SECONDS);
+        for (CompletableFuture<ChatResponse> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+
+        List<String> order = sentOrder();
+        long firstA = order.subList(0, 30).stream()
+            .filter(name -> name.startsWith("a-"))
+            .count();
+        // Equal costs, weights 2:1
+        assertTrue(firstA >= 19 && firstA <= 21, "a sent " + firstA);
+    }
+
+    @Test
+    void lightTenantIsNotStuckBehindBacklog() throws Exception {
+        FairDispatcher dispatcher = new FairDispatcher(client, 1);
+        CompletableFuture<ChatResponse> blocker =
+            dispatcher.submit(request("x", "blocker", 100));
+        List<CompletableFuture<ChatResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(dispatcher.submit(request("a", "a-" + i, 4000)));
+        }
+        futures.add(dispatcher.submit(request("b", "b-0", 100)));
+        release.countDown();
+        blocker.get(10, TimeUnit.SECONDS);
+        for (CompletableFuture<ChatResponse> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+
+        assertTrue(sentOrder().indexOf("b-0") <= 1, sentOrder().toString());
+    }
+
+    @Test
+    @Timeout(5)
+    void picksHugeRequestsWithoutPassingEveryQuantum()
+            throws Exception {
+        // A quantum of 1 token and a head of two billion: one pass
+        // per quantum would take billions of iterations
+        FairDispatcher dispatcher = new FairDispatcher(client, 1,
+            request -> 10, 1);
+        dispatcher.setWeight("b", 3);
+        CompletableFuture<ChatResponse> blocker =
+            dispatcher.submit(request("x", "blocker", 100));
+        CompletableFuture<ChatResponse> a =
+            dispatcher.submit(request("a", "a-0", Integer.MAX_VALUE));
+        CompletableFuture<ChatResponse> b =
+            dispatcher.submit(request("b", "b-0", Integer.MAX_VALUE));
+        release.countDown();
+        blocker.get();
+        a.get();
+        b.get();
+
+        // b earns three times as fast, so its head fits first
+        assertEquals(List.of("b-0", "a-0"), sentOrder());
+        assertEquals(0, dispatcher.getQueued());
+    }
+
+    private static ChatRequest request(String tenant, String content,
+            int maxTokens) {
+        return ChatBuilder.create("m")
+            .addUserMessage(content)
+            .maxTokens(maxTokens)
+            .tenant(tenant)
+            .build();
+    }
+
+    /**
+     * Gets the contents of the requests sent after the blocker.
+     */
+    private List<String> sentOrder() {
+        List<String> order = new ArrayList<>();
+        for (String body : server.bodies()) {
+            int start = body.indexOf("\"content\":\"") + 11;
+            String content = body.substring(start,
+                body.indexOf('"', start));
+            if (!content.equals("blocker")) {
+                order.add(content);
+            }
+        }
+        return order;
+    }
+}
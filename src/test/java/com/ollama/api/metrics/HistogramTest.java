@@ -0,0 +1,96 @@
+package com.ollama.api.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class HistogramTest {
+
+    @Test
+    void smallValuesHaveExactBuckets() {
+        for (int value = 0; value < 16; value++) {
+            assertEquals(value, Histogram.indexOf(value));
+            assertEquals(value, Histogram.upperBound(value));
+        }
+        // From 16 on, each power of two is split into 16 buckets
+        assertEquals(16, Histogram.indexOf(16));
+        assertEquals(31, Histogram.indexOf(31));
+        assertEquals(32, Histogram.indexOf(32));
+        assertEquals(32, Histogram.indexOf(33));
+        assertEquals(33, Histogram.upperBound(32));
+        assertEquals(63, Histogram.upperBound(47));
+        assertEquals(48, Histogram.indexOf(64));
+        assertEquals(67, Histogram.upperBound(48));
+    }
+
+    @Test
+    void bucketsCoverEveryValueWithinOneSixteenth() {
+        long[] values = {16, 17, 100, 1_000, 65_535, 65_536,
+            1_000_000_007L, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = Histogram.indexOf(value);
+            long upper = Histogram.upperBound(index);
+            assertTrue(upper >= value, value + " above " + upper);
+            assertTrue(upper - value <= value / 16,
+                value + " too far from " + upper);
+            if (index > 0) {
+                assertTrue(Histogram.upperBound(index - 1) < value,
+                    value + " also fits bucket " + (index - 1));
+            }
+        }
+    }
+
+    @Test
+    void estimatesPercentiles() {
+        Histogram histogram = new Histogram();
+        for (int value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.count());
+        assertEquals(500_500, snapshot.sum());
+        assertEquals(1000, snapshot.max());
+        assertEquals(500.5, snapshot.mean());
+        assertWithin(500, snapshot.p50());
+        assertWithin(900, snapshot.p90());
+        assertWithin(990, snapshot.p99());
+        assertEquals(1000, histogram.getPercentile(100));
+        assertEquals(1, histogram.getPercentile(0));
+    }
+
+    @Test
+    void capsPercentilesAtTheMaximum() {
+        Histogram histogram = new Histogram();
+        histogram.record(1_000_001);
+
+        // The bucket reaches 1,015,807, but nothing above the
+        // maximum was recorded
+        assertEquals(1_000_001, histogram.getPercentile(50));
+    }
+
+    @Test
+    void emptyAndNegativeValues() {
+        Histogram histogram = new Histogram();
+        assertEquals(new Histogram.Snapshot(0, 0, 0, 0, 0, 0),
+            histogram.snapshot());
+        assertEquals(0, histogram.snapshot().mean());
+
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+
+    /**
+     * Asserts that an estimate is the upper bound of the bucket
+     * holding the exact value.
+     */
+    private static void assertWithin(long exact, long estimate) {
+        assertEquals(Histogram.upperBound(Histogram.indexOf(exact)),
+            estimate);
+        assertTrue(estimate - exact <= exact / 16, exact + " ~ "
+            + estimate);
+    }
+}
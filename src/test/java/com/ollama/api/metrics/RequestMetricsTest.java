@@ -0,0 +1,148 @@
+package com.ollama.api.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ollama.api.FakeOllamaServer;
+import com.ollama.api.OllamaClient;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.exception.OllamaException;
+import com.ollama.api.util.ChatBuilder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RequestMetricsTest {
+
+    // Leaves 400 ns of the total unaccounted for: queueing
+    private static final String TIMED_REPLY = "{\"model\":\"m\","
+        + "\"message\":{\"role\":\"assistant\",\"content\":\"hi\"},"
+        + "\"done\":true,\"total_duration\":1000,"
+        + "\"load_duration\":100,\"prompt_eval_count\":3,"
+        + "\"prompt_eval_duration\":200,\"eval_count\":2,"
+        + "\"eval_duration\":300}";
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private FakeOllamaServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = FakeOllamaServer.start();
+        server.on("/api/chat", (body, out) -> out.line(TIMED_REPLY));
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+        registry.close();
+    }
+
+    @Test
+    void countsRequestsByStatus() throws Exception {
+        OllamaClient client = client(server.url());
+        client.chat(request());
+        client.chat(request());
+
+        try (FakeOllamaServer failing = FakeOllamaServer.start()) {
+            failing.fail("/api/chat", 503);
+            assertThrows(OllamaException.class,
+                () -> client(failing.url()).chat(request()));
+        }
+        assertThrows(IllegalStateException.class,
+            () -> client.chatStream(request(), chunk -> {
+                throw new IllegalStateException("handler");
+            }));
+        FakeOllamaServer closed = FakeOllamaServer.start();
+        closed.close();
+        assertThrows(OllamaException.class,
+            () -> client(closed.url()).chat(request()));
+
+        RequestMetrics chat = registry.forRequest("chat", "m");
+        assertEquals(5, chat.getRequests());
+        assertEquals(0, chat.getInFlight());
+        assertEquals(3, chat.getErrors());
+        assertEquals(Map.of(RequestMetrics.TRANSPORT_ERROR, 1L,
+                "503", 1L, RequestMetrics.LOCAL_ERROR, 1L),
+            chat.getErrorsByStatus());
+        assertEquals(2, chat.getLatency().getCount());
+        // The throwing handler got the final chunk, counts included
+        assertEquals(9, chat.getPromptTokens());
+        assertEquals(6, chat.getEvalTokens());
+
+        RequestMetrics.Snapshot snapshot =
+            registry.snapshot().requests().get(0);
+        assertEquals("chat", snapshot.endpoint());
+        assertEquals(5, snapshot.requests());
+        assertEquals(chat.getErrorsByStatus(),
+            snapshot.errorsByStatus());
+    }
+
+    @Test
+    void attachesTheTimingToTheResponse() throws Exception {
+        List<RequestTiming> reported = new ArrayList<>();
+        OllamaClient client = OllamaClient.builder()
+            .baseUrl(server.url())
+            .metrics(registry)
+            .timingListener(reported::add, 1)
+            .build();
+
+        ChatResponse response = client.chat(request());
+
+        RequestTiming timing = response.getTiming();
+        assertNotNull(timing);
+        assertEquals("chat", timing.endpoint());
+        assertEquals("m", timing.model());
+        assertTrue(timing.sent() >= timing.serialized(), timing.toString());
+        assertTrue(timing.firstByte() >= timing.sent(), timing.toString());
+        assertTrue(timing.parsed() >= timing.lastToken(), timing.toString());
+        assertEquals(1000L, timing.totalDuration());
+        assertEquals(400L, timing.serverQueueNanos());
+        assertEquals(List.of(timing), reported);
+        assertSame(timing, reported.get(0));
+    }
+
+    @Test
+    void recordsARequestEvent(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("requests.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.ollama.api.Request");
+            recording.start();
+            client(server.url()).chat(request());
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file)
+            .stream()
+            .filter(event -> event.getEventType().getName()
+                .equals("com.ollama.api.Request"))
+            .toList();
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals("chat", event.getString("endpoint"));
+        assertEquals("m", event.getString("model"));
+        assertEquals("200", event.getString("status"));
+        assertEquals(3, event.getInt("promptEvalCount"));
+        assertEquals(2, event.getInt("evalCount"));
+    }
+
+    private OllamaClient client(String url) {
+        return OllamaClient.builder().baseUrl(url).metrics(registry).build();
+    }
+
+    private static ChatRequest request() {
+        return ChatBuilder.create("m").addUserMessage("hi").build();
+    }
+}
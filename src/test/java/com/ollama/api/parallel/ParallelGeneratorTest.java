@@ -0,0 +1,148 @@
+package com.ollama.api.parallel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.ollama.api.FakeOllamaServer;
+import com.ollama.api.OllamaClient;
+import com.ollama.api.StreamCancellation;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.exception.OllamaException;
+import com.ollama.api.metrics.RequestMetrics;
+import com.ollama.api.util.ChatBuilder;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class ParallelGeneratorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private FakeOllamaServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = FakeOllamaServer.start();
+        server.on("/api/chat", (body, out) -> {
+            if (body.contains("\"seed\":0")) {
+                out.line(FakeOllamaServer.chatChunk("aa", true));
+            } else if (body.contains("\"seed\":1")) {
+                out.line(FakeOllamaServer.chatChunk("aaaa", true));
+            } else if (body.contains("\"seed\":2")) {
+                out.line(FakeOllamaServer.chatChunk("a", true));
+            } else {
+                // Seeds 3 and up stall after their first chunk
+                out.line(FakeOllamaServer.chatChunk("a", false));
+                release.await(10, TimeUnit.SECONDS);
+                out.line(FakeOllamaServer.chatChunk("a", true));
+            }
+        });
+    }
+
+    @AfterEach
+    void stopServer() {
+        release.countDown();
+        server.close();
+    }
+
+    @Test
+    void bestReturnsTheHighestScoringAnswer() throws Exception {
+        ParallelGenerator generator = ParallelGenerator
+            .builder(new OllamaClient(server.url()))
+            .build();
+
+        ChatResponse best = generator.best(
+            ParallelGenerator.withSeeds(request(), 3),
+            response -> response.getMessage().getContent().length());
+
+        assertEquals("aaaa", best.getMessage().getContent());
+        ParallelStats stats = generator.getStats();
+        assertEquals(3, stats.variants());
+        assertEquals(0, stats.primaryWins());
+        assertEquals(3, server.bodies().size());
+    }
+
+    @Test
+    void withSeedsLeavesTheRequestAlone() {
+        ChatRequest request = ChatBuilder.create("m")
+            .addUserMessage("hi")
+            .stop("end")
+            .build();
+
+        List<ChatRequest> variants =
+            ParallelGenerator.withSeeds(request, 2);
+        variants.get(1).getOptions().getStop().add("more");
+
+        assertNull(request.getOptions().getSeed());
+        assertEquals(List.of("end"), request.getOptions().getStop());
+        assertEquals(1, variants.get(1).getOptions().getSeed());
+        assertNotSame(request.getOptions(), variants.get(0).getOptions());
+    }
+
+    @Test
+    void firstAbortsTheStalledVariantsAtOnce() throws Exception {
+        OllamaClient client = new OllamaClient(server.url());
+        ParallelGenerator generator = ParallelGenerator.builder(client)
+            .build();
+        List<ChatRequest> variants =
+            ParallelGenerator.withSeeds(request(), 6).subList(2, 6);
+
+        ChatResponse first = generator.first(variants);
+
+        assertEquals("a", first.getMessage().getContent());
+        assertEquals(3, generator.getStats().cancelled());
+        // The stalled variants are waiting for their next chunk, so
+        // only a direct abort ends them
+        RequestMetrics chat = client.getMetrics().forRequest("chat", "m");
+        await(() -> chat.getInFlight() == 0);
+        assertEquals(0, chat.getErrors());
+    }
+
+    @Test
+    @Timeout(5)
+    void errorInAVariantCountsAsAFailure() throws Exception {
+        OllamaClient client = new OllamaClient(server.url()) {
+            @Override
+            public void chatStreamWhile(ChatRequest request,
+                    Predicate<ChatResponse> handler,
+                    StreamCancellation cancellation)
+                    throws OllamaException {
+                if (request.getOptions().getSeed() == 1) {
+                    throw new AssertionError("broken");
+                }
+                super.chatStreamWhile(request, handler, cancellation);
+            }
+        };
+        ParallelGenerator generator = ParallelGenerator.builder(client)
+            .build();
+
+        ChatResponse best = generator.best(
+            ParallelGenerator.withSeeds(request(), 3),
+            response -> response.getMessage().getContent().length());
+
+        assertEquals("aa", best.getMessage().getContent());
+        assertEquals(1, generator.getStats().failed());
+    }
+
+    private static ChatRequest request() {
+        return ChatBuilder.create("m").addUserMessage("hi").build();
+    }
+
+    private static void await(BooleanSupplier condition)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new AssertionError("Condition not met in time");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.ollama.api.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ollama.api.FakeOllamaServer;
+import com.ollama.api.OllamaClient;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.exception.OllamaException;
+import com.ollama.api.metrics.RequestMetrics;
+import com.ollama.api.util.ChatBuilder;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives the limiter with the latencies of a simulated server
+ * that runs a fixed number of requests in parallel and queues the
+ * rest.
+ */
+class ConcurrencyLimiterTest {
+
+    private static final long BASE = 100_000_000L;
+
+    @Test
+    void growsToTheServerCapacity() throws Exception {
+        ConcurrencyLimiter limiter = limiter(Duration.ofHours(1));
+        for (int i = 0; i < 200; i++) {
+            round(limiter, 8);
+        }
+        int limit = limiter.getLimit("chat");
+        assertTrue(limit >= 8 && limit <= 16, "limit " + limit);
+    }
+
+    @Test
+    void shrinksWhenTheServerSlowsDown() throws Exception {
+        ConcurrencyLimiter limiter = limiter(Duration.ofHours(1));
+        for (int i = 0; i < 200; i++) {
+            round(limiter, 8);
+        }
+        for (int i = 0; i < 200; i++) {
+            round(limiter, 2);
+        }
+        int limit = limiter.getLimit("chat");
+        assertTrue(limit >= 2 && limit <= 5, "limit " + limit);
+    }
+
+    @Test
+    void dropsCutTheLimit() throws Exception {
+        ConcurrencyLimiter limiter = limiter(Duration.ofHours(1));
+        for (int i = 0; i < 200; i++) {
+            round(limiter, 8);
+        }
+        int before = limiter.getLimit("chat");
+        limiter.acquire("chat").onDropped();
+        assertEquals((int) (before * 0.9), limiter.getLimit("chat"), 1);
+    }
+
+    @Test
+    void slowProbeEndsOnItsTimeBound() throws Exception {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.builder()
+            .initialLimit(4)
+            .probeInterval(Duration.ofMillis(200))
+            .probeDuration(Duration.ofMillis(50))
+            .build();
+        // The first probe waits for a sample, then ends on time
+        ConcurrencyLimiter.Permit first = limiter.acquire("chat");
+        assertNull(limiter.tryAcquire("chat"));
+        Thread.sleep(60);
+        first.onSuccess(BASE);
+        assertEquals(4, limiter.getLimit("chat"));
+
+        // The next probe starts 200 ms after the previous one
+        // started, not after it ended
+        Thread.sleep(150);
+        limiter.acquire("chat").onSuccess(BASE);
+        assertEquals(1, limiter.getLimit("chat"));
+
+        // One slow sample, and no more once the bound has passed
+        ConcurrencyLimiter.Permit slow = limiter.acquire("chat");
+        Thread.sleep(60);
+        slow.onSuccess(BASE);
+        assertEquals(4, limiter.getLimit("chat"));
+    }
+
+    @Test
+    void throwingHandlerLeavesTheLimitAlone() throws Exception {
+        ConcurrencyLimiter limiter = warmedUp();
+        int before = limiter.getLimit("chat");
+        try (FakeOllamaServer server = FakeOllamaServer.start()) {
+            server.on("/api/chat", (body, out) -> {
+                out.line(FakeOllamaServer.chatChunk("t", false));
+                out.line(FakeOllamaServer.chatChunk("", true));
+            });
+            OllamaClient client = OllamaClient.builder()
+                .baseUrl(server.url())
+                .concurrencyLimiter(limiter)
+                .build();
+
+            assertThrows(IllegalStateException.class,
+                () -> client.chatStreamWhile(request(), chunk -> {
+                    throw new IllegalStateException("bug");
+                }));
+
+            assertEquals(before, limiter.getLimit("chat"));
+            assertEquals(Map.of(RequestMetrics.LOCAL_ERROR, 1L),
+                client.getMetrics().forRequest("chat", "m")
+                    .getErrorsByStatus());
+        }
+    }
+
+    @Test
+    void refusedConnectionCutsTheLimit() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        ConcurrencyLimiter limiter = warmedUp();
+        int before = limiter.getLimit("chat");
+        OllamaClient client = OllamaClient.builder()
+            .baseUrl("http://localhost:" + closedPort)
+            .concurrencyLimiter(limiter)
+            .build();
+
+        assertThrows(OllamaException.class,
+            () -> client.chatStreamWhile(request(), chunk -> true));
+
+        assertEquals((int) (before * 0.9), limiter.getLimit("chat"), 1);
+        assertEquals(Map.of(RequestMetrics.TRANSPORT_ERROR, 1L),
+            client.getMetrics().forRequest("chat", "m")
+                .getErrorsByStatus());
+    }
+
+    private static ChatRequest request() {
+        return ChatBuilder.create("m").addUserMessage("hi").build();
+    }
+
+    /**
+     * Creates a limiter past its first baseline probe.
+     */
+    private static ConcurrencyLimiter warmedUp() {
+        ConcurrencyLimiter limiter = limiter(Duration.ofHours(1));
+        for (int i = 0; i < 200; i++) {
+            round(limiter, 8);
+        }
+        return limiter;
+    }
+
+    private static ConcurrencyLimiter limiter(Duration probeInterval) {
+        return ConcurrencyLimiter.builder()
+            .initialLimit(4)
+            .limits(1, 64)
+            .probeInterval(probeInterval)
+            .build();
+    }
+
+    /**
+     * Fills the endpoint up to its limit and completes every
+     * request with the latency the simulated server would give.
+     */
+    private static void round(ConcurrencyLimiter limiter, int capacity) {
+        List<ConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        ConcurrencyLimiter.Permit permit;
+        while ((permit = limiter.tryAcquire("chat")) != null) {
+            permits.add(permit);
+        }
+        // Requests past the capacity wait for a whole generation
+        long latency = BASE * ((permits.size() + capacity - 1) / capacity);
+        for (ConcurrencyLimiter.Permit taken : permits) {
+            taken.onSuccess(latency);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.ollama.api.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ollama.api.OllamaClient;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.util.ChatBuilder;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+
+    @Test
+    void admitsOnlyWhenTenantAndModelAllow() {
+        RateLimiter limiter = new RateLimiter();
+        limiter.setModelLimit("m", RateLimit.requests(0.001, 2));
+        limiter.setTenantLimit("a", RateLimit.requests(0.001, 1));
+
+        assertTrue(limiter.tryAcquire("a", "m"));
+        assertFalse(limiter.tryAcquire("a", "m"));
+        assertTrue(limiter.tryAcquire("b", "m"));
+        assertFalse(limiter.tryAcquire("b", "m"));
+
+        limiter.release("a", "m");
+        assertTrue(limiter.tryAcquire("a", "m"));
+    }
+
+    @Test
+    void chargedTokensPutTenantInDebt() {
+        RateLimiter limiter = new RateLimiter();
+        limiter.setTenantLimit("a", RateLimit.tokens(0.001, 100));
+
+        limiter.charge("a", "m", 150);
+
+        assertEquals(-50, limiter.getTokenBalance("a"), 0.01);
+        assertFalse(limiter.tryAcquire("a", "m"));
+    }
+
+    @Test
+    void dropsRefilledDefaultBuckets() throws Exception {
+        RateLimiter limiter = new RateLimiter();
+        limiter.setDefaultTenantLimit(
+            new RateLimit(1000, 1, 0.001, 10));
+        limiter.setTenantLimit("own", RateLimit.requests(1000, 1));
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire("tenant-" + i, "m"));
+        }
+        limiter.charge("debtor", "m", 50);
+        assertEquals(102, limiter.getTenantBucketCount());
+
+        Thread.sleep(1100);
+        limiter.tryAcquire("late", "m");
+
+        // The debtor's bucket is not full, so dropping it would
+        // forgive the debt
+        assertEquals(3, limiter.getTenantBucketCount());
+        assertTrue(limiter.getTokenBalance("debtor") < 0);
+    }
+
+    @Test
+    void cancellingAsyncChatGivesBackItsPermit() throws Exception {
+        RateLimiter limiter = new RateLimiter();
+        limiter.setModelLimit("m", RateLimit.requests(1, 1));
+        RateLimitedClient client = new RateLimitedClient(
+            new OllamaClient("http://localhost:1"), limiter);
+        assertTrue(limiter.tryAcquire(null, "m"));
+
+        CompletableFuture<ChatResponse> future = client.chatAsync(
+            ChatBuilder.create("m").addUserMessage("hi").build());
+        assertTrue(future.cancel(true));
+
+        // The waiter would have taken the refilled permit at about
+        // one second; the next one only comes a second later
+        Thread.sleep(1300);
+        assertTrue(limiter.tryAcquire(null, "m"));
+    }
+}
@@ -0,0 +1,171 @@
+package com.ollama.api.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ollama.api.FakeOllamaServer;
+import com.ollama.api.OllamaClient;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.util.ChatBuilder;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SessionRouterTest {
+
+    private final List<FakeOllamaServer> servers = new ArrayList<>();
+
+    @AfterEach
+    void stopServers() {
+        servers.forEach(FakeOllamaServer::close);
+    }
+
+    @Test
+    void spreadsSessionsEvenly() {
+        SessionRouter.Builder builder = SessionRouter.builder();
+        for (String name : List.of("a", "b", "c", "d")) {
+            builder.node(name, new OllamaClient("http://localhost:1"));
+        }
+        SessionRouter router = builder.build();
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            counts.merge(router.getHomeNode("session-" + i), 1,
+                Integer::sum);
+        }
+        assertEquals(4, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > 2000 && count < 3000, counts.toString());
+        }
+    }
+
+    @Test
+    void movesOnlyTheSessionsOfADownNode() throws Exception {
+        SessionRouter router = router("a", "b", "c");
+        router.markDown("b");
+
+        for (int i = 0; i < 60; i++) {
+            String session = "session-" + i;
+            String served = router.chat(session, request())
+                .getMessage().getContent();
+            String home = router.getHomeNode(session);
+            if (home.equals("b")) {
+                assertNotEquals("b", served);
+            } else {
+                assertEquals(home, served);
+            }
+        }
+
+        router.markUp("b");
+        for (int i = 0; i < 60; i++) {
+            String session = "session-" + i;
+            assertEquals(router.getHomeNode(session),
+                router.chat(session, request()).getMessage().getContent());
+        }
+    }
+
+    @Test
+    void failsOverWhenANodeRefusesConnections() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        FakeOllamaServer live = FakeOllamaServer.start().chat("live");
+        servers.add(live);
+        SessionRouter router = SessionRouter.builder()
+            .node("dead", new OllamaClient("http://localhost:" + closedPort))
+            .node("live", new OllamaClient(live.url()))
+            .build();
+        String session = session(router, "dead");
+
+        assertEquals("live",
+            router.chat(session, request()).getMessage().getContent());
+        assertEquals(1, router.getStats().failovers());
+        assertFalse(router.getNodes().get(0).up());
+    }
+
+    @Test
+    void spillsABusySessionToTheNextNode() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        SessionRouter.Builder builder = SessionRouter.builder();
+        for (String name : List.of("a", "b")) {
+            FakeOllamaServer server = FakeOllamaServer.start();
+            server.on("/api/chat", (body, out) -> {
+                release.await(10, TimeUnit.SECONDS);
+                out.line(FakeOllamaServer.chatChunk(name, true));
+            });
+            servers.add(server);
+            builder.node(name, new OllamaClient(server.url()));
+        }
+        SessionRouter router = builder.loadFactor(1.25).build();
+        String session = session(router, "a");
+
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            callers.add(Thread.ofVirtual().start(() -> {
+                try {
+                    router.chat(session, request());
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            }));
+            int sent = i + 1;
+            await(() -> received() == sent);
+        }
+
+        // Bounds of ceil(1.25 * (inFlight + 1) / 2): 1, 2, 2, 3
+        assertEquals(3, servers.get(0).bodies().size());
+        assertEquals(1, servers.get(1).bodies().size());
+        release.countDown();
+        for (Thread caller : callers) {
+            caller.join();
+        }
+        assertEquals(4, router.getStats().requests());
+    }
+
+    private SessionRouter router(String... names) throws Exception {
+        SessionRouter.Builder builder = SessionRouter.builder();
+        for (String name : names) {
+            FakeOllamaServer server = FakeOllamaServer.start().chat(name);
+            servers.add(server);
+            builder.node(name, new OllamaClient(server.url()));
+        }
+        return builder.build();
+    }
+
+    private static String session(SessionRouter router, String node) {
+        for (int i = 0; ; i++) {
+            if (router.getHomeNode("session-" + i).equals(node)) {
+                return "session-" + i;
+            }
+        }
+    }
+
+    private int received() {
+        return servers.stream().mapToInt(s -> s.bodies().size()).sum();
+    }
+
+    private static ChatRequest request() {
+        return ChatBuilder.create("m").addUserMessage("hi").build();
+    }
+
+    private static void await(BooleanSupplier condition)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new AssertionError("Condition not met in time");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.ollama.api.usage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.ollama.api.FakeOllamaServer;
+import com.ollama.api.OllamaClient;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.exception.QuotaExceededException;
+import com.ollama.api.util.ChatBuilder;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class UsageLedgerTest {
+
+    @Test
+    void chargesChunksOfCancelledStream() throws Exception {
+        UsageLedger ledger = new UsageLedger();
+        try (FakeOllamaServer server = FakeOllamaServer.start()) {
+            server.on("/api/chat", (body, out) -> {
+                for (int i = 0; i < 10; i++) {
+                    out.line(FakeOllamaServer.chatChunk("t", false));
+                }
+                out.line(FakeOllamaServer.chatChunk("", true));
+            });
+            OllamaClient client = OllamaClient.builder()
+                .baseUrl(server.url())
+                .usageLedger(ledger)
+                .build();
+
+            AtomicInteger seen = new AtomicInteger();
+            client.chatStreamWhile(request("acme"),
+                chunk -> seen.incrementAndGet() < 3);
+
+            Usage usage = only(ledger);
+            assertEquals("acme", usage.tenant());
+            assertEquals(1, usage.requests());
+            assertEquals(3, usage.completionTokens());
+            assertEquals(0, usage.promptTokens());
+        }
+    }
+
+    @Test
+    void chargesServerCountsOfCompletedStream() throws Exception {
+        UsageLedger ledger = new UsageLedger();
+        try (FakeOllamaServer server = FakeOllamaServer.start()) {
+            server.on("/api/chat", (body, out) -> {
+                for (int i = 0; i < 5; i++) {
+                    out.line(FakeOllamaServer.chatChunk("t", false));
+                }
+                out.line("{\"model\":\"m\",\"message\":{\"role\":"
+                    + "\"assistant\",\"content\":\"\"},\"done\":true,"
+                    + "\"prompt_eval_count\":7,\"eval_count\":5,"
+                    + "\"eval_duration\":1000}");
+            });
+            OllamaClient client = OllamaClient.builder()
+                .baseUrl(server.url())
+                .usageLedger(ledger)
+                .build();
+
+            client.chatStreamWhile(request(null), chunk -> true);
+
+            Usage usage = only(ledger);
+            assertEquals(UsageLedger.DEFAULT_TENANT, usage.tenant());
+            assertEquals(7, usage.promptTokens());
+            assertEquals(5, usage.completionTokens());
+            assertEquals(1000, usage.computeNanos());
+        }
+    }
+
+    @Test
+    void enforcesHardQuota() throws Exception {
+        UsageLedger ledger = new UsageLedger();
+        ledger.setQuota("acme", new Quota(0, 10, null));
+        ledger.checkQuota("acme");
+        ledger.record("acme", "m", 4, 6, 0);
+
+        assertEquals(10, ledger.getQuotaUsage("acme"));
+        assertThrows(QuotaExceededException.class,
+            () -> ledger.checkQuota("acme"));
+        ledger.checkQuota("other");
+    }
+
+    private static ChatRequest request(String tenant) {
+        return ChatBuilder.create("m")
+            .addUserMessage("hi")
+            .tenant(tenant)
+            .build();
+    }
+
+    private static Usage only(UsageLedger ledger) {
+        List<Usage> usage = ledger.snapshot();
+        assertEquals(1, usage.size());
+        return usage.get(0);
+    }
+}
@@ -0,0 +1,234 @@
+package com.ollama.api.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ollama.api.FakeOllamaServer;
+import com.ollama.api.OllamaClient;
+import com.ollama.api.StreamCancellation;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.dto.Message;
+import com.ollama.api.exception.OllamaException;
+import com.ollama.api.util.BroadcastStream.OverflowPolicy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class BroadcastStreamTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(5);
+
+    @Test
+    void fansOutOneGenerationToEverySubscriber() throws Exception {
+        try (FakeOllamaServer server = FakeOllamaServer.start()) {
+            CountDownLatch subscribed = new CountDownLatch(1);
+            server.on("/api/chat", (body, out) -> {
+                try {
+                    subscribed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (String part : List.of("one ", "two ", "three")) {
+                    out.line(FakeOllamaServer.chatChunk(part, false));
+                }
+                out.line(FakeOllamaServer.chatChunk("", true));
+            });
+            OllamaClient client = new OllamaClient(server.url());
+
+            BroadcastStream stream = BroadcastStream.start(client,
+                request(), 16, OverflowPolicy.DISCONNECT);
+            Recorder first = new Recorder();
+            Recorder second = new Recorder();
+            BroadcastStream.Subscription a = stream.subscribe(first);
+            BroadcastStream.Subscription b = stream.subscribe(second);
+            subscribed.countDown();
+
+            assertEquals("one two three",
+                stream.await().getMessage().getContent());
+            assertTrue(a.await(WAIT));
+            assertTrue(b.await(WAIT));
+            assertEquals("one two three", first.text.toString());
+            assertEquals("one two three", second.text.toString());
+            assertTrue(first.completed);
+            assertTrue(second.completed);
+            assertEquals(1, server.bodies().size());
+        }
+    }
+
+    @Test
+    void lateSubscriberReceivesTheWholeAnswer() throws Exception {
+        try (FakeOllamaServer server = FakeOllamaServer.start()) {
+            server.on("/api/chat", (body, out) -> {
+                out.line(FakeOllamaServer.chatChunk("Hello ", false));
+                out.line(FakeOllamaServer.chatChunk("there", true));
+            });
+            BroadcastStream stream = BroadcastStream.start(
+                new OllamaClient(server.url()), request(), 4,
+                OverflowPolicy.DROP);
+            stream.await();
+
+            Recorder late = new Recorder();
+            assertTrue(stream.subscribe(late).await(WAIT));
+            assertEquals(1, late.chunks);
+            assertEquals("Hello there", late.text.toString());
+            assertTrue(late.completed);
+        }
+    }
+
+    @Test
+    void errorInUpstreamStillTerminatesSubscribers() throws Exception {
+        CountDownLatch subscribed = new CountDownLatch(1);
+        AssertionError boom = new AssertionError("boom");
+        OllamaClient client = new OllamaClient("http://localhost:1") {
+            @Override
+            public void chatStreamWhile(ChatRequest request,
+                    Predicate<ChatResponse> handler,
+                    StreamCancellation cancellation) {
+                try {
+                    subscribed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                ChatResponse chunk = new ChatResponse();
+                chunk.setMessage(new Message("assistant", "partial"));
+                handler.test(chunk);
+                throw boom;
+            }
+        };
+
+        BroadcastStream stream = BroadcastStream.start(client,
+            request(), 4, OverflowPolicy.DROP);
+        Recorder recorder = new Recorder();
+        BroadcastStream.Subscription subscription =
+            stream.subscribe(recorder);
+        subscribed.countDown();
+
+        assertTrue(subscription.await(WAIT));
+        assertSame(boom, recorder.error.get());
+        assertEquals("partial", recorder.text.toString());
+        OllamaException failure =
+            assertThrows(OllamaException.class, stream::await);
+        assertSame(boom, failure.getCause());
+        assertTrue(stream.isDone());
+    }
+
+    @Test
+    void slowSubscriberIsDisconnectedWithoutStallingOthers()
+            throws Exception {
+        try (FakeOllamaServer server = FakeOllamaServer.start()) {
+            CountDownLatch subscribed = new CountDownLatch(1);
+            server.on("/api/chat", (body, out) -> {
+                try {
+                    subscribed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < 50; i++) {
+                    out.line(FakeOllamaServer.chatChunk("x", false));
+                }
+                out.line(FakeOllamaServer.chatChunk("", true));
+            });
+            BroadcastStream stream = BroadcastStream.start(
+                new OllamaClient(server.url()), request(), 2,
+                OverflowPolicy.DISCONNECT);
+            CountDownLatch release = new CountDownLatch(1);
+            Recorder slow = new Recorder() {
+                @Override
+                public void onChunk(ChatResponse chunk) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    super.onChunk(chunk);
+                }
+            };
+            Recorder fast = new Recorder();
+            BroadcastStream.Subscription slowSub =
+                stream.subscribe(slow);
+            BroadcastStream.Subscription fastSub =
+                stream.subscribe(fast, OverflowPolicy.COALESCE);
+            subscribed.countDown();
+
+            stream.await();
+            release.countDown();
+            assertTrue(slowSub.await(WAIT));
+            assertTrue(fastSub.await(WAIT));
+            assertInstanceOf(IllegalStateException.class,
+                slow.error.get());
+            assertEquals("x".repeat(50), fast.text.toString());
+            assertNull(fast.error.get());
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    void closeAbortsAStalledUpstreamAtOnce() throws Exception {
+        try (FakeOllamaServer server = FakeOllamaServer.start()) {
+            CountDownLatch release = new CountDownLatch(1);
+            server.on("/api/chat", (body, out) -> {
+                out.line(FakeOllamaServer.chatChunk("first", false));
+                release.await();
+                out.line(FakeOllamaServer.chatChunk("late", true));
+            });
+            BroadcastStream stream = BroadcastStream.start(
+                new OllamaClient(server.url()), request(), 4,
+                OverflowPolicy.DROP);
+            Recorder recorder = new Recorder();
+            BroadcastStream.Subscription subscription =
+                stream.subscribe(recorder);
+            while (stream.getChunks() == 0) {
+                Thread.sleep(5);
+            }
+
+            // The upstream is waiting for a chunk that never comes
+            stream.close();
+
+            assertEquals("first", stream.await().getMessage().getContent());
+            assertTrue(subscription.await(WAIT));
+            assertTrue(recorder.completed);
+            assertEquals("first", recorder.text.toString());
+            release.countDown();
+        }
+    }
+
+    private static ChatRequest request() {
+        return ChatBuilder.create("m").addUserMessage("hi").build();
+    }
+
+    private static class Recorder implements BroadcastStream.Listener {
+
+        final StringBuilder text = new StringBuilder();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        volatile boolean completed;
+        volatile int chunks;
+
+        @Override
+        public void onChunk(ChatResponse chunk) {
+            chunks++;
+            if (chunk.getMessage() != null
+                    && chunk.getMessage().getContent() != null) {
+                text.append(chunk.getMessage().getContent());
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        @Override
+        public void onError(Throwable cause) {
+            error.set(cause);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.ollama.api.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.ChatResponse;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks estimation accuracy against a simulated server whose
+ * true token counts are a fixed multiple of the heuristic's.
+ */
+class CalibratedTokenEstimatorTest {
+
+    private static final double TRUE_FACTOR = 1.3;
+
+    private final TokenEstimator base = HeuristicTokenEstimator.DEFAULT;
+    private final CalibratedTokenEstimator estimator =
+        new CalibratedTokenEstimator(model -> base);
+    private final Random random = new Random(42);
+
+    @Test
+    void convergesToTheServerCount() {
+        double worstLateError = 0;
+        for (int i = 0; i < 100; i++) {
+            ChatRequest request = request(200 + random.nextInt(2000));
+            int truth = trueCount(request, 0.05);
+            if (i >= 50) {
+                worstLateError = Math.max(worstLateError,
+                    Math.abs(estimator.estimate(request) - truth)
+                        / (double) truth);
+            }
+            estimator.observe(request, response(truth));
+        }
+        assertEquals(TRUE_FACTOR, estimator.getCorrection("m"), 0.03);
+        // Bounded by the 5% sample noise plus the residual error
+        assertTrue(worstLateError < 0.08, "error " + worstLateError);
+    }
+
+    @Test
+    void calibratesAFactorOutsideTheOutlierBounds() {
+        // Every ratio is three times the starting factor, past the
+        // bound that rejects cached-prefix samples
+        for (int i = 0; i < 20; i++) {
+            ChatRequest request = request(200 + random.nextInt(2000));
+            assertTrue(estimator.observe(request,
+                response(trueCount(request, 3.0, 0.05))));
+        }
+        assertEquals(3.0, estimator.getCorrection("m"), 0.1);
+    }
+
+    @Test
+    void outvotesACachedPrefixFirstSample() {
+        ChatRequest request = request(1000);
+        estimator.observe(request, response(trueCount(request, 0) / 10));
+        for (int i = 0; i < 20; i++) {
+            estimator.observe(request, response(trueCount(request, 0)));
+        }
+        assertEquals(TRUE_FACTOR, estimator.getCorrection("m"), 0.01);
+    }
+
+    @Test
+    void ignoresCachedPrefixSamples() {
+        for (int i = 0; i < 20; i++) {
+            ChatRequest request = request(1000);
+            estimator.observe(request, response(trueCount(request, 0)));
+        }
+        double factor = estimator.getCorrection("m");
+
+        ChatRequest request = request(1000);
+        assertFalse(estimator.observe(request,
+            response(trueCount(request, 0) / 10)));
+        assertEquals(factor, estimator.getCorrection("m"));
+    }
+
+    @Test
+    void ignoresTinySamples() {
+        ChatRequest request = request(10);
+        assertFalse(estimator.observe(request, response(12)));
+        assertEquals(1.0, estimator.getCorrection("m"));
+    }
+
+    @Test
+    void keepsModelsApart() {
+        ChatRequest request = request(1000);
+        estimator.observe(request, response(trueCount(request, 0)));
+        assertEquals(TRUE_FACTOR, estimator.getCorrection("m"), 0.01);
+        assertEquals(1.0, estimator.getCorrection("other"));
+    }
+
+    private ChatRequest request(int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append(i % 7 == 0 ? "tokenization " : "word ");
+        }
+        return ChatBuilder.create("m")
+            .addUserMessage(text.toString())
+            .build();
+    }
+
+    private int trueCount(ChatRequest request, double noise) {
+        return trueCount(request, TRUE_FACTOR, noise);
+    }
+
+    private int trueCount(ChatRequest request, double factor,
+            double noise) {
+        double jitter = 1 + noise * (2 * random.nextDouble() - 1);
+        return (int) Math.round(base.estimate(request) * factor
+            * jitter);
+    }
+
+    private static ChatResponse response(int promptEvalCount) {
+        ChatResponse response = new ChatResponse();
+        response.setPromptEvalCount(promptEvalCount);
+        return response;
+    }
+}
@@ -0,0 +1,128 @@
+package com.ollama.api.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ollama.api.dto.Message;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Each new session takes a 256-byte buffer, so a budget of 600
+ * bytes holds two small sessions and spills the oldest when a
+ * third one is added.
+ */
+class CompactSessionStoreTest {
+
+    private static final List<Message> HISTORY = List.of(
+        Message.system("Be brief."),
+        Message.user("Où est la gare ?"),
+        Message.assistant("Tout droit."),
+        new Message("tool", "{\"ok\":true}"),
+        new Message("assistant", null));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void spilledSessionLoadsBackUnchanged() throws Exception {
+        CompactSessionStore store = new CompactSessionStore(
+            directory, 600);
+        HISTORY.forEach(message -> store.append("a", message));
+        store.append("b", Message.user("hi"));
+        store.append("c", Message.user("hi"));
+
+        assertEquals(1, store.getSpills());
+        assertEquals(1, spillFiles().size());
+        assertEquals(512, store.getResidentBytes());
+
+        assertEquals(render(HISTORY),
+            render(store.messages("a").orElseThrow()));
+        assertEquals(1, store.getLoads());
+        // Loading "a" spilled "b", the least recently used one
+        assertEquals(2, store.getSpills());
+        assertEquals(1, spillFiles().size());
+
+        store.append("a", Message.user("more"));
+        List<Message> messages = store.messages("a").orElseThrow();
+        assertEquals(6, messages.size());
+        assertEquals("more", messages.get(5).getContent());
+    }
+
+    @Test
+    void removeDeletesTheSpillFile() throws Exception {
+        CompactSessionStore store = new CompactSessionStore(
+            directory, 600);
+        store.append("a", Message.user("hi"));
+        store.append("b", Message.user("hi"));
+        store.append("c", Message.user("hi"));
+        assertEquals(1, spillFiles().size());
+
+        assertTrue(store.remove("a"));
+
+        assertEquals(List.of(), spillFiles());
+        assertEquals(2, store.size());
+        assertEquals(512, store.getResidentBytes());
+        assertTrue(store.messages("a").isEmpty());
+        assertFalse(store.remove("a"));
+    }
+
+    @Test
+    void keepsTheActiveSessionResident() throws Exception {
+        CompactSessionStore store = new CompactSessionStore(
+            directory, 100);
+        store.append("a", Message.user("hi"));
+
+        // Over budget, but the only session is the one in use
+        assertEquals(0, store.getSpills());
+        assertEquals(256, store.getResidentBytes());
+
+        store.append("b", Message.user("hi"));
+        assertEquals(1, store.getSpills());
+        assertEquals(256, store.getResidentBytes());
+
+        assertEquals("hi",
+            store.messages("a").orElseThrow().get(0).getContent());
+        assertEquals(2, store.getSpills());
+        assertEquals(256, store.getResidentBytes());
+    }
+
+    @Test
+    void spillsSessionsWithLongIds() throws Exception {
+        CompactSessionStore store = new CompactSessionStore(
+            directory, 600);
+        String longId = "user:" + "x".repeat(1000);
+        store.append(longId, Message.user("hi"));
+        store.append("b", Message.user("hi"));
+        store.append("c", Message.user("hi"));
+
+        assertEquals(1, store.getSpills());
+        assertEquals(1, spillFiles().size());
+
+        assertEquals("hi",
+            store.messages(longId).orElseThrow().get(0).getContent());
+        assertEquals(1, store.getLoads());
+        assertTrue(store.remove("b"));
+        assertTrue(store.remove(longId));
+        assertEquals(List.of(), spillFiles());
+    }
+
+    private List<Path> spillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+
+    private static List<String> render(List<Message> messages) {
+        return messages.stream()
+            .map(message -> message.getRole() + ":"
+                + message.getContent())
+            .toList();
+    }
+}
@@ -0,0 +1,79 @@
+package com.ollama.api.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ollama.api.FakeOllamaServer;
+import com.ollama.api.OllamaClient;
+import com.ollama.api.dto.GenerateRequest;
+import com.ollama.api.dto.GenerateResponse;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ContextTokensTest {
+
+    private static final int[] TOKENS = {
+        0, 1, 127, 128, 16_383, 16_384, 151_935, -1,
+        Integer.MIN_VALUE, Integer.MAX_VALUE};
+
+    @Test
+    void roundTripsZeroNegativeAndLargeIds() {
+        assertArrayEquals(TOKENS,
+            ContextTokens.decode(ContextTokens.encode(TOKENS)));
+        assertArrayEquals(TOKENS,
+            ContextTokens.fromBase64(ContextTokens.toBase64(TOKENS)));
+        assertArrayEquals(new int[0],
+            ContextTokens.decode(ContextTokens.encode(new int[0])));
+    }
+
+    @Test
+    void storesSmallIdsCompactly() {
+        int[] tokens = new int[1000];
+        Arrays.fill(tokens, 151_935);
+
+        // Version byte, a two-byte count, three bytes per token
+        assertEquals(1 + 2 + 3000, ContextTokens.encode(tokens).length);
+    }
+
+    @Test
+    void rejectsMalformedData() {
+        byte[] data = ContextTokens.encode(TOKENS);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> ContextTokens.decode(new byte[0]));
+        assertThrows(IllegalArgumentException.class,
+            () -> ContextTokens.decode(new byte[] {2, 0}));
+        assertThrows(IllegalArgumentException.class,
+            () -> ContextTokens.decode(
+                Arrays.copyOf(data, data.length - 1)));
+    }
+
+    @Test
+    void generateSendsTheStoredContextBackUnchanged() throws Exception {
+        String context = Arrays.toString(TOKENS).replace(" ", "");
+        try (FakeOllamaServer server = FakeOllamaServer.start()) {
+            server.on("/api/generate", (body, out) -> out.line(
+                "{\"model\":\"m\",\"response\":\"ok\",\"done\":true,"
+                    + "\"context\":" + context + "}"));
+            OllamaClient client = new OllamaClient(server.url());
+
+            GenerateResponse first = client.generate(
+                GenerateRequest.builder("m").prompt("hi").build());
+            assertArrayEquals(TOKENS, first.getContext());
+            String stored = ContextTokens.toBase64(first.getContext());
+
+            client.generate(GenerateRequest.builder("m")
+                .prompt("more")
+                .context(ContextTokens.fromBase64(stored))
+                .build());
+
+            List<String> bodies = server.bodies();
+            assertEquals(2, bodies.size());
+            assertTrue(bodies.get(1).contains(
+                "\"context\":" + context), bodies.get(1));
+        }
+    }
+}
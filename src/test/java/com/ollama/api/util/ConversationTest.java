@@ -0,0 +1,161 @@
+package com.ollama.api.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.ollama.api.FakeOllamaServer;
+import com.ollama.api.OllamaClient;
+import com.ollama.api.dto.ChatRequest;
+import com.ollama.api.dto.ChatResponse;
+import com.ollama.api.dto.Message;
+import com.ollama.api.exception.OllamaException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Uses an estimator that counts one token per character and no
+ * template overhead, and replies of ten characters, so each turn
+ * of a ten-character question costs 20 tokens.
+ */
+class ConversationTest {
+
+    private static final TokenEstimator CHARS = new TokenEstimator() {
+        @Override
+        public int estimate(CharSequence text) {
+            return text == null ? 0 : text.length();
+        }
+
+        @Override
+        public int messageOverhead() {
+            return 0;
+        }
+    };
+
+    private final List<List<Message>> summarized = new ArrayList<>();
+    private FakeOllamaServer server;
+    private boolean failing;
+    private OllamaClient client;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = FakeOllamaServer.start().chat("rrrrrrrrrr");
+        client = new OllamaClient(server.url()) {
+            @Override
+            public ChatResponse chat(ChatRequest request)
+                    throws OllamaException {
+                if (failing) {
+                    throw new OllamaException("down");
+                }
+                return super.chat(request);
+            }
+        };
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void evictsWholeTurnsOnlyAsFarAsNeeded() throws Exception {
+        Conversation conversation = conversation();
+        for (int i = 1; i <= 6; i++) {
+            conversation.send(question(i));
+        }
+        // The sixth question made 110 tokens: one turn went
+        assertEquals(2, conversation.getEvictedMessages());
+        assertEquals(List.of("user", "assistant"),
+            roles(summarized.get(0)));
+
+        conversation.send(question(7));
+        // The old summary is being replaced, so it does not count
+        // while evicting: again one turn is enough
+        assertEquals(4, conversation.getEvictedMessages());
+        assertEquals(List.of("system", "user", "assistant"),
+            roles(summarized.get(1)));
+        List<Message> messages = conversation.getMessages();
+        assertEquals("system", messages.get(0).getRole());
+        assertEquals("user", messages.get(1).getRole());
+        assertEquals(question(3), messages.get(1).getContent());
+    }
+
+    @Test
+    void failedSummaryKeepsTheHistory() throws Exception {
+        Conversation conversation = conversation();
+        for (int i = 1; i <= 5; i++) {
+            conversation.send(question(i));
+        }
+        List<String> before = contents(conversation.getMessages());
+        conversation.summarizer(evicted -> {
+            throw new OllamaException("summarizer down");
+        });
+
+        assertThrows(OllamaException.class,
+            () -> conversation.send(question(6)));
+
+        assertEquals(before, contents(conversation.getMessages()));
+        assertEquals(100, conversation.getPromptTokens());
+        assertEquals(0, conversation.getEvictedMessages());
+    }
+
+    @Test
+    void failedRequestKeepsTheHistoryAndSummary() throws Exception {
+        Conversation conversation = conversation();
+        for (int i = 1; i <= 6; i++) {
+            conversation.send(question(i));
+        }
+        List<String> before = contents(conversation.getMessages());
+        int tokens = conversation.getPromptTokens();
+        failing = true;
+
+        assertThrows(OllamaException.class,
+            () -> conversation.send(question(7)));
+
+        assertEquals(before, contents(conversation.getMessages()));
+        assertEquals(tokens, conversation.getPromptTokens());
+        assertEquals(2, conversation.getEvictedMessages());
+
+        failing = false;
+        conversation.send(question(7));
+        assertEquals(4, conversation.getEvictedMessages());
+    }
+
+    @Test
+    void modelSummarizerFailsOnAResponseWithoutMessage()
+            throws Exception {
+        try (FakeOllamaServer empty = FakeOllamaServer.start()) {
+            empty.on("/api/chat", (body, out) ->
+                out.line("{\"model\":\"m\",\"done\":true}"));
+            Conversation.Summarizer summarizer =
+                Conversation.modelSummarizer(
+                    new OllamaClient(empty.url()), "m");
+
+            assertThrows(OllamaException.class,
+                () -> summarizer.summarize(
+                    List.of(Message.user("hi"))));
+        }
+    }
+
+    private Conversation conversation() {
+        return new Conversation(client, "m", 100, CHARS)
+            .summarizer(evicted -> {
+                summarized.add(List.copyOf(evicted));
+                return "s";
+            });
+    }
+
+    private static String question(int i) {
+        return String.format("question%02d", i);
+    }
+
+    private static List<String> roles(List<Message> messages) {
+        return messages.stream().map(Message::getRole).toList();
+    }
+
+    private static List<String> contents(List<Message> messages) {
+        return messages.stream().map(Message::getContent).toList();
+    }
+}
@@ -0,0 +1,138 @@
+package com.ollama.api.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ollama.api.util.SpscRingBuffer.WaitStrategy;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class SpscRingBufferTest {
+
+    @Test
+    void roundsCapacityUpToPowerOfTwo() {
+        assertEquals(8, new SpscRingBuffer<>(5, WaitStrategy.PARK).capacity());
+        assertEquals(1, new SpscRingBuffer<>(1, WaitStrategy.PARK).capacity());
+        assertThrows(IllegalArgumentException.class,
+            () -> new SpscRingBuffer<>(0, WaitStrategy.PARK));
+    }
+
+    @Test
+    void reportsFullAndEmpty() {
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(4, WaitStrategy.PARK);
+        assertNull(ring.poll());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+        assertEquals(4, ring.size());
+        assertEquals(0, ring.poll());
+        assertTrue(ring.offer(4));
+        assertFalse(ring.offer(5));
+    }
+
+    @Test
+    void wrapsAroundManyTimesInOrder() {
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(4, WaitStrategy.PARK);
+        int next = 0;
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(ring.offer(i));
+            if (i >= 2) {
+                // Keep the queue partly filled across the wrap
+                assertEquals(next++, ring.poll());
+            }
+        }
+        Integer value;
+        while ((value = ring.poll()) != null) {
+            assertEquals(next++, value);
+        }
+        assertEquals(1000, next);
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    void rejectsNull() {
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(4, WaitStrategy.PARK);
+        assertThrows(NullPointerException.class, () -> ring.offer(null));
+    }
+
+    @Test
+    void drainsAfterCloseThenReturnsNull() throws Exception {
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(4, WaitStrategy.PARK);
+        ring.offer(1);
+        ring.offer(2);
+        ring.close();
+        assertFalse(ring.offer(3));
+        assertFalse(ring.put(3));
+        assertEquals(1, ring.take());
+        assertEquals(2, ring.take());
+        assertNull(ring.take());
+    }
+
+    @Test
+    @Timeout(10)
+    void closeWakesParkedConsumer() throws Exception {
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(4, WaitStrategy.PARK);
+        AtomicReference<Object> result = new AtomicReference<>("unset");
+        Thread consumer = Thread.ofVirtual().start(() -> {
+            try {
+                result.set(ring.take());
+            } catch (InterruptedException e) {
+                result.set(e);
+            }
+        });
+        Thread.sleep(50);
+        ring.close();
+        consumer.join();
+        assertNull(result.get());
+        assertEquals(1, ring.getConsumerWaits());
+    }
+
+    @ParameterizedTest
+    @EnumSource(WaitStrategy.class)
+    @Timeout(30)
+    void transfersInOrderBetweenThreads(WaitStrategy strategy)
+            throws Exception {
+        int count = 200_000;
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(16, strategy);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicInteger received = new AtomicInteger();
+        // Both sides on virtual threads: a spinning side must not
+        // hold the only carrier the other side could run on
+        Thread producer = Thread.ofVirtual().start(() -> {
+            try {
+                for (int i = 0; i < count; i++) {
+                    ring.put(i);
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            } finally {
+                ring.close();
+            }
+        });
+        Thread consumer = Thread.ofVirtual().start(() -> {
+            try {
+                Integer value;
+                while ((value = ring.take()) != null) {
+                    if (value != received.getAndIncrement()) {
+                        throw new AssertionError("out of order " + value);
+                    }
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        producer.join();
+        consumer.join();
+        assertNull(failure.get());
+        assertEquals(count, received.get());
+        assertTrue(ring.getMaxDepth() <= ring.capacity());
+    }
+}
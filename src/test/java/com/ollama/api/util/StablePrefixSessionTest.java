@@ -0,0 +1,90 @@
+package com.ollama.api.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ollama.api.FakeOllamaServer;
+import com.ollama.api.OllamaClient;
+import com.ollama.api.dto.Options;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StablePrefixSessionTest {
+
+    // A reply with CRLF line endings and a decomposed "é", which
+    // canonicalization would both rewrite
+    private static final String REPLY = "line\\r\\ncafe\\u0301";
+
+    private FakeOllamaServer server;
+    private StablePrefixSession session;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = FakeOllamaServer.start();
+        server.on("/api/chat", (body, out) -> out.line(
+            "{\"model\":\"m\",\"message\":{\"role\":\"assistant\","
+                + "\"content\":\"" + REPLY + "\"},\"done\":true}"));
+        session = new StablePrefixSession(
+            new OllamaClient(server.url()), "m");
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void resendsTheReplyExactlyAsGenerated() throws Exception {
+        session.system("Be brief.");
+        session.send("first");
+        session.send("second");
+
+        List<String> bodies = server.bodies();
+        String first = messagesOf(bodies.get(0));
+        String second = messagesOf(bodies.get(1));
+        // The first prompt is a byte prefix of the second one
+        assertTrue(second.startsWith(first.substring(0,
+            first.length() - 1)), second);
+        assertTrue(second.contains("line\\r\\ncafe"), second);
+        assertEquals("line\r\ncafé",
+            session.getMessages().get(2).getContent());
+        assertEquals(-1,
+            session.findDivergence(session.getMessages()));
+        assertTrue(session.getTurnStats().get(1).prefixReused());
+        assertEquals(0, session.getInvalidations());
+    }
+
+    @Test
+    void countsOptionChangesOnlyWhenPassedAgain() throws Exception {
+        Options options = Options.builder().numCtx(4096).build();
+        session.options(options);
+        session.send("first");
+
+        // Changing the caller's instance does not reach the session
+        options.setNumCtx(8192);
+        session.send("second");
+        assertEquals(0, session.getInvalidations());
+        assertTrue(server.bodies().get(1).contains("4096"));
+
+        session.options(options);
+        session.send("third");
+        assertEquals(1, session.getInvalidations());
+        assertFalse(session.getTurnStats().get(2).prefixReused());
+        assertTrue(server.bodies().get(2).contains("8192"));
+
+        // The same values again keep the prefix
+        session.options(Options.builder().numCtx(8192).build());
+        assertEquals(1, session.getInvalidations());
+    }
+
+    /**
+     * Gets the messages array of a request body.
+     */
+    private static String messagesOf(String body) {
+        int start = body.indexOf("\"messages\":");
+        return body.substring(start, body.indexOf(']', start) + 1);
+    }
+}
@@ -0,0 +1,99 @@
+package com.ollama.api.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class StopSequenceMatcherTest {
+
+    @Test
+    void findsSequenceSpanningChunks() {
+        StopSequenceMatcher.Scanner scanner =
+            StopSequenceMatcher.of("</s>").scanner();
+        assertFalse(scanner.append("Hello <"));
+        assertFalse(scanner.append("/"));
+        assertTrue(scanner.append("s> trailing"));
+        assertEquals("Hello ", scanner.getText());
+        assertEquals("</s>", scanner.getMatch());
+    }
+
+    @Test
+    void holdsBackPossiblePrefix() {
+        StopSequenceMatcher.Scanner scanner =
+            StopSequenceMatcher.of("</s>").scanner();
+        scanner.append("abc</");
+        assertEquals(3, scanner.getSafeLength());
+        assertEquals(5, scanner.length());
+    }
+
+    @Test
+    void releasesPrefixThatDoesNotMatch() {
+        StopSequenceMatcher.Scanner scanner =
+            StopSequenceMatcher.of("</s>").scanner();
+        scanner.append("abc</");
+        scanner.append("x");
+        assertEquals(6, scanner.getSafeLength());
+        assertFalse(scanner.isMatched());
+    }
+
+    @Test
+    void keepsHoldingAcrossRestartedPrefix() {
+        StopSequenceMatcher.Scanner scanner =
+            StopSequenceMatcher.of("aab").scanner();
+        scanner.append("xaa");
+        assertEquals(1, scanner.getSafeLength());
+        scanner.append("a");
+        // "aaa": only the last two can still start "aab"
+        assertEquals(2, scanner.getSafeLength());
+        assertTrue(scanner.append("b"));
+        assertEquals("xa", scanner.getText());
+    }
+
+    @Test
+    void earliestEndingMatchWins() {
+        StopSequenceMatcher.Scanner scanner =
+            StopSequenceMatcher.of("abcd", "bc").scanner();
+        assertTrue(scanner.append("xabcd"));
+        assertEquals("bc", scanner.getMatch());
+        assertEquals("xa", scanner.getText());
+    }
+
+    @Test
+    void longestWinsAmongMatchesEndingTogether() {
+        StopSequenceMatcher.Scanner scanner =
+            StopSequenceMatcher.of("cd", "bcd").scanner();
+        assertTrue(scanner.append("abcd"));
+        assertEquals("bcd", scanner.getMatch());
+        assertEquals("a", scanner.getText());
+    }
+
+    @Test
+    void matchesAtVeryStartAndIgnoresLaterText() {
+        StopSequenceMatcher.Scanner scanner =
+            StopSequenceMatcher.of("###").scanner();
+        assertTrue(scanner.append("###"));
+        assertTrue(scanner.append("more"));
+        assertEquals("", scanner.getText());
+        assertEquals(0, scanner.getSafeLength());
+    }
+
+    @Test
+    void toleratesNullChunks() {
+        StopSequenceMatcher.Scanner scanner =
+            StopSequenceMatcher.of("x").scanner();
+        assertFalse(scanner.append(null));
+        assertNull(scanner.getMatch());
+    }
+
+    @Test
+    void rejectsEmptySequences() {
+        assertThrows(IllegalArgumentException.class,
+            () -> StopSequenceMatcher.of(""));
+        assertThrows(IllegalArgumentException.class,
+            () -> StopSequenceMatcher.of());
+    }
+}
@@ -0,0 +1,76 @@
+package com.ollama.api.util;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the speed of the local token estimators on 64 KB of
+ * prose, source code or CJK text, against the chars/4 rule they
+ * replace. Divide 64 KB by the average time for throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenEstimatorBenchmark {
+
+    private static final int TEXT_CHARS = 64 * 1024;
+
+    @Param({"prose", "code", "cjk"})
+    String kind;
+
+    private String text;
+    private TokenEstimator calibrated;
+
+    @Setup
+    public void setUp() {
+        String unit = switch (kind) {
+            case "prose" -> "The quick brown fox jumps over the lazy dog, "
+                + "and then it rests for 15 minutes.\n";
+            case "code" -> "for (int i = 0; i < items.size(); i++) {\n"
+                + "    total += items.get(i).getPrice() * 1.25;\n}\n";
+            default -> "東京は日本の首都です。人口は約1400万人で、"
+                + "多くの観光客が訪れます。\n";
+        };
+        text = unit.repeat(TEXT_CHARS / unit.length() + 1)
+            .substring(0, TEXT_CHARS);
+        calibrated = new CalibratedTokenEstimator(
+            model -> HeuristicTokenEstimator.DEFAULT).forModel("llama3.2");
+    }
+
+    @Benchmark
+    public int charsOverFour() {
+        return (text.length() + 3) / 4;
+    }
+
+    @Benchmark
+    public int heuristic() {
+        return HeuristicTokenEstimator.DEFAULT.estimate(text);
+    }
+
+    @Benchmark
+    public int calibrated() {
+        return calibrated.estimate(text);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(TokenEstimatorBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}